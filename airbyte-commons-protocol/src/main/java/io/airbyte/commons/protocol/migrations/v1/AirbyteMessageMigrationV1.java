@@ -4,8 +4,6 @@
 
 package io.airbyte.commons.protocol.migrations.v1;
 
-import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.REF_KEY;
-
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -13,30 +11,38 @@ import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.common.annotations.VisibleForTesting;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.protocol.migrations.AirbyteMessageMigration;
-import io.airbyte.commons.protocol.migrations.util.RecordMigrations;
-import io.airbyte.commons.protocol.migrations.util.RecordMigrations.MigratedNode;
 import io.airbyte.commons.version.AirbyteProtocolVersion;
 import io.airbyte.commons.version.Version;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.protocol.models.AirbyteMessage.Type;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStream;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
 import io.airbyte.protocol.models.ConfiguredAirbyteStream;
-import io.airbyte.protocol.models.JsonSchemaReferenceTypes;
 import io.airbyte.validation.json.JsonSchemaValidator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Optional;
 
 /**
  * V1 Migration.
+ * <p>
+ * Records are migrated without copying the whole message: the envelope is rebuilt field by field
+ * and only the parts of the data that change are copied, the rest is shared with the old message.
+ * Other messages are copied before being migrated.
+ * <p>
+ * Records are downgraded with a {@link RecordDowngradePlan} per stream, compiled the first time a
+ * catalog is used. Catalogs are expected not to change once used to downgrade records.
  */
 // Disable V1 Migration, uncomment to re-enable
 // @Singleton
 public class AirbyteMessageMigrationV1 implements AirbyteMessageMigration<io.airbyte.protocol.models.v0.AirbyteMessage, AirbyteMessage> {
 
   private final JsonSchemaValidator validator;
+  // Downgrade plans of the streams of the last catalog used to downgrade records.
+  private volatile CatalogDowngradePlans catalogDowngradePlans;
 
   public AirbyteMessageMigrationV1() {
     this(new JsonSchemaValidator());
@@ -50,6 +56,9 @@ public class AirbyteMessageMigrationV1 implements AirbyteMessageMigration<io.air
   @Override
   public io.airbyte.protocol.models.v0.AirbyteMessage downgrade(final AirbyteMessage oldMessage,
                                                                 final Optional<ConfiguredAirbyteCatalog> configuredAirbyteCatalog) {
+    if (oldMessage.getType() == Type.RECORD && oldMessage.getRecord() != null) {
+      return downgradeRecordMessage(oldMessage, configuredAirbyteCatalog);
+    }
     final io.airbyte.protocol.models.v0.AirbyteMessage newMessage = Jsons.object(
         Jsons.jsonNode(oldMessage),
         io.airbyte.protocol.models.v0.AirbyteMessage.class);
@@ -58,31 +67,44 @@ public class AirbyteMessageMigrationV1 implements AirbyteMessageMigration<io.air
         final JsonNode schema = stream.getJsonSchema();
         SchemaMigrationV1.downgradeSchema(schema);
       }
-    } else if (oldMessage.getType() == Type.RECORD && oldMessage.getRecord() != null) {
-      if (configuredAirbyteCatalog.isPresent()) {
-        final ConfiguredAirbyteCatalog catalog = configuredAirbyteCatalog.get();
-        final io.airbyte.protocol.models.v0.AirbyteRecordMessage record = newMessage.getRecord();
-        final Optional<ConfiguredAirbyteStream> maybeStream = catalog.getStreams().stream()
-            .filter(stream -> Objects.equals(stream.getStream().getName(), record.getStream())
-                && Objects.equals(stream.getStream().getNamespace(), record.getNamespace()))
-            .findFirst();
-        // If this record doesn't belong to any configured stream, then there's no point downgrading it
-        // So only do the downgrade if we can find its stream
-        if (maybeStream.isPresent()) {
-          final JsonNode schema = maybeStream.get().getStream().getJsonSchema();
-          final JsonNode oldData = record.getData();
-          final MigratedNode downgradedNode = downgradeRecord(oldData, schema);
-          record.setData(downgradedNode.node());
-        }
+    }
+    return newMessage;
+  }
+
+  private io.airbyte.protocol.models.v0.AirbyteMessage downgradeRecordMessage(final AirbyteMessage oldMessage,
+                                                                              final Optional<ConfiguredAirbyteCatalog> configuredAirbyteCatalog) {
+    final AirbyteRecordMessage oldRecord = oldMessage.getRecord();
+    JsonNode data = oldRecord.getData();
+    if (configuredAirbyteCatalog.isPresent() && data != null) {
+      final RecordDowngradePlan plan = getDowngradePlans(configuredAirbyteCatalog.get())
+          .get(new StreamKey(oldRecord.getNamespace(), oldRecord.getStream()));
+      // If this record doesn't belong to any configured stream, then there's no point downgrading it
+      // So only do the downgrade if we can find its stream
+      if (plan != null) {
+        data = plan.downgrade(data);
       }
     }
+
+    final io.airbyte.protocol.models.v0.AirbyteRecordMessage newRecord = new io.airbyte.protocol.models.v0.AirbyteRecordMessage()
+        .withNamespace(oldRecord.getNamespace())
+        .withStream(oldRecord.getStream())
+        .withEmittedAt(oldRecord.getEmittedAt())
+        .withData(data);
+    oldRecord.getAdditionalProperties().forEach(newRecord::setAdditionalProperty);
+    final io.airbyte.protocol.models.v0.AirbyteMessage newMessage = new io.airbyte.protocol.models.v0.AirbyteMessage()
+        .withType(io.airbyte.protocol.models.v0.AirbyteMessage.Type.RECORD)
+        .withRecord(newRecord);
+    oldMessage.getAdditionalProperties().forEach(newMessage::setAdditionalProperty);
     return newMessage;
   }
 
   @Override
   public AirbyteMessage upgrade(final io.airbyte.protocol.models.v0.AirbyteMessage oldMessage,
                                 final Optional<ConfiguredAirbyteCatalog> configuredAirbyteCatalog) {
-    // We're not introducing any changes to the structure of the record/catalog
+    if (oldMessage.getType() == io.airbyte.protocol.models.v0.AirbyteMessage.Type.RECORD && oldMessage.getRecord() != null) {
+      return upgradeRecordMessage(oldMessage);
+    }
+    // We're not introducing any changes to the structure of the catalog
     // so just clone a new message object, which we can edit in-place
     final AirbyteMessage newMessage = Jsons.object(
         Jsons.jsonNode(oldMessage),
@@ -92,44 +114,68 @@ public class AirbyteMessageMigrationV1 implements AirbyteMessageMigration<io.air
         final JsonNode schema = stream.getJsonSchema();
         SchemaMigrationV1.upgradeSchema(schema);
       }
-    } else if (oldMessage.getType() == io.airbyte.protocol.models.v0.AirbyteMessage.Type.RECORD && oldMessage.getRecord() != null) {
-      final JsonNode oldData = newMessage.getRecord().getData();
-      final JsonNode newData = upgradeRecord(oldData);
-      newMessage.getRecord().setData(newData);
     }
     return newMessage;
   }
 
+  private static AirbyteMessage upgradeRecordMessage(final io.airbyte.protocol.models.v0.AirbyteMessage oldMessage) {
+    final io.airbyte.protocol.models.v0.AirbyteRecordMessage oldRecord = oldMessage.getRecord();
+    final AirbyteRecordMessage newRecord = new AirbyteRecordMessage()
+        .withNamespace(oldRecord.getNamespace())
+        .withStream(oldRecord.getStream())
+        .withEmittedAt(oldRecord.getEmittedAt())
+        .withData(oldRecord.getData() != null ? upgradeRecord(oldRecord.getData()) : null);
+    oldRecord.getAdditionalProperties().forEach(newRecord::setAdditionalProperty);
+    final AirbyteMessage newMessage = new AirbyteMessage()
+        .withType(Type.RECORD)
+        .withRecord(newRecord);
+    oldMessage.getAdditionalProperties().forEach(newMessage::setAdditionalProperty);
+    return newMessage;
+  }
+
   /**
-   * Returns a copy of oldData, with numeric values converted to strings. String and boolean values
-   * are returned as-is for convenience, i.e. this is not a true deep copy.
+   * Returns oldData with numeric values converted to strings. Objects and arrays are only copied if
+   * they contain a number, the ones that don't are returned as-is. oldData is not modified.
    */
   private static JsonNode upgradeRecord(final JsonNode oldData) {
     if (oldData.isNumber()) {
       // Base case: convert numbers to strings
-      return Jsons.convertValue(oldData.asText(), TextNode.class);
+      return TextNode.valueOf(oldData.asText());
     } else if (oldData.isObject()) {
-      // Recurse into each field of the object
-      final ObjectNode newData = (ObjectNode) Jsons.emptyObject();
+      // Recurse into each field of the object, copying it on the first field that changes
+      ObjectNode newData = null;
 
       final Iterator<Entry<String, JsonNode>> fieldsIterator = oldData.fields();
       while (fieldsIterator.hasNext()) {
         final Entry<String, JsonNode> next = fieldsIterator.next();
-        final String key = next.getKey();
         final JsonNode value = next.getValue();
 
         final JsonNode newValue = upgradeRecord(value);
-        newData.set(key, newValue);
+        if (newValue != value) {
+          if (newData == null) {
+            newData = ((ObjectNode) oldData).objectNode();
+            newData.setAll((ObjectNode) oldData);
+          }
+          newData.set(next.getKey(), newValue);
+        }
       }
 
-      return newData;
+      return newData != null ? newData : oldData;
     } else if (oldData.isArray()) {
-      // Recurse into each element of the array
-      final ArrayNode newData = Jsons.arrayNode();
-      for (final JsonNode element : oldData) {
-        newData.add(upgradeRecord(element));
+      // Recurse into each element of the array, copying it on the first element that changes
+      ArrayNode newData = null;
+      for (int i = 0; i < oldData.size(); i++) {
+        final JsonNode element = oldData.get(i);
+        final JsonNode newElement = upgradeRecord(element);
+        if (newElement != element) {
+          if (newData == null) {
+            newData = ((ArrayNode) oldData).arrayNode();
+            newData.addAll((ArrayNode) oldData);
+          }
+          newData.set(i, newElement);
+        }
       }
-      return newData;
+      return newData != null ? newData : oldData;
     } else {
       // Base case: this is a string or boolean, so we don't need to modify it
       return oldData;
@@ -137,35 +183,22 @@ public class AirbyteMessageMigrationV1 implements AirbyteMessageMigration<io.air
   }
 
   /**
-   * We need the schema to recognize which fields are integers, since it would be wrong to just assume
-   * any numerical string should be parsed out.
-   *
-   * Works on a best-effort basis. If the schema doesn't match the data, we'll do our best to
-   * downgrade anything that we can definitively say is a number. Should _not_ throw an exception if
-   * bad things happen (e.g. we try to parse a non-numerical string as a number).
+   * Returns the downgrade plans of the streams of the catalog, by stream. Plans are compiled the
+   * first time the catalog is used.
    */
-  private MigratedNode downgradeRecord(final JsonNode data, final JsonNode schema) {
-    return RecordMigrations.mutateDataNode(
-        validator,
-        s -> {
-          if (s.hasNonNull(REF_KEY)) {
-            final String type = s.get(REF_KEY).asText();
-            return JsonSchemaReferenceTypes.INTEGER_REFERENCE.equals(type)
-                || JsonSchemaReferenceTypes.NUMBER_REFERENCE.equals(type);
-          } else {
-            return false;
-          }
-        },
-        (s, d) -> {
-          if (d.asText().matches("-?\\d+(\\.\\d+)?")) {
-            // If this string is a numeric literal, convert it to a numeric node.
-            return new MigratedNode(Jsons.deserialize(d.asText()), true);
-          } else {
-            // Otherwise, just leave the node unchanged.
-            return new MigratedNode(d, false);
-          }
-        },
-        data, schema);
+  private Map<StreamKey, RecordDowngradePlan> getDowngradePlans(final ConfiguredAirbyteCatalog catalog) {
+    final CatalogDowngradePlans current = catalogDowngradePlans;
+    if (current != null && current.catalog() == catalog) {
+      return current.plans();
+    }
+    final Map<StreamKey, RecordDowngradePlan> plans = new HashMap<>();
+    for (final ConfiguredAirbyteStream stream : catalog.getStreams()) {
+      // Records of streams configured twice are downgraded with the first one.
+      plans.computeIfAbsent(new StreamKey(stream.getStream().getNamespace(), stream.getStream().getName()),
+          key -> RecordDowngradePlan.compile(validator, stream.getStream().getJsonSchema()));
+    }
+    catalogDowngradePlans = new CatalogDowngradePlans(catalog, plans);
+    return plans;
   }
 
   @Override
@@ -178,4 +211,8 @@ public class AirbyteMessageMigrationV1 implements AirbyteMessageMigration<io.air
     return AirbyteProtocolVersion.V1;
   }
 
+  private record StreamKey(String namespace, String name) {}
+
+  private record CatalogDowngradePlans(ConfiguredAirbyteCatalog catalog, Map<StreamKey, RecordDowngradePlan> plans) {}
+
 }
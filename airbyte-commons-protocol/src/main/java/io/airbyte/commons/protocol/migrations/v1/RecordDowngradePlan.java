@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.protocol.migrations.v1;
+
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.ARRAY_TYPE;
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.ITEMS_KEY;
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.OBJECT_TYPE;
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.ONEOF_KEY;
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.PROPERTIES_KEY;
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.REF_KEY;
+import static io.airbyte.protocol.models.JsonSchemaReferenceTypes.TYPE_KEY;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.protocol.migrations.util.RecordMigrations;
+import io.airbyte.commons.protocol.migrations.util.RecordMigrations.MigratedNode;
+import io.airbyte.protocol.models.JsonSchemaReferenceTypes;
+import io.airbyte.validation.json.JsonSchemaValidator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+
+/**
+ * Downgrade of the records of a stream, compiled once from the JSON schema of the stream.
+ * <p>
+ * The plan only holds the parts of the schema that declare an integer or a number, so downgrading a
+ * record only visits the fields on the way to those values and leaves the rest of the record as is.
+ * Objects and arrays are copied when one of their values changes, the record itself is never
+ * modified. The result is the same as walking the record with {@link RecordMigrations}, which is
+ * still used for oneOf schemas: picking the right option requires validating the record against
+ * each of them.
+ */
+public class RecordDowngradePlan {
+
+  private static final Pattern NUMERIC_LITERAL = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+  // Null when the records of the stream are never modified.
+  private final Step root;
+
+  private RecordDowngradePlan(final Step root) {
+    this.root = root;
+  }
+
+  /**
+   * Compile the downgrade of the records of a stream.
+   *
+   * @param validator validator used to pick the option of oneOf schemas
+   * @param schema JSON schema of the stream
+   * @return the plan
+   */
+  public static RecordDowngradePlan compile(final JsonSchemaValidator validator, final JsonNode schema) {
+    return new RecordDowngradePlan(schema != null ? compileStep(validator, schema) : null);
+  }
+
+  /**
+   * Returns data with the numeric literals declared as integers or numbers by the schema converted
+   * to numbers. data is not modified, the values that do not change are shared with it.
+   */
+  public JsonNode downgrade(final JsonNode data) {
+    return root != null ? root.apply(data) : data;
+  }
+
+  /**
+   * Whether downgrading never modifies a record.
+   */
+  public boolean isNoOp() {
+    return root == null;
+  }
+
+  /**
+   * Schemas declaring an integer or a number, their values are converted to numbers.
+   */
+  static boolean isNumericReference(final JsonNode schema) {
+    if (schema.hasNonNull(REF_KEY)) {
+      final String type = schema.get(REF_KEY).asText();
+      return JsonSchemaReferenceTypes.INTEGER_REFERENCE.equals(type)
+          || JsonSchemaReferenceTypes.NUMBER_REFERENCE.equals(type);
+    } else {
+      return false;
+    }
+  }
+
+  static MigratedNode convertNumericLiteral(final JsonNode schema, final JsonNode data) {
+    if (NUMERIC_LITERAL.matcher(data.asText()).matches()) {
+      // If this string is a numeric literal, convert it to a numeric node.
+      return new MigratedNode(Jsons.deserialize(data.asText()), true);
+    } else {
+      // Otherwise, just leave the node unchanged.
+      return new MigratedNode(data, false);
+    }
+  }
+
+  /**
+   * Returns the step downgrading the values of the schema, null if they are never modified. Follows
+   * the same rules as {@link RecordMigrations} to decide whether a schema is an object or an array
+   * schema.
+   */
+  private static Step compileStep(final JsonSchemaValidator validator, final JsonNode schema) {
+    if (!schema.hasNonNull(REF_KEY) && !schema.hasNonNull(TYPE_KEY) && schema.hasNonNull(ONEOF_KEY)) {
+      return containsNumericReference(schema) ? new OneOfStep(validator, schema) : null;
+    }
+    if (isNumericReference(schema)) {
+      return data -> convertNumericLiteral(schema, data).node();
+    }
+
+    Map<String, Step> properties = null;
+    if (isSchemaOf(schema, OBJECT_TYPE, PROPERTIES_KEY)) {
+      final JsonNode propertiesNode = schema.get(PROPERTIES_KEY);
+      if (propertiesNode != null && propertiesNode.isObject()) {
+        final Iterator<Entry<String, JsonNode>> fields = propertiesNode.fields();
+        while (fields.hasNext()) {
+          final Entry<String, JsonNode> field = fields.next();
+          final Step step = field.getValue().isNull() ? null : compileStep(validator, field.getValue());
+          if (step != null) {
+            if (properties == null) {
+              properties = new LinkedHashMap<>();
+            }
+            properties.put(field.getKey(), step);
+          }
+        }
+      }
+    }
+
+    Step items = null;
+    List<Step> tupleItems = null;
+    if (isSchemaOf(schema, ARRAY_TYPE, ITEMS_KEY) && schema.get(ITEMS_KEY) != null) {
+      final JsonNode itemsNode = schema.get(ITEMS_KEY);
+      if (itemsNode.isArray()) {
+        final List<Step> steps = new ArrayList<>();
+        boolean hasStep = false;
+        for (final JsonNode itemSchema : itemsNode) {
+          final Step step = compileStep(validator, itemSchema);
+          steps.add(step);
+          hasStep |= step != null;
+        }
+        tupleItems = hasStep ? steps : null;
+      } else {
+        items = compileStep(validator, itemsNode);
+      }
+    }
+
+    if (properties == null && items == null && tupleItems == null) {
+      return null;
+    }
+    return new ContainerStep(properties, items, tupleItems);
+  }
+
+  /**
+   * Whether the schema is for the given type: it is not a reference and either declares the type or
+   * declares no type but has the given key.
+   */
+  private static boolean isSchemaOf(final JsonNode schema, final String type, final String key) {
+    if (schema.hasNonNull(REF_KEY)) {
+      return false;
+    } else if (schema.hasNonNull(TYPE_KEY)) {
+      final JsonNode typeNode = schema.get(TYPE_KEY);
+      if (typeNode.isArray()) {
+        for (final JsonNode typeItem : typeNode) {
+          if (type.equals(typeItem.asText())) {
+            return true;
+          }
+        }
+        return false;
+      } else {
+        return type.equals(typeNode.asText());
+      }
+    } else {
+      return schema.hasNonNull(key);
+    }
+  }
+
+  private static boolean containsNumericReference(final JsonNode schema) {
+    if (isNumericReference(schema)) {
+      return true;
+    }
+    for (final JsonNode child : schema) {
+      if (containsNumericReference(child)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @FunctionalInterface
+  private interface Step {
+
+    JsonNode apply(JsonNode data);
+
+  }
+
+  private record OneOfStep(JsonSchemaValidator validator, JsonNode schema) implements Step {
+
+    @Override
+    public JsonNode apply(final JsonNode data) {
+      return RecordMigrations.mutateDataNode(validator, RecordDowngradePlan::isNumericReference, RecordDowngradePlan::convertNumericLiteral,
+          data, schema).node();
+    }
+
+  }
+
+  private record ContainerStep(Map<String, Step> properties, Step items, List<Step> tupleItems) implements Step {
+
+    @Override
+    public JsonNode apply(final JsonNode data) {
+      if (data.isObject() && properties != null) {
+        return applyToObject((ObjectNode) data);
+      } else if (data.isArray() && (items != null || tupleItems != null)) {
+        return applyToArray((ArrayNode) data);
+      } else {
+        return data;
+      }
+    }
+
+    private JsonNode applyToObject(final ObjectNode data) {
+      ObjectNode newData = null;
+      for (final Entry<String, Step> property : properties.entrySet()) {
+        final JsonNode value = data.get(property.getKey());
+        if (value == null) {
+          continue;
+        }
+        final JsonNode newValue = property.getValue().apply(value);
+        if (newValue != value) {
+          if (newData == null) {
+            newData = data.objectNode();
+            newData.setAll(data);
+          }
+          newData.set(property.getKey(), newValue);
+        }
+      }
+      return newData != null ? newData : data;
+    }
+
+    private JsonNode applyToArray(final ArrayNode data) {
+      ArrayNode newData = null;
+      for (int i = 0; i < data.size(); i++) {
+        final Step step = items != null ? items : (i < tupleItems.size() ? tupleItems.get(i) : null);
+        if (step == null) {
+          continue;
+        }
+        final JsonNode element = data.get(i);
+        final JsonNode newElement = step.apply(element);
+        if (newElement != element) {
+          if (newData == null) {
+            newData = data.arrayNode();
+            newData.addAll(data);
+          }
+          newData.set(i, newElement);
+        }
+      }
+      return newData != null ? newData : data;
+    }
+
+  }
+
+}
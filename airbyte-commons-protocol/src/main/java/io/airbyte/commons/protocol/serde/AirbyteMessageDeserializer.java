@@ -5,6 +5,7 @@
 package io.airbyte.commons.protocol.serde;
 
 import io.airbyte.commons.version.Version;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 /**
@@ -16,6 +17,14 @@ public interface AirbyteMessageDeserializer<T> {
 
   Optional<T> deserialize(final String json);
 
+  /**
+   * Deserialize a message from a slice of a UTF-8 encoded buffer. Implementations should override
+   * this to avoid decoding the buffer to a String first.
+   */
+  default Optional<T> deserialize(final byte[] json, final int offset, final int length) {
+    return deserialize(new String(json, offset, length, StandardCharsets.UTF_8));
+  }
+
   Version getTargetVersion();
 
 }
@@ -4,6 +4,9 @@
 
 package io.airbyte.commons.protocol.serde;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.airbyte.commons.jackson.MoreMappers;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.version.Version;
 import java.util.Optional;
@@ -11,18 +14,26 @@ import lombok.Getter;
 
 /**
  * Default Airbyte Protocol deserializer.
+ * <p>
+ * Records read from bytes are {@link MeasuredAirbyteRecordMessage} that know the size of their
+ * data.
  *
  * @param <T> object type
  */
 public class AirbyteMessageGenericDeserializer<T> implements AirbyteMessageDeserializer<T> {
 
+  // Object Mapper is thread-safe
+  private static final ObjectMapper OBJECT_MAPPER = MeasuredAirbyteRecordMessage.addMixIn(MoreMappers.initMapper());
+
   @Getter
   final Version targetVersion;
   final Class<T> typeClass;
+  private final ObjectReader reader;
 
   public AirbyteMessageGenericDeserializer(final Version targetVersion, final Class<T> typeClass) {
     this.targetVersion = targetVersion;
     this.typeClass = typeClass;
+    this.reader = OBJECT_MAPPER.readerFor(typeClass);
   }
 
   @Override
@@ -30,4 +41,13 @@ public class AirbyteMessageGenericDeserializer<T> implements AirbyteMessageDeser
     return Jsons.tryDeserialize(json, typeClass);
   }
 
+  @Override
+  public Optional<T> deserialize(final byte[] json, final int offset, final int length) {
+    try {
+      return Optional.of(reader.readValue(json, offset, length));
+    } catch (final Throwable e) {
+      return Optional.empty();
+    }
+  }
+
 }
@@ -4,8 +4,10 @@
 
 package io.airbyte.commons.protocol.serde;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.version.Version;
+import java.io.IOException;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -25,4 +27,9 @@ public class AirbyteMessageGenericSerializer<T> implements AirbyteMessageSeriali
     return Jsons.serialize(message);
   }
 
+  @Override
+  public void serialize(final T message, final JsonGenerator generator) throws IOException {
+    Jsons.serialize(generator, message);
+  }
+
 }
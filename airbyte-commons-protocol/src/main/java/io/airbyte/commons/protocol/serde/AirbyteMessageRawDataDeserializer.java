@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.protocol.serde;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.airbyte.commons.jackson.MoreMappers;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.commons.version.Version;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Deserializer that does not parse the data of records.
+ * <p>
+ * Like {@link AirbyteMessageGenericDeserializer}, it deserializes to the message model used by the
+ * platform, so it can only be used for versions of the protocol that do not need to be migrated. The
+ * envelope of the message is deserialized as usual but {@link AirbyteRecordMessage#getData()}
+ * is a {@link RawJson} node holding a copy of the original bytes. It is meant for syncs where the
+ * platform does not need to look at the records, see {@link RawJson#materialize(JsonNode)} for
+ * components that do. The size of the data is the size of its {@link RawJson} node.
+ */
+public class AirbyteMessageRawDataDeserializer implements AirbyteMessageDeserializer<AirbyteMessage> {
+
+  private static final String SOURCE_ATTRIBUTE = AirbyteMessageRawDataDeserializer.class.getName() + ".source";
+
+  // Object Reader is thread-safe
+  private static final ObjectReader OBJECT_READER = initMapper().readerFor(AirbyteMessage.class);
+
+  private final Version targetVersion;
+
+  public AirbyteMessageRawDataDeserializer(final Version targetVersion) {
+    this.targetVersion = targetVersion;
+  }
+
+  @Override
+  public Optional<AirbyteMessage> deserialize(final String json) {
+    final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    return deserialize(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public Optional<AirbyteMessage> deserialize(final byte[] json, final int offset, final int length) {
+    try {
+      return Optional.of(OBJECT_READER.withAttribute(SOURCE_ATTRIBUTE, new Source(json, offset)).readValue(json, offset, length));
+    } catch (final Throwable e) {
+      // Anything unexpected is handled by the regular deserializer, which also decides whether the line
+      // is a message at all.
+      return Jsons.tryDeserialize(json, offset, length, AirbyteMessage.class);
+    }
+  }
+
+  @Override
+  public Version getTargetVersion() {
+    return targetVersion;
+  }
+
+  private static ObjectMapper initMapper() {
+    final ObjectMapper mapper = MoreMappers.initMapper();
+    mapper.addMixIn(AirbyteRecordMessage.class, RawDataMixin.class);
+    return mapper;
+  }
+
+  /**
+   * Buffer being deserialized. The parser reports byte offsets relative to the offset it was given.
+   */
+  private record Source(byte[] buffer, int offset) {}
+
+  @SuppressWarnings("PMD.UnusedPrivateField")
+  @JsonDeserialize(as = MeasuredAirbyteRecordMessage.class)
+  private abstract static class RawDataMixin {
+
+    @JsonProperty("data")
+    @JsonDeserialize(using = RawDataDeserializer.class)
+    private JsonNode data;
+
+    @JsonProperty("data")
+    @JsonDeserialize(using = RawDataDeserializer.class)
+    abstract void setData(JsonNode data);
+
+  }
+
+  /**
+   * Skips over the data object and copies its bytes instead of building a tree.
+   */
+  private static class RawDataDeserializer extends JsonDeserializer<JsonNode> {
+
+    @Override
+    public JsonNode deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+      final Source source = (Source) context.getAttribute(SOURCE_ATTRIBUTE);
+      if (source == null || parser.currentToken() != JsonToken.START_OBJECT) {
+        // Malformed data, let the regular validation report it.
+        return context.readTree(parser);
+      }
+
+      final long start = parser.getTokenLocation().getByteOffset();
+      parser.skipChildren();
+      final long end = parser.getCurrentLocation().getByteOffset();
+      final int from = source.offset() + (int) start;
+      final int to = source.offset() + (int) end;
+      if (start < 0 || end <= start || to > source.buffer().length || source.buffer()[from] != '{' || source.buffer()[to - 1] != '}') {
+        throw new IllegalStateException("Unable to locate the data of the record in the message");
+      }
+      return RawJson.of(Arrays.copyOfRange(source.buffer(), from, to));
+    }
+
+  }
+
+}
@@ -4,7 +4,9 @@
 
 package io.airbyte.commons.protocol.serde;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.airbyte.commons.version.Version;
+import java.io.IOException;
 
 /**
  * Airbyte Protocol serialization interface.
@@ -15,6 +17,14 @@ public interface AirbyteMessageSerializer<T> {
 
   String serialize(final T message);
 
+  /**
+   * Serialize a message to a generator. Implementations should override this to avoid building a
+   * String first.
+   */
+  default void serialize(final T message, final JsonGenerator generator) throws IOException {
+    generator.writeRawValue(serialize(message));
+  }
+
   Version getTargetVersion();
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.protocol.serde;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import java.io.IOException;
+import java.util.OptionalInt;
+
+/**
+ * Record deserialized from the output of a connector, which remembers the size of the data it was
+ * read from.
+ * <p>
+ * The size is measured by the parser, as the bytes between the start and the end of the data, and
+ * is not part of the protocol, so it is never serialized. It is meant for book keeping that would
+ * otherwise have to serialize the data again to measure it. Any copy of the record, e.g. by a
+ * migration, is a regular {@link AirbyteRecordMessage} without a size.
+ */
+public class MeasuredAirbyteRecordMessage extends AirbyteRecordMessage {
+
+  private static final int UNKNOWN_SIZE = -1;
+
+  @JsonIgnore
+  private int dataSize = UNKNOWN_SIZE;
+
+  /**
+   * Size in bytes of the data the record was read from, if known.
+   */
+  public static OptionalInt getDataSize(final AirbyteRecordMessage record) {
+    if (record instanceof MeasuredAirbyteRecordMessage measured && measured.dataSize != UNKNOWN_SIZE) {
+      return OptionalInt.of(measured.dataSize);
+    }
+    return OptionalInt.empty();
+  }
+
+  /**
+   * Forget the size of the data, for records that are modified after being read.
+   */
+  public static void clearDataSize(final AirbyteRecordMessage record) {
+    if (record instanceof MeasuredAirbyteRecordMessage measured) {
+      measured.dataSize = UNKNOWN_SIZE;
+    }
+  }
+
+  /**
+   * Make the given mapper deserialize records as {@link MeasuredAirbyteRecordMessage}.
+   *
+   * @return the given mapper
+   */
+  static ObjectMapper addMixIn(final ObjectMapper mapper) {
+    return mapper.addMixIn(AirbyteRecordMessage.class, MeasuredMixin.class);
+  }
+
+  @SuppressWarnings("PMD.UnusedPrivateField")
+  @JsonDeserialize(as = MeasuredAirbyteRecordMessage.class)
+  abstract static class MeasuredMixin {
+
+    @JsonProperty("data")
+    @JsonDeserialize(using = MeasuredDataDeserializer.class)
+    private JsonNode data;
+
+    @JsonProperty("data")
+    @JsonDeserialize(using = MeasuredDataDeserializer.class)
+    abstract void setData(JsonNode data);
+
+  }
+
+  /**
+   * Deserializes the data as usual and records the number of bytes it spans on the record being
+   * deserialized. The size stays unknown when the parser does not report byte offsets, e.g. when
+   * reading from a string.
+   */
+  private static class MeasuredDataDeserializer extends JsonDeserializer<JsonNode> {
+
+    @Override
+    public JsonNode deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+      // The record is the current value of the object that holds the data, which is the parent context
+      // once the parser entered an object or an array.
+      final JsonStreamContext recordContext = parser.currentToken().isStructStart() ? parser.getParsingContext().getParent()
+          : parser.getParsingContext();
+      final long start = parser.getTokenLocation().getByteOffset();
+      final JsonNode data = context.readTree(parser);
+      final long end = parser.getCurrentLocation().getByteOffset();
+      if (recordContext != null && recordContext.getCurrentValue() instanceof MeasuredAirbyteRecordMessage measured
+          && start >= 0 && end > start && end - start <= Integer.MAX_VALUE) {
+        measured.dataSize = (int) (end - start);
+      }
+      return data;
+    }
+
+  }
+
+}
@@ -5,6 +5,7 @@
 package io.airbyte.commons.protocol.migrations.v1;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.airbyte.commons.json.Jsons;
@@ -677,6 +678,44 @@ class AirbyteMessageMigrationV1Test {
           """);
     }
 
+    @Test
+    void testUpgradeKeepsTheRecordFieldsAndTheOldMessage() {
+      final JsonNode oldData = Jsons.deserialize(
+          """
+          {
+            "id": 42,
+            "unchanged": {"name": "arst", "tags": ["a", "b"]}
+          }
+          """);
+      final io.airbyte.protocol.models.v0.AirbyteMessage oldMessage = createRecordMessage(oldData);
+      oldMessage.getRecord().withStream("foo_stream").withNamespace("foo_namespace").withEmittedAt(1234L);
+      oldMessage.getRecord().setAdditionalProperty("extra", "value");
+
+      final AirbyteMessage upgradedMessage = migration.upgrade(oldMessage, Optional.empty());
+
+      final AirbyteMessage expectedMessage = Jsons.deserialize(
+          """
+          {
+            "type": "RECORD",
+            "record": {
+              "stream": "foo_stream",
+              "namespace": "foo_namespace",
+              "emitted_at": 1234,
+              "extra": "value",
+              "data": {
+                "id": "42",
+                "unchanged": {"name": "arst", "tags": ["a", "b"]}
+              }
+            }
+          }
+          """,
+          AirbyteMessage.class);
+      assertEquals(expectedMessage, upgradedMessage);
+      // The old message is left as is, the parts of the data without numbers are shared.
+      assertEquals(Jsons.deserialize("{\"id\": 42, \"unchanged\": {\"name\": \"arst\", \"tags\": [\"a\", \"b\"]}}"), oldData);
+      assertSame(oldData.get("unchanged"), upgradedMessage.getRecord().getData().get("unchanged"));
+    }
+
     private io.airbyte.protocol.models.v0.AirbyteMessage createRecordMessage(final JsonNode data) {
       return new io.airbyte.protocol.models.v0.AirbyteMessage().withType(io.airbyte.protocol.models.v0.AirbyteMessage.Type.RECORD)
           .withRecord(new io.airbyte.protocol.models.v0.AirbyteRecordMessage().withData(data));
@@ -1615,6 +1654,64 @@ class AirbyteMessageMigrationV1Test {
           """);
     }
 
+    @Test
+    void testDowngradeKeepsTheRecordFieldsAndTheOldMessage() {
+      final ConfiguredAirbyteCatalog catalog = createConfiguredAirbyteCatalog(
+          """
+          {
+            "type": "object",
+            "properties": {
+              "id": {"$ref": "WellKnownTypes.json#/definitions/Integer"}
+            }
+          }
+          """);
+      final JsonNode oldData = Jsons.deserialize(
+          """
+          {"id": "42"}
+          """);
+      final AirbyteMessage oldMessage = createRecordMessage(oldData);
+      oldMessage.getRecord().setEmittedAt(1234L);
+      oldMessage.getRecord().setAdditionalProperty("extra", "value");
+
+      final io.airbyte.protocol.models.v0.AirbyteMessage downgradedMessage = migration.downgrade(oldMessage, Optional.of(catalog));
+
+      final io.airbyte.protocol.models.v0.AirbyteMessage expectedMessage = Jsons.deserialize(
+          """
+          {
+            "type": "RECORD",
+            "record": {
+              "stream": "foo_stream",
+              "namespace": "foo_namespace",
+              "emitted_at": 1234,
+              "extra": "value",
+              "data": {"id": 42}
+            }
+          }
+          """,
+          io.airbyte.protocol.models.v0.AirbyteMessage.class);
+      assertEquals(expectedMessage, downgradedMessage);
+      assertEquals(Jsons.deserialize("{\"id\": \"42\"}"), oldData);
+    }
+
+    @Test
+    void testDowngradeRecordOfAnUnknownStream() {
+      final ConfiguredAirbyteCatalog catalog = createConfiguredAirbyteCatalog(
+          """
+          {"$ref": "WellKnownTypes.json#/definitions/Integer"}
+          """);
+      final JsonNode oldData = Jsons.deserialize(
+          """
+          "42"
+          """);
+      final AirbyteMessage oldMessage = createRecordMessage(oldData);
+      oldMessage.getRecord().setStream("other_stream");
+
+      final io.airbyte.protocol.models.v0.AirbyteMessage downgradedMessage = migration.downgrade(oldMessage, Optional.of(catalog));
+
+      assertEquals(oldData, downgradedMessage.getRecord().getData());
+      assertEquals("other_stream", downgradedMessage.getRecord().getStream());
+    }
+
     private ConfiguredAirbyteCatalog createConfiguredAirbyteCatalog(final String schema) {
       return new ConfiguredAirbyteCatalog()
           .withStreams(List.of(new ConfiguredAirbyteStream().withStream(new io.airbyte.protocol.models.AirbyteStream()
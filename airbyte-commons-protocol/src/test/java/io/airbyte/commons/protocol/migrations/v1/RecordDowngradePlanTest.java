@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.protocol.migrations.v1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.resources.MoreResources;
+import io.airbyte.validation.json.JsonSchemaValidator;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RecordDowngradePlanTest {
+
+  private JsonSchemaValidator validator;
+
+  @BeforeEach
+  void setup() throws URISyntaxException {
+    final URI parentUri = MoreResources.readResourceAsFile("WellKnownTypes.json").getAbsoluteFile().toURI();
+    validator = new JsonSchemaValidator(parentUri);
+  }
+
+  @Test
+  void testSchemaWithoutNumbersIsANoOp() {
+    final RecordDowngradePlan plan = RecordDowngradePlan.compile(validator, Jsons.deserialize(
+        """
+        {
+          "type": "object",
+          "properties": {
+            "name": {"$ref": "WellKnownTypes.json#/definitions/String"},
+            "tags": {
+              "type": "array",
+              "items": {"$ref": "WellKnownTypes.json#/definitions/String"}
+            }
+          }
+        }
+        """));
+    final JsonNode data = Jsons.deserialize(
+        """
+        {"name": "42", "tags": ["1", "2"]}
+        """);
+
+    assertTrue(plan.isNoOp());
+    assertSame(data, plan.downgrade(data));
+  }
+
+  @Test
+  void testOnlyTheChangedValuesAreCopied() {
+    final RecordDowngradePlan plan = RecordDowngradePlan.compile(validator, Jsons.deserialize(
+        """
+        {
+          "type": "object",
+          "properties": {
+            "name": {"$ref": "WellKnownTypes.json#/definitions/String"},
+            "address": {
+              "type": "object",
+              "properties": {
+                "street": {"$ref": "WellKnownTypes.json#/definitions/String"}
+              }
+            },
+            "stats": {
+              "type": "object",
+              "properties": {
+                "count": {"$ref": "WellKnownTypes.json#/definitions/Integer"},
+                "ratio": {"$ref": "WellKnownTypes.json#/definitions/Number"},
+                "label": {"$ref": "WellKnownTypes.json#/definitions/String"}
+              }
+            }
+          }
+        }
+        """));
+    final JsonNode data = Jsons.deserialize(
+        """
+        {
+          "name": "42",
+          "address": {"street": "1"},
+          "stats": {"count": "12", "ratio": "-0.5", "label": "3", "extra": "4"},
+          "unknown": "5"
+        }
+        """);
+    final JsonNode original = data.deepCopy();
+
+    final JsonNode downgraded = plan.downgrade(data);
+
+    assertFalse(plan.isNoOp());
+    assertEquals(Jsons.deserialize(
+        """
+        {
+          "name": "42",
+          "address": {"street": "1"},
+          "stats": {"count": 12, "ratio": -0.5, "label": "3", "extra": "4"},
+          "unknown": "5"
+        }
+        """), downgraded);
+    assertEquals(original, data);
+    assertSame(data.get("address"), downgraded.get("address"));
+    assertSame(data.get("stats").get("label"), downgraded.get("stats").get("label"));
+  }
+
+  @Test
+  void testValuesThatAreNotNumericLiteralsAreKept() {
+    final RecordDowngradePlan plan = RecordDowngradePlan.compile(validator, Jsons.deserialize(
+        """
+        {
+          "type": "object",
+          "properties": {
+            "count": {"$ref": "WellKnownTypes.json#/definitions/Integer"}
+          }
+        }
+        """));
+    final JsonNode data = Jsons.deserialize(
+        """
+        {"count": "NaN"}
+        """);
+
+    assertSame(data, plan.downgrade(data));
+  }
+
+  @Test
+  void testArrays() {
+    final RecordDowngradePlan plan = RecordDowngradePlan.compile(validator, Jsons.deserialize(
+        """
+        {
+          "type": "object",
+          "properties": {
+            "list": {
+              "type": "array",
+              "items": {"$ref": "WellKnownTypes.json#/definitions/Integer"}
+            },
+            "tuple": {
+              "type": "array",
+              "items": [
+                {"$ref": "WellKnownTypes.json#/definitions/String"},
+                {"$ref": "WellKnownTypes.json#/definitions/Number"}
+              ]
+            }
+          }
+        }
+        """));
+    final JsonNode data = Jsons.deserialize(
+        """
+        {"list": ["1", "2", "a"], "tuple": ["3", "4.5", "6"]}
+        """);
+
+    assertEquals(Jsons.deserialize(
+        """
+        {"list": [1, 2, "a"], "tuple": ["3", 4.5, "6"]}
+        """), plan.downgrade(data));
+  }
+
+  @Test
+  void testOneOfMatchesTheOptionOfTheRecord() {
+    final RecordDowngradePlan plan = RecordDowngradePlan.compile(validator, Jsons.deserialize(
+        """
+        {
+          "type": "object",
+          "properties": {
+            "value": {
+              "oneOf": [
+                {"$ref": "WellKnownTypes.json#/definitions/String"},
+                {
+                  "type": "object",
+                  "properties": {
+                    "count": {"$ref": "WellKnownTypes.json#/definitions/Integer"}
+                  }
+                }
+              ]
+            }
+          }
+        }
+        """));
+
+    final JsonNode stringValue = Jsons.deserialize(
+        """
+        {"value": "1"}
+        """);
+    assertSame(stringValue, plan.downgrade(stringValue));
+    assertEquals(Jsons.deserialize(
+        """
+        {"value": {"count": 1}}
+        """), plan.downgrade(Jsons.deserialize(
+        """
+        {"value": {"count": "1"}}
+        """)));
+  }
+
+}
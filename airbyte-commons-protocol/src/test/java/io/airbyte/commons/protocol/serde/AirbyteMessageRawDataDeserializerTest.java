@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.protocol.serde;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.commons.version.AirbyteProtocolVersion;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteMessage.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class AirbyteMessageRawDataDeserializerTest {
+
+  private static final String DATA = "{ \"id\" : 1, \"name\": \"caf\u00e9\", \"nested\": {\"value\": \"}\"} }";
+  private static final String RECORD = "{\"type\":\"RECORD\",\"record\":{\"stream\":\"users\",\"namespace\":\"public\",\"data\":" + DATA
+      + ",\"emitted_at\":1234}}";
+
+  private final AirbyteMessageRawDataDeserializer deserializer = new AirbyteMessageRawDataDeserializer(AirbyteProtocolVersion.V0);
+
+  @Test
+  void testRecordDataIsKeptRaw() {
+    final AirbyteMessage message = deserializer.deserialize(RECORD).orElseThrow();
+
+    assertEquals(Type.RECORD, message.getType());
+    assertEquals("users", message.getRecord().getStream());
+    assertEquals("public", message.getRecord().getNamespace());
+    assertEquals(1234L, message.getRecord().getEmittedAt());
+    assertTrue(RawJson.isRaw(message.getRecord().getData()));
+    assertEquals(DATA, Jsons.serialize(message.getRecord().getData()));
+  }
+
+  @Test
+  void testMaterializedRecordMatchesTheRegularDeserializer() {
+    final AirbyteMessage expected = new AirbyteMessageV0Deserializer().deserialize(RECORD).orElseThrow();
+    final AirbyteMessage message = deserializer.deserialize(RECORD).orElseThrow();
+    message.getRecord().setData(RawJson.materialize(message.getRecord().getData()));
+
+    assertEquals(expected, message);
+  }
+
+  @Test
+  void testDeserializeSliceOfBuffer() {
+    final byte[] buffer = ("garbage\n" + RECORD + "\nmore garbage").getBytes(StandardCharsets.UTF_8);
+    final int offset = "garbage\n".length();
+    final AirbyteMessage message = deserializer.deserialize(buffer, offset, RECORD.getBytes(StandardCharsets.UTF_8).length).orElseThrow();
+
+    assertTrue(RawJson.isRaw(message.getRecord().getData()));
+    assertEquals(DATA, Jsons.serialize(message.getRecord().getData()));
+  }
+
+  @Test
+  void testNonObjectDataIsParsed() {
+    final AirbyteMessage message = deserializer.deserialize("{\"type\":\"RECORD\",\"record\":{\"stream\":\"users\",\"data\":[1,2]}}").orElseThrow();
+
+    assertFalse(RawJson.isRaw(message.getRecord().getData()));
+    assertEquals(Jsons.deserialize("[1,2]"), message.getRecord().getData());
+  }
+
+  @Test
+  void testOtherMessagesAreUnchanged() {
+    final String state = "{\"type\":\"STATE\",\"state\":{\"data\":{\"cursor\":10}}}";
+
+    assertEquals(new AirbyteMessageV0Deserializer().deserialize(state), deserializer.deserialize(state));
+    assertEquals(Optional.empty(), deserializer.deserialize("not a message"));
+  }
+
+}
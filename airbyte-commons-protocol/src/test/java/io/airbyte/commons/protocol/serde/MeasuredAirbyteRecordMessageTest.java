@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.protocol.serde;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.commons.version.AirbyteProtocolVersion;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteMessage.Type;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalInt;
+import org.junit.jupiter.api.Test;
+
+class MeasuredAirbyteRecordMessageTest {
+
+  private static final String DATA = "{\"name\": \"caf\u00e9\"}";
+  private static final int DATA_BYTES = DATA.getBytes(StandardCharsets.UTF_8).length;
+  private static final String RECORD = "{\"type\":\"RECORD\",\"record\":{\"stream\":\"users\",\"data\":" + DATA + ",\"emitted_at\":1234}}";
+  private static final byte[] RECORD_BYTES = RECORD.getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testRecordsReadFromBytesKnowTheSizeOfTheirData() {
+    final AirbyteMessage message = new AirbyteMessageV1Deserializer().deserialize(RECORD_BYTES, 0, RECORD_BYTES.length).orElseThrow();
+
+    // The data as it was read, not the whole message nor the data serialized again.
+    assertEquals(OptionalInt.of(DATA_BYTES), MeasuredAirbyteRecordMessage.getDataSize(message.getRecord()));
+  }
+
+  @Test
+  void testRawDataHasTheSameSize() {
+    final AirbyteMessage message = new AirbyteMessageRawDataDeserializer(AirbyteProtocolVersion.V1)
+        .deserialize(RECORD_BYTES, 0, RECORD_BYTES.length).orElseThrow();
+
+    assertEquals(DATA_BYTES, RawJson.byteSize(message.getRecord().getData()));
+  }
+
+  @Test
+  void testScalarDataIsMeasured() {
+    final byte[] record = "{\"type\":\"RECORD\",\"record\":{\"data\":\"caf\u00e9\",\"stream\":\"users\"}}".getBytes(StandardCharsets.UTF_8);
+    final AirbyteMessage message = new AirbyteMessageV1Deserializer().deserialize(record, 0, record.length).orElseThrow();
+
+    assertEquals(OptionalInt.of("\"caf\u00e9\"".getBytes(StandardCharsets.UTF_8).length),
+        MeasuredAirbyteRecordMessage.getDataSize(message.getRecord()));
+  }
+
+  @Test
+  void testSizeIsNotSerialized() {
+    final AirbyteMessage message = new AirbyteMessageV1Deserializer().deserialize(RECORD_BYTES, 0, RECORD_BYTES.length).orElseThrow();
+
+    assertEquals(Jsons.deserialize(RECORD), Jsons.deserialize(Jsons.serialize(message)));
+  }
+
+  @Test
+  void testMeasuredRecordEqualsRegularRecord() {
+    final AirbyteMessage expected = new AirbyteMessage()
+        .withType(Type.RECORD)
+        .withRecord(new AirbyteRecordMessage().withStream("users").withData(Jsons.deserialize(DATA)).withEmittedAt(1234L));
+    final AirbyteMessage message = new AirbyteMessageV1Deserializer().deserialize(RECORD_BYTES, 0, RECORD_BYTES.length).orElseThrow();
+
+    assertEquals(expected, message);
+  }
+
+  @Test
+  void testClearDataSize() {
+    final AirbyteMessage message = new AirbyteMessageV1Deserializer().deserialize(RECORD_BYTES, 0, RECORD_BYTES.length).orElseThrow();
+    MeasuredAirbyteRecordMessage.clearDataSize(message.getRecord());
+
+    assertEquals(OptionalInt.empty(), MeasuredAirbyteRecordMessage.getDataSize(message.getRecord()));
+    assertEquals(OptionalInt.empty(), MeasuredAirbyteRecordMessage.getDataSize(new AirbyteRecordMessage()));
+  }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import com.google.common.io.CountingOutputStream;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import io.airbyte.workers.internal.AirbyteMessageBufferedWriter;
+import io.airbyte.workers.internal.DefaultAirbyteMessageBufferedWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways of writing messages to the stdin of a destination.
+ * <p>
+ * The previous implementation is reproduced with a {@link BufferedWriter}: every message is
+ * serialized to a String which is then encoded to UTF-8 by the writer. The streaming writer encodes
+ * the message straight into the output stream. Both write batches of messages and flush after each
+ * batch, like BufferedReplicationWorker does. The bytes written per second are reported by the
+ * {@code bytes} counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DestinationWriterBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+
+  @Param({"10", "100"})
+  public int fieldCount;
+
+  private AirbyteMessage message;
+
+  /**
+   * Counts the bytes written to the destination.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Output {
+
+    private CountingOutputStream outputStream;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      outputStream = new CountingOutputStream(OutputStream.nullOutputStream());
+    }
+
+    public long bytes() {
+      return outputStream.getCount();
+    }
+
+  }
+
+  @Setup
+  public void setup() {
+    final Map<String, Object> data = new LinkedHashMap<>();
+    for (int i = 0; i < fieldCount; i++) {
+      data.put("field_" + i, i % 2 == 0 ? "value with some text and an \u00e9 " + i : i * 1_000_003L);
+    }
+    message = new AirbyteMessage()
+        .withType(AirbyteMessage.Type.RECORD)
+        .withRecord(new AirbyteRecordMessage()
+            .withStream("benchmark_stream")
+            .withNamespace("benchmark_namespace")
+            .withEmittedAt(1_690_000_000_000L)
+            .withData(Jsons.jsonNode(data)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void stringWriter(final Output output, final StringWriterState state) throws IOException {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      state.writer.write(Jsons.serialize(message));
+      state.writer.newLine();
+    }
+    state.writer.flush();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void streamingWriter(final Output output, final StreamingWriterState state) throws IOException {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      state.writer.write(message);
+    }
+    state.writer.flush();
+  }
+
+  /**
+   * Writer used before messages were streamed to the destination.
+   */
+  @State(Scope.Thread)
+  public static class StringWriterState {
+
+    private BufferedWriter writer;
+
+    @Setup(Level.Iteration)
+    public void setup(final Output output) {
+      writer = new BufferedWriter(new OutputStreamWriter(output.outputStream, StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+      writer.close();
+    }
+
+  }
+
+  /**
+   * Writer used by DefaultAirbyteDestination.
+   */
+  @State(Scope.Thread)
+  public static class StreamingWriterState {
+
+    private AirbyteMessageBufferedWriter writer;
+
+    @Setup(Level.Iteration)
+    public void setup(final Output output) throws IOException {
+      writer = new DefaultAirbyteMessageBufferedWriter(output.outputStream);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+      writer.close();
+    }
+
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
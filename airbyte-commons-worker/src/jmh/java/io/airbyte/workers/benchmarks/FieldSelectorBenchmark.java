@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.airbyte.metrics.lib.MetricClientFactory;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
+import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
+import io.airbyte.protocol.models.ConfiguredAirbyteStream;
+import io.airbyte.workers.RecordSchemaValidator;
+import io.airbyte.workers.WorkerMetricReporter;
+import io.airbyte.workers.internal.FieldSelector;
+import io.airbyte.workers.internal.FieldSelector.ValidationSampling;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the work done by {@link FieldSelector} on every record: filtering the selected fields,
+ * validating the record against the schema of its stream until errors are found, or validating a
+ * sample of the records.
+ * <p>
+ * Validation runs on the benchmark thread instead of the validation threads of a sync, so that its
+ * whole cost is measured. All the fields of the records are selected and valid.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldSelectorBenchmark {
+
+  private static final int RECORDS = 1000;
+  private static final int STREAMS = 10;
+  private static final ValidationSampling SAMPLING = new ValidationSampling(100, 0.01);
+
+  @Param({"10", "100"})
+  public int fieldCount;
+
+  private List<AirbyteMessage> records;
+  private ConfiguredAirbyteCatalog catalog;
+  private FieldSelector fieldSelector;
+  private FieldSelector samplingFieldSelector;
+
+  @Setup
+  public void setup() {
+    records = SyntheticMessages.records(RECORDS, STREAMS, fieldCount, false);
+    catalog = SyntheticMessages.catalog(STREAMS, fieldCount);
+  }
+
+  @Setup(Level.Iteration)
+  public void setupIteration() throws Exception {
+    fieldSelector = newFieldSelector(Optional.empty());
+    samplingFieldSelector = newFieldSelector(Optional.of(SAMPLING));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void filterSelectedFields() {
+    for (final AirbyteMessage record : records) {
+      fieldSelector.filterSelectedFields(record);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void validateSchema() {
+    for (final AirbyteMessage record : records) {
+      fieldSelector.validateSchema(record);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void validateSchemaSampled() {
+    for (final AirbyteMessage record : records) {
+      samplingFieldSelector.validateSchema(record);
+    }
+  }
+
+  private FieldSelector newFieldSelector(final Optional<ValidationSampling> sampling) throws Exception {
+    final Map<AirbyteStreamNameNamespacePair, JsonNode> schemas = new HashMap<>();
+    for (final ConfiguredAirbyteStream stream : catalog.getStreams()) {
+      schemas.put(AirbyteStreamNameNamespacePair.fromConfiguredAirbyteSteam(stream), stream.getStream().getJsonSchema());
+    }
+    final RecordSchemaValidator validator =
+        new RecordSchemaValidator(schemas, MoreExecutors.newDirectExecutorService(), SyntheticMessages.schemaValidator());
+    final FieldSelector selector = new FieldSelector(validator,
+        new WorkerMetricReporter(MetricClientFactory.getMetricClient(), "airbyte/source-benchmark:1.0.0"), true, false, sampling);
+    selector.populateFields(catalog);
+    return selector;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
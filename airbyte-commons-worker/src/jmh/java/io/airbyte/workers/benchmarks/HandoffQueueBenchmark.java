@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import io.airbyte.commons.concurrency.BoundedConcurrentLinkedQueue;
+import io.airbyte.commons.concurrency.BoundedSpscRingBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the handoff queues used between the threads of the BufferedReplicationWorker.
+ * <p>
+ * Each invocation moves a fixed number of messages from a producer thread to the benchmark thread,
+ * the same way readFromSource hands messages to processMessage. The previous implementation is
+ * reproduced with {@link BoundedConcurrentLinkedQueue}: busy polling on the consumer side and
+ * sleeping on the producer side when the queue is full.
+ * <p>
+ * Besides throughput, compare the CPU time of both runs (e.g. with -prof gc or an external
+ * profiler): the ring buffer parks idle threads instead of spinning.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HandoffQueueBenchmark {
+
+  private static final int MESSAGES_PER_INVOCATION = 100_000;
+  private static final int BATCH_SIZE = 100;
+
+  @Param({"1000"})
+  public int bufferSize;
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+  public long boundedConcurrentLinkedQueue() throws Exception {
+    final BoundedConcurrentLinkedQueue<Integer> queue = new BoundedConcurrentLinkedQueue<>(bufferSize);
+    final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+      try {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+          while (!queue.add(i) && !queue.isClosed()) {
+            Thread.sleep(100);
+          }
+        }
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        queue.close();
+      }
+    });
+
+    long sum = 0;
+    while (!queue.isDone()) {
+      final Integer value = queue.poll();
+      if (value == null) {
+        continue;
+      }
+      sum += value;
+    }
+    producer.get();
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+  public long boundedSpscRingBuffer() throws Exception {
+    final BoundedSpscRingBuffer<Integer> buffer = new BoundedSpscRingBuffer<>(bufferSize);
+    final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+      try {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+          buffer.put(i);
+        }
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        buffer.close();
+      }
+    });
+
+    long sum = 0;
+    final List<Integer> batch = new ArrayList<>(BATCH_SIZE);
+    while (!buffer.isDone()) {
+      batch.clear();
+      buffer.drainTo(batch, BATCH_SIZE, 100, TimeUnit.MILLISECONDS);
+      for (final Integer value : batch) {
+        sum += value;
+      }
+    }
+    producer.get();
+    return sum;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
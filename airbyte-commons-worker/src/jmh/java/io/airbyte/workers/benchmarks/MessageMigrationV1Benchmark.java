@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.protocol.migrations.v1.AirbyteMessageMigrationV1;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the migration of records between protocol versions 0 and 1 by
+ * {@link AirbyteMessageMigrationV1}: upgrading the records of a V0 source and downgrading records
+ * for a V0 destination, which needs the schema of their stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageMigrationV1Benchmark {
+
+  private static final int RECORDS = 1000;
+
+  @Param({"10", "100"})
+  public int streamCount;
+
+  @Param({"10", "100"})
+  public int fieldCount;
+
+  private final List<io.airbyte.protocol.models.v0.AirbyteMessage> v0Records = new ArrayList<>();
+  private List<AirbyteMessage> v1Records;
+  private Optional<ConfiguredAirbyteCatalog> catalog;
+  private AirbyteMessageMigrationV1 migration;
+
+  @Setup
+  public void setup() throws Exception {
+    for (final AirbyteMessage record : SyntheticMessages.records(RECORDS, streamCount, fieldCount, false)) {
+      v0Records.add(Jsons.object(Jsons.jsonNode(record), io.airbyte.protocol.models.v0.AirbyteMessage.class));
+    }
+    v1Records = SyntheticMessages.records(RECORDS, streamCount, fieldCount, true);
+    catalog = Optional.of(SyntheticMessages.catalog(streamCount, fieldCount));
+    migration = new AirbyteMessageMigrationV1(SyntheticMessages.schemaValidator());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void upgrade(final Blackhole blackhole) {
+    for (final io.airbyte.protocol.models.v0.AirbyteMessage record : v0Records) {
+      blackhole.consume(migration.upgrade(record, catalog));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void downgrade(final Blackhole blackhole) {
+    for (final AirbyteMessage record : v1Records) {
+      blackhole.consume(migration.downgrade(record, catalog));
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
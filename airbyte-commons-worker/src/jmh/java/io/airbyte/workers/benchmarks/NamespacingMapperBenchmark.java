@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import io.airbyte.config.JobSyncConfig.NamespaceDefinitionType;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import io.airbyte.protocol.models.CatalogHelpers;
+import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
+import io.airbyte.protocol.models.ConfiguredAirbyteStream;
+import io.airbyte.protocol.models.Field;
+import io.airbyte.protocol.models.JsonSchemaType;
+import io.airbyte.workers.internal.NamespacingMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.util.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the mapping of records by {@link NamespacingMapper} with the previous implementation,
+ * which formatted the namespace with a regular expression and prefixed the stream name for every
+ * record.
+ * <p>
+ * Records of a few streams are mapped with a custom namespace format, the most expensive
+ * configuration. Mapping modifies the record, so each record gets its source stream back before
+ * being mapped again.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamespacingMapperBenchmark {
+
+  private static final int STREAMS = 10;
+  private static final int RECORDS = 1000;
+  private static final String NAMESPACE_FORMAT = "${SOURCE_NAMESPACE}_raw";
+  private static final String PREFIX = "airbyte_";
+
+  private final String[] namespaces = new String[STREAMS];
+  private final String[] streamNames = new String[STREAMS];
+  private final List<AirbyteMessage> messages = new ArrayList<>();
+  private NamespacingMapper mapper;
+
+  @Setup
+  public void setup() {
+    final List<ConfiguredAirbyteStream> streams = new ArrayList<>();
+    for (int i = 0; i < STREAMS; i++) {
+      namespaces[i] = "namespace_" + i;
+      streamNames[i] = "stream_" + i;
+      streams.add(CatalogHelpers.createConfiguredAirbyteStream(streamNames[i], namespaces[i], Field.of("id", JsonSchemaType.NUMBER)));
+    }
+    for (int i = 0; i < RECORDS; i++) {
+      messages.add(new AirbyteMessage().withType(AirbyteMessage.Type.RECORD).withRecord(new AirbyteRecordMessage()));
+    }
+    final ConfiguredAirbyteCatalog catalog = new ConfiguredAirbyteCatalog().withStreams(streams);
+    mapper = new NamespacingMapper(NamespaceDefinitionType.CUSTOMFORMAT, NAMESPACE_FORMAT, PREFIX, catalog);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void previousMapper() {
+    for (int i = 0; i < RECORDS; i++) {
+      final AirbyteRecordMessage record = resetRecord(i);
+      record.withNamespace(formatNamespace(record.getNamespace(), NAMESPACE_FORMAT));
+      record.setStream(transformStreamName(record.getStream(), PREFIX));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void namespacingMapper() {
+    for (int i = 0; i < RECORDS; i++) {
+      resetRecord(i);
+      mapper.mapMessage(messages.get(i));
+    }
+  }
+
+  private AirbyteRecordMessage resetRecord(final int i) {
+    return messages.get(i).getRecord().withNamespace(namespaces[i % STREAMS]).withStream(streamNames[i % STREAMS]);
+  }
+
+  // Previous implementation of NamespacingMapper.
+
+  private static String formatNamespace(final String sourceNamespace, final String namespaceFormat) {
+    String result = "";
+    if (Strings.isNotBlank(namespaceFormat)) {
+      final String regex = Pattern.quote("${SOURCE_NAMESPACE}");
+      result = namespaceFormat.replaceAll(regex, Strings.isNotBlank(sourceNamespace) ? sourceNamespace : "");
+    }
+    if (Strings.isBlank(result)) {
+      result = null;
+    }
+    return result;
+  }
+
+  private static String transformStreamName(final String streamName, final String prefix) {
+    if (Strings.isNotBlank(prefix)) {
+      return prefix + streamName;
+    } else {
+      return streamName;
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
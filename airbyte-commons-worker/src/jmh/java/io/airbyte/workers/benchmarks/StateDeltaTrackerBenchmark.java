@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import io.airbyte.workers.internal.book_keeping.StateDeltaTracker;
+import io.airbyte.workers.internal.book_keeping.StateDeltaTracker.StateDeltaTrackerException;
+import io.airbyte.workers.internal.book_keeping.StatsCounters;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the book keeping of {@link StateDeltaTracker} for every state of a sync: the source adds
+ * the delta of each state and the destination commits every 10th state, which aggregates all the
+ * deltas up to it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateDeltaTrackerBenchmark {
+
+  private static final int STATES = 1000;
+  private static final int STATES_PER_COMMIT = 10;
+  private static final long MEMORY_LIMIT_BYTES = 10L * 1024 * 1024;
+
+  @Param({"1", "10", "100"})
+  public int streamsPerState;
+
+  private final Map<Short, StatsCounters> delta = new HashMap<>();
+  private StateDeltaTracker stateDeltaTracker;
+  private int stateHash;
+
+  @Setup
+  public void setup() {
+    for (short i = 0; i < streamsPerState; i++) {
+      delta.put(i, new StatsCounters(100L * (i + 1), i + 1));
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setupIteration() {
+    stateDeltaTracker = new StateDeltaTracker(MEMORY_LIMIT_BYTES);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STATES)
+  public void addAndCommitStates() throws StateDeltaTrackerException {
+    for (int i = 0; i < STATES; i++) {
+      stateDeltaTracker.addState(++stateHash, delta);
+      if (stateHash % STATES_PER_COMMIT == 0) {
+        stateDeltaTracker.commitStateHash(stateHash);
+      }
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
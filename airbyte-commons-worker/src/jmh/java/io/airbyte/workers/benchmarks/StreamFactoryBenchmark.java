@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import io.airbyte.workers.internal.VersionedAirbyteStreamFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the parsing of the output of a source by {@link VersionedAirbyteStreamFactory}, from the
+ * raw bytes to the messages handed to the replication worker.
+ * <p>
+ * Records are parsed with their data as a tree or kept as raw JSON, on the consuming thread or on
+ * several deserialization threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamFactoryBenchmark {
+
+  private static final int RECORDS = 10_000;
+  private static final int STREAMS = 10;
+
+  @Param({"10", "100"})
+  public int fieldCount;
+
+  @Param({"false", "true"})
+  public boolean passthroughRecordData;
+
+  @Param({"1", "4"})
+  public int deserializationParallelism;
+
+  private byte[] output;
+
+  @Setup
+  public void setup() {
+    output = SyntheticMessages.serialize(SyntheticMessages.records(RECORDS, STREAMS, fieldCount, false));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public long parse() {
+    final VersionedAirbyteStreamFactory<?> streamFactory = VersionedAirbyteStreamFactory.noMigrationVersionedAirbyteStreamFactory()
+        .withPassthroughRecordData(passthroughRecordData)
+        .withDeserializationParallelism(deserializationParallelism);
+    try (final Stream<?> messages = streamFactory.create(new ByteArrayInputStream(output))) {
+      return messages.count();
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.protocol.serde.AirbyteMessageV1Deserializer;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import io.airbyte.protocol.models.AirbyteStateMessage;
+import io.airbyte.workers.internal.book_keeping.DefaultSyncStatsTracker;
+import io.airbyte.workers.test_utils.AirbyteMessageUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the book keeping of {@link DefaultSyncStatsTracker} for every record of a sync.
+ * <p>
+ * Records are read from serialized messages, like the ones of a connector, and come in runs of 10
+ * records of the same stream spread over the given number of streams. A state is emitted by the
+ * source and committed by the destination every 1000 records.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncStatsTrackerBenchmark {
+
+  private static final int RECORDS = 10_000;
+  private static final int RECORDS_PER_RUN = 10;
+  private static final int RECORDS_PER_STATE = 1000;
+
+  @Param({"1", "100", "5000"})
+  public int streamCount;
+
+  private final List<AirbyteRecordMessage> records = new ArrayList<>();
+  private DefaultSyncStatsTracker syncStatsTracker;
+  private int stateCount;
+
+  @Setup
+  public void setup() {
+    final AirbyteMessageV1Deserializer deserializer = new AirbyteMessageV1Deserializer();
+    for (int i = 0; i < RECORDS; i++) {
+      final String stream = "stream_" + (i / RECORDS_PER_RUN) % streamCount;
+      final byte[] line = Jsons.serialize(AirbyteMessageUtils.createRecordMessage(stream, Map.of("id", i, "name", "name_" + i)))
+          .getBytes(StandardCharsets.UTF_8);
+      records.add(deserializer.deserialize(line, 0, line.length).orElseThrow().getRecord());
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setupIteration() {
+    syncStatsTracker = new DefaultSyncStatsTracker();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void updateStats() {
+    for (int i = 0; i < RECORDS; i++) {
+      syncStatsTracker.updateStats(records.get(i));
+      if ((i + 1) % RECORDS_PER_STATE == 0) {
+        final AirbyteStateMessage state = AirbyteMessageUtils.createStateMessage(stateCount++).getState();
+        syncStatsTracker.updateSourceStatesStats(state);
+        syncStatsTracker.updateDestinationStateStats(state);
+      }
+    }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    // Run this main class to start benchmarking.
+    org.openjdk.jmh.Main.main(args);
+  }
+
+}
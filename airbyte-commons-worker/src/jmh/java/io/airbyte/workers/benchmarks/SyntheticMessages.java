@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.resources.MoreResources;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import io.airbyte.protocol.models.AirbyteStream;
+import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
+import io.airbyte.protocol.models.ConfiguredAirbyteStream;
+import io.airbyte.protocol.models.DestinationSyncMode;
+import io.airbyte.protocol.models.JsonSchemaReferenceTypes;
+import io.airbyte.protocol.models.SyncMode;
+import io.airbyte.validation.json.JsonSchemaValidator;
+import java.io.ByteArrayOutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the messages of a synthetic sync, so that benchmarks do not depend on a connector or on
+ * recorded data.
+ * <p>
+ * Records come in runs of 10 records of the same stream spread over the streams of the catalog.
+ * Their fields cycle through strings, integers, numbers and booleans, the values are random but the
+ * same from one run to another.
+ */
+final class SyntheticMessages {
+
+  static final String NAMESPACE = "benchmark_namespace";
+  static final long EMITTED_AT = 1_690_000_000_000L;
+
+  private static final int RECORDS_PER_RUN = 10;
+  private static final long SEED = 42;
+
+  private SyntheticMessages() {}
+
+  static String streamName(final int streamIndex) {
+    return "stream_" + streamIndex;
+  }
+
+  static String fieldName(final int fieldIndex) {
+    return "field_" + fieldIndex;
+  }
+
+  /**
+   * Catalog of the synthetic streams, with a schema that uses the types of the current protocol
+   * version.
+   */
+  static ConfiguredAirbyteCatalog catalog(final int streamCount, final int fieldCount) {
+    final List<ConfiguredAirbyteStream> streams = new ArrayList<>();
+    for (int i = 0; i < streamCount; i++) {
+      streams.add(new ConfiguredAirbyteStream()
+          .withStream(new AirbyteStream()
+              .withName(streamName(i))
+              .withNamespace(NAMESPACE)
+              .withJsonSchema(schema(fieldCount))
+              .withSupportedSyncModes(List.of(SyncMode.FULL_REFRESH)))
+          .withSyncMode(SyncMode.FULL_REFRESH)
+          .withDestinationSyncMode(DestinationSyncMode.APPEND));
+    }
+    return new ConfiguredAirbyteCatalog().withStreams(streams);
+  }
+
+  static JsonNode schema(final int fieldCount) {
+    final ObjectNode properties = (ObjectNode) Jsons.emptyObject();
+    for (int i = 0; i < fieldCount; i++) {
+      final String type = switch (i % 4) {
+        case 0 -> JsonSchemaReferenceTypes.STRING_REFERENCE;
+        case 1 -> JsonSchemaReferenceTypes.INTEGER_REFERENCE;
+        case 2 -> JsonSchemaReferenceTypes.NUMBER_REFERENCE;
+        default -> JsonSchemaReferenceTypes.BOOLEAN_REFERENCE;
+      };
+      properties.set(fieldName(i), Jsons.jsonNode(Map.of(JsonSchemaReferenceTypes.REF_KEY, type)));
+    }
+    final ObjectNode schema = (ObjectNode) Jsons.emptyObject();
+    schema.put(JsonSchemaReferenceTypes.TYPE_KEY, JsonSchemaReferenceTypes.OBJECT_TYPE);
+    schema.set(JsonSchemaReferenceTypes.PROPERTIES_KEY, properties);
+    return schema;
+  }
+
+  /**
+   * Validator that resolves the types of the schemas of the catalog, like the one of a worker which
+   * has WellKnownTypes.json next to it. The benchmarks have their own copy in their resources.
+   */
+  static JsonSchemaValidator schemaValidator() throws URISyntaxException {
+    return new JsonSchemaValidator(MoreResources.readResourceAsFile("WellKnownTypes.json").getAbsoluteFile().toURI());
+  }
+
+  /**
+   * Records of the synthetic sync, in the order a source would emit them.
+   *
+   * @param numbersAsStrings whether numbers are sent as strings, like records of the current protocol
+   *        version that need to be downgraded
+   */
+  static List<AirbyteMessage> records(final int recordCount, final int streamCount, final int fieldCount, final boolean numbersAsStrings) {
+    final Random random = new Random(SEED);
+    final List<AirbyteMessage> records = new ArrayList<>(recordCount);
+    for (int i = 0; i < recordCount; i++) {
+      final ObjectNode data = (ObjectNode) Jsons.emptyObject();
+      for (int j = 0; j < fieldCount; j++) {
+        switch (j % 4) {
+          case 0 -> data.put(fieldName(j), "value " + random.nextInt(1_000_000) + " with some text and an \u00e9");
+          case 1 -> putNumber(data, fieldName(j), Long.toString(random.nextInt()), numbersAsStrings);
+          case 2 -> putNumber(data, fieldName(j), Double.toString(random.nextInt(1_000_000) / 100.0), numbersAsStrings);
+          default -> data.put(fieldName(j), random.nextBoolean());
+        }
+      }
+      records.add(new AirbyteMessage()
+          .withType(AirbyteMessage.Type.RECORD)
+          .withRecord(new AirbyteRecordMessage()
+              .withStream(streamName((i / RECORDS_PER_RUN) % streamCount))
+              .withNamespace(NAMESPACE)
+              .withEmittedAt(EMITTED_AT)
+              .withData(data)));
+    }
+    return records;
+  }
+
+  /**
+   * Messages serialized one per line, like the output of a connector.
+   */
+  static byte[] serialize(final List<AirbyteMessage> messages) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (final AirbyteMessage message : messages) {
+      output.writeBytes(Jsons.serialize(message).getBytes(StandardCharsets.UTF_8));
+      output.write('\n');
+    }
+    return output.toByteArray();
+  }
+
+  private static void putNumber(final ObjectNode data, final String field, final String value, final boolean asString) {
+    if (asString) {
+      data.put(field, value);
+    } else {
+      data.set(field, Jsons.deserialize(value));
+    }
+  }
+
+}
@@ -7,17 +7,25 @@ package io.airbyte.workers;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.metrics.lib.MetricClient;
+import io.airbyte.metrics.lib.MetricClientFactory;
+import io.airbyte.metrics.lib.OssMetricsRegistry;
 import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
 import io.airbyte.validation.json.JsonSchemaValidator;
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -25,12 +33,26 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 /**
  * Validates that AirbyteRecordMessage data conforms to the JSON schema defined by the source's
  * configured catalog.
+ * <p>
+ * Records are validated asynchronously. The number of records waiting to be validated is bounded:
+ * when the validation threads fall behind, records are skipped instead of being queued, so that
+ * validation never holds on to an unbounded number of records nor slows down the sync.
  */
 public class RecordSchemaValidator implements Closeable {
 
+  // Number of records that can wait for each validation thread.
+  private static final int QUEUE_CAPACITY_PER_THREAD = 1_000;
+  private static final long METRICS_REPORT_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
   private final JsonSchemaValidator validator;
   private final ExecutorService validationExecutor;
   private final Map<AirbyteStreamNameNamespacePair, JsonNode> streams;
+  private final MetricClient metricClient;
+
+  private final LongAdder validatedRecords = new LongAdder();
+  private final LongAdder skippedRecords = new LongAdder();
+  // Read and written by every thread that validates records.
+  private volatile long lastMetricsReport = System.nanoTime();
 
   /**
    * Creates a RecordSchemaValidator.
@@ -38,7 +60,17 @@ public class RecordSchemaValidator implements Closeable {
    * @param streamNamesToSchemas Name of streams.
    */
   public RecordSchemaValidator(final Map<AirbyteStreamNameNamespacePair, JsonNode> streamNamesToSchemas) {
-    this(streamNamesToSchemas, Executors.newFixedThreadPool(1));
+    this(streamNamesToSchemas, 1);
+  }
+
+  /**
+   * Creates a RecordSchemaValidator.
+   *
+   * @param streamNamesToSchemas Name of streams.
+   * @param threads number of threads validating records.
+   */
+  public RecordSchemaValidator(final Map<AirbyteStreamNameNamespacePair, JsonNode> streamNamesToSchemas, final int threads) {
+    this(streamNamesToSchemas, newBoundedExecutor(Math.max(threads, 1)));
   }
 
   @VisibleForTesting
@@ -50,11 +82,20 @@ public class RecordSchemaValidator implements Closeable {
   public RecordSchemaValidator(final Map<AirbyteStreamNameNamespacePair, JsonNode> streamNamesToSchemas,
                                final ExecutorService validationExecutor,
                                final JsonSchemaValidator jsonSchemaValidator) {
+    this(streamNamesToSchemas, validationExecutor, jsonSchemaValidator, MetricClientFactory.getMetricClient());
+  }
+
+  @VisibleForTesting
+  public RecordSchemaValidator(final Map<AirbyteStreamNameNamespacePair, JsonNode> streamNamesToSchemas,
+                               final ExecutorService validationExecutor,
+                               final JsonSchemaValidator jsonSchemaValidator,
+                               final MetricClient metricClient) {
     // streams is Map of a stream source namespace + name mapped to the stream schema
     // for easy access when we check each record's schema
     this.streams = streamNamesToSchemas;
     this.validationExecutor = validationExecutor;
     this.validator = jsonSchemaValidator;
+    this.metricClient = metricClient;
     // initialize schema validator to avoid creating validators each time.
     for (final AirbyteStreamNameNamespacePair stream : streamNamesToSchemas.keySet()) {
       // We must choose a JSON validator version for validating the schema
@@ -73,8 +114,8 @@ public class RecordSchemaValidator implements Closeable {
                              final AirbyteRecordMessage message,
                              final AirbyteStreamNameNamespacePair airbyteStream,
                              final ConcurrentHashMap<AirbyteStreamNameNamespacePair, ImmutablePair<Set<String>, Integer>> validationErrors) {
-    validationExecutor.execute(() -> {
-      Set<String> errorMessages = validator.validateInitializedSchema(airbyteStream.toString(), message.getData());
+    submit(() -> {
+      Set<String> errorMessages = validator.validateInitializedSchema(airbyteStream.toString(), RawJson.materialize(message.getData()));
       if (!errorMessages.isEmpty()) {
         updateValidationErrors(errorMessages, airbyteStream, validationErrors);
       }
@@ -89,14 +130,70 @@ public class RecordSchemaValidator implements Closeable {
                                             final AirbyteRecordMessage message,
                                             final AirbyteStreamNameNamespacePair airbyteStream,
                                             final ConcurrentHashMap<AirbyteStreamNameNamespacePair, Set<String>> validationErrors) {
-    validationExecutor.execute(() -> {
-      final Set<String> errorMessages = validator.validateInitializedSchema(airbyteStream.toString(), message.getData());
+    submit(() -> {
+      final Set<String> errorMessages = validator.validateInitializedSchema(airbyteStream.toString(), RawJson.materialize(message.getData()));
       if (!errorMessages.isEmpty()) {
-        validationErrors.computeIfAbsent(airbyteStream, k -> new HashSet<>()).addAll(errorMessages);
+        // Validation threads may add to the errors of the same stream concurrently.
+        validationErrors.computeIfAbsent(airbyteStream, k -> ConcurrentHashMap.newKeySet()).addAll(errorMessages);
       }
     });
   }
 
+  /**
+   * Takes an AirbyteRecordMessage and uses the JsonSchemaValidator to validate that its data conforms
+   * to the stream's schema. The outcome, valid or not, is added to the stats of the stream.
+   */
+  public void validateSchemaWithStats(final AirbyteRecordMessage message,
+                                      final AirbyteStreamNameNamespacePair airbyteStream,
+                                      final ConcurrentHashMap<AirbyteStreamNameNamespacePair, SchemaValidationStats> validationStats) {
+    submit(() -> {
+      final Set<String> errorMessages = validator.validateInitializedSchema(airbyteStream.toString(), RawJson.materialize(message.getData()));
+      validationStats.computeIfAbsent(airbyteStream, k -> new SchemaValidationStats()).recordValidated(errorMessages);
+    });
+  }
+
+  /**
+   * Schedule a validation unless the validation threads are behind, in which case the record is
+   * skipped.
+   */
+  private void submit(final Runnable validation) {
+    if (validationExecutor instanceof ThreadPoolExecutor pool && pool.getQueue().remainingCapacity() == 0) {
+      skippedRecords.increment();
+    } else {
+      try {
+        validationExecutor.execute(() -> {
+          validation.run();
+          validatedRecords.increment();
+        });
+      } catch (final RejectedExecutionException e) {
+        skippedRecords.increment();
+      }
+    }
+    maybeReportMetrics();
+  }
+
+  private void maybeReportMetrics() {
+    if (System.nanoTime() - lastMetricsReport >= METRICS_REPORT_PERIOD_NANOS) {
+      reportMetrics();
+    }
+  }
+
+  private void reportMetrics() {
+    lastMetricsReport = System.nanoTime();
+    metricClient.count(OssMetricsRegistry.WORKER_SCHEMA_VALIDATION_RECORDS_VALIDATED, validatedRecords.sumThenReset());
+    metricClient.count(OssMetricsRegistry.WORKER_SCHEMA_VALIDATION_RECORDS_SKIPPED, skippedRecords.sumThenReset());
+    if (validationExecutor instanceof ThreadPoolExecutor pool) {
+      metricClient.gauge(OssMetricsRegistry.WORKER_SCHEMA_VALIDATION_QUEUE_SIZE, pool.getQueue().size());
+    }
+  }
+
+  private static ExecutorService newBoundedExecutor(final int threads) {
+    // Rejected validations are counted as skipped by submit.
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY_PER_THREAD * threads),
+        new ThreadFactoryBuilder().setNameFormat("record-schema-validator-%d").setDaemon(true).build());
+  }
+
   private void updateValidationErrors(final Set<String> errorMessages,
                                       final AirbyteStreamNameNamespacePair airbyteStream,
                                       final ConcurrentHashMap<AirbyteStreamNameNamespacePair, ImmutablePair<Set<String>, Integer>> validationErrors) {
@@ -117,6 +214,7 @@ public class RecordSchemaValidator implements Closeable {
   @Override
   public void close() throws IOException {
     validationExecutor.shutdownNow();
+    reportMetrics();
   }
 
 }
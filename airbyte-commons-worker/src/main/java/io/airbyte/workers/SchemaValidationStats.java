@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome of the schema validation of the records of a stream. It is updated by the validation
+ * threads and can be read concurrently.
+ */
+public class SchemaValidationStats {
+
+  private final LongAdder validatedRecords = new LongAdder();
+  private final LongAdder invalidRecords = new LongAdder();
+  private final Set<String> errorMessages = ConcurrentHashMap.newKeySet();
+
+  void recordValidated(final Set<String> recordErrorMessages) {
+    validatedRecords.increment();
+    if (!recordErrorMessages.isEmpty()) {
+      invalidRecords.increment();
+      errorMessages.addAll(recordErrorMessages);
+    }
+  }
+
+  public long getValidatedRecords() {
+    return validatedRecords.sum();
+  }
+
+  public long getInvalidRecords() {
+    return invalidRecords.sum();
+  }
+
+  /**
+   * Distinct error messages of the invalid records.
+   */
+  public Set<String> getErrorMessages() {
+    return errorMessages;
+  }
+
+  /**
+   * Fraction of the validated records that did not match the schema.
+   */
+  public double getErrorRate() {
+    final long validated = getValidatedRecords();
+    return validated == 0 ? 0 : (double) getInvalidRecords() / validated;
+  }
+
+}
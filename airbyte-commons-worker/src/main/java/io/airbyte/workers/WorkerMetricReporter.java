@@ -45,6 +45,22 @@ public class WorkerMetricReporter {
     metricClient.count(OssMetricsRegistry.NUM_DISTINCT_SCHEMA_VALIDATION_ERRORS_IN_STREAMS, validationErrors.size(), attributesArray);
   }
 
+  /**
+   * Given a AirbyteStreamNameNamespacePair and the outcome of validating a sample of its records,
+   * produce the validation error metrics as well as a gauge of the error rate of the sample.
+   */
+  public void trackSchemaValidationErrors(final AirbyteStreamNameNamespacePair stream, final SchemaValidationStats validationStats) {
+    if (!validationStats.getErrorMessages().isEmpty()) {
+      trackSchemaValidationErrors(stream, validationStats.getErrorMessages());
+    }
+    if (validationStats.getValidatedRecords() > 0) {
+      metricClient.gauge(OssMetricsRegistry.SCHEMA_VALIDATION_ERROR_RATE_IN_STREAMS, validationStats.getErrorRate(),
+          new MetricAttribute("docker_repo", dockerRepo),
+          new MetricAttribute("docker_version", dockerVersion),
+          new MetricAttribute("stream", stream.toString()));
+    }
+  }
+
   /**
    * Given a AirbyteStreamNameNamespacePair and a String Set of unexpectedFieldNames, produce a
    * DataDog count + a metric for each unexpected field.
@@ -6,7 +6,13 @@ package io.airbyte.workers.context;
 
 /**
  * Feature flags to consider during a Replication job.
+ *
+ * @param bufferMaxMessages maximum number of messages in each of the replication buffers
+ * @param bufferMaxBytes maximum estimated size in bytes of the messages in each of the replication
+ *        buffers, 0 or less to only bound the buffers by message count
+ * @param bufferSpillMaxBytes maximum size in bytes of the messages spilled to disk once the
+ *        destination buffer is full, 0 or less to never spill
  */
-public record ReplicationFeatureFlags() {
+public record ReplicationFeatureFlags(int bufferMaxMessages, long bufferMaxBytes, long bufferSpillMaxBytes) {
 
 }
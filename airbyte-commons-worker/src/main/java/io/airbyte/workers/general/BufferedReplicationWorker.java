@@ -4,16 +4,22 @@
 
 package io.airbyte.workers.general;
 
-import io.airbyte.commons.concurrency.BoundedConcurrentLinkedQueue;
+import io.airbyte.commons.concurrency.BoundedSpscRingBuffer;
+import io.airbyte.commons.concurrency.DiskSpillingBuffer;
+import io.airbyte.commons.concurrency.SpscBuffer;
 import io.airbyte.commons.converters.ThreadedTimeTracker;
 import io.airbyte.commons.io.LineGobbler;
+import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.timer.Stopwatch;
+import io.airbyte.commons.util.LogLinearHistogram;
 import io.airbyte.config.PerformanceMetrics;
 import io.airbyte.config.ReplicationOutput;
 import io.airbyte.config.StandardSyncInput;
 import io.airbyte.metrics.lib.ApmTraceUtils;
+import io.airbyte.metrics.lib.MetricAttribute;
 import io.airbyte.metrics.lib.MetricClient;
 import io.airbyte.metrics.lib.MetricClientFactory;
+import io.airbyte.metrics.lib.MetricTags;
 import io.airbyte.metrics.lib.OssMetricsRegistry;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.protocol.models.AirbyteMessage.Type;
@@ -22,6 +28,7 @@ import io.airbyte.workers.context.ReplicationContext;
 import io.airbyte.workers.context.ReplicationFeatureFlags;
 import io.airbyte.workers.exception.WorkerException;
 import io.airbyte.workers.helper.AirbyteMessageDataExtractor;
+import io.airbyte.workers.helper.AirbyteMessageSizeEstimator;
 import io.airbyte.workers.internal.AirbyteDestination;
 import io.airbyte.workers.internal.AirbyteMapper;
 import io.airbyte.workers.internal.AirbyteSource;
@@ -32,7 +39,12 @@ import io.airbyte.workers.internal.book_keeping.events.ReplicationAirbyteMessage
 import io.airbyte.workers.internal.exception.DestinationException;
 import io.airbyte.workers.internal.exception.SourceException;
 import io.airbyte.workers.internal.sync_persistence.SyncPersistence;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -51,7 +63,13 @@ import org.slf4j.MDC;
  * Implementation of a ReplicationWorker using buffers.
  * <p>
  * There is one thread per IO/Transform and buffers in between the different steps to apply
- * backpressure.
+ * backpressure. The destination buffer can spill to disk once full, so that a slow destination
+ * does not hold back the source until the disk budget is used up.
+ * <p>
+ * The time spent per message in each step is recorded in histograms, along with samples of the
+ * depth of the buffers and the time each step spent blocked on a full buffer or waiting on an empty
+ * one, to tell which side is the bottleneck. They are reported every second and summarized in the
+ * performance metrics of the sync.
  */
 public class BufferedReplicationWorker implements ReplicationWorker {
 
@@ -66,8 +84,11 @@ public class BufferedReplicationWorker implements ReplicationWorker {
   private final RecordSchemaValidator recordSchemaValidator;
   private final SyncPersistence syncPersistence;
   private final HeartbeatTimeoutChaperone srcHeartbeatTimeoutChaperone;
-  private final BoundedConcurrentLinkedQueue<AirbyteMessage> messagesFromSourceQueue;
-  private final BoundedConcurrentLinkedQueue<AirbyteMessage> messagesForDestinationQueue;
+  // The buffers are sized from the feature flags, they are created when the sync starts.
+  private SpscBuffer<AirbyteMessage> messagesFromSourceQueue;
+  private SpscBuffer<AirbyteMessage> messagesForDestinationQueue;
+  // Set when the destination buffer spills to disk once full.
+  private DiskSpillingBuffer<AirbyteMessage> spillingDestinationQueue;
   private final ExecutorService executors;
   private final ScheduledExecutorService scheduledExecutors;
 
@@ -82,12 +103,29 @@ public class BufferedReplicationWorker implements ReplicationWorker {
   private final Stopwatch readFromSourceStopwatch;
   private final Stopwatch processFromSourceStopwatch;
   private final Stopwatch writeToDestStopwatch;
+  private final Stopwatch flushDestStopwatch;
   private final Stopwatch readFromDestStopwatch;
   private final Stopwatch processFromDestStopwatch;
 
-  private static final int sourceMaxBufferSize = 1000;
-  private static final int destinationMaxBufferSize = 1000;
+  // Latency per message of each stage, per batch for flushDest, by stage name.
+  private final Map<String, LogLinearHistogram> stageLatencies;
+  private final Map<String, LogLinearHistogram.Snapshot> lastReportedStageLatencies;
+  private final LogLinearHistogram sourceBufferDepth;
+  private final LogLinearHistogram destinationBufferDepth;
+  // Time spent blocked on a full buffer by its producer, or waiting on an empty buffer by its consumer.
+  private final Stopwatch sourceBufferFullStopwatch;
+  private final Stopwatch sourceBufferEmptyStopwatch;
+  private final Stopwatch destinationBufferFullStopwatch;
+  private final Stopwatch destinationBufferEmptyStopwatch;
+  private final Map<Stopwatch, Long> lastReportedBlockedNanos;
+  // Only accessed by the metrics reporting thread.
+  private long lastReportedSpilledBytes;
+  private long lastReportedSpillNanos;
+
   private static final int observabilityMetricsPeriodInSeconds = 1;
+  private static final int maxBatchSize = 100;
+  // Upper bound on how long a consumer waits for messages before re-checking the state of its peers.
+  private static final long pollTimeoutInMillis = 100;
 
   public BufferedReplicationWorker(final String jobId,
                                    final int attempt,
@@ -112,8 +150,6 @@ public class BufferedReplicationWorker implements ReplicationWorker {
     this.recordSchemaValidator = recordSchemaValidator;
     this.syncPersistence = syncPersistence;
     this.srcHeartbeatTimeoutChaperone = srcHeartbeatTimeoutChaperone;
-    this.messagesFromSourceQueue = new BoundedConcurrentLinkedQueue<>(sourceMaxBufferSize);
-    this.messagesForDestinationQueue = new BoundedConcurrentLinkedQueue<>(destinationMaxBufferSize);
     this.executors = Executors.newFixedThreadPool(4);
     this.scheduledExecutors = Executors.newSingleThreadScheduledExecutor();
     this.isReadFromDestRunning = true;
@@ -124,11 +160,29 @@ public class BufferedReplicationWorker implements ReplicationWorker {
     this.destMessagesSent = new AtomicLong();
     this.sourceMessagesRead = new AtomicLong();
 
-    this.readFromSourceStopwatch = new Stopwatch();
-    this.processFromSourceStopwatch = new Stopwatch();
-    this.writeToDestStopwatch = new Stopwatch();
-    this.readFromDestStopwatch = new Stopwatch();
-    this.processFromDestStopwatch = new Stopwatch();
+    this.stageLatencies = new LinkedHashMap<>();
+    this.lastReportedStageLatencies = new HashMap<>();
+    this.readFromSourceStopwatch = new Stopwatch(stageLatency("readFromSource"));
+    this.processFromSourceStopwatch = new Stopwatch(stageLatency("processFromSource"));
+    this.writeToDestStopwatch = new Stopwatch(stageLatency("writeToDest"));
+    this.flushDestStopwatch = new Stopwatch(stageLatency("flushDest"));
+    this.readFromDestStopwatch = new Stopwatch(stageLatency("readFromDest"));
+    this.processFromDestStopwatch = new Stopwatch(stageLatency("processFromDest"));
+
+    this.sourceBufferDepth = new LogLinearHistogram();
+    this.destinationBufferDepth = new LogLinearHistogram();
+    this.sourceBufferFullStopwatch = new Stopwatch();
+    this.sourceBufferEmptyStopwatch = new Stopwatch();
+    this.destinationBufferFullStopwatch = new Stopwatch();
+    this.destinationBufferEmptyStopwatch = new Stopwatch();
+    this.lastReportedBlockedNanos = new HashMap<>();
+  }
+
+  private LogLinearHistogram stageLatency(final String stage) {
+    final LogLinearHistogram histogram = new LogLinearHistogram();
+    stageLatencies.put(stage, histogram);
+    lastReportedStageLatencies.put(stage, histogram.snapshot());
+    return histogram;
   }
 
   @Override
@@ -141,6 +195,17 @@ public class BufferedReplicationWorker implements ReplicationWorker {
       final ReplicationContext replicationContext = getReplicationContext(syncInput);
       final ReplicationFeatureFlags flags = replicationFeatureFlagReader.readReplicationFeatureFlags(syncInput);
       replicationWorkerHelper.initialize(replicationContext, flags);
+      LOGGER.info("replication buffers bounded to {} messages and {} bytes", flags.bufferMaxMessages(), flags.bufferMaxBytes());
+      messagesFromSourceQueue = createBuffer(flags);
+      if (flags.bufferSpillMaxBytes() > 0) {
+        LOGGER.info("destination buffer spills up to {} bytes to disk once full", flags.bufferSpillMaxBytes());
+        spillingDestinationQueue = new DiskSpillingBuffer<>(createBuffer(flags), jobRoot, flags.bufferSpillMaxBytes(),
+            message -> Jsons.serialize(message).getBytes(StandardCharsets.UTF_8),
+            bytes -> Jsons.deserialize(new String(bytes, StandardCharsets.UTF_8), AirbyteMessage.class));
+        messagesForDestinationQueue = spillingDestinationQueue;
+      } else {
+        messagesForDestinationQueue = createBuffer(flags);
+      }
 
       // note: resources are closed in the opposite order in which they are declared. thus source will be
       // closed first (which is what we want).
@@ -168,6 +233,10 @@ public class BufferedReplicationWorker implements ReplicationWorker {
       } finally {
         executors.shutdownNow();
         scheduledExecutors.shutdownNow();
+        if (spillingDestinationQueue != null) {
+          // The buffer keeps its spill file until the sync is over, a producer still running can no longer spill.
+          spillingDestinationQueue.releaseSpillFile();
+        }
       }
 
       if (!cancelled) {
@@ -178,23 +247,111 @@ public class BufferedReplicationWorker implements ReplicationWorker {
           .withAdditionalProperty("readFromSource", readFromSourceStopwatch)
           .withAdditionalProperty("processFromSource", processFromSourceStopwatch)
           .withAdditionalProperty("writeToDest", writeToDestStopwatch)
+          .withAdditionalProperty("flushDest", flushDestStopwatch)
           .withAdditionalProperty("readFromDest", readFromDestStopwatch)
-          .withAdditionalProperty("processFromDest", processFromDestStopwatch);
+          .withAdditionalProperty("processFromDest", processFromDestStopwatch)
+          .withAdditionalProperty("sourceBufferFull", sourceBufferFullStopwatch)
+          .withAdditionalProperty("sourceBufferEmpty", sourceBufferEmptyStopwatch)
+          .withAdditionalProperty("destinationBufferFull", destinationBufferFullStopwatch)
+          .withAdditionalProperty("destinationBufferEmpty", destinationBufferEmptyStopwatch)
+          .withAdditionalProperty("sourceBufferDepth", sourceBufferDepth.snapshot().toSummary())
+          .withAdditionalProperty("destinationBufferDepth", destinationBufferDepth.snapshot().toSummary());
+      stageLatencies.forEach((stage, histogram) -> perfMetrics.withAdditionalProperty(stage + "LatencyNanos", histogram.snapshot().toSummary()));
       return replicationWorkerHelper.getReplicationOutput(perfMetrics);
     } catch (final Exception e) {
       ApmTraceUtils.addExceptionToTrace(e);
       throw new WorkerException("Sync failed", e);
+    } finally {
+      // Failed and cancelled syncs skip endOfReplication, their stream statuses still have to be sent.
+      replicationWorkerHelper.flushEvents();
     }
 
   }
 
+  private static BoundedSpscRingBuffer<AirbyteMessage> createBuffer(final ReplicationFeatureFlags flags) {
+    return new BoundedSpscRingBuffer<>(flags.bufferMaxMessages(), flags.bufferMaxBytes(), AirbyteMessageSizeEstimator::estimateSize);
+  }
+
   private void reportObservabilityMetrics() {
     final MetricClient metricClient = MetricClientFactory.getMetricClient();
-    metricClient.gauge(OssMetricsRegistry.WORKER_DESTINATION_BUFFER_SIZE, messagesForDestinationQueue.size());
-    metricClient.gauge(OssMetricsRegistry.WORKER_SOURCE_BUFFER_SIZE, messagesFromSourceQueue.size());
+    final int destinationBufferSize = messagesForDestinationQueue.size();
+    final int sourceBufferSize = messagesFromSourceQueue.size();
+    destinationBufferDepth.record(destinationBufferSize);
+    sourceBufferDepth.record(sourceBufferSize);
+    metricClient.gauge(OssMetricsRegistry.WORKER_DESTINATION_BUFFER_SIZE, destinationBufferSize);
+    metricClient.gauge(OssMetricsRegistry.WORKER_SOURCE_BUFFER_SIZE, sourceBufferSize);
+    metricClient.gauge(OssMetricsRegistry.WORKER_DESTINATION_BUFFER_BYTES, messagesForDestinationQueue.weight());
+    metricClient.gauge(OssMetricsRegistry.WORKER_SOURCE_BUFFER_BYTES, messagesFromSourceQueue.weight());
     metricClient.count(OssMetricsRegistry.WORKER_DESTINATION_MESSAGE_READ, destMessagesRead.getAndSet(0));
     metricClient.count(OssMetricsRegistry.WORKER_DESTINATION_MESSAGE_SENT, destMessagesSent.getAndSet(0));
     metricClient.count(OssMetricsRegistry.WORKER_SOURCE_MESSAGE_READ, sourceMessagesRead.getAndSet(0));
+
+    reportBlockedTime(metricClient, OssMetricsRegistry.WORKER_SOURCE_BUFFER_FULL_MS, sourceBufferFullStopwatch);
+    reportBlockedTime(metricClient, OssMetricsRegistry.WORKER_SOURCE_BUFFER_EMPTY_MS, sourceBufferEmptyStopwatch);
+    reportBlockedTime(metricClient, OssMetricsRegistry.WORKER_DESTINATION_BUFFER_FULL_MS, destinationBufferFullStopwatch);
+    reportBlockedTime(metricClient, OssMetricsRegistry.WORKER_DESTINATION_BUFFER_EMPTY_MS, destinationBufferEmptyStopwatch);
+    if (spillingDestinationQueue != null) {
+      reportSpill(metricClient, spillingDestinationQueue);
+    }
+
+    stageLatencies.forEach((stage, histogram) -> {
+      final LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+      final LogLinearHistogram.Snapshot lastSecond = snapshot.since(lastReportedStageLatencies.put(stage, snapshot));
+      if (lastSecond.getCount() > 0) {
+        final MetricAttribute stageAttribute = new MetricAttribute(MetricTags.REPLICATION_STAGE, stage);
+        metricClient.gauge(OssMetricsRegistry.WORKER_STAGE_LATENCY_NANOS, lastSecond.getValueAtPercentile(50),
+            stageAttribute, new MetricAttribute(MetricTags.PERCENTILE, "p50"));
+        metricClient.gauge(OssMetricsRegistry.WORKER_STAGE_LATENCY_NANOS, lastSecond.getValueAtPercentile(99),
+            stageAttribute, new MetricAttribute(MetricTags.PERCENTILE, "p99"));
+        metricClient.gauge(OssMetricsRegistry.WORKER_STAGE_LATENCY_NANOS, lastSecond.getMax(),
+            stageAttribute, new MetricAttribute(MetricTags.PERCENTILE, "max"));
+      }
+    });
+  }
+
+  private void reportSpill(final MetricClient metricClient, final DiskSpillingBuffer<AirbyteMessage> buffer) {
+    final long spilledBytes = buffer.getSpilledBytes();
+    final long spillNanos = buffer.getSpillNanos();
+    metricClient.count(OssMetricsRegistry.WORKER_DESTINATION_SPILL_BYTES, spilledBytes - lastReportedSpilledBytes);
+    metricClient.count(OssMetricsRegistry.WORKER_DESTINATION_SPILL_MS, TimeUnit.NANOSECONDS.toMillis(spillNanos - lastReportedSpillNanos));
+    metricClient.gauge(OssMetricsRegistry.WORKER_DESTINATION_SPILL_PENDING_BYTES, buffer.getPendingSpillBytes());
+    lastReportedSpilledBytes = spilledBytes;
+    lastReportedSpillNanos = spillNanos;
+  }
+
+  private void reportBlockedTime(final MetricClient metricClient, final OssMetricsRegistry metric, final Stopwatch stopwatch) {
+    final long blockedNanos = stopwatch.getElapsedTimeInNanos();
+    final Long lastReportedNanos = lastReportedBlockedNanos.put(stopwatch, blockedNanos);
+    metricClient.count(metric, TimeUnit.NANOSECONDS.toMillis(blockedNanos - (lastReportedNanos != null ? lastReportedNanos : 0)));
+  }
+
+  /**
+   * Insert a message in a buffer, timing how long the producer was blocked if the buffer is full.
+   *
+   * @return false if the buffer was closed
+   */
+  private static boolean put(final SpscBuffer<AirbyteMessage> buffer, final AirbyteMessage message, final Stopwatch fullStopwatch)
+      throws InterruptedException {
+    if (buffer.add(message)) {
+      return true;
+    }
+    try (final var t = fullStopwatch.start()) {
+      return buffer.put(message);
+    }
+  }
+
+  /**
+   * Take a batch of messages from a buffer, timing how long the consumer waited if the buffer is
+   * empty.
+   */
+  private static void drainTo(final SpscBuffer<AirbyteMessage> buffer, final List<AirbyteMessage> batch, final Stopwatch emptyStopwatch)
+      throws InterruptedException {
+    if (buffer.drainTo(batch, maxBatchSize) > 0) {
+      return;
+    }
+    try (final var t = emptyStopwatch.start()) {
+      buffer.drainTo(batch, maxBatchSize, pollTimeoutInMillis, TimeUnit.MILLISECONDS);
+    }
   }
 
   private CompletableFuture<?> runAsync(final Runnable runnable, final Map<String, String> mdc) {
@@ -290,12 +447,13 @@ public class BufferedReplicationWorker implements ReplicationWorker {
     try {
       LOGGER.info("readFromSource: start");
 
+      final List<AirbyteMessage> batch = new ArrayList<>(maxBatchSize);
       while (!cancelled && !(sourceIsFinished = sourceIsFinished()) && !messagesFromSourceQueue.isClosed()) {
-        final Optional<AirbyteMessage> messageOptional = source.attemptRead();
-        if (messageOptional.isPresent()) {
-          sourceMessagesRead.incrementAndGet();
-          while (!messagesFromSourceQueue.add(messageOptional.get()) && !messagesFromSourceQueue.isClosed()) {
-            Thread.sleep(100);
+        batch.clear();
+        sourceMessagesRead.addAndGet(source.attemptRead(batch, maxBatchSize));
+        for (final AirbyteMessage message : batch) {
+          if (!put(messagesFromSourceQueue, message, sourceBufferFullStopwatch)) {
+            break;
           }
         }
       }
@@ -310,7 +468,7 @@ public class BufferedReplicationWorker implements ReplicationWorker {
       throw e;
     } catch (final InterruptedException e) {
       LOGGER.info("readFromSource: interrupted", e);
-      // Getting interrupted during sleep, rethrowing to fail fast
+      // Getting interrupted while waiting on the buffer, rethrowing to fail fast
       throw new RuntimeException(e);
     } catch (final Exception e) {
       LOGGER.info("readFromSource: exception caught", e);
@@ -326,30 +484,29 @@ public class BufferedReplicationWorker implements ReplicationWorker {
     try {
       LOGGER.info("processMessage: start");
 
+      final List<AirbyteMessage> batch = new ArrayList<>(maxBatchSize);
       while (!messagesFromSourceQueue.isDone() && !messagesForDestinationQueue.isClosed()) {
-        final AirbyteMessage message;
-        message = messagesFromSourceQueue.poll();
-        if (message == null) {
-          continue;
-        }
+        batch.clear();
+        drainTo(messagesFromSourceQueue, batch, sourceBufferEmptyStopwatch);
 
-        final Optional<AirbyteMessage> processedMessageOpt;
-        try (final var t = processFromSourceStopwatch.start()) {
-          processedMessageOpt = replicationWorkerHelper.processMessageFromSource(message);
-        }
-        if (processedMessageOpt.isPresent()) {
-          final AirbyteMessage m = processedMessageOpt.get();
-          // TODO this check should move to the processMessageFromSource
-          if (m.getType() == Type.RECORD || m.getType() == Type.STATE) {
-            while (!messagesForDestinationQueue.add(m) && !messagesForDestinationQueue.isClosed()) {
-              Thread.sleep(100);
+        for (final AirbyteMessage message : batch) {
+          final Optional<AirbyteMessage> processedMessageOpt;
+          try (final var t = processFromSourceStopwatch.start()) {
+            processedMessageOpt = replicationWorkerHelper.processMessageFromSource(message);
+          }
+          if (processedMessageOpt.isPresent()) {
+            final AirbyteMessage m = processedMessageOpt.get();
+            // TODO this check should move to the processMessageFromSource
+            if ((m.getType() == Type.RECORD || m.getType() == Type.STATE) && !put(messagesForDestinationQueue, m, destinationBufferFullStopwatch)) {
+              // The destination side is gone, there is no point in processing the rest of the batch.
+              break;
             }
           }
         }
       }
 
     } catch (final InterruptedException e) {
-      // Getting interrupted during sleep, rethrowing to fail fast
+      // Getting interrupted while waiting on the buffers, rethrowing to fail fast
       LOGGER.info("processMessage: interrupted", e);
       throw new RuntimeException(e);
     } catch (final Exception e) {
@@ -367,17 +524,25 @@ public class BufferedReplicationWorker implements ReplicationWorker {
     try {
       LOGGER.info("writeToDestination: start");
       try {
+        final List<AirbyteMessage> batch = new ArrayList<>(maxBatchSize);
         while (!messagesForDestinationQueue.isDone() && isReadFromDestRunning) {
-          final AirbyteMessage message;
-          message = messagesForDestinationQueue.poll();
-          if (message == null) {
-            continue;
-          }
-
-          try (final var t = writeToDestStopwatch.start()) {
-            destination.accept(message);
+          batch.clear();
+          drainTo(messagesForDestinationQueue, batch, destinationBufferEmptyStopwatch);
+
+          if (!batch.isEmpty()) {
+            // Accepts and flushes are timed apart so that writeToDest latencies are per message and flushDest
+            // latencies per batch.
+            for (final AirbyteMessage m : batch) {
+              try (final var t = writeToDestStopwatch.start()) {
+                destination.accept(m);
+              }
+            }
+            // The writer buffers messages, flush once per batch rather than once per message.
+            try (final var t = flushDestStopwatch.start()) {
+              destination.flush();
+            }
+            destMessagesSent.addAndGet(batch.size());
           }
-          destMessagesSent.incrementAndGet();
         }
       } finally {
         destination.notifyEndOfInput();
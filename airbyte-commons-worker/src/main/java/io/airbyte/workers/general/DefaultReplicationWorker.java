@@ -30,6 +30,8 @@ import io.airbyte.workers.internal.exception.DestinationException;
 import io.airbyte.workers.internal.exception.SourceException;
 import io.airbyte.workers.internal.sync_persistence.SyncPersistence;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -63,6 +65,7 @@ import org.slf4j.MDC;
 public class DefaultReplicationWorker implements ReplicationWorker {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DefaultReplicationWorker.class);
+  private static final int MAX_BATCH_SIZE = 100;
 
   private final String jobId;
   private final int attempt;
@@ -148,6 +151,9 @@ public class DefaultReplicationWorker implements ReplicationWorker {
     } catch (final Exception e) {
       ApmTraceUtils.addExceptionToTrace(e);
       throw new WorkerException("Sync failed", e);
+    } finally {
+      // Failed and cancelled syncs skip endOfReplication, their stream statuses still have to be sent.
+      replicationWorkerHelper.flushEvents();
     }
 
   }
@@ -273,29 +279,34 @@ public class DefaultReplicationWorker implements ReplicationWorker {
       LOGGER.info("Replication thread started.");
 
       try {
+        final List<AirbyteMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        final List<AirbyteMessage> messagesForDestination = new ArrayList<>(MAX_BATCH_SIZE);
         while (!shouldStop.get() && !cancelled.get() && !source.isFinished()) {
-          final Optional<AirbyteMessage> messageOptional;
+          batch.clear();
           try {
-            messageOptional = source.attemptRead();
+            source.attemptRead(batch, MAX_BATCH_SIZE);
           } catch (final Exception e) {
             throw new SourceException("Source process read attempt failed", e);
           }
 
-          if (messageOptional.isPresent()) {
-            final AirbyteMessage airbyteMessage = messageOptional.get();
-            final Optional<AirbyteMessage> processedAirbyteMessage =
-                replicationWorkerHelper.processMessageFromSource(airbyteMessage);
+          if (!batch.isEmpty()) {
+            messagesForDestination.clear();
+            for (final AirbyteMessage airbyteMessage : batch) {
+              final Optional<AirbyteMessage> processedAirbyteMessage =
+                  replicationWorkerHelper.processMessageFromSource(airbyteMessage);
 
-            if (processedAirbyteMessage.isPresent()) {
-              final AirbyteMessage message = processedAirbyteMessage.get();
-              try {
+              if (processedAirbyteMessage.isPresent()) {
+                final AirbyteMessage message = processedAirbyteMessage.get();
                 if (message.getType() == Type.RECORD || message.getType() == Type.STATE) {
-                  destination.accept(message);
+                  messagesForDestination.add(message);
                 }
-              } catch (final Exception e) {
-                throw new DestinationException("Destination process message delivery failed", e);
               }
             }
+            try {
+              destination.accept(messagesForDestination);
+            } catch (final Exception e) {
+              throw new DestinationException("Destination process message delivery failed", e);
+            }
           } else {
             LOGGER.info("Source has no more messages, closing connection.");
             try {
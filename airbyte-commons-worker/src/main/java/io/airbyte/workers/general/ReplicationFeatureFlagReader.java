@@ -5,13 +5,31 @@
 package io.airbyte.workers.general;
 
 import io.airbyte.config.StandardSyncInput;
+import io.airbyte.featureflag.Context;
+import io.airbyte.featureflag.FeatureFlagClient;
+import io.airbyte.featureflag.ReplicationBufferMaxMegabytes;
+import io.airbyte.featureflag.ReplicationBufferMaxMessages;
+import io.airbyte.featureflag.ReplicationBufferSpillMaxMegabytes;
 import io.airbyte.workers.context.ReplicationFeatureFlags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Read features flags we need to consider during a sync.
  */
 public class ReplicationFeatureFlagReader {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationFeatureFlagReader.class);
+
+  // Default of ReplicationBufferMaxMessages, used when the flag is not a valid capacity.
+  private static final int DEFAULT_BUFFER_MAX_MESSAGES = 1000;
+
+  private final FeatureFlagClient featureFlagClient;
+
+  public ReplicationFeatureFlagReader(final FeatureFlagClient featureFlagClient) {
+    this.featureFlagClient = featureFlagClient;
+  }
+
   /**
    * Read Feature flags we need to consider during a sync.
    *
@@ -19,7 +37,25 @@ public class ReplicationFeatureFlagReader {
    * @return The flags.
    */
   public ReplicationFeatureFlags readReplicationFeatureFlags(final StandardSyncInput syncInput) {
-    return new ReplicationFeatureFlags();
+    final Context flagContext = ReplicationWorkerFactory.getFeatureFlagContext(syncInput);
+    return new ReplicationFeatureFlags(
+        readBufferMaxMessages(flagContext),
+        featureFlagClient.intVariation(ReplicationBufferMaxMegabytes.INSTANCE, flagContext) * 1024L * 1024L,
+        featureFlagClient.intVariation(ReplicationBufferSpillMaxMegabytes.INSTANCE, flagContext) * 1024L * 1024L);
+  }
+
+  /**
+   * The buffers cannot be unbounded by message count like they can be by size, a value of 0 or less
+   * falls back to the default.
+   */
+  private int readBufferMaxMessages(final Context flagContext) {
+    final int maxMessages = featureFlagClient.intVariation(ReplicationBufferMaxMessages.INSTANCE, flagContext);
+    if (maxMessages <= 0) {
+      LOGGER.warn("Ignoring {} of {}, the buffers hold at most {} messages", ReplicationBufferMaxMessages.INSTANCE.getKey(), maxMessages,
+          DEFAULT_BUFFER_MAX_MESSAGES);
+      return DEFAULT_BUFFER_MAX_MESSAGES;
+    }
+    return maxMessages;
   }
 
 }
@@ -15,13 +15,20 @@ import io.airbyte.commons.features.FeatureFlags;
 import io.airbyte.config.StandardSyncInput;
 import io.airbyte.featureflag.ConcurrentSourceStreamRead;
 import io.airbyte.featureflag.Connection;
+import io.airbyte.featureflag.ConnectorLogBufferSize;
+import io.airbyte.featureflag.ConnectorLogFullBufferPolicy;
 import io.airbyte.featureflag.Context;
 import io.airbyte.featureflag.Destination;
 import io.airbyte.featureflag.FeatureFlagClient;
 import io.airbyte.featureflag.FieldSelectionEnabled;
 import io.airbyte.featureflag.Multi;
+import io.airbyte.featureflag.PassthroughRecordData;
 import io.airbyte.featureflag.RemoveValidationLimit;
+import io.airbyte.featureflag.ReplicationDeserializationParallelism;
 import io.airbyte.featureflag.ReplicationWorkerImpl;
+import io.airbyte.featureflag.SchemaValidationSamplingFirstRecords;
+import io.airbyte.featureflag.SchemaValidationSamplingRatio;
+import io.airbyte.featureflag.SchemaValidationThreads;
 import io.airbyte.featureflag.Source;
 import io.airbyte.featureflag.SourceDefinition;
 import io.airbyte.featureflag.Workspace;
@@ -40,8 +47,10 @@ import io.airbyte.workers.helper.AirbyteMessageDataExtractor;
 import io.airbyte.workers.internal.AirbyteDestination;
 import io.airbyte.workers.internal.AirbyteMapper;
 import io.airbyte.workers.internal.AirbyteSource;
+import io.airbyte.workers.internal.ConnectorLogForwarder.FullBufferPolicy;
 import io.airbyte.workers.internal.EmptyAirbyteSource;
 import io.airbyte.workers.internal.FieldSelector;
+import io.airbyte.workers.internal.FieldSelector.ValidationSampling;
 import io.airbyte.workers.internal.HeartbeatMonitor;
 import io.airbyte.workers.internal.HeartbeatTimeoutChaperone;
 import io.airbyte.workers.internal.NamespacingMapper;
@@ -57,6 +66,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
@@ -119,17 +129,25 @@ public class ReplicationWorkerFactory {
     final HeartbeatMonitor heartbeatMonitor = createHeartbeatMonitor(sourceDefinitionId, sourceDefinitionApi);
     final HeartbeatTimeoutChaperone heartbeatTimeoutChaperone = createHeartbeatTimeoutChaperone(heartbeatMonitor,
         featureFlagClient, syncInput);
-    final RecordSchemaValidator recordSchemaValidator = createRecordSchemaValidator(syncInput);
+    final RecordSchemaValidator recordSchemaValidator = createRecordSchemaValidator(syncInput, featureFlagClient);
 
     // Enable concurrent stream reads for testing purposes
     maybeEnableConcurrentStreamReads(sourceLauncherConfig, syncInput);
 
+    final boolean fieldSelectionEnabled = isFieldSelectionEnabled(featureFlagClient, syncInput.getWorkspaceId(), sourceDefinitionId);
+    final boolean passthroughRecordData = shouldPassthroughRecordData(sourceLauncherConfig, destinationLauncherConfig, syncInput,
+        fieldSelectionEnabled);
+
     log.info("Setting up source...");
     // reset jobs use an empty source to induce resetting all data in destination.
     final var airbyteSource = syncInput.getIsReset()
         ? new EmptyAirbyteSource(featureFlags.useStreamCapableState())
         : airbyteIntegrationLauncherFactory.createAirbyteSource(sourceLauncherConfig, syncInput.getSourceResourceRequirements(),
-            syncInput.getCatalog(), heartbeatMonitor);
+            syncInput.getCatalog(), heartbeatMonitor, passthroughRecordData,
+            featureFlagClient.intVariation(ReplicationDeserializationParallelism.INSTANCE, getFeatureFlagContext(syncInput)),
+            featureFlagClient.intVariation(ConnectorLogBufferSize.INSTANCE, getFeatureFlagContext(syncInput)),
+            FullBufferPolicy.fromString(featureFlagClient.stringVariation(ConnectorLogFullBufferPolicy.INSTANCE, getFeatureFlagContext(syncInput)),
+                FullBufferPolicy.BLOCK));
 
     log.info("Setting up destination...");
     final var airbyteDestination = airbyteIntegrationLauncherFactory.createAirbyteDestination(destinationLauncherConfig,
@@ -141,7 +159,7 @@ public class ReplicationWorkerFactory {
     final WorkerMetricReporter metricReporter = new WorkerMetricReporter(metricClient, sourceLauncherConfig.getDockerImage());
 
     final FieldSelector fieldSelector =
-        createFieldSelector(recordSchemaValidator, metricReporter, featureFlagClient, syncInput.getWorkspaceId(), sourceDefinitionId);
+        createFieldSelector(recordSchemaValidator, metricReporter, featureFlagClient, syncInput.getWorkspaceId(), fieldSelectionEnabled);
 
     log.info("Setting up replication worker...");
     final SyncPersistence syncPersistence = createSyncPersistence(syncPersistenceFactory, syncInput, sourceLauncherConfig);
@@ -187,6 +205,22 @@ public class ReplicationWorkerFactory {
     }
   }
 
+  /**
+   * Tests whether the data of records can be passed from the source to the destination without being
+   * parsed. This requires that nothing in the platform modifies the data: no field selection and no
+   * protocol migration. Schema validation and unexpected field detection still work on raw data.
+   */
+  private boolean shouldPassthroughRecordData(final IntegrationLauncherConfig sourceLauncherConfig,
+                                              final IntegrationLauncherConfig destinationLauncherConfig,
+                                              final StandardSyncInput syncInput,
+                                              final boolean fieldSelectionEnabled) {
+    final boolean isEnabled = !fieldSelectionEnabled
+        && airbyteIntegrationLauncherFactory.isMigrationFree(sourceLauncherConfig, destinationLauncherConfig)
+        && featureFlagClient.boolVariation(PassthroughRecordData.INSTANCE, getFeatureFlagContext(syncInput));
+    log.info("Record data passthrough enabled? {}", isEnabled);
+    return isEnabled;
+  }
+
   /**
    * Create HeartbeatMonitor.
    */
@@ -228,20 +262,32 @@ public class ReplicationWorkerFactory {
   /**
    * Create RecordSchemaValidator.
    */
-  private static RecordSchemaValidator createRecordSchemaValidator(final StandardSyncInput syncInput) {
-    return new RecordSchemaValidator(WorkerUtils.mapStreamNamesToSchemas(syncInput));
+  private static RecordSchemaValidator createRecordSchemaValidator(final StandardSyncInput syncInput, final FeatureFlagClient featureFlagClient) {
+    return new RecordSchemaValidator(WorkerUtils.mapStreamNamesToSchemas(syncInput),
+        featureFlagClient.intVariation(SchemaValidationThreads.INSTANCE, getFeatureFlagContext(syncInput)));
+  }
+
+  private static boolean isFieldSelectionEnabled(final FeatureFlagClient featureFlagClient,
+                                                 final UUID workspaceId,
+                                                 final UUID sourceDefinitionId) {
+    return workspaceId != null && featureFlagClient.boolVariation(FieldSelectionEnabled.INSTANCE, new Multi(
+        List.of(new Workspace(workspaceId), new SourceDefinition(sourceDefinitionId))));
   }
 
   private static FieldSelector createFieldSelector(final RecordSchemaValidator recordSchemaValidator,
                                                    final WorkerMetricReporter metricReporter,
                                                    final FeatureFlagClient featureFlagClient,
                                                    final UUID workspaceId,
-                                                   final UUID sourceDefinitionId) {
-    final boolean fieldSelectionEnabled = workspaceId != null && featureFlagClient.boolVariation(FieldSelectionEnabled.INSTANCE, new Multi(
-        List.of(new Workspace(workspaceId), new SourceDefinition(sourceDefinitionId))));
+                                                   final boolean fieldSelectionEnabled) {
     final boolean removeValidationLimit =
         workspaceId != null && featureFlagClient.boolVariation(RemoveValidationLimit.INSTANCE, new Workspace(workspaceId));
-    return new FieldSelector(recordSchemaValidator, metricReporter, fieldSelectionEnabled, removeValidationLimit);
+    final int samplingRatio =
+        workspaceId == null ? 0 : featureFlagClient.intVariation(SchemaValidationSamplingRatio.INSTANCE, new Workspace(workspaceId));
+    final Optional<ValidationSampling> validationSampling = samplingRatio > 0
+        ? Optional.of(new ValidationSampling(
+            featureFlagClient.intVariation(SchemaValidationSamplingFirstRecords.INSTANCE, new Workspace(workspaceId)), 1.0 / samplingRatio))
+        : Optional.empty();
+    return new FieldSelector(recordSchemaValidator, metricReporter, fieldSelectionEnabled, removeValidationLimit, validationSampling);
   }
 
   /**
@@ -266,19 +312,19 @@ public class ReplicationWorkerFactory {
         jobRunConfig.getJobId(),
         Math.toIntExact(jobRunConfig.getAttemptId()),
         source,
-        new NamespacingMapper(syncInput.getNamespaceDefinition(), syncInput.getNamespaceFormat(), syncInput.getPrefix()),
+        new NamespacingMapper(syncInput.getNamespaceDefinition(), syncInput.getNamespaceFormat(), syncInput.getPrefix(), syncInput.getCatalog()),
         destination,
         messageTracker,
         syncPersistence,
         recordSchemaValidator,
         fieldSelector,
         heartbeatTimeoutChaperone,
-        new ReplicationFeatureFlagReader(),
+        new ReplicationFeatureFlagReader(featureFlagClient),
         airbyteMessageDataExtractor,
         replicationEventPublishingHelper);
   }
 
-  private static Context getFeatureFlagContext(final StandardSyncInput syncInput) {
+  static Context getFeatureFlagContext(final StandardSyncInput syncInput) {
     final List<Context> contexts = new ArrayList<>();
     if (syncInput.getWorkspaceId() != null) {
       contexts.add(new Workspace(syncInput.getWorkspaceId()));
@@ -145,9 +145,23 @@ class ReplicationWorkerHelper {
     // This is to ensure that all streams end up in a terminal state and is necessary for
     // connections with destinations that do not emit messages to trigger the completion.
     publishEndOfReplicationStreamStatusEvent();
+    // Stream statuses are published in the background, make sure they are all sent before the sync
+    // ends.
+    flushEvents();
     timeTracker.trackReplicationEndTime();
   }
 
+  /**
+   * Waits for the stream status events published by the sync to be sent. The workers call it on
+   * every exit path, so that the statuses of a failed or cancelled sync are not lost when the process
+   * exits.
+   */
+  public void flushEvents() {
+    if (replicationContext != null) {
+      replicationAirbyteMessageEventPublishingHelper.flush(replicationContext);
+    }
+  }
+
   public void endOfSource() {
     LOGGER.info("Total records read: {} ({})", recordsRead,
         FileUtils.byteCountToDisplaySize(messageTracker.getSyncStatsTracker().getTotalBytesEmitted()));
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.helper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Cheap estimation of the serialized size of an {@link AirbyteMessage}.
+ * <p>
+ * This walks the record data without serializing it, so it is suitable for the hot path (e.g. to
+ * bound buffers by memory). It is an approximation: characters are counted as bytes and numbers are
+ * counted as a fixed width. Use {@link io.airbyte.commons.json.Jsons#getEstimatedByteSize} when
+ * accuracy matters more than speed.
+ */
+public class AirbyteMessageSizeEstimator {
+
+  // Rough size of the message envelope (type, stream, emitted_at...).
+  private static final int ENVELOPE_SIZE = 64;
+  // Non-record messages are infrequent, we do not bother walking them.
+  private static final int NON_RECORD_MESSAGE_SIZE = 1024;
+  private static final int NUMBER_SIZE = 8;
+
+  private AirbyteMessageSizeEstimator() {}
+
+  /**
+   * Estimate the serialized size of a message in bytes.
+   *
+   * @param message the message
+   * @return the estimated size
+   */
+  public static long estimateSize(final AirbyteMessage message) {
+    if (message.getType() != AirbyteMessage.Type.RECORD || message.getRecord() == null) {
+      return NON_RECORD_MESSAGE_SIZE;
+    }
+    final AirbyteRecordMessage record = message.getRecord();
+    long size = ENVELOPE_SIZE + length(record.getStream()) + length(record.getNamespace());
+    if (RawJson.isRaw(record.getData())) {
+      size += RawJson.byteSize(record.getData());
+    } else if (record.getData() != null) {
+      size += estimateSize(record.getData());
+    }
+    return size;
+  }
+
+  /**
+   * Estimate the serialized size of a json node in bytes.
+   *
+   * @param node the node
+   * @return the estimated size
+   */
+  public static long estimateSize(final JsonNode node) {
+    return switch (node.getNodeType()) {
+      case OBJECT -> {
+        long size = 2;
+        final Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+          final Entry<String, JsonNode> field = fields.next();
+          // quotes, colon and comma
+          size += field.getKey().length() + 4 + estimateSize(field.getValue());
+        }
+        yield size;
+      }
+      case ARRAY -> {
+        long size = 2;
+        for (final JsonNode element : node) {
+          size += estimateSize(element) + 1;
+        }
+        yield size;
+      }
+      case STRING -> node.textValue().length() + 2;
+      case NUMBER -> NUMBER_SIZE;
+      case BOOLEAN -> node.booleanValue() ? 4 : 5;
+      // base64 encoded
+      case BINARY -> node.asText().length() + 2;
+      default -> 4;
+    };
+  }
+
+  private static int length(final String s) {
+    return s == null ? 0 : s.length();
+  }
+
+}
@@ -7,6 +7,7 @@ package io.airbyte.workers.internal;
 import io.airbyte.config.WorkerDestinationConfig;
 import io.airbyte.protocol.models.AirbyteMessage;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -36,6 +37,26 @@ public interface AirbyteDestination extends AutoCloseable {
    */
   void accept(AirbyteMessage message) throws Exception;
 
+  /**
+   * Accepts a batch of AirbyteMessages, in order, like {@link #accept(AirbyteMessage)}.
+   *
+   * @param messages messages to send to destination.
+   * @throws Exception - throws if there is any failure in writing to Destination.
+   */
+  default void accept(final List<AirbyteMessage> messages) throws Exception {
+    for (final AirbyteMessage message : messages) {
+      accept(message);
+    }
+  }
+
+  /**
+   * Writes the messages accepted so far to STDIN of the Destination. Accepted messages may be
+   * buffered until this is called, callers should flush once they are done with a batch of messages.
+   *
+   * @throws Exception - throws if there is any failure in writing to Destination.
+   */
+  default void flush() throws Exception {}
+
   /**
    * This method is a flush to make sure all data that should be written to the Destination is
    * written. Any messages that have already been accepted
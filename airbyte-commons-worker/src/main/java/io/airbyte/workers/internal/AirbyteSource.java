@@ -7,6 +7,7 @@ package io.airbyte.workers.internal;
 import io.airbyte.config.WorkerSourceConfig;
 import io.airbyte.protocol.models.AirbyteMessage;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -50,6 +51,24 @@ public interface AirbyteSource extends AutoCloseable {
    */
   Optional<AirbyteMessage> attemptRead();
 
+  /**
+   * Attempts to read a batch of AirbyteMessages from the Source. This BLOCKS until the Source emits a
+   * message like {@link #attemptRead()}, the following messages are only read if the Source has
+   * already emitted them.
+   *
+   * @param batch list the messages are added to
+   * @param maxMessages maximum number of messages to read
+   * @return the number of messages read, 0 if the Source did not emit any
+   */
+  default int attemptRead(final List<AirbyteMessage> batch, final int maxMessages) {
+    final Optional<AirbyteMessage> message = attemptRead();
+    if (message.isEmpty()) {
+      return 0;
+    }
+    batch.add(message.get());
+    return 1;
+  }
+
   /**
    * Attempts to shut down the Source's container. Waits for a graceful shutdown, capped by a timeout.
    *
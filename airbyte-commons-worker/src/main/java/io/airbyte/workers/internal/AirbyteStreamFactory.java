@@ -4,8 +4,11 @@
 
 package io.airbyte.workers.internal;
 
+import io.airbyte.commons.io.IOs;
 import io.airbyte.protocol.models.AirbyteMessage;
 import java.io.BufferedReader;
+import java.io.InputStream;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -15,4 +18,22 @@ public interface AirbyteStreamFactory {
 
   Stream<AirbyteMessage> create(BufferedReader bufferedReader);
 
+  /**
+   * Create the AirbyteMessage stream from the raw output of a connector. Implementations may
+   * override this to avoid decoding every line into a String.
+   */
+  default Stream<AirbyteMessage> create(final InputStream inputStream) {
+    return create(IOs.newBufferedReader(inputStream));
+  }
+
+  /**
+   * Same as {@link #create(InputStream)} with the messages grouped in batches of the messages that
+   * were read from the connector together: getting the next batch may block until the connector
+   * emits more messages, the messages of a batch are already there. Implementations that cannot tell
+   * return batches of a single message.
+   */
+  default Stream<List<AirbyteMessage>> createBatches(final InputStream inputStream) {
+    return create(inputStream).map(List::of);
+  }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airbyte.commons.concurrency.BoundedSpscRingBuffer;
+import io.airbyte.commons.logging.MdcScope;
+import io.airbyte.metrics.lib.MetricClient;
+import io.airbyte.metrics.lib.OssMetricsRegistry;
+import io.airbyte.protocol.models.AirbyteLogMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Forwards the log messages of a connector to the worker logs on a background thread, so that the
+ * thread reading the output of the connector does not wait on the log appenders.
+ * <p>
+ * Log messages go through a bounded buffer and are appended in batches, within a single
+ * {@link MdcScope} per batch. What happens to a log message when the buffer fills up depends on the
+ * {@link FullBufferPolicy}. Dropped messages are counted, see {@link #getDroppedCount()}, and
+ * reported when the forwarder is closed.
+ * <p>
+ * Exactly one thread may call {@link #forward(AirbyteLogMessage)}.
+ */
+public class ConnectorLogForwarder implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConnectorLogForwarder.class);
+
+  private static final int MAX_BATCH_SIZE = 100;
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+  private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+  // Keep one in SAMPLE_RATE messages when sampling.
+  private static final int SAMPLE_RATE = 10;
+
+  /**
+   * What to do with a log message when the buffer is filling up.
+   */
+  public enum FullBufferPolicy {
+
+    /**
+     * Wait for room in the buffer, no message is dropped but reading waits on logging.
+     */
+    BLOCK,
+    /**
+     * Drop DEBUG and TRACE messages once the buffer is 3/4 full, drop all messages when it is full.
+     */
+    DROP_VERBOSE,
+    /**
+     * Keep one in 10 messages below ERROR once the buffer is 3/4 full, drop all messages when it is
+     * full.
+     */
+    SAMPLE;
+
+    /**
+     * Parse a policy from its name, case insensitive.
+     *
+     * @param name name of the policy
+     * @param defaultPolicy policy to use if the name is unknown
+     * @return the policy
+     */
+    public static FullBufferPolicy fromString(final String name, final FullBufferPolicy defaultPolicy) {
+      try {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+      } catch (final IllegalArgumentException | NullPointerException e) {
+        LOGGER.warn("Unknown connector log buffer policy {}, using {}", name, defaultPolicy);
+        return defaultPolicy;
+      }
+    }
+
+  }
+
+  private final Consumer<AirbyteLogMessage> sink;
+  private final MdcScope.Builder mdcBuilder;
+  private final FullBufferPolicy policy;
+  private final MetricClient metricClient;
+  private final BoundedSpscRingBuffer<AirbyteLogMessage> buffer;
+  private final int highWaterMark;
+  private final Map<String, String> mdc;
+  private final Thread forwarder;
+
+  private final LongAdder dropped = new LongAdder();
+  private long sampled;
+  private volatile boolean closed;
+
+  /**
+   * Create the forwarder and start its thread. The MDC of the calling thread is used for the logs.
+   *
+   * @param sink appends a log message, it is called on the forwarder thread
+   * @param mdcBuilder scope the log messages are appended in
+   * @param bufferSize maximum number of log messages waiting to be appended
+   * @param policy what to do with log messages when the buffer is filling up
+   * @param metricClient client to report dropped messages to
+   */
+  public ConnectorLogForwarder(final Consumer<AirbyteLogMessage> sink,
+                               final MdcScope.Builder mdcBuilder,
+                               final int bufferSize,
+                               final FullBufferPolicy policy,
+                               final MetricClient metricClient) {
+    this.sink = sink;
+    this.mdcBuilder = mdcBuilder;
+    this.policy = policy;
+    this.metricClient = metricClient;
+    this.buffer = new BoundedSpscRingBuffer<>(bufferSize);
+    this.highWaterMark = Math.max(1, bufferSize * 3 / 4);
+    this.mdc = MDC.getCopyOfContextMap();
+    this.forwarder = new ThreadFactoryBuilder().setNameFormat("connector-log-forwarder").setDaemon(true).build().newThread(this::run);
+    this.forwarder.start();
+  }
+
+  /**
+   * Hand a log message to the forwarder thread. This only waits with the
+   * {@link FullBufferPolicy#BLOCK} policy.
+   *
+   * @param logMessage message to log
+   */
+  public void forward(final AirbyteLogMessage logMessage) {
+    if (policy == FullBufferPolicy.BLOCK) {
+      try {
+        if (!buffer.put(logMessage)) {
+          dropped.increment();
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        dropped.increment();
+      }
+      return;
+    }
+
+    if (buffer.size() >= highWaterMark && !keepWhenFillingUp(logMessage)) {
+      dropped.increment();
+      return;
+    }
+    if (!buffer.add(logMessage)) {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * Returns the number of log messages that were dropped so far.
+   */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  /**
+   * Append the remaining log messages and stop the forwarder thread.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    buffer.close();
+    try {
+      forwarder.join(CLOSE_TIMEOUT_MILLIS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (forwarder.isAlive()) {
+      LOGGER.warn("Connector log forwarder did not finish in {} ms, {} log messages are not logged", CLOSE_TIMEOUT_MILLIS, buffer.size());
+      forwarder.interrupt();
+    }
+
+    final long droppedCount = getDroppedCount();
+    if (droppedCount > 0) {
+      LOGGER.warn("Dropped {} connector log messages because the log buffer was full", droppedCount);
+      metricClient.count(OssMetricsRegistry.WORKER_CONNECTOR_LOGS_DROPPED, droppedCount);
+    }
+  }
+
+  @VisibleForTesting
+  boolean isRunning() {
+    return forwarder.isAlive();
+  }
+
+  private boolean keepWhenFillingUp(final AirbyteLogMessage logMessage) {
+    final AirbyteLogMessage.Level level = logMessage.getLevel();
+    if (level == AirbyteLogMessage.Level.FATAL || level == AirbyteLogMessage.Level.ERROR) {
+      return true;
+    }
+    return switch (policy) {
+      case DROP_VERBOSE -> level != AirbyteLogMessage.Level.DEBUG && level != AirbyteLogMessage.Level.TRACE;
+      case SAMPLE -> sampled++ % SAMPLE_RATE == 0;
+      default -> true;
+    };
+  }
+
+  private void run() {
+    if (mdc != null) {
+      MDC.setContextMap(mdc);
+    }
+    final List<AirbyteLogMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    try {
+      while (!buffer.isDone()) {
+        batch.clear();
+        if (buffer.drainTo(batch, MAX_BATCH_SIZE, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) == 0) {
+          continue;
+        }
+        try (final var ignored = mdcBuilder.build()) {
+          for (final AirbyteLogMessage logMessage : batch) {
+            append(logMessage);
+          }
+        }
+      }
+    } catch (final InterruptedException e) {
+      LOGGER.info("Connector log forwarder interrupted", e);
+    }
+  }
+
+  private void append(final AirbyteLogMessage logMessage) {
+    try {
+      sink.accept(logMessage);
+    } catch (final RuntimeException e) {
+      // A failing appender must not stop the other log messages.
+      LOGGER.warn("Failed to log a connector log message", e);
+    }
+  }
+
+}
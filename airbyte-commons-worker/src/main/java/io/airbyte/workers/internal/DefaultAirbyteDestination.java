@@ -5,9 +5,7 @@
 package io.airbyte.workers.internal;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
-import io.airbyte.commons.io.IOs;
 import io.airbyte.commons.io.LineGobbler;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.logging.LoggingHelper.Color;
@@ -22,9 +20,7 @@ import io.airbyte.workers.WorkerConstants;
 import io.airbyte.workers.WorkerUtils;
 import io.airbyte.workers.exception.WorkerException;
 import io.airbyte.workers.process.IntegrationLauncher;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
@@ -95,10 +91,10 @@ public class DefaultAirbyteDestination implements AirbyteDestination {
     // stdout logs are logged elsewhere since stdout also contains data
     LineGobbler.gobble(destinationProcess.getErrorStream(), LOGGER::error, "airbyte-destination", CONTAINER_LOG_MDC_BUILDER);
 
-    writer = messageWriterFactory.createWriter(new BufferedWriter(new OutputStreamWriter(destinationProcess.getOutputStream(), Charsets.UTF_8)));
+    writer = messageWriterFactory.createWriter(destinationProcess.getOutputStream());
 
     final List<Type> acceptedMessageTypes = List.of(Type.STATE, Type.TRACE, Type.CONTROL);
-    messageIterator = streamFactory.create(IOs.newBufferedReader(destinationProcess.getInputStream()))
+    messageIterator = streamFactory.create(destinationProcess.getInputStream())
         .filter(message -> acceptedMessageTypes.contains(message.getType()))
         .iterator();
   }
@@ -110,6 +106,22 @@ public class DefaultAirbyteDestination implements AirbyteDestination {
     writer.write(message);
   }
 
+  @Override
+  public void accept(final List<AirbyteMessage> messages) throws IOException {
+    Preconditions.checkState(destinationProcess != null && !inputHasEnded.get());
+
+    for (final AirbyteMessage message : messages) {
+      writer.write(message);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    Preconditions.checkState(destinationProcess != null && !inputHasEnded.get());
+
+    writer.flush();
+  }
+
   @Override
   public void notifyEndOfInput() throws IOException {
     Preconditions.checkState(destinationProcess != null && !inputHasEnded.get());
@@ -4,36 +4,45 @@
 
 package io.airbyte.workers.internal;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.protocol.models.AirbyteMessage;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Default writer that serializes airbyte messages to JSON.
+ * <p>
+ * Messages are serialized straight into the output stream through a single generator, which
+ * buffers the encoded bytes. Nothing is flushed per message, the stream is only flushed by
+ * {@link #flush()} and {@link #close()}.
  */
 public class DefaultAirbyteMessageBufferedWriter implements AirbyteMessageBufferedWriter {
 
-  protected final BufferedWriter writer;
+  protected final JsonGenerator generator;
 
-  public DefaultAirbyteMessageBufferedWriter(final BufferedWriter writer) {
-    this.writer = writer;
+  public DefaultAirbyteMessageBufferedWriter(final OutputStream outputStream) throws IOException {
+    this.generator = Jsons.createGenerator(outputStream);
   }
 
   @Override
   public void write(final AirbyteMessage message) throws IOException {
-    writer.write(Jsons.serialize(message));
-    writer.newLine();
+    Jsons.serialize(generator, message);
+    newLine();
   }
 
   @Override
   public void flush() throws IOException {
-    writer.flush();
+    generator.flush();
   }
 
   @Override
   public void close() throws IOException {
-    writer.close();
+    generator.close();
+  }
+
+  protected void newLine() throws IOException {
+    generator.writeRaw('\n');
   }
 
 }
@@ -9,7 +9,6 @@ import static io.airbyte.metrics.lib.ApmTraceConstants.WORKER_OPERATION_NAME;
 import com.google.common.base.Preconditions;
 import datadog.trace.api.Trace;
 import io.airbyte.commons.features.FeatureFlags;
-import io.airbyte.commons.io.IOs;
 import io.airbyte.commons.io.LineGobbler;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.logging.LoggingHelper.Color;
@@ -31,6 +30,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +46,7 @@ public class DefaultAirbyteSource implements AirbyteSource {
       0, // Normal exit
       143 // SIGTERM
   );
+  private static final Set<Type> ACCEPTED_MESSAGE_TYPES = Set.of(Type.RECORD, Type.STATE, Type.TRACE, Type.CONTROL);
 
   public static final MdcScope.Builder CONTAINER_LOG_MDC_BUILDER = new Builder()
       .setLogPrefix("source")
@@ -57,7 +58,10 @@ public class DefaultAirbyteSource implements AirbyteSource {
   private final HeartbeatMonitor heartbeatMonitor;
 
   private Process sourceProcess = null;
-  private Iterator<AirbyteMessage> messageIterator = null;
+  private Stream<List<AirbyteMessage>> batchStream = null;
+  private Iterator<List<AirbyteMessage>> batchIterator = null;
+  private List<AirbyteMessage> batch = List.of();
+  private int position = 0;
   private Integer exitValue = null;
   private final boolean featureFlagLogConnectorMsgs;
 
@@ -90,11 +94,8 @@ public class DefaultAirbyteSource implements AirbyteSource {
 
     logInitialStateAsJSON(sourceConfig);
 
-    final List<Type> acceptedMessageTypes = List.of(Type.RECORD, Type.STATE, Type.TRACE, Type.CONTROL);
-    messageIterator = streamFactory.create(IOs.newBufferedReader(sourceProcess.getInputStream()))
-        .peek(message -> heartbeatMonitor.beat())
-        .filter(message -> acceptedMessageTypes.contains(message.getType()))
-        .iterator();
+    batchStream = streamFactory.createBatches(sourceProcess.getInputStream());
+    batchIterator = batchStream.iterator();
   }
 
   @Override
@@ -105,7 +106,7 @@ public class DefaultAirbyteSource implements AirbyteSource {
      * As this check is done on every message read, it is important for this operation to be efficient.
      * Short circuit early to avoid checking the underlying process. note: hasNext is blocking.
      */
-    return !messageIterator.hasNext() && !sourceProcess.isAlive();
+    return !hasNextMessage() && !sourceProcess.isAlive();
   }
 
   @Override
@@ -124,7 +125,47 @@ public class DefaultAirbyteSource implements AirbyteSource {
   public Optional<AirbyteMessage> attemptRead() {
     Preconditions.checkState(sourceProcess != null);
 
-    return Optional.ofNullable(messageIterator.hasNext() ? messageIterator.next() : null);
+    return Optional.ofNullable(hasNextMessage() ? batch.get(position++) : null);
+  }
+
+  @Override
+  public int attemptRead(final List<AirbyteMessage> messages, final int maxMessages) {
+    Preconditions.checkState(sourceProcess != null);
+
+    // Only waits for the first message, the others are the ones the source already emitted.
+    int read = 0;
+    while (read < maxMessages && (read == 0 ? hasNextMessage() : hasNextMessageInBatch())) {
+      messages.add(batch.get(position++));
+      read++;
+    }
+    return read;
+  }
+
+  /**
+   * Moves to the next accepted message, reading the next batch of the source if needed. This blocks
+   * until the source emits a message or its output ends.
+   */
+  private boolean hasNextMessage() {
+    while (!hasNextMessageInBatch()) {
+      if (!batchIterator.hasNext()) {
+        return false;
+      }
+      batch = batchIterator.next();
+      position = 0;
+      // Once per batch rather than per message, a batch only holds messages that were read together.
+      // Log lines are removed from the batches, a batch that only had logs is empty and is not a beat.
+      if (!batch.isEmpty()) {
+        heartbeatMonitor.beat();
+      }
+    }
+    return true;
+  }
+
+  private boolean hasNextMessageInBatch() {
+    while (position < batch.size() && !ACCEPTED_MESSAGE_TYPES.contains(batch.get(position).getType())) {
+      position++;
+    }
+    return position < batch.size();
   }
 
   @Override
@@ -134,6 +175,9 @@ public class DefaultAirbyteSource implements AirbyteSource {
       return;
     }
 
+    // Stops the threads that may be deserializing the output of the source.
+    batchStream.close();
+
     LOGGER.debug("Closing source process");
     WorkerUtils.gentleClose(
         sourceProcess,
@@ -6,64 +6,109 @@ package io.airbyte.workers.internal;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.commons.protocol.serde.MeasuredAirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
 import io.airbyte.workers.RecordSchemaValidator;
+import io.airbyte.workers.SchemaValidationStats;
 import io.airbyte.workers.WorkerMetricReporter;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
 /**
  * Handles FieldSelection.
+ * <p>
+ * The fields of each stream are compiled into a {@link StreamPlan} when the catalog is loaded.
+ * Records are matched to their plan with a lookup on their stream name and namespace, which does
+ * not allocate, and filtering or looking for unexpected fields is a single pass over the fields of
+ * the record against a hash set.
  */
 @Slf4j
 public class FieldSelector {
 
+  /**
+   * Validate the first records of each stream, then a random fraction of the others.
+   *
+   * @param firstRecords number of records of each stream that are always validated
+   * @param sampleRate fraction of the following records that are validated, between 0 and 1
+   */
+  public record ValidationSampling(long firstRecords, double sampleRate) {}
+
   /*
    * validationErrors must be a ConcurrentHashMap as they are updated and read in different threads
    * concurrently for performance.
    */
   private final ConcurrentHashMap<AirbyteStreamNameNamespacePair, ImmutablePair<Set<String>, Integer>> validationErrors = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<AirbyteStreamNameNamespacePair, Set<String>> uncountedValidationErrors = new ConcurrentHashMap<>();
-  private final Map<AirbyteStreamNameNamespacePair, List<String>> streamToSelectedFields = new HashMap<>();
-  private final Map<AirbyteStreamNameNamespacePair, Set<String>> streamToAllFields = new HashMap<>();
-  private final Map<AirbyteStreamNameNamespacePair, Set<String>> unexpectedFields = new HashMap<>();
+  private final ConcurrentHashMap<AirbyteStreamNameNamespacePair, SchemaValidationStats> sampledValidationStats = new ConcurrentHashMap<>();
+  // namespace -> stream name -> plan, the namespace can be null.
+  private final Map<String, Map<String, StreamPlan>> streamPlans = new HashMap<>();
+  // Records usually come in runs of the same stream, and a record is filtered then validated.
+  private StreamPlan lastStreamPlan;
 
   private final RecordSchemaValidator recordSchemaValidator;
   private final WorkerMetricReporter metricReporter;
   private final boolean fieldSelectionEnabled;
   private final boolean removeValidationLimit;
+  private final Optional<ValidationSampling> validationSampling;
 
   public FieldSelector(final RecordSchemaValidator recordSchemaValidator,
                        final WorkerMetricReporter metricReporter,
                        final boolean fieldSelectionEnabled,
                        final boolean removeValidationLimit) {
+    this(recordSchemaValidator, metricReporter, fieldSelectionEnabled, removeValidationLimit, Optional.empty());
+  }
+
+  /**
+   * Create a FieldSelector.
+   *
+   * @param validationSampling if present and the validation limit is not removed, records are
+   *        validated according to this sampling instead of until 10 of them have errors.
+   */
+  public FieldSelector(final RecordSchemaValidator recordSchemaValidator,
+                       final WorkerMetricReporter metricReporter,
+                       final boolean fieldSelectionEnabled,
+                       final boolean removeValidationLimit,
+                       final Optional<ValidationSampling> validationSampling) {
     this.recordSchemaValidator = recordSchemaValidator;
     this.metricReporter = metricReporter;
     this.fieldSelectionEnabled = fieldSelectionEnabled;
     this.removeValidationLimit = removeValidationLimit;
+    this.validationSampling = validationSampling;
   }
 
   /**
    * Initialize the FieldSelector instance with the fields from the catalog.
    */
   public void populateFields(final ConfiguredAirbyteCatalog catalog) {
-    if (fieldSelectionEnabled) {
-      populatedStreamToSelectedFields(catalog);
+    for (final var s : catalog.getStreams()) {
+      // Since the configured catalog only includes the selected fields, the fields of the schema are
+      // both the fields to keep when field selection is enabled and the fields that are expected.
+      final Set<String> fields = new HashSet<>();
+      final JsonNode propertiesNode = s.getStream().getJsonSchema().findPath("properties");
+      if (propertiesNode.isObject()) {
+        propertiesNode.fieldNames().forEachRemaining(fields::add);
+      } else {
+        throw new RuntimeException("No properties node in stream schema");
+      }
+      final AirbyteStreamNameNamespacePair stream = AirbyteStreamNameNamespacePair.fromConfiguredAirbyteSteam(s);
+      streamPlans.computeIfAbsent(stream.getNamespace(), k -> new HashMap<>()).put(stream.getName(), new StreamPlan(stream, fields));
     }
-    populateStreamToAllFields(catalog);
+    lastStreamPlan = null;
   }
 
   /**
@@ -72,10 +117,19 @@ public class FieldSelector {
    * @param airbyteMessage message to validate.
    */
   public void validateSchema(final AirbyteMessage airbyteMessage) {
+    final AirbyteRecordMessage record = airbyteMessage.getRecord();
+    if (record == null) {
+      return;
+    }
+
+    final StreamPlan plan = getStreamPlan(record);
     if (removeValidationLimit) {
-      validateSchemaUncounted(airbyteMessage);
+      recordSchemaValidator.validateSchemaWithoutCounting(record, plan.stream, uncountedValidationErrors);
+      plan.collectUnexpectedFields(record.getData());
+    } else if (validationSampling.isPresent()) {
+      validateSchemaSampled(record, plan, validationSampling.get());
     } else {
-      validateSchemaWithCount(airbyteMessage);
+      validateSchemaWithCount(record, plan);
     }
   }
 
@@ -96,11 +150,18 @@ public class FieldSelector {
       return;
     }
 
-    final AirbyteStreamNameNamespacePair messageStream = AirbyteStreamNameNamespacePair.fromRecordMessage(record);
-    final List<String> selectedFields = streamToSelectedFields.getOrDefault(messageStream, Collections.emptyList());
+    final StreamPlan plan = getStreamPlan(record);
+    if (RawJson.isRaw(record.getData())) {
+      record.setData(RawJson.materialize(record.getData()));
+    }
     final JsonNode data = record.getData();
     if (data.isObject()) {
-      ((ObjectNode) data).retain(selectedFields);
+      final int fieldCount = data.size();
+      ((ObjectNode) data).retain(plan.fields);
+      if (data.size() != fieldCount) {
+        // The record no longer matches the message it was read from.
+        MeasuredAirbyteRecordMessage.clearDataSize(record);
+      }
     } else {
       throw new RuntimeException(String.format("Unexpected data in record: %s", data.toString()));
     }
@@ -118,6 +179,16 @@ public class FieldSelector {
         log.warn("Schema validation errors found for stream {}. Error messages: {}", stream, errors);
         metricReporter.trackSchemaValidationErrors(stream, errors);
       });
+    } else if (validationSampling.isPresent()) {
+      log.info("Schema validation was performed on the first {} records of each stream and on a sample of {} of the other records.",
+          validationSampling.get().firstRecords(), validationSampling.get().sampleRate());
+      sampledValidationStats.forEach((stream, stats) -> {
+        if (stats.getInvalidRecords() > 0) {
+          log.warn("Schema validation errors found for stream {} in {} of {} validated records. Error messages: {}", stream,
+              stats.getInvalidRecords(), stats.getValidatedRecords(), stats.getErrorMessages());
+        }
+        metricReporter.trackSchemaValidationErrors(stream, stats);
+      });
     } else {
       log.info("Schema validation was performed to a max of 10 records with errors per stream.");
       validationErrors.forEach((stream, errorPair) -> {
@@ -125,102 +196,81 @@ public class FieldSelector {
         metricReporter.trackSchemaValidationErrors(stream, errorPair.getLeft());
       });
     }
-    unexpectedFields.forEach((stream, unexpectedFieldNames) -> {
-      if (!unexpectedFieldNames.isEmpty()) {
-        log.warn("Source {} has unexpected fields [{}] in stream {}", sourceId, String.join(", ", unexpectedFieldNames), stream);
-        metricReporter.trackUnexpectedFields(stream, unexpectedFieldNames);
+    streamPlans.values().forEach(plans -> plans.values().forEach(plan -> {
+      if (!plan.unexpectedFields.isEmpty()) {
+        log.warn("Source {} has unexpected fields [{}] in stream {}", sourceId, String.join(", ", plan.unexpectedFields), plan.stream);
+        metricReporter.trackUnexpectedFields(plan.stream, plan.unexpectedFields);
       }
-    });
+    }));
   }
 
-  /**
-   * Generates a map from stream -> the explicit list of fields included for that stream, according to
-   * the configured catalog. Since the configured catalog only includes the selected fields, this lets
-   * us filter records to only the fields explicitly requested.
-   *
-   * @param catalog catalog
-   */
-  private void populatedStreamToSelectedFields(final ConfiguredAirbyteCatalog catalog) {
-    for (final var s : catalog.getStreams()) {
-      final List<String> selectedFields = new ArrayList<>();
-      final JsonNode propertiesNode = s.getStream().getJsonSchema().findPath("properties");
-      if (propertiesNode.isObject()) {
-        propertiesNode.fieldNames().forEachRemaining((fieldName) -> selectedFields.add(fieldName));
-      } else {
-        throw new RuntimeException("No properties node in stream schema");
-      }
-      streamToSelectedFields.put(AirbyteStreamNameNamespacePair.fromConfiguredAirbyteSteam(s), selectedFields);
+  private StreamPlan getStreamPlan(final AirbyteRecordMessage record) {
+    final StreamPlan last = lastStreamPlan;
+    if (last != null && last.stream.getName().equals(record.getStream()) && Objects.equals(last.stream.getNamespace(), record.getNamespace())) {
+      return last;
     }
+
+    final StreamPlan plan = streamPlans.computeIfAbsent(record.getNamespace(), k -> new HashMap<>())
+        // A stream that is not in the catalog has no expected fields.
+        .computeIfAbsent(record.getStream(), k -> new StreamPlan(AirbyteStreamNameNamespacePair.fromRecordMessage(record), Collections.emptySet()));
+    lastStreamPlan = plan;
+    return plan;
   }
 
-  /**
-   * Populates a map for stream -> all the top-level fields in the catalog. Used to identify any
-   * unexpected top-level fields in the records.
-   *
-   * @param catalog catalog
-   */
-  private void populateStreamToAllFields(final ConfiguredAirbyteCatalog catalog) {
-    for (final var s : catalog.getStreams()) {
-      final Set<String> fields = new HashSet<>();
-      final JsonNode propertiesNode = s.getStream().getJsonSchema().findPath("properties");
-      if (propertiesNode.isObject()) {
-        propertiesNode.fieldNames().forEachRemaining((fieldName) -> fields.add(fieldName));
-      } else {
-        throw new RuntimeException("No properties node in stream schema");
-      }
-      streamToAllFields.put(AirbyteStreamNameNamespacePair.fromConfiguredAirbyteSteam(s), fields);
+  private void validateSchemaSampled(final AirbyteRecordMessage record, final StreamPlan plan, final ValidationSampling sampling) {
+    plan.recordCount++;
+    if (plan.recordCount <= sampling.firstRecords() || ThreadLocalRandom.current().nextDouble() < sampling.sampleRate()) {
+      recordSchemaValidator.validateSchemaWithStats(record, plan.stream, sampledValidationStats);
+      plan.collectUnexpectedFields(record.getData());
     }
   }
 
-  private void validateSchemaUncounted(final AirbyteMessage message) {
-    if (message.getRecord() == null) {
-      return;
+  private void validateSchemaWithCount(final AirbyteRecordMessage record, final StreamPlan plan) {
+    // avoid noise by validating only if the stream has less than 10 records with validation errors
+    final ImmutablePair<Set<String>, Integer> streamErrors = validationErrors.get(plan.stream);
+    final boolean streamHasLessThenTenErrs = streamErrors == null || streamErrors.getRight() < 10;
+    if (streamHasLessThenTenErrs) {
+      recordSchemaValidator.validateSchema(record, plan.stream, validationErrors);
+      plan.collectUnexpectedFields(record.getData());
     }
+  }
 
-    final AirbyteRecordMessage record = message.getRecord();
-    final AirbyteStreamNameNamespacePair messageStream = AirbyteStreamNameNamespacePair.fromRecordMessage(record);
+  /**
+   * What is known about a stream of the catalog, compiled once per sync.
+   */
+  private static final class StreamPlan {
 
-    recordSchemaValidator.validateSchemaWithoutCounting(record, messageStream, uncountedValidationErrors);
-    final Set<String> unexpectedFieldNames = getUnexpectedFieldNames(record, streamToAllFields.get(messageStream));
-    if (!unexpectedFieldNames.isEmpty()) {
-      unexpectedFields.computeIfAbsent(messageStream, k -> new HashSet<>()).addAll(unexpectedFieldNames);
-    }
-  }
+    private final AirbyteStreamNameNamespacePair stream;
+    // Top-level fields of the stream in the catalog.
+    private final Set<String> fields;
+    private final Set<String> unexpectedFields = new HashSet<>();
+    private long recordCount;
 
-  private void validateSchemaWithCount(final AirbyteMessage message) {
-    if (message.getRecord() == null) {
-      return;
+    private StreamPlan(final AirbyteStreamNameNamespacePair stream, final Set<String> fields) {
+      this.stream = stream;
+      this.fields = fields;
     }
 
-    final AirbyteRecordMessage record = message.getRecord();
-    final AirbyteStreamNameNamespacePair messageStream = AirbyteStreamNameNamespacePair.fromRecordMessage(record);
-    // avoid noise by validating only if the stream has less than 10 records with validation errors
-    final boolean streamHasLessThenTenErrs = validationErrors.get(messageStream) == null || validationErrors.get(messageStream).getRight() < 10;
-    if (streamHasLessThenTenErrs) {
-      recordSchemaValidator.validateSchema(record, messageStream, validationErrors);
-      final Set<String> unexpectedFieldNames = getUnexpectedFieldNames(record, streamToAllFields.get(messageStream));
-      if (!unexpectedFieldNames.isEmpty()) {
-        unexpectedFields.computeIfAbsent(messageStream, k -> new HashSet<>()).addAll(unexpectedFieldNames);
+    private void collectUnexpectedFields(final JsonNode data) {
+      // If it's not an object it's malformed, but we tolerate it here - it will be logged as an error by
+      // the validation.
+      if (data.isObject()) {
+        final Iterator<String> fieldNamesInRecord = data.fieldNames();
+        while (fieldNamesInRecord.hasNext()) {
+          collectUnexpectedField(fieldNamesInRecord.next());
+        }
+      } else if (RawJson.isRaw(data)) {
+        // Only tokenize the raw data, there is no need for a tree to get the field names.
+        RawJson.fieldNames(data).forEach(this::collectUnexpectedField);
       }
     }
-  }
 
-  private static Set<String> getUnexpectedFieldNames(final AirbyteRecordMessage record,
-                                                     final Set<String> fieldsInCatalog) {
-    Set<String> unexpectedFieldNames = new HashSet<>();
-    final JsonNode data = record.getData();
-    // If it's not an object it's malformed, but we tolerate it here - it will be logged as an error by
-    // the validation.
-    if (data.isObject()) {
-      final Iterator<String> fieldNamesInRecord = data.fieldNames();
-      while (fieldNamesInRecord.hasNext()) {
-        final String fieldName = fieldNamesInRecord.next();
-        if (!fieldsInCatalog.contains(fieldName)) {
-          unexpectedFieldNames.add(fieldName);
-        }
+    private void collectUnexpectedField(final String fieldName) {
+      if (!fields.contains(fieldName)) {
+        unexpectedFields.add(fieldName);
       }
     }
-    return unexpectedFieldNames;
+
   }
 
 }
@@ -8,9 +8,12 @@ import io.airbyte.commons.json.Jsons;
 import io.airbyte.config.JobSyncConfig.NamespaceDefinitionType;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.protocol.models.AirbyteMessage.Type;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStream;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
-import java.util.regex.Pattern;
+import io.airbyte.protocol.models.ConfiguredAirbyteStream;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.logging.log4j.util.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,14 +23,21 @@ import org.slf4j.LoggerFactory;
  * the source before it reaches the destination. One of the transformation is to define the
  * destination namespace where data will be stored and how to mirror (or not) the namespace used in
  * the source (if any). This is configured in the UI through the syncInput.
+ * <p>
+ * The destination namespace and name of each stream are computed once and kept in a table, mapping
+ * a record is a lookup in that table. The table is filled from the catalog and completed lazily for
+ * streams that are not in it. Records must be mapped from a single thread.
  */
 public class NamespacingMapper implements AirbyteMapper {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NamespacingMapper.class);
+  private static final String SOURCE_NAMESPACE_VARIABLE = "${SOURCE_NAMESPACE}";
 
   private final NamespaceDefinitionType namespaceDefinition;
   private final String namespaceFormat;
   private final String streamPrefix;
+  // source namespace -> source stream name -> destination stream, the namespace can be null.
+  private final Map<String, Map<String, MappedStream>> mappedStreams = new HashMap<>();
 
   public NamespacingMapper(final NamespaceDefinitionType namespaceDefinition, final String namespaceFormat, final String streamPrefix) {
     this.namespaceDefinition = namespaceDefinition;
@@ -35,25 +45,33 @@ public class NamespacingMapper implements AirbyteMapper {
     this.streamPrefix = streamPrefix;
   }
 
+  /**
+   * Create a mapper with the mapping of the streams of a catalog already computed.
+   *
+   * @param catalog catalog of the source
+   */
+  public NamespacingMapper(final NamespaceDefinitionType namespaceDefinition,
+                           final String namespaceFormat,
+                           final String streamPrefix,
+                           final ConfiguredAirbyteCatalog catalog) {
+    this(namespaceDefinition, namespaceFormat, streamPrefix);
+    for (final ConfiguredAirbyteStream stream : catalog.getStreams()) {
+      getMappedStream(stream.getStream().getNamespace(), stream.getStream().getName());
+    }
+  }
+
   @Override
   public ConfiguredAirbyteCatalog mapCatalog(final ConfiguredAirbyteCatalog inputCatalog) {
     final ConfiguredAirbyteCatalog catalog = Jsons.clone(inputCatalog);
     catalog.getStreams().forEach(s -> {
       final AirbyteStream stream = s.getStream();
-      // Default behavior if namespaceDefinition is not set is to follow SOURCE
-      if (namespaceDefinition != null) {
-        if (namespaceDefinition.equals(NamespaceDefinitionType.DESTINATION)) {
-          stream.withNamespace(null);
-        } else if (namespaceDefinition.equals(NamespaceDefinitionType.CUSTOMFORMAT)) {
-          final String namespace = formatNamespace(stream.getNamespace(), namespaceFormat);
-          if (namespace == null) {
-            LOGGER.error("Namespace Format cannot be blank for Stream {}. Falling back to default namespace from destination settings",
-                stream.getName());
-          }
-          stream.withNamespace(namespace);
-        }
+      final MappedStream mappedStream = getMappedStream(stream.getNamespace(), stream.getName());
+      if (mappedStream.namespace() == null && NamespaceDefinitionType.CUSTOMFORMAT.equals(namespaceDefinition)) {
+        LOGGER.error("Namespace Format cannot be blank for Stream {}. Falling back to default namespace from destination settings",
+            stream.getName());
       }
-      stream.withName(transformStreamName(stream.getName(), streamPrefix));
+      stream.withNamespace(mappedStream.namespace());
+      stream.withName(mappedStream.name());
     });
     return catalog;
   }
@@ -61,25 +79,36 @@ public class NamespacingMapper implements AirbyteMapper {
   @Override
   public AirbyteMessage mapMessage(final AirbyteMessage message) {
     if (message.getType() == Type.RECORD) {
-      // Default behavior if namespaceDefinition is not set is to follow SOURCE
-      if (namespaceDefinition != null) {
-        if (namespaceDefinition.equals(NamespaceDefinitionType.DESTINATION)) {
-          message.getRecord().withNamespace(null);
-        } else if (namespaceDefinition.equals(NamespaceDefinitionType.CUSTOMFORMAT)) {
-          message.getRecord().withNamespace(formatNamespace(message.getRecord().getNamespace(), namespaceFormat));
-        }
-      }
-      message.getRecord().setStream(transformStreamName(message.getRecord().getStream(), streamPrefix));
+      final AirbyteRecordMessage record = message.getRecord();
+      final MappedStream mappedStream = getMappedStream(record.getNamespace(), record.getStream());
+      record.setNamespace(mappedStream.namespace());
+      record.setStream(mappedStream.name());
       return message;
     }
     return message;
   }
 
+  private MappedStream getMappedStream(final String sourceNamespace, final String sourceStreamName) {
+    return mappedStreams.computeIfAbsent(sourceNamespace, k -> new HashMap<>())
+        .computeIfAbsent(sourceStreamName, k -> new MappedStream(mapNamespace(sourceNamespace), transformStreamName(sourceStreamName, streamPrefix)));
+  }
+
+  private String mapNamespace(final String sourceNamespace) {
+    // Default behavior if namespaceDefinition is not set is to follow SOURCE
+    if (namespaceDefinition == null) {
+      return sourceNamespace;
+    }
+    return switch (namespaceDefinition) {
+      case DESTINATION -> null;
+      case CUSTOMFORMAT -> formatNamespace(sourceNamespace, namespaceFormat);
+      default -> sourceNamespace;
+    };
+  }
+
   private static String formatNamespace(final String sourceNamespace, final String namespaceFormat) {
     String result = "";
     if (Strings.isNotBlank(namespaceFormat)) {
-      final String regex = Pattern.quote("${SOURCE_NAMESPACE}");
-      result = namespaceFormat.replaceAll(regex, Strings.isNotBlank(sourceNamespace) ? sourceNamespace : "");
+      result = namespaceFormat.replace(SOURCE_NAMESPACE_VARIABLE, Strings.isNotBlank(sourceNamespace) ? sourceNamespace : "");
     }
     if (Strings.isBlank(result)) {
       result = null;
@@ -95,4 +124,6 @@ public class NamespacingMapper implements AirbyteMapper {
     }
   }
 
+  private record MappedStream(String namespace, String name) {}
+
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airbyte.commons.io.ByteLineReader;
+import io.airbyte.commons.io.ByteLineReader.LineMapper;
+import io.airbyte.metrics.lib.MetricClient;
+import io.airbyte.metrics.lib.OssMetricsRegistry;
+import io.airbyte.protocol.models.AirbyteMessage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Deserializes the output of a connector on several threads while preserving the order of the
+ * messages.
+ * <p>
+ * A splitter thread cuts the output into batches of lines, each batch is deserialized on a pool of
+ * threads and the resulting messages are handed out in the order the batches were cut. The number of
+ * batches in flight is bounded, which applies backpressure on the splitter when the consumer is
+ * slower than the connector.
+ * <p>
+ * The time the splitter is blocked by a full pipeline and the time the consumer waits on a batch
+ * that is still being deserialized are reported as metrics, they tell whether the pipeline stalls on
+ * its consumer or on deserialization.
+ * <p>
+ * Lines are mapped on the threads of the pipeline, which use the MDC of the thread that created it
+ * so that the logs of the mapper end up in the job log.
+ */
+public class OrderedParallelDeserializer implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OrderedParallelDeserializer.class);
+
+  private static final int MAX_BATCH_LINES = 100;
+  private static final int MAX_BATCH_BYTES = 1024 * 1024;
+  private static final int INITIAL_BATCH_BYTES = 64 * 1024;
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+  private static final long METRICS_REPORT_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+  // Marks the end of the input in the in-flight queue.
+  private static final CompletableFuture<List<AirbyteMessage>> END_OF_INPUT = CompletableFuture.completedFuture(List.of());
+
+  private final ByteLineReader lineReader;
+  private final LineMapper<Stream<AirbyteMessage>> mapper;
+  private final MetricClient metricClient;
+  private final Map<String, String> mdc;
+  private final ExecutorService deserializers;
+  private final Thread splitter;
+  private final BlockingQueue<CompletableFuture<List<AirbyteMessage>>> inFlight;
+
+  private final LongAdder splitterBlockedNanos = new LongAdder();
+  private final LongAdder consumerBlockedNanos = new LongAdder();
+  private long lastMetricsReport = System.nanoTime();
+
+  private volatile boolean closed;
+  private boolean done;
+
+  /**
+   * Create the pipeline, it is started by {@link #stream()}.
+   *
+   * @param lineReader output of the connector
+   * @param mapper deserializes a line, it is called concurrently and must not retain the buffer
+   * @param parallelism number of deserialization threads
+   * @param metricClient client to report stalls to
+   */
+  public OrderedParallelDeserializer(final ByteLineReader lineReader,
+                                     final LineMapper<Stream<AirbyteMessage>> mapper,
+                                     final int parallelism,
+                                     final MetricClient metricClient) {
+    this.lineReader = lineReader;
+    this.mapper = mapper;
+    this.metricClient = metricClient;
+    this.mdc = MDC.getCopyOfContextMap();
+    this.deserializers = Executors.newFixedThreadPool(parallelism, withMdc(new ThreadFactoryBuilder()
+        .setNameFormat("source-deserializer-%d").setDaemon(true).build()));
+    this.splitter = withMdc(new ThreadFactoryBuilder().setNameFormat("source-line-splitter").setDaemon(true).build()).newThread(this::split);
+    // Twice the parallelism so that a thread can start on the next batch as soon as it is done.
+    this.inFlight = new ArrayBlockingQueue<>(2 * parallelism);
+  }
+
+  /**
+   * Start the pipeline. Closing the returned stream stops it.
+   *
+   * @return the deserialized messages, in order
+   */
+  public Stream<AirbyteMessage> stream() {
+    return batches().flatMap(List::stream);
+  }
+
+  /**
+   * Start the pipeline. Closing the returned stream stops it.
+   *
+   * @return the deserialized messages, in order, in the batches they were deserialized in. Batches
+   *         can be empty.
+   */
+  public Stream<List<AirbyteMessage>> batches() {
+    splitter.start();
+    final Spliterator<List<AirbyteMessage>> spliterator =
+        new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+          @Override
+          public boolean tryAdvance(final Consumer<? super List<AirbyteMessage>> action) {
+            final List<AirbyteMessage> batch = nextBatch();
+            if (batch == null) {
+              return false;
+            }
+            action.accept(batch);
+            return true;
+          }
+
+        };
+    return StreamSupport.stream(spliterator, false).onClose(this::close);
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      deserializers.shutdownNow();
+      reportMetrics();
+    }
+  }
+
+  private ThreadFactory withMdc(final ThreadFactory threadFactory) {
+    return runnable -> threadFactory.newThread(() -> {
+      if (mdc != null) {
+        MDC.setContextMap(mdc);
+      }
+      runnable.run();
+    });
+  }
+
+  private List<AirbyteMessage> nextBatch() {
+    if (done) {
+      return null;
+    }
+    try {
+      final CompletableFuture<List<AirbyteMessage>> batch = takeBatch();
+      if (batch == END_OF_INPUT) {
+        done = true;
+        close();
+        return null;
+      }
+
+      final List<AirbyteMessage> messages;
+      if (batch.isDone()) {
+        messages = batch.get();
+      } else {
+        final long start = System.nanoTime();
+        messages = batch.get();
+        consumerBlockedNanos.add(System.nanoTime() - start);
+      }
+      maybeReportMetrics();
+      return messages;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (final ExecutionException e) {
+      // Failures are surfaced in order, after all the messages that were read before them.
+      done = true;
+      close();
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private CompletableFuture<List<AirbyteMessage>> takeBatch() throws InterruptedException {
+    CompletableFuture<List<AirbyteMessage>> batch;
+    while ((batch = inFlight.poll(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+      if (!splitter.isAlive()) {
+        // The splitter always ends the input unless it was interrupted, do not wait for it forever.
+        batch = inFlight.poll();
+        return batch == null ? END_OF_INPUT : batch;
+      }
+    }
+    return batch;
+  }
+
+  private void split() {
+    try {
+      LineBatch batch = new LineBatch();
+      while (!closed) {
+        // Do not hold on to a partial batch while the connector is quiet.
+        if (batch.count > 0 && !lineReader.ready()) {
+          submit(batch);
+          batch = new LineBatch();
+        }
+        if (!lineReader.readLine()) {
+          break;
+        }
+        batch.add(lineReader.buffer(), lineReader.lineOffset(), lineReader.lineLength());
+        if (batch.isFull()) {
+          submit(batch);
+          batch = new LineBatch();
+        }
+      }
+      if (batch.count > 0) {
+        submit(batch);
+      }
+      enqueue(END_OF_INPUT);
+    } catch (final InterruptedException e) {
+      LOGGER.info("Line splitter interrupted", e);
+    } catch (final Throwable e) {
+      try {
+        enqueue(CompletableFuture.failedFuture(e instanceof IOException ioException ? new UncheckedIOException(ioException) : e));
+      } catch (final InterruptedException ie) {
+        LOGGER.info("Line splitter interrupted", ie);
+      }
+    }
+  }
+
+  private void submit(final LineBatch batch) throws InterruptedException {
+    enqueue(CompletableFuture.supplyAsync(() -> deserialize(batch), deserializers));
+  }
+
+  private void enqueue(final CompletableFuture<List<AirbyteMessage>> batch) throws InterruptedException {
+    if (inFlight.offer(batch)) {
+      return;
+    }
+    // The consumer is behind, keep waiting unless the pipeline gets closed.
+    final long start = System.nanoTime();
+    boolean enqueued = false;
+    while (!closed && !enqueued) {
+      enqueued = inFlight.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    splitterBlockedNanos.add(System.nanoTime() - start);
+  }
+
+  private List<AirbyteMessage> deserialize(final LineBatch batch) {
+    final List<AirbyteMessage> messages = new ArrayList<>(batch.count);
+    for (int i = 0; i < batch.count; i++) {
+      mapper.map(batch.bytes, batch.offsets[i], batch.lengths[i]).forEach(messages::add);
+    }
+    return messages;
+  }
+
+  private void maybeReportMetrics() {
+    if (System.nanoTime() - lastMetricsReport >= METRICS_REPORT_PERIOD_NANOS) {
+      reportMetrics();
+    }
+  }
+
+  private void reportMetrics() {
+    lastMetricsReport = System.nanoTime();
+    metricClient.count(OssMetricsRegistry.WORKER_SOURCE_DESERIALIZATION_SPLITTER_BLOCKED_MS,
+        TimeUnit.NANOSECONDS.toMillis(splitterBlockedNanos.sumThenReset()));
+    metricClient.count(OssMetricsRegistry.WORKER_SOURCE_DESERIALIZATION_CONSUMER_BLOCKED_MS,
+        TimeUnit.NANOSECONDS.toMillis(consumerBlockedNanos.sumThenReset()));
+    metricClient.gauge(OssMetricsRegistry.WORKER_SOURCE_DESERIALIZATION_BATCHES_IN_FLIGHT, inFlight.size());
+  }
+
+  /**
+   * Copy of consecutive lines, the buffer of the line reader is reused for the next lines.
+   */
+  private static final class LineBatch {
+
+    private byte[] bytes = new byte[INITIAL_BATCH_BYTES];
+    private int size;
+    private final int[] offsets = new int[MAX_BATCH_LINES];
+    private final int[] lengths = new int[MAX_BATCH_LINES];
+    private int count;
+
+    void add(final byte[] buffer, final int offset, final int length) {
+      if (size + length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + length));
+      }
+      System.arraycopy(buffer, offset, bytes, size, length);
+      offsets[count] = size;
+      lengths[count] = length;
+      size += length;
+      count++;
+    }
+
+    boolean isFull() {
+      return count == MAX_BATCH_LINES || size >= MAX_BATCH_BYTES;
+    }
+
+  }
+
+}
@@ -7,6 +7,9 @@ package io.airbyte.workers.internal;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import io.airbyte.commons.io.ByteLineReader;
+import io.airbyte.commons.io.ByteLineReader.LineMapper;
+import io.airbyte.commons.io.IOs;
 import io.airbyte.commons.json.Jsons;
 import io.airbyte.commons.logging.MdcScope;
 import io.airbyte.commons.protocol.AirbyteMessageMigrator;
@@ -15,26 +18,33 @@ import io.airbyte.commons.protocol.AirbyteMessageVersionedMigrator;
 import io.airbyte.commons.protocol.AirbyteProtocolVersionedMigratorFactory;
 import io.airbyte.commons.protocol.ConfiguredAirbyteCatalogMigrator;
 import io.airbyte.commons.protocol.serde.AirbyteMessageDeserializer;
+import io.airbyte.commons.protocol.serde.AirbyteMessageRawDataDeserializer;
 import io.airbyte.commons.protocol.serde.AirbyteMessageV0Deserializer;
 import io.airbyte.commons.protocol.serde.AirbyteMessageV0Serializer;
 import io.airbyte.commons.protocol.serde.AirbyteMessageV1Deserializer;
 import io.airbyte.commons.protocol.serde.AirbyteMessageV1Serializer;
 import io.airbyte.commons.version.AirbyteProtocolVersion;
 import io.airbyte.commons.version.Version;
+import io.airbyte.metrics.lib.AggregatedDistribution;
+import io.airbyte.metrics.lib.MetricClient;
 import io.airbyte.metrics.lib.MetricClientFactory;
 import io.airbyte.metrics.lib.OssMetricsRegistry;
 import io.airbyte.protocol.models.AirbyteLogMessage;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
+import io.airbyte.workers.internal.ConnectorLogForwarder.FullBufferPolicy;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -70,6 +80,8 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
   private static final int BUFFER_READ_AHEAD_LIMIT = 32000;
   private static final int MESSAGES_LOOK_AHEAD_FOR_DETECTION = 10;
   private static final String TYPE_FIELD_NAME = "type";
+  // Lines read at once from the output of a connector, when it can be read without blocking.
+  private static final int MAX_BATCH_LINES = 100;
 
   // BASIC PROCESSING FIELDS
   protected final Logger logger;
@@ -86,6 +98,10 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
   private Version protocolVersion;
 
   private boolean shouldDetectVersion = false;
+  private boolean passthroughRecordData = false;
+  private int deserializationParallelism = 1;
+  private int connectorLogBufferSize = 0;
+  private FullBufferPolicy connectorLogPolicy = FullBufferPolicy.BLOCK;
 
   /**
    * In some cases, we know the stream will never emit messages that need to be migrated. This is
@@ -173,13 +189,45 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
   @Override
   public Stream<AirbyteMessage> create(final BufferedReader bufferedReader) {
     detectAndInitialiseMigrators(bufferedReader);
-    final boolean needMigration = !protocolVersion.getMajorVersion().equals(migratorFactory.getMostRecentVersion().getMajorVersion());
+    logProtocolVersion();
+    return addLineReadLogic(bufferedReader);
+  }
+
+  /**
+   * Create the AirbyteMessage stream from the raw output of a connector.
+   *
+   * Lines are split and parsed as bytes, they are only decoded to a String when they need to be
+   * logged. Version detection relies on {@link BufferedReader#mark(int)}, so it falls back to
+   * {@link #create(BufferedReader)}.
+   */
+  @Override
+  public Stream<AirbyteMessage> create(final InputStream inputStream) {
+    if (shouldDetectVersion) {
+      return create(IOs.newBufferedReader(inputStream));
+    }
+    logProtocolVersion();
+    return addBatchReadLogic(new ByteLineReader(inputStream)).flatMap(List::stream);
+  }
+
+  /**
+   * Create the AirbyteMessage stream from the raw output of a connector, in batches of the messages
+   * that could be read without blocking. Version detection falls back to
+   * {@link #create(BufferedReader)}, each message is then its own batch.
+   */
+  @Override
+  public Stream<List<AirbyteMessage>> createBatches(final InputStream inputStream) {
+    if (shouldDetectVersion) {
+      return AirbyteStreamFactory.super.createBatches(inputStream);
+    }
+    logProtocolVersion();
+    return addBatchReadLogic(new ByteLineReader(inputStream));
+  }
+
+  private void logProtocolVersion() {
     logger.info(
         "Reading messages from protocol version {}{}",
         protocolVersion.serialize(),
-        needMigration ? ", messages will be upgraded to protocol version " + migratorFactory.getMostRecentVersion().serialize() : "");
-
-    return addLineReadLogic(bufferedReader);
+        needMigration(protocolVersion) ? ", messages will be upgraded to protocol version " + migratorFactory.getMostRecentVersion().serialize() : "");
   }
 
   private void detectAndInitialiseMigrators(BufferedReader bufferedReader) {
@@ -202,31 +250,85 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
   }
 
   private Stream<AirbyteMessage> addLineReadLogic(final BufferedReader bufferedReader) {
-    final var metricClient = MetricClientFactory.getMetricClient();
+    final AggregatedDistribution messageSizes = newMessageSizeDistribution(MetricClientFactory.getMetricClient());
     return bufferedReader
         .lines()
         .peek(str -> {
-          metricClient.distribution(OssMetricsRegistry.JSON_STRING_LENGTH, str.getBytes(StandardCharsets.UTF_8).length);
-
-          if (exceptionClass.isPresent()) {
-            final long messageSize = str.getBytes(StandardCharsets.UTF_8).length;
-            if (messageSize > maxMemory * MAX_SIZE_RATIO) {
-              try {
-                final String errorMessage = String.format(
-                    "Airbyte has received a message at %s UTC which is larger than %s (size: %s). "
-                        + "The sync has been failed to prevent running out of memory.",
-                    DateTime.now(),
-                    humanReadableByteCountSI(maxMemory),
-                    humanReadableByteCountSI(messageSize));
-                throw exceptionClass.get().getConstructor(String.class).newInstance(errorMessage);
-              } catch (final InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                throw new RuntimeException(e);
-              }
-            }
-          }
+          final long messageSize = str.getBytes(StandardCharsets.UTF_8).length;
+          messageSizes.record(messageSize);
+          checkMessageSize(messageSize);
         })
         .flatMap(this::toAirbyteMessage)
-        .filter(this::filterLog);
+        .filter(this::filterLog)
+        .onClose(messageSizes::publish);
+  }
+
+  private Stream<List<AirbyteMessage>> addBatchReadLogic(final ByteLineReader lineReader) {
+    final var metricClient = MetricClientFactory.getMetricClient();
+    final AggregatedDistribution messageSizes = newMessageSizeDistribution(metricClient);
+    final LineMapper<Stream<AirbyteMessage>> lineMapper = (buffer, offset, length) -> {
+      messageSizes.record(length);
+      checkMessageSize(length);
+      return toAirbyteMessage(buffer, offset, length);
+    };
+    final Stream<List<AirbyteMessage>> batches = deserializationParallelism > 1
+        ? new OrderedParallelDeserializer(lineReader, lineMapper, deserializationParallelism, metricClient).batches()
+        : lineReader.batches(lineMapper, MAX_BATCH_LINES).map(VersionedAirbyteStreamFactory::flatten);
+    // Logs are filtered on the consuming thread so that they keep their order relative to the other
+    // messages, or at least to each other when they are handed to a forwarder.
+    if (connectorLogBufferSize <= 0) {
+      return batches.map(batch -> filterLogs(batch, this::filterLog)).onClose(messageSizes::publish);
+    }
+    final ConnectorLogForwarder logForwarder =
+        new ConnectorLogForwarder(this::internalLog, containerLogMdcBuilder, connectorLogBufferSize, connectorLogPolicy, metricClient);
+    return batches.map(batch -> filterLogs(batch, message -> forwardLog(logForwarder, message)))
+        .onClose(messageSizes::publish)
+        .onClose(logForwarder::close);
+  }
+
+  private static List<AirbyteMessage> filterLogs(final List<AirbyteMessage> batch, final Predicate<AirbyteMessage> logFilter) {
+    batch.removeIf(logFilter.negate());
+    return batch;
+  }
+
+  private static boolean forwardLog(final ConnectorLogForwarder logForwarder, final AirbyteMessage message) {
+    final boolean isLog = message.getType() == AirbyteMessage.Type.LOG;
+    if (isLog) {
+      logForwarder.forward(message.getLog());
+    }
+    return !isLog;
+  }
+
+  private static List<AirbyteMessage> flatten(final List<Stream<AirbyteMessage>> lines) {
+    final List<AirbyteMessage> messages = new ArrayList<>(lines.size());
+    for (final Stream<AirbyteMessage> line : lines) {
+      line.forEach(messages::add);
+    }
+    return messages;
+  }
+
+  /**
+   * The size of every message is recorded, it is aggregated locally rather than sent to the metric
+   * client one message at a time.
+   */
+  private static AggregatedDistribution newMessageSizeDistribution(final MetricClient metricClient) {
+    return new AggregatedDistribution(metricClient, OssMetricsRegistry.JSON_STRING_LENGTH_PERCENTILES);
+  }
+
+  private void checkMessageSize(final long messageSize) {
+    if (exceptionClass.isPresent() && messageSize > maxMemory * MAX_SIZE_RATIO) {
+      try {
+        final String errorMessage = String.format(
+            "Airbyte has received a message at %s UTC which is larger than %s (size: %s). "
+                + "The sync has been failed to prevent running out of memory.",
+            DateTime.now(),
+            humanReadableByteCountSI(maxMemory),
+            humanReadableByteCountSI(messageSize));
+        throw exceptionClass.get().getConstructor(String.class).newInstance(errorMessage);
+      } catch (final InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+        throw new RuntimeException(e);
+      }
+    }
   }
 
   /**
@@ -283,12 +385,56 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
     return this;
   }
 
+  /**
+   * Keep the data of records as the raw JSON sent by the connector instead of parsing it, see
+   * {@link AirbyteMessageRawDataDeserializer}. This is ignored if messages need to be upgraded since
+   * migrations operate on the data.
+   */
+  public VersionedAirbyteStreamFactory<T> withPassthroughRecordData(final boolean passthroughRecordData) {
+    this.passthroughRecordData = passthroughRecordData;
+    initializeForProtocolVersion(protocolVersion);
+    return this;
+  }
+
+  /**
+   * Deserialize the lines emitted by the connector on several threads, see
+   * {@link OrderedParallelDeserializer}. The order of the messages is preserved. This only applies to
+   * {@link #create(InputStream)}, a parallelism of 1 or less deserializes on the consuming thread.
+   */
+  public VersionedAirbyteStreamFactory<T> withDeserializationParallelism(final int deserializationParallelism) {
+    this.deserializationParallelism = deserializationParallelism;
+    return this;
+  }
+
+  /**
+   * Log the LOG messages of the connector on a background thread, see {@link ConnectorLogForwarder},
+   * instead of the thread consuming the messages. This only applies to {@link #create(InputStream)}
+   * and {@link #createBatches(InputStream)}, the forwarder is stopped when the stream is closed. A
+   * buffer size of 0 or less logs on the consuming thread.
+   *
+   * @param bufferSize maximum number of log messages waiting to be logged
+   * @param policy what to do with log messages when the buffer is filling up
+   */
+  public VersionedAirbyteStreamFactory<T> withAsyncLogs(final int bufferSize, final FullBufferPolicy policy) {
+    this.connectorLogBufferSize = bufferSize;
+    this.connectorLogPolicy = policy;
+    return this;
+  }
+
   protected final void initializeForProtocolVersion(final Version protocolVersion) {
-    this.deserializer = (AirbyteMessageDeserializer<AirbyteMessage>) serDeProvider.getDeserializer(protocolVersion).orElseThrow();
+    if (passthroughRecordData && !needMigration(protocolVersion)) {
+      this.deserializer = new AirbyteMessageRawDataDeserializer(protocolVersion);
+    } else {
+      this.deserializer = (AirbyteMessageDeserializer<AirbyteMessage>) serDeProvider.getDeserializer(protocolVersion).orElseThrow();
+    }
     this.migrator = migratorFactory.getAirbyteMessageMigrator(protocolVersion);
     this.protocolVersion = protocolVersion;
   }
 
+  private boolean needMigration(final Version version) {
+    return !version.getMajorVersion().equals(migratorFactory.getMostRecentVersion().getMajorVersion());
+  }
+
   protected boolean filterLog(final AirbyteMessage message) {
     final boolean isLog = message.getType() == AirbyteMessage.Type.LOG;
     if (isLog) {
@@ -339,13 +485,23 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
    */
   protected Stream<AirbyteMessage> toAirbyteMessage(final String line) {
     // put back the deserializer.
-    Optional<AirbyteMessage> m = deserializer.deserialize(line);
+    return toAirbyteMessage(deserializer.deserialize(line), () -> line);
+  }
+
+  /**
+   * Same as {@link #toAirbyteMessage(String)} for a line given as a slice of a UTF-8 buffer. The
+   * buffer is only decoded to a String if the line needs to be logged.
+   */
+  protected Stream<AirbyteMessage> toAirbyteMessage(final byte[] buffer, final int offset, final int length) {
+    return toAirbyteMessage(deserializer.deserialize(buffer, offset, length), () -> new String(buffer, offset, length, StandardCharsets.UTF_8));
+  }
 
+  private Stream<AirbyteMessage> toAirbyteMessage(Optional<AirbyteMessage> m, final Supplier<String> line) {
     if (m.isPresent()) {
       m = BasicAirbyteMessageValidator.validate(m.get());
 
       if (m.isEmpty()) {
-        logger.error("Validation failed: {}", Jsons.serialize(line));
+        logger.error("Validation failed: {}", Jsons.serialize(line.get()));
         return m.stream();
       }
 
@@ -361,7 +517,7 @@ public class VersionedAirbyteStreamFactory<T> implements AirbyteStreamFactory {
     //
     // When Connector Ops rectifies this, we can remove this.
     try (final var mdcScope = containerLogMdcBuilder.build()) {
-      logger.info(line);
+      logger.info(line.get());
     }
     return m.stream();
   }
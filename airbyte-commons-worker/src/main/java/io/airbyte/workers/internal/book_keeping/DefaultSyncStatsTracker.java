@@ -6,24 +6,33 @@ package io.airbyte.workers.internal.book_keeping;
 
 import static io.airbyte.protocol.models.AirbyteEstimateTraceMessage.Type.STREAM;
 
-import com.google.common.base.Charsets;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import io.airbyte.commons.json.JsonHashing;
 import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.commons.protocol.serde.MeasuredAirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteEstimateTraceMessage;
+import io.airbyte.protocol.models.AirbyteGlobalState;
 import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStateMessage;
 import io.airbyte.protocol.models.AirbyteStateMessage.AirbyteStateType;
 import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
+import io.airbyte.protocol.models.AirbyteStreamState;
+import io.airbyte.protocol.models.StreamDescriptor;
 import io.airbyte.workers.internal.book_keeping.StateMetricsTracker.StateMetricsTrackerNoStateMatchException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,14 +45,34 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
   private static final long STATE_DELTA_TRACKER_MEMORY_LIMIT_BYTES = 10L * 1024L * 1024L; // 10 MiB, ~5% of default cloud worker memory
   private static final long STATE_METRICS_TRACKER_MESSAGE_LIMIT = 873813L; // 12 bytes per message tracked, maximum of 10MiB of memory
 
-  private final Map<AirbyteStreamNameNamespacePair, StreamStats> nameNamespacePairToStreamStats;
+  private static final int INITIAL_STREAM_CAPACITY = 16;
+
+  // Streams are numbered in the order they are first seen and the stats of a stream are at its
+  // index in the arrays below. The StateDeltaTracker stores indexes as shorts.
+  // namespace -> stream name -> index, the namespace can be null.
+  private final Map<String, Map<String, Short>> streamIndexes;
+  private final List<AirbyteStreamNameNamespacePair> streams;
+  // Records usually come in runs of the same stream.
+  private String lastStreamNamespace;
+  private String lastStreamName;
+  private short lastStreamIndex;
+
+  private long[] estimatedRecords;
+  private long[] estimatedBytes;
+  private long[] emittedRecords;
+  private long[] emittedBytes;
   // These variables support SYNC level estimates and are meant for sources where stream level
   // estimates are not possible e.g. CDC sources.
   private Long totalRecordsEstimatedSync;
   private Long totalBytesEstimatedSync;
   private Optional<Boolean> hasStreamEstimates;
 
-  private final Map<Short, StatsCounters> streamToRunningCount;
+  // Counts since the last source state, only for the streams listed in runningStreams.
+  private long[] runningRecords;
+  private long[] runningBytes;
+  private short[] runningStreams;
+  private int runningStreamCount;
+
   private final HashFunction hashFunction;
   private final StateDeltaTracker stateDeltaTracker;
   private final StateMetricsTracker stateMetricsTracker;
@@ -58,27 +87,29 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   private boolean unreliableStateTimingMetrics;
 
-  // TODO remove? looks like some optimization, not sure it's worth it
-  private final BiMap<AirbyteStreamNameNamespacePair, Short> nameNamespacePairToIndex;
-  private short nextStreamIndex;
-
   public DefaultSyncStatsTracker() {
     this(new StateDeltaTracker(STATE_DELTA_TRACKER_MEMORY_LIMIT_BYTES), new StateMetricsTracker(STATE_METRICS_TRACKER_MESSAGE_LIMIT));
   }
 
   public DefaultSyncStatsTracker(final StateDeltaTracker stateDeltaTracker, final StateMetricsTracker stateMetricsTracker) {
-    this.nameNamespacePairToStreamStats = new HashMap<>();
+    this.streamIndexes = new HashMap<>();
+    this.streams = new ArrayList<>();
+    this.lastStreamIndex = -1;
+    this.estimatedRecords = new long[INITIAL_STREAM_CAPACITY];
+    this.estimatedBytes = new long[INITIAL_STREAM_CAPACITY];
+    this.emittedRecords = new long[INITIAL_STREAM_CAPACITY];
+    this.emittedBytes = new long[INITIAL_STREAM_CAPACITY];
     this.hasStreamEstimates = Optional.empty();
 
-    this.streamToRunningCount = new HashMap<>();
+    this.runningRecords = new long[INITIAL_STREAM_CAPACITY];
+    this.runningBytes = new long[INITIAL_STREAM_CAPACITY];
+    this.runningStreams = new short[INITIAL_STREAM_CAPACITY];
+    this.runningStreamCount = 0;
     this.hashFunction = Hashing.murmur3_32_fixed();
     this.stateDeltaTracker = stateDeltaTracker;
     this.stateMetricsTracker = stateMetricsTracker;
     this.unreliableCommittedCounts = false;
     this.unreliableStateTimingMetrics = false;
-
-    this.nameNamespacePairToIndex = HashBiMap.create();
-    this.nextStreamIndex = 0;
   }
 
   /**
@@ -90,24 +121,16 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
       stateMetricsTracker.setFirstRecordReceivedAt(LocalDateTime.now());
     }
 
-    final var nameNamespace = AirbyteStreamNameNamespacePair.fromRecordMessage(recordMessage);
-    final short streamIndex = getStreamIndex(nameNamespace);
+    final short streamIndex = getStreamIndex(recordMessage.getNamespace(), recordMessage.getStream());
+    final int numBytes = getByteSize(recordMessage);
+    emittedRecords[streamIndex]++;
+    emittedBytes[streamIndex] += numBytes;
 
-    StatsCounters currentRunningCount = streamToRunningCount.get(streamIndex);
-    if (currentRunningCount == null) {
-      currentRunningCount = new StatsCounters();
-      streamToRunningCount.put(streamIndex, currentRunningCount);
+    if (runningRecords[streamIndex] == 0) {
+      runningStreams[runningStreamCount++] = streamIndex;
     }
-    currentRunningCount.recordCount++;
-
-    final var currStats = nameNamespacePairToStreamStats.getOrDefault(nameNamespace, new StreamStats());
-    currStats.emittedRecords++;
-
-    final int estimatedNumBytes = Jsons.getEstimatedByteSize(recordMessage.getData());
-    currStats.emittedBytes += estimatedNumBytes;
-    currentRunningCount.bytesCount += estimatedNumBytes;
-
-    nameNamespacePairToStreamStats.put(nameNamespace, currStats);
+    runningRecords[streamIndex]++;
+    runningBytes[streamIndex] += numBytes;
   }
 
   /**
@@ -128,11 +151,9 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
       case STREAM -> {
         Preconditions.checkArgument(hasStreamEstimates.get(), "STREAM and SYNC estimates should not be emitted in the same sync.");
 
-        final var nameNamespace = new AirbyteStreamNameNamespacePair(estimate.getName(), estimate.getNamespace());
-        final var currStats = nameNamespacePairToStreamStats.getOrDefault(nameNamespace, new StreamStats());
-        currStats.estimatedRecords = estimate.getRowEstimate();
-        currStats.estimatedBytes = estimate.getByteEstimate();
-        nameNamespacePairToStreamStats.put(nameNamespace, currStats);
+        final short streamIndex = getStreamIndex(estimate.getNamespace(), estimate.getName());
+        estimatedRecords[streamIndex] = estimate.getRowEstimate();
+        estimatedBytes[streamIndex] = estimate.getByteEstimate();
       }
       case SYNC -> {
         Preconditions.checkArgument(!hasStreamEstimates.get(), "STREAM and SYNC estimates should not be emitted in the same sync.");
@@ -159,7 +180,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
     final int stateHash = getStateHashCode(stateMessage);
     try {
       if (!unreliableCommittedCounts) {
-        stateDeltaTracker.addState(stateHash, streamToRunningCount);
+        stateDeltaTracker.addState(stateHash, getRunningCounts());
       }
       if (!unreliableStateTimingMetrics) {
         stateMetricsTracker.addState(stateMessage, stateHash, timeEmittedStateMessage);
@@ -175,7 +196,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
       unreliableStateTimingMetrics = true;
     }
 
-    streamToRunningCount.clear();
+    resetRunningCounts();
   }
 
   /**
@@ -213,8 +234,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public Map<AirbyteStreamNameNamespacePair, Long> getStreamToEmittedRecords() {
-    return nameNamespacePairToStreamStats.entrySet().stream().collect(Collectors.toMap(
-        Entry::getKey, entry -> entry.getValue().emittedRecords));
+    return toStreamMap(emittedRecords);
   }
 
   /**
@@ -222,10 +242,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public Map<AirbyteStreamNameNamespacePair, Long> getStreamToEstimatedRecords() {
-    return nameNamespacePairToStreamStats.entrySet().stream().collect(
-        Collectors.toMap(
-            Entry::getKey,
-            entry -> entry.getValue().estimatedRecords));
+    return toStreamMap(estimatedRecords);
   }
 
   /**
@@ -233,9 +250,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public Map<AirbyteStreamNameNamespacePair, Long> getStreamToEmittedBytes() {
-    return nameNamespacePairToStreamStats.entrySet().stream().collect(Collectors.toMap(
-        Entry::getKey,
-        entry -> entry.getValue().emittedBytes));
+    return toStreamMap(emittedBytes);
   }
 
   /**
@@ -243,10 +258,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public Map<AirbyteStreamNameNamespacePair, Long> getStreamToEstimatedBytes() {
-    return nameNamespacePairToStreamStats.entrySet().stream().collect(
-        Collectors.toMap(
-            Entry::getKey,
-            entry -> entry.getValue().estimatedBytes));
+    return toStreamMap(estimatedBytes);
   }
 
   /**
@@ -254,9 +266,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public long getTotalRecordsEmitted() {
-    return nameNamespacePairToStreamStats.values().stream()
-        .map(stats -> stats.emittedRecords)
-        .reduce(0L, Long::sum);
+    return sum(emittedRecords);
   }
 
   /**
@@ -264,10 +274,8 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public long getTotalRecordsEstimated() {
-    if (!nameNamespacePairToStreamStats.isEmpty()) {
-      return nameNamespacePairToStreamStats.values().stream()
-          .map(e -> e.estimatedRecords)
-          .reduce(0L, Long::sum);
+    if (!streams.isEmpty()) {
+      return sum(estimatedRecords);
     }
 
     return totalRecordsEstimatedSync;
@@ -278,9 +286,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public long getTotalBytesEmitted() {
-    return nameNamespacePairToStreamStats.values().stream()
-        .map(e -> e.emittedBytes)
-        .reduce(0L, Long::sum);
+    return sum(emittedBytes);
   }
 
   /**
@@ -288,10 +294,8 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
    */
   @Override
   public long getTotalBytesEstimated() {
-    if (!nameNamespacePairToStreamStats.isEmpty()) {
-      return nameNamespacePairToStreamStats.values().stream()
-          .map(e -> e.estimatedBytes)
-          .reduce(0L, Long::sum);
+    if (!streams.isEmpty()) {
+      return sum(estimatedBytes);
     }
 
     return totalBytesEstimatedSync;
@@ -310,7 +314,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
     final Map<Short, StatsCounters> streamIndexToCommittedStats = stateDeltaTracker.getStreamToCommittedStats();
     return Optional.of(
         streamIndexToCommittedStats.entrySet().stream().collect(
-            Collectors.toMap(entry -> nameNamespacePairToIndex.inverse().get(entry.getKey()), e -> e.getValue().bytesCount)));
+            Collectors.toMap(entry -> streams.get(entry.getKey()), e -> e.getValue().bytesCount)));
   }
 
   /**
@@ -326,7 +330,7 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
     final Map<Short, StatsCounters> streamIndexToCommittedStats = stateDeltaTracker.getStreamToCommittedStats();
     return Optional.of(
         streamIndexToCommittedStats.entrySet().stream().collect(
-            Collectors.toMap(entry -> nameNamespacePairToIndex.inverse().get(entry.getKey()), e -> e.getValue().recordCount)));
+            Collectors.toMap(entry -> streams.get(entry.getKey()), e -> e.getValue().recordCount)));
   }
 
   /**
@@ -404,23 +408,122 @@ public class DefaultSyncStatsTracker implements SyncStatsTracker {
     return unreliableStateTimingMetrics;
   }
 
+  /**
+   * The bytes of a record are the size of its data. Use the size measured when the record was read
+   * when it is known, so that the data does not have to be serialized again. Otherwise, e.g. for
+   * records that were not read from a connector or that were modified, measure the data.
+   */
+  private static int getByteSize(final AirbyteRecordMessage recordMessage) {
+    final OptionalInt dataSize = MeasuredAirbyteRecordMessage.getDataSize(recordMessage);
+    if (dataSize.isPresent()) {
+      return dataSize.getAsInt();
+    }
+    final JsonNode data = recordMessage.getData();
+    return RawJson.isRaw(data) ? RawJson.byteSize(data) : Jsons.getEstimatedByteSize(data);
+  }
+
+  /**
+   * Hash the content of a state, so that the state committed by the destination can be matched with
+   * the one emitted by the source. The JSON of the state is hashed as a tree, see
+   * {@link JsonHashing}, the state does not need to be serialized. A global state covers the same
+   * fields as its serialization, including the additional properties.
+   */
   private int getStateHashCode(final AirbyteStateMessage stateMessage) {
+    final Hasher hasher = hashFunction.newHasher();
     if (AirbyteStateType.GLOBAL == stateMessage.getType()) {
-      return hashFunction.hashBytes(Jsons.serialize(stateMessage.getGlobal()).getBytes(Charsets.UTF_8)).hashCode();
+      final AirbyteGlobalState global = stateMessage.getGlobal();
+      JsonHashing.putJson(hasher, global.getSharedState());
+      if (global.getStreamStates() != null) {
+        for (final AirbyteStreamState streamState : global.getStreamStates()) {
+          final StreamDescriptor stream = streamState.getStreamDescriptor();
+          JsonHashing.putString(hasher, stream == null ? null : stream.getNamespace());
+          JsonHashing.putString(hasher, stream == null ? null : stream.getName());
+          putAdditionalProperties(hasher, stream == null ? null : stream.getAdditionalProperties());
+          JsonHashing.putJson(hasher, streamState.getStreamState());
+          putAdditionalProperties(hasher, streamState.getAdditionalProperties());
+        }
+      }
+      putAdditionalProperties(hasher, global.getAdditionalProperties());
     } else if (AirbyteStateType.STREAM == stateMessage.getType()) {
-      return hashFunction.hashBytes(Jsons.serialize(stateMessage.getStream().getStreamState()).getBytes(Charsets.UTF_8)).hashCode();
+      JsonHashing.putJson(hasher, stateMessage.getStream().getStreamState());
     } else {
       // state type is LEGACY
-      return hashFunction.hashBytes(Jsons.serialize(stateMessage.getData()).getBytes(Charsets.UTF_8)).hashCode();
+      JsonHashing.putJson(hasher, stateMessage.getData());
+    }
+    return hasher.hash().hashCode();
+  }
+
+  private static void putAdditionalProperties(final Hasher hasher, final Map<String, Object> additionalProperties) {
+    // Almost always empty, only build a tree when there is something to hash.
+    JsonHashing.putJson(hasher, additionalProperties == null || additionalProperties.isEmpty() ? null : Jsons.jsonNode(additionalProperties));
+  }
+
+  private short getStreamIndex(final String namespace, final String name) {
+    if (lastStreamIndex >= 0 && Objects.equals(lastStreamName, name) && Objects.equals(lastStreamNamespace, namespace)) {
+      return lastStreamIndex;
+    }
+
+    final Map<String, Short> namespaceStreamIndexes = streamIndexes.computeIfAbsent(namespace, k -> new HashMap<>());
+    Short streamIndex = namespaceStreamIndexes.get(name);
+    if (streamIndex == null) {
+      streamIndex = addStream(new AirbyteStreamNameNamespacePair(name, namespace));
+      namespaceStreamIndexes.put(name, streamIndex);
+    }
+    lastStreamNamespace = namespace;
+    lastStreamName = name;
+    lastStreamIndex = streamIndex;
+    return streamIndex;
+  }
+
+  private short addStream(final AirbyteStreamNameNamespacePair stream) {
+    final int streamIndex = streams.size();
+    Preconditions.checkState(streamIndex <= Short.MAX_VALUE, "Stats cannot be tracked for more than %s streams.", Short.MAX_VALUE + 1);
+    if (streamIndex == emittedRecords.length) {
+      final int capacity = Math.min(2 * streamIndex, Short.MAX_VALUE + 1);
+      estimatedRecords = Arrays.copyOf(estimatedRecords, capacity);
+      estimatedBytes = Arrays.copyOf(estimatedBytes, capacity);
+      emittedRecords = Arrays.copyOf(emittedRecords, capacity);
+      emittedBytes = Arrays.copyOf(emittedBytes, capacity);
+      runningRecords = Arrays.copyOf(runningRecords, capacity);
+      runningBytes = Arrays.copyOf(runningBytes, capacity);
+      runningStreams = Arrays.copyOf(runningStreams, capacity);
+    }
+    streams.add(stream);
+    return (short) streamIndex;
+  }
+
+  private Map<Short, StatsCounters> getRunningCounts() {
+    final Map<Short, StatsCounters> runningCounts = new HashMap<>();
+    for (int i = 0; i < runningStreamCount; i++) {
+      final short streamIndex = runningStreams[i];
+      runningCounts.put(streamIndex, new StatsCounters(runningBytes[streamIndex], runningRecords[streamIndex]));
+    }
+    return runningCounts;
+  }
+
+  private void resetRunningCounts() {
+    for (int i = 0; i < runningStreamCount; i++) {
+      final short streamIndex = runningStreams[i];
+      runningRecords[streamIndex] = 0;
+      runningBytes[streamIndex] = 0;
+    }
+    runningStreamCount = 0;
+  }
+
+  private Map<AirbyteStreamNameNamespacePair, Long> toStreamMap(final long[] streamStats) {
+    final Map<AirbyteStreamNameNamespacePair, Long> streamToStats = new HashMap<>();
+    for (int i = 0; i < streams.size(); i++) {
+      streamToStats.put(streams.get(i), streamStats[i]);
     }
+    return streamToStats;
   }
 
-  private short getStreamIndex(final AirbyteStreamNameNamespacePair pair) {
-    if (!nameNamespacePairToIndex.containsKey(pair)) {
-      nameNamespacePairToIndex.put(pair, nextStreamIndex);
-      nextStreamIndex++;
+  private long sum(final long[] streamStats) {
+    long total = 0;
+    for (int i = 0; i < streams.size(); i++) {
+      total += streamStats[i];
     }
-    return nameNamespacePairToIndex.get(pair);
+    return total;
   }
 
 }
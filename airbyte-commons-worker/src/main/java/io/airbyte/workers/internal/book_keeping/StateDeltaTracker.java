@@ -8,20 +8,20 @@ import static io.airbyte.metrics.lib.ApmTraceConstants.WORKER_OPERATION_NAME;
 
 import com.google.common.annotations.VisibleForTesting;
 import datadog.trace.api.Trace;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * This class tracks "deltas" between states in compact {@code byte[]}s with the following schema:
+ * This class tracks "deltas" between states in a queue of {@code long}s with the following schema:
  *
  * <pre>
- *  [(state hash),(stream index),(record count)...] with the last two elements repeating per stream in the delta.
+ *  [(state hash, stream count),(stream index),(record count),(bytes count)...] with the last three elements repeating per stream in the delta.
  * </pre>
  * <p>
  * This class also maintains a {@code Set} of {@code committedStateHashes} so that it can accumulate
@@ -29,127 +29,122 @@ import lombok.extern.slf4j.Slf4j;
  * <p>
  * The StateDeltaTracker is initialized with a memory limit. If this memory limit is exceeded, new
  * states deltas will not be added and per-stream record counts will not be able to be computed.
- * This is to prevent OutOfMemoryErrors from crashing the sync.
+ * This is to prevent OutOfMemoryErrors from crashing the sync. A delta is accounted for as the
+ * {@code long}s it is stored in, one for its header plus three per stream. The queue allocates whole
+ * chunks, so the chunks it may hold on top of its values are reserved from the limit up front.
+ * <p>
+ * States are added by the thread reading the source and committed by the thread reading the
+ * destination. The queue is safe for exactly one thread adding and one thread committing at the
+ * same time, which do not need to lock each other out.
  */
 @Slf4j
 public class StateDeltaTracker {
 
-  private static final int STATE_HASH_BYTES = Integer.BYTES;
-  private static final int STREAM_INDEX_BYTES = Short.BYTES;
-  private static final int RECORD_COUNT_BYTES = Long.BYTES;
-  private static final int BYTES_COUNT_BYTES = Long.BYTES;
-  private static final int BYTES_PER_STREAM = STREAM_INDEX_BYTES + RECORD_COUNT_BYTES + BYTES_COUNT_BYTES;
+  /**
+   * Memory the queue may hold on top of its values: the partially read head chunk, the partially
+   * written tail chunk and the spare chunk.
+   */
+  @VisibleForTesting
+  static final long QUEUE_OVERHEAD_BYTES = 3L * StateDeltaQueue.CHUNK_BYTES;
 
   private final Set<Integer> committedStateHashes;
   private final Map<Short, StatsCounters> streamToCommittedRecords;
 
   /**
-   * Every time a state is added, a new byte[] containing the state hash and per-stream delta will be
-   * added to this list. Every time a state is committed, state deltas up to the committed state are
-   * removed from the head of the list and aggregated into the committed count map. The source thread
-   * adds while the destination thread removes, so synchronization is necessary to provide
-   * thread-safety.
+   * Every time a state is added, its hash and per-stream delta are appended to this queue. Every time
+   * a state is committed, state deltas up to the committed state are removed from the head of the
+   * queue and aggregated into the committed count map.
    */
   @VisibleForTesting
-  protected final List<byte[]> stateDeltas;
+  protected final StateDeltaQueue stateDeltas;
 
   @VisibleForTesting
-  protected long remainingCapacity;
+  protected final AtomicLong remainingCapacity;
   @VisibleForTesting
-  protected boolean capacityExceeded;
+  protected volatile boolean capacityExceeded;
 
   public StateDeltaTracker(final long memoryLimitBytes) {
     this.committedStateHashes = new HashSet<>();
     this.streamToCommittedRecords = new HashMap<>();
-    this.stateDeltas = new ArrayList<>();
-    this.remainingCapacity = memoryLimitBytes;
+    this.stateDeltas = new StateDeltaQueue();
+    this.remainingCapacity = new AtomicLong(memoryLimitBytes - QUEUE_OVERHEAD_BYTES);
     this.capacityExceeded = false;
   }
 
   /**
-   * Converts the given state hash and per-stream record count map into a {@code byte[]} and stores
-   * it.
+   * Appends the given state hash and per-stream record count map to the queue of deltas.
    * <p>
-   * This method leverages a synchronized block to provide thread safety between the source thread
-   * calling addState while the destination thread calls commitStateHash.
+   * This method must only be called by the thread that reads the source.
    *
    * @throws StateDeltaTrackerException thrown when the memory footprint of stateDeltas exceeds
    *         available capacity.
    */
   @Trace(operationName = WORKER_OPERATION_NAME)
   public void addState(final int stateHash, final Map<Short, StatsCounters> streamIndexToRecordCount) throws StateDeltaTrackerException {
-    synchronized (this) {
-      final int size = STATE_HASH_BYTES + (streamIndexToRecordCount.size() * BYTES_PER_STREAM);
-
-      if (capacityExceeded || remainingCapacity < size) {
-        capacityExceeded = true;
-        throw new StateDeltaTrackerException("Memory capacity is exceeded for StateDeltaTracker.");
-      }
-
-      final ByteBuffer delta = ByteBuffer.allocate(size);
+    final long size = deltaBytes(streamIndexToRecordCount.size());
 
-      delta.putInt(stateHash);
-
-      for (final Map.Entry<Short, StatsCounters> entry : streamIndexToRecordCount.entrySet()) {
-        delta.putShort(entry.getKey());
-        delta.putLong(entry.getValue().recordCount);
-        delta.putLong(entry.getValue().bytesCount);
-      }
+    // Only this thread decreases the remaining capacity, it can only have grown after the check.
+    if (capacityExceeded || remainingCapacity.get() < size) {
+      capacityExceeded = true;
+      throw new StateDeltaTrackerException("Memory capacity is exceeded for StateDeltaTracker.");
+    }
+    remainingCapacity.addAndGet(-size);
 
-      stateDeltas.add(delta.array());
-      remainingCapacity -= delta.array().length;
+    stateDeltas.put(((long) stateHash << Integer.SIZE) | streamIndexToRecordCount.size());
+    for (final Map.Entry<Short, StatsCounters> entry : streamIndexToRecordCount.entrySet()) {
+      stateDeltas.put(entry.getKey());
+      stateDeltas.put(entry.getValue().recordCount);
+      stateDeltas.put(entry.getValue().bytesCount);
     }
+    stateDeltas.publishDelta();
   }
 
   /**
    * Mark the given {@code stateHash} as committed.
    * <p>
-   * This method leverages a synchronized block to provide thread safety between the source thread
-   * calling addState while the destination thread calls commitStateHash.
+   * This method must only be called by the thread that reads the destination.
    *
    * @throws StateDeltaTrackerException thrown when committed counts can no longer be reliably
    *         computed.
    */
   @Trace(operationName = WORKER_OPERATION_NAME)
   public void commitStateHash(final int stateHash) throws StateDeltaTrackerException {
-    synchronized (this) {
-      if (capacityExceeded) {
-        throw new StateDeltaTrackerException("Memory capacity exceeded for StateDeltaTracker, so states cannot be reliably committed");
-      }
-      if (committedStateHashes.contains(stateHash)) {
-        throw new StateDeltaTrackerException(
-            String.format("State hash %d was already committed, likely indicating a state hash collision", stateHash));
-      }
+    if (capacityExceeded) {
+      throw new StateDeltaTrackerException("Memory capacity exceeded for StateDeltaTracker, so states cannot be reliably committed");
+    }
+    if (committedStateHashes.contains(stateHash)) {
+      throw new StateDeltaTrackerException(
+          String.format("State hash %d was already committed, likely indicating a state hash collision", stateHash));
+    }
 
-      committedStateHashes.add(stateHash);
-      int currStateHash;
-      do {
-        if (stateDeltas.isEmpty()) {
-          throw new StateDeltaTrackerException(String.format("Delta was not stored for state hash %d", stateHash));
-        }
-        // as deltas are removed and aggregated into committed count map, reclaim capacity
-        final ByteBuffer currDelta = ByteBuffer.wrap(stateDeltas.remove(0));
-        remainingCapacity += currDelta.capacity();
-
-        currStateHash = currDelta.getInt();
-
-        final int numStreams = (currDelta.capacity() - STATE_HASH_BYTES) / BYTES_PER_STREAM;
-        for (int i = 0; i < numStreams; i++) {
-          final short streamIndex = currDelta.getShort();
-          final long recordCount = currDelta.getLong();
-          final long bytesCount = currDelta.getLong();
-
-          // aggregate delta into committed count map
-          StatsCounters currentStats = streamToCommittedRecords.get(streamIndex);
-          if (currentStats == null) {
-            currentStats = new StatsCounters();
-            streamToCommittedRecords.put(streamIndex, currentStats);
-          }
-          currentStats.bytesCount += bytesCount;
-          currentStats.recordCount += recordCount;
+    committedStateHashes.add(stateHash);
+    int currStateHash;
+    do {
+      if (stateDeltas.size() == 0) {
+        throw new StateDeltaTrackerException(String.format("Delta was not stored for state hash %d", stateHash));
+      }
+      final long header = stateDeltas.take();
+      currStateHash = (int) (header >>> Integer.SIZE);
+      final int numStreams = (int) header;
+
+      for (int i = 0; i < numStreams; i++) {
+        final short streamIndex = (short) stateDeltas.take();
+        final long recordCount = stateDeltas.take();
+        final long bytesCount = stateDeltas.take();
+
+        // aggregate delta into committed count map
+        StatsCounters currentStats = streamToCommittedRecords.get(streamIndex);
+        if (currentStats == null) {
+          currentStats = new StatsCounters();
+          streamToCommittedRecords.put(streamIndex, currentStats);
         }
-      } while (currStateHash != stateHash); // repeat until each delta up to the committed state is aggregated
-    }
+        currentStats.bytesCount += bytesCount;
+        currentStats.recordCount += recordCount;
+      }
+      stateDeltas.releaseDelta();
+      // as deltas are removed and aggregated into committed count map, reclaim capacity
+      remainingCapacity.addAndGet(deltaBytes(numStreams));
+    } while (currStateHash != stateHash); // repeat until each delta up to the committed state is aggregated
   }
 
   @Trace(operationName = WORKER_OPERATION_NAME)
@@ -157,6 +152,93 @@ public class StateDeltaTracker {
     return streamToCommittedRecords;
   }
 
+  /**
+   * Bytes of the {@code long}s a delta is stored in: its header, then the stream index, record count
+   * and bytes count of each stream.
+   */
+  @VisibleForTesting
+  static long deltaBytes(final int streamCount) {
+    return Long.BYTES * (1 + 3L * streamCount);
+  }
+
+  /**
+   * Queue of {@code long}s stored in fixed size chunks, with one producer and one consumer.
+   * <p>
+   * Appending and taking a value are O(1), the queue grows by linking a chunk at its tail and
+   * shrinks by unlinking the chunk at its head once it has been read, which is kept to be reused by
+   * the producer. Values are only visible to the consumer once the producer publishes the delta they
+   * belong to.
+   */
+  static final class StateDeltaQueue {
+
+    private static final int CHUNK_SIZE = 1024;
+    // 8 KiB per chunk
+    private static final long CHUNK_BYTES = (long) CHUNK_SIZE * Long.BYTES;
+
+    private final AtomicInteger publishedDeltas = new AtomicInteger();
+    private final AtomicReference<Chunk> spareChunk = new AtomicReference<>();
+
+    // Only accessed by the producer.
+    private Chunk tail;
+    private int tailPosition;
+
+    // Only accessed by the consumer.
+    private Chunk head;
+    private int headPosition;
+
+    StateDeltaQueue() {
+      tail = new Chunk();
+      head = tail;
+    }
+
+    /**
+     * Number of deltas that have been published and not released yet.
+     */
+    int size() {
+      return publishedDeltas.get();
+    }
+
+    private void put(final long value) {
+      if (tailPosition == CHUNK_SIZE) {
+        Chunk chunk = spareChunk.getAndSet(null);
+        if (chunk == null) {
+          chunk = new Chunk();
+        }
+        chunk.next = null;
+        tail.next = chunk;
+        tail = chunk;
+        tailPosition = 0;
+      }
+      tail.values[tailPosition++] = value;
+    }
+
+    private void publishDelta() {
+      publishedDeltas.incrementAndGet();
+    }
+
+    private long take() {
+      if (headPosition == CHUNK_SIZE) {
+        final Chunk read = head;
+        head = read.next;
+        headPosition = 0;
+        spareChunk.set(read);
+      }
+      return head.values[headPosition++];
+    }
+
+    private void releaseDelta() {
+      publishedDeltas.decrementAndGet();
+    }
+
+    private static final class Chunk {
+
+      private final long[] values = new long[CHUNK_SIZE];
+      private volatile Chunk next;
+
+    }
+
+  }
+
   /**
    * Thrown when the StateDeltaTracker encounters an issue that prevents it from reliably computing
    * committed record deltas.
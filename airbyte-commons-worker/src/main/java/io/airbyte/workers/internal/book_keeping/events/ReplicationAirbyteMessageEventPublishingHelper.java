@@ -4,32 +4,73 @@
 
 package io.airbyte.workers.internal.book_keeping.events;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.airbyte.api.client.model.generated.StreamStatusIncompleteRunCause;
 import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteMessage.Type;
 import io.airbyte.protocol.models.AirbyteStreamStatusTraceMessage.AirbyteStreamStatus;
+import io.airbyte.protocol.models.AirbyteTraceMessage;
 import io.airbyte.protocol.models.StreamDescriptor;
 import io.airbyte.workers.context.ReplicationContext;
 import io.airbyte.workers.internal.book_keeping.AirbyteMessageOrigin;
 import io.airbyte.workers.test_utils.AirbyteMessageUtils;
 import io.micronaut.context.event.ApplicationEventPublisher;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 /**
  * Collection of utility methods that aid with the publishing of
  * {@link ReplicationAirbyteMessageEvent} messages.
+ * <p>
+ * Events are handed to the listeners by a background thread so that calls to the Airbyte API made
+ * by the listeners do not slow down replication. The events are dispatched one at a time in the
+ * order they were published, which keeps the order of the status transitions of each stream. A
+ * stream status that repeats the last status published for the same stream and origin is dropped
+ * since it would not change the tracked status. {@link #flush(ReplicationContext)} waits for the
+ * events of a sync to be dispatched.
+ * <p>
+ * The helper is shared by the syncs running in the same process, each event is dispatched with the
+ * MDC of the thread that published it so that the logs of the listeners go to the log of its sync.
  */
 @Singleton
 public class ReplicationAirbyteMessageEventPublishingHelper {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationAirbyteMessageEventPublishingHelper.class);
 
+  private static final int DEFAULT_MAX_PENDING_EVENTS = 10_000;
+  private static final int MAX_BATCH_SIZE = 100;
+
   private final ApplicationEventPublisher<ReplicationAirbyteMessageEvent> eventPublisher;
+  // Publishers block once it is full.
+  private final BlockingQueue<PendingEvent> pendingEvents;
+  // Last stream status published per stream and origin, to drop repeated statuses.
+  private final Map<PublishedStatusKey, AirbyteStreamStatus> lastPublishedStatuses = new ConcurrentHashMap<>();
+  // Events published and not dispatched yet per sync, guarded by this.
+  private final Map<ReplicationContext, Long> undispatchedEvents = new HashMap<>();
+  private Thread dispatcher;
 
+  @Inject
   public ReplicationAirbyteMessageEventPublishingHelper(final ApplicationEventPublisher<ReplicationAirbyteMessageEvent> eventPublisher) {
+    this(eventPublisher, DEFAULT_MAX_PENDING_EVENTS);
+  }
+
+  @VisibleForTesting
+  ReplicationAirbyteMessageEventPublishingHelper(final ApplicationEventPublisher<ReplicationAirbyteMessageEvent> eventPublisher,
+                                                 final int maxPendingEvents) {
     this.eventPublisher = eventPublisher;
+    this.pendingEvents = new LinkedBlockingQueue<>(maxPendingEvents);
   }
 
   /**
@@ -72,7 +113,43 @@ public class ReplicationAirbyteMessageEventPublishingHelper {
    *        information.
    */
   public void publishStatusEvent(final ReplicationAirbyteMessageEvent event) {
-    eventPublisher.publishEvent(event);
+    if (isRepeatedStatus(event)) {
+      LOGGER.debug("Skipping repeated {} event {}", event.airbyteMessageOrigin(), event.airbyteMessage());
+      return;
+    }
+    startDispatcherIfNeeded();
+    final PendingEvent pendingEvent = new PendingEvent(event, MDC.getCopyOfContextMap());
+    synchronized (this) {
+      undispatchedEvents.merge(event.replicationContext(), 1L, Long::sum);
+    }
+    try {
+      pendingEvents.put(pendingEvent);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Interrupted while publishing {} event {}", event.airbyteMessageOrigin(), event.airbyteMessage());
+      markDispatched(List.of(pendingEvent));
+    }
+  }
+
+  /**
+   * Waits for the events published so far by a sync to be handed to the listeners, and forgets the
+   * statuses published by the sync. Called once the sync is over, the events of the other syncs are
+   * not waited for.
+   *
+   * @param replicationContext The replication context of the sync.
+   */
+  public void flush(final ReplicationContext replicationContext) {
+    synchronized (this) {
+      try {
+        while (undispatchedEvents.containsKey(replicationContext)) {
+          wait();
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOGGER.warn("Interrupted while waiting for {} replication events to be published", undispatchedEvents.get(replicationContext));
+      }
+    }
+    lastPublishedStatuses.keySet().removeIf(key -> Objects.equals(key.replicationContext(), replicationContext));
   }
 
   /**
@@ -115,4 +192,82 @@ public class ReplicationAirbyteMessageEventPublishingHelper {
     this.publishStatusEvent(replicationAirbyteMessageEvent);
   }
 
+  private boolean isRepeatedStatus(final ReplicationAirbyteMessageEvent event) {
+    final AirbyteMessage message = event.airbyteMessage();
+    if (message.getType() != Type.TRACE || message.getTrace().getType() != AirbyteTraceMessage.Type.STREAM_STATUS) {
+      return false;
+    }
+    if (event.airbyteMessageOrigin() == AirbyteMessageOrigin.INTERNAL) {
+      // Forces the status of all the streams of the sync, which may be published again afterward.
+      lastPublishedStatuses.keySet().removeIf(key -> key.replicationContext().equals(event.replicationContext()));
+      return false;
+    }
+    final PublishedStatusKey key = new PublishedStatusKey(event.airbyteMessageOrigin(),
+        message.getTrace().getStreamStatus().getStreamDescriptor(), event.replicationContext());
+    final AirbyteStreamStatus status = message.getTrace().getStreamStatus().getStatus();
+    return status == lastPublishedStatuses.put(key, status);
+  }
+
+  private synchronized void startDispatcherIfNeeded() {
+    if (dispatcher == null) {
+      dispatcher = new Thread(this::dispatchEvents, "replication-event-publisher");
+      dispatcher.setDaemon(true);
+      dispatcher.start();
+    }
+  }
+
+  private void dispatchEvents() {
+    final List<PendingEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (true) {
+      try {
+        batch.add(pendingEvents.take());
+      } catch (final InterruptedException e) {
+        final List<PendingEvent> dropped = new ArrayList<>();
+        pendingEvents.drainTo(dropped);
+        LOGGER.warn("Replication event publisher interrupted, {} events were not published", dropped.size());
+        synchronized (this) {
+          // The next published event starts a new dispatcher.
+          dispatcher = null;
+        }
+        markDispatched(dropped);
+        return;
+      }
+      pendingEvents.drainTo(batch, MAX_BATCH_SIZE - 1);
+      for (final PendingEvent pendingEvent : batch) {
+        final ReplicationAirbyteMessageEvent event = pendingEvent.event();
+        if (pendingEvent.mdc() != null) {
+          MDC.setContextMap(pendingEvent.mdc());
+        } else {
+          MDC.clear();
+        }
+        try {
+          eventPublisher.publishEvent(event);
+        } catch (final Exception e) {
+          LOGGER.error("Unable to publish {} event {}", event.airbyteMessageOrigin(), event.airbyteMessage(), e);
+        } finally {
+          MDC.clear();
+          // Marked one at a time, so that flushing a sync does not wait for the rest of the batch.
+          markDispatched(List.of(pendingEvent));
+        }
+      }
+      batch.clear();
+    }
+  }
+
+  private synchronized void markDispatched(final List<PendingEvent> events) {
+    boolean syncFlushed = false;
+    for (final PendingEvent pendingEvent : events) {
+      // The entry of a sync is removed once all its events are dispatched.
+      syncFlushed |= undispatchedEvents.computeIfPresent(pendingEvent.event().replicationContext(),
+          (context, count) -> count > 1 ? count - 1 : null) == null;
+    }
+    if (syncFlushed) {
+      notifyAll();
+    }
+  }
+
+  private record PendingEvent(ReplicationAirbyteMessageEvent event, Map<String, String> mdc) {}
+
+  private record PublishedStatusKey(AirbyteMessageOrigin origin, StreamDescriptor streamDescriptor, ReplicationContext replicationContext) {}
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal.sync_persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.airbyte.commons.json.JsonHashing;
+import io.airbyte.config.StateType;
+import io.airbyte.config.StateWrapper;
+import io.airbyte.protocol.models.AirbyteGlobalState;
+import io.airbyte.protocol.models.AirbyteStateMessage;
+import io.airbyte.protocol.models.AirbyteStreamState;
+import io.airbyte.protocol.models.StreamDescriptor;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Remembers the states that have been persisted during a sync, so that a flush only sends the
+ * streams whose state changed since the last successful flush.
+ * <p>
+ * The StateApi upserts states stream by stream, leaving the streams that are not part of the
+ * request untouched, so sending only the streams that changed results in the same persisted state
+ * as sending all of them. States are remembered by their hash rather than kept in memory.
+ */
+class PersistedStateTracker {
+
+  private final HashFunction hashFunction = Hashing.murmur3_128();
+
+  private final Map<StreamDescriptor, HashCode> streamStateHashes = new HashMap<>();
+  // Shared state of a GLOBAL state, or the whole state of a LEGACY state.
+  private HashCode sharedStateHash;
+
+  /**
+   * Strip the streams whose state is the same as the last persisted one from a state.
+   *
+   * @param state state to persist
+   * @return the state to send to the StateApi, or empty if nothing changed since the last persisted
+   *         state
+   */
+  Optional<StateWrapper> getChanges(final StateWrapper state) {
+    return switch (state.getStateType()) {
+      case STREAM -> {
+        final List<AirbyteStateMessage> changedStreams = state.getStateMessages().stream()
+            .filter(message -> isChanged(message.getStream()))
+            .toList();
+        yield changedStreams.isEmpty()
+            ? Optional.empty()
+            : Optional.of(new StateWrapper().withStateType(StateType.STREAM).withStateMessages(changedStreams));
+      }
+      case GLOBAL -> {
+        final AirbyteGlobalState global = state.getGlobal().getGlobal();
+        final List<AirbyteStreamState> changedStreams = global.getStreamStates().stream()
+            .filter(this::isChanged)
+            .toList();
+        if (changedStreams.isEmpty() && Objects.equals(sharedStateHash, hash(global.getSharedState()))) {
+          yield Optional.empty();
+        }
+        // The shared state is always sent, the StateApi would delete it otherwise.
+        yield Optional.of(new StateWrapper()
+            .withStateType(StateType.GLOBAL)
+            .withGlobal(new AirbyteStateMessage()
+                .withType(state.getGlobal().getType())
+                .withGlobal(new AirbyteGlobalState()
+                    .withSharedState(global.getSharedState())
+                    .withStreamStates(changedStreams))));
+      }
+      case LEGACY -> Objects.equals(sharedStateHash, hash(state.getLegacyState())) ? Optional.empty() : Optional.of(state);
+    };
+  }
+
+  /**
+   * Remember a state that was successfully persisted.
+   *
+   * @param state state sent to the StateApi
+   */
+  void markPersisted(final StateWrapper state) {
+    switch (state.getStateType()) {
+      case STREAM -> state.getStateMessages().forEach(message -> markPersisted(message.getStream()));
+      case GLOBAL -> {
+        sharedStateHash = hash(state.getGlobal().getGlobal().getSharedState());
+        state.getGlobal().getGlobal().getStreamStates().forEach(this::markPersisted);
+      }
+      case LEGACY -> sharedStateHash = hash(state.getLegacyState());
+      default -> {
+        // no op
+      }
+    }
+  }
+
+  private boolean isChanged(final AirbyteStreamState streamState) {
+    return !hash(streamState.getStreamState()).equals(streamStateHashes.get(streamState.getStreamDescriptor()));
+  }
+
+  private void markPersisted(final AirbyteStreamState streamState) {
+    streamStateHashes.put(streamState.getStreamDescriptor(), hash(streamState.getStreamState()));
+  }
+
+  private HashCode hash(final JsonNode state) {
+    return JsonHashing.putJson(hashFunction.newHasher(), state).hash();
+  }
+
+}
@@ -6,6 +6,7 @@ package io.airbyte.workers.internal.sync_persistence;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
 import datadog.trace.api.Trace;
 import io.airbyte.api.client.AirbyteApiClient;
 import io.airbyte.api.client.generated.AttemptApi;
@@ -46,21 +47,31 @@ import io.micronaut.context.annotation.Prototype;
 import io.micronaut.context.annotation.Value;
 import io.micronaut.core.annotation.Creator;
 import jakarta.inject.Named;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Default implementation of the SyncPersistence
  * <p>
  * Persistence operations are delegated to an API and batched with a regular interval. Buffering is
- * handled in memory.
+ * handled in memory. A flush only sends the streams whose state changed since the last successful
+ * flush, and flushes are spaced out further when the StateApi is slow.
+ * <p>
+ * Stats are saved in the background once their states are persisted, also only for the streams
+ * whose counters changed. A run does not wait for a stats call still in flight: it leaves the stats
+ * for the next run, which sends the most recent ones.
  * <p>
  * This implementation is meant to work for a single sync at time. Using it with data from different
  * connections will end up mixing the data. Given the scope, it is annotated as `@Prototype` which
@@ -77,6 +88,12 @@ public class SyncPersistenceImpl implements SyncPersistence {
   final long runImmediately = 0;
   final long flushTerminationTimeoutInSeconds = 60;
 
+  // A state flush waits for this many times the duration of the previous one before starting, so
+  // that a slow StateApi is called less often. The payload grows with the number of streams that
+  // changed, so does the wait.
+  private static final long SLOW_STATE_API_BACKOFF_FACTOR = 4;
+  private static final long MAX_BACKOFF_FLUSH_PERIODS = 10;
+
   private UUID connectionId;
   private Long jobId;
   private Integer attemptNumber;
@@ -86,17 +103,26 @@ public class SyncPersistenceImpl implements SyncPersistence {
   private final StateAggregatorFactory stateAggregatorFactory;
 
   private final SyncStatsTracker syncStatsTracker;
-  private SaveStatsRequestBody statsToPersist;
+  // Latest stats to save, replaced by newer stats until they are picked up by a stats flush.
+  private final AtomicReference<SaveStatsRequestBody> statsToPersist;
   private boolean isReceivingStats;
+  private final ExecutorService statsFlushExecutorService;
+  private Future<?> statsFlushFuture;
+  // Only accessed by stats flushes, which do not run concurrently.
+  private final Map<AirbyteStreamNameNamespacePair, AttemptStats> persistedStreamStats;
+  private AttemptStats persistedTotalStats;
 
   private StateAggregator stateBuffer;
   private StateAggregator stateToFlush;
+  private final PersistedStateTracker persistedStateTracker;
   private final ScheduledExecutorService stateFlushExecutorService;
   private ScheduledFuture<?> stateFlushFuture;
   private final Optional<RetryWithJitterConfig> retryWithJitterConfig;
 
   private boolean onlyFlushAtTheEnd;
   private final long stateFlushPeriodInSeconds;
+  private final Ticker ticker;
+  private long nextStateFlushNanos;
 
   @Creator
   public SyncPersistenceImpl(final StateApi stateApi,
@@ -104,8 +130,8 @@ public class SyncPersistenceImpl implements SyncPersistence {
                              final StateAggregatorFactory stateAggregatorFactory,
                              @Named("syncPersistenceExecutorService") final ScheduledExecutorService scheduledExecutorService,
                              @Value("${airbyte.worker.replication.persistence-flush-period-sec}") final long stateFlushPeriodInSeconds) {
-    this(stateApi, attemptApi, stateAggregatorFactory, new DefaultSyncStatsTracker(), scheduledExecutorService, stateFlushPeriodInSeconds,
-        Optional.empty());
+    this(stateApi, attemptApi, stateAggregatorFactory, new DefaultSyncStatsTracker(), scheduledExecutorService,
+        Executors.newSingleThreadExecutor(), stateFlushPeriodInSeconds, Optional.empty(), Ticker.systemTicker());
   }
 
   @VisibleForTesting
@@ -114,8 +140,10 @@ public class SyncPersistenceImpl implements SyncPersistence {
                       final StateAggregatorFactory stateAggregatorFactory,
                       final SyncStatsTracker syncStatsTracker,
                       final ScheduledExecutorService scheduledExecutorService,
+                      final ExecutorService statsFlushExecutorService,
                       final long stateFlushPeriodInSeconds,
-                      final Optional<RetryWithJitterConfig> retryWithJitterConfig) {
+                      final Optional<RetryWithJitterConfig> retryWithJitterConfig,
+                      final Ticker ticker) {
     this.stateApi = stateApi;
     this.attemptApi = attemptApi;
     this.stateAggregatorFactory = stateAggregatorFactory;
@@ -123,9 +151,15 @@ public class SyncPersistenceImpl implements SyncPersistence {
     this.stateBuffer = this.stateAggregatorFactory.create();
     this.stateFlushPeriodInSeconds = stateFlushPeriodInSeconds;
     this.syncStatsTracker = syncStatsTracker;
+    this.statsToPersist = new AtomicReference<>();
+    this.statsFlushExecutorService = statsFlushExecutorService;
+    this.persistedStreamStats = new HashMap<>();
     this.onlyFlushAtTheEnd = false;
     this.isReceivingStats = false;
     this.retryWithJitterConfig = retryWithJitterConfig;
+    this.persistedStateTracker = new PersistedStateTracker();
+    this.ticker = ticker;
+    this.nextStateFlushNanos = ticker.read();
   }
 
   @Override
@@ -206,7 +240,11 @@ public class SyncPersistenceImpl implements SyncPersistence {
 
     // Wait for previous running task to terminate
     try {
-      final boolean terminated = stateFlushExecutorService.awaitTermination(flushTerminationTimeoutInSeconds, TimeUnit.SECONDS);
+      final boolean stateFlushTerminated = stateFlushExecutorService.awaitTermination(flushTerminationTimeoutInSeconds, TimeUnit.SECONDS);
+      // A running state flush starts a stats flush once done, the stats executor is only stopped after it.
+      statsFlushExecutorService.shutdown();
+      final boolean terminated = stateFlushTerminated
+          && statsFlushExecutorService.awaitTermination(flushTerminationTimeoutInSeconds, TimeUnit.SECONDS);
       if (!terminated) {
         if (stateToFlush != null && !stateToFlush.isEmpty()) {
           emitFailedStateCloseMetrics();
@@ -221,6 +259,7 @@ public class SyncPersistenceImpl implements SyncPersistence {
         return;
       }
     } catch (final InterruptedException e) {
+      statsFlushExecutorService.shutdown();
       if (stateToFlush != null && !stateToFlush.isEmpty()) {
         emitFailedStateCloseMetrics();
         emitFailedStatsCloseMetrics();
@@ -309,7 +348,7 @@ public class SyncPersistenceImpl implements SyncPersistence {
   }
 
   private boolean hasStatsToFlush() {
-    return isReceivingStats && statsToPersist != null;
+    return isReceivingStats && statsToPersist.get() != null;
   }
 
   /**
@@ -318,24 +357,55 @@ public class SyncPersistenceImpl implements SyncPersistence {
    * This method is swallowing exceptions on purpose. We do not want to fail or retry in a regular
    * run, the retry is deferred to the next run which will merge the data from the previous failed
    * attempt and the recent buffered data.
+   * <p>
+   * Runs are skipped while backing off from a slow StateApi, the data keeps being buffered until the
+   * next run.
    */
   private void flush() {
+    if (ticker.read() - nextStateFlushNanos < 0) {
+      log.debug("Skipping state flush for connectionId {} while backing off from a slow StateApi", connectionId);
+      return;
+    }
+
     prepareDataForFlush();
 
     try {
       doFlushState();
 
+      // We only flush stats if there was no state flush errors.
+      // Even if there are no states to flush, we should still try to flush stats in case previous stats
+      // flush failed
+      startBackgroundFlushStats();
+    } catch (final Exception e) {
+      log.warn("Failed to persist state for connectionId {}, it will be retried as part of the next flush", connectionId, e);
+    }
+  }
+
+  /**
+   * Save the pending stats in the background, unless the previous call has not returned yet. Stats
+   * are then left for the next run, and replaced by newer ones in the meantime.
+   */
+  private void startBackgroundFlushStats() {
+    if (!hasStatsToFlush()) {
+      return;
+    }
+    if (statsFlushExecutorService.isShutdown()) {
+      // Only for a state flush still running once close gave up waiting for it.
+      log.debug("Stats flush for connectionId {} is stopped, skipping this one", connectionId);
+      return;
+    }
+    if (statsFlushFuture != null && !statsFlushFuture.isDone()) {
+      log.debug("Previous stats flush for connectionId {} is still in progress, skipping this one", connectionId);
+      return;
+    }
+
+    statsFlushFuture = statsFlushExecutorService.submit(() -> {
       try {
-        // We only flush stats if there was no state flush errors.
-        // Even if there are no states to flush, we should still try to flush stats in case previous stats
-        // flush failed
         doFlushStats();
       } catch (final Exception e) {
         log.warn("Failed to persist stats for connectionId {}, it will be retried as part of the next flush", connectionId, e);
       }
-    } catch (final Exception e) {
-      log.warn("Failed to persist state for connectionId {}, it will be retried as part of the next flush", connectionId, e);
-    }
+    });
   }
 
   private void prepareDataForFlush() {
@@ -357,7 +427,7 @@ public class SyncPersistenceImpl implements SyncPersistence {
     // decoupled from the state persistence.
     // This design favoring accuracy of committed data counters over freshness of emitted data counters.
     if (isReceivingStats && !stateToFlush.isEmpty()) {
-      statsToPersist = buildSaveStatsRequest(syncStatsTracker, jobId, attemptNumber);
+      statsToPersist.set(buildSaveStatsRequest(syncStatsTracker, jobId, attemptNumber));
     }
   }
 
@@ -373,24 +443,51 @@ public class SyncPersistenceImpl implements SyncPersistence {
       return;
     }
 
+    final Optional<StateWrapper> changedState = persistedStateTracker.getChanges(maybeStateWrapper.get());
+    if (changedState.isEmpty()) {
+      // The last persisted state is already up-to-date
+      stateToFlush = null;
+      return;
+    }
+
     MetricClientFactory.getMetricClient().count(OssMetricsRegistry.STATE_COMMIT_ATTEMPT, 1);
 
     final ConnectionStateCreateOrUpdate stateApiRequest = new ConnectionStateCreateOrUpdate()
         .connectionId(connectionId)
-        .connectionState(StateConverter.toClient(connectionId, maybeStateWrapper.get()));
+        .connectionState(StateConverter.toClient(connectionId, changedState.get()));
 
+    final long startNanos = ticker.read();
     try {
       stateApi.createOrUpdateState(stateApiRequest);
     } catch (final Exception e) {
       MetricClientFactory.getMetricClient().count(OssMetricsRegistry.STATE_COMMIT_ATTEMPT_FAILED, 1);
       throw e;
+    } finally {
+      scheduleNextStateFlush(startNanos);
     }
 
+    persistedStateTracker.markPersisted(changedState.get());
     // Only reset stateToFlush if the API call was successful
     stateToFlush = null;
     MetricClientFactory.getMetricClient().count(OssMetricsRegistry.STATE_COMMIT_ATTEMPT_SUCCESSFUL, 1);
   }
 
+  /**
+   * Delay the next state flush proportionally to how long the StateApi took to persist the last one.
+   * Flushes are never closer than the flush period and never further apart than
+   * {@link #MAX_BACKOFF_FLUSH_PERIODS} periods.
+   */
+  private void scheduleNextStateFlush(final long startNanos) {
+    final long durationNanos = ticker.read() - startNanos;
+    final long flushPeriodNanos = TimeUnit.SECONDS.toNanos(stateFlushPeriodInSeconds);
+    final long backOffNanos = Math.min(durationNanos * SLOW_STATE_API_BACKOFF_FACTOR, flushPeriodNanos * MAX_BACKOFF_FLUSH_PERIODS);
+    nextStateFlushNanos = startNanos + backOffNanos;
+    if (backOffNanos > flushPeriodNanos) {
+      log.info("Persisting state for connectionId {} took {} ms, delaying the next flush by {} s", connectionId,
+          TimeUnit.NANOSECONDS.toMillis(durationNanos), TimeUnit.NANOSECONDS.toSeconds(backOffNanos));
+    }
+  }
+
   private void validateStreamMigration() {
     final State state = stateToFlush.getAggregated();
     final Optional<StateWrapper> maybeStateWrapper = StateMessageHelper.getTypedState(state.getState(), true);
@@ -474,23 +571,55 @@ public class SyncPersistenceImpl implements SyncPersistence {
   }
 
   private void doFlushStats() throws ApiException {
-    if (!hasStatsToFlush()) {
+    final SaveStatsRequestBody stats = statsToPersist.getAndSet(null);
+    if (stats == null) {
+      return;
+    }
+
+    final Optional<SaveStatsRequestBody> changedStats = getChangedStats(stats);
+    if (changedStats.isEmpty()) {
+      // The last saved stats are already up-to-date
       return;
     }
 
     MetricClientFactory.getMetricClient().count(OssMetricsRegistry.STATS_COMMIT_ATTEMPT, 1);
 
     try {
-      attemptApi.saveStats(statsToPersist);
+      attemptApi.saveStats(changedStats.get());
     } catch (final Exception e) {
       MetricClientFactory.getMetricClient().count(OssMetricsRegistry.STATS_COMMIT_ATTEMPT_FAILED, 1);
+      // Put the stats back for the next attempt, unless newer stats came in
+      statsToPersist.compareAndSet(null, stats);
       throw e;
     }
 
-    statsToPersist = null;
+    persistedTotalStats = changedStats.get().getStats();
+    changedStats.get().getStreamStats()
+        .forEach(s -> persistedStreamStats.put(new AirbyteStreamNameNamespacePair(s.getStreamName(), s.getStreamNamespace()), s.getStats()));
     MetricClientFactory.getMetricClient().count(OssMetricsRegistry.STATS_COMMIT_ATTEMPT_SUCCESSFUL, 1);
   }
 
+  /**
+   * Strip the streams whose stats are the same as the last saved ones from a stats request. Stream
+   * stats are upserted by the AttemptApi, so the streams that are left out keep their last saved
+   * stats.
+   *
+   * @return the stats to save, or empty if nothing changed since the last saved stats
+   */
+  private Optional<SaveStatsRequestBody> getChangedStats(final SaveStatsRequestBody stats) {
+    final List<AttemptStreamStats> changedStreamStats = stats.getStreamStats().stream()
+        .filter(s -> !s.getStats().equals(persistedStreamStats.get(new AirbyteStreamNameNamespacePair(s.getStreamName(), s.getStreamNamespace()))))
+        .toList();
+    if (changedStreamStats.isEmpty() && stats.getStats().equals(persistedTotalStats)) {
+      return Optional.empty();
+    }
+    return Optional.of(new SaveStatsRequestBody()
+        .jobId(stats.getJobId())
+        .attemptNumber(stats.getAttemptNumber())
+        .stats(stats.getStats())
+        .streamStats(changedStreamStats));
+  }
+
   private static SaveStatsRequestBody buildSaveStatsRequest(final SyncStatsTracker syncStatsTracker, final Long jobId, final Integer attemptNumber) {
     final SyncStats totalSyncStats = SyncStatsBuilder.getTotalStats(syncStatsTracker, false);
     final List<StreamSyncStats> streamSyncStats = SyncStatsBuilder.getPerStreamStats(syncStatsTracker, false);
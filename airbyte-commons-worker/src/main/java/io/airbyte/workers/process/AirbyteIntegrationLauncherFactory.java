@@ -14,7 +14,7 @@ import io.airbyte.persistence.job.models.IntegrationLauncherConfig;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
 import io.airbyte.workers.internal.AirbyteDestination;
 import io.airbyte.workers.internal.AirbyteSource;
-import io.airbyte.workers.internal.AirbyteStreamFactory;
+import io.airbyte.workers.internal.ConnectorLogForwarder.FullBufferPolicy;
 import io.airbyte.workers.internal.DefaultAirbyteDestination;
 import io.airbyte.workers.internal.DefaultAirbyteSource;
 import io.airbyte.workers.internal.HeartbeatMonitor;
@@ -78,16 +78,30 @@ public class AirbyteIntegrationLauncherFactory {
    * @param resourceRequirements the resource requirements for the source.
    * @param configuredAirbyteCatalog the configuredAirbyteCatalog of the Connection the source.
    * @param heartbeatMonitor an instance of HeartbeatMonitor to use for the AirbyteSource.
+   * @param passthroughRecordData whether the data of records should be kept as raw JSON, see
+   *        {@link VersionedAirbyteStreamFactory#withPassthroughRecordData(boolean)}.
+   * @param deserializationParallelism number of threads deserializing the output of the source, see
+   *        {@link VersionedAirbyteStreamFactory#withDeserializationParallelism(int)}.
+   * @param connectorLogBufferSize maximum number of log messages of the source waiting to be logged,
+   *        see {@link VersionedAirbyteStreamFactory#withAsyncLogs(int, FullBufferPolicy)}.
+   * @param connectorLogPolicy what to do with log messages of the source when the buffer fills up.
    * @return an AirbyteSource.
    */
   public AirbyteSource createAirbyteSource(final IntegrationLauncherConfig sourceLauncherConfig,
                                            final ResourceRequirements resourceRequirements,
                                            final ConfiguredAirbyteCatalog configuredAirbyteCatalog,
-                                           final HeartbeatMonitor heartbeatMonitor) {
+                                           final HeartbeatMonitor heartbeatMonitor,
+                                           final boolean passthroughRecordData,
+                                           final int deserializationParallelism,
+                                           final int connectorLogBufferSize,
+                                           final FullBufferPolicy connectorLogPolicy) {
     final IntegrationLauncher sourceLauncher = createIntegrationLauncher(sourceLauncherConfig, resourceRequirements);
 
     return new DefaultAirbyteSource(sourceLauncher,
-        getStreamFactory(sourceLauncherConfig, configuredAirbyteCatalog, SourceException.class, DefaultAirbyteSource.CONTAINER_LOG_MDC_BUILDER),
+        getStreamFactory(sourceLauncherConfig, configuredAirbyteCatalog, SourceException.class, DefaultAirbyteSource.CONTAINER_LOG_MDC_BUILDER)
+            .withPassthroughRecordData(passthroughRecordData)
+            .withDeserializationParallelism(deserializationParallelism)
+            .withAsyncLogs(connectorLogBufferSize, connectorLogPolicy),
         heartbeatMonitor,
         getProtocolSerializer(sourceLauncherConfig),
         featureFlags);
@@ -113,11 +127,24 @@ public class AirbyteIntegrationLauncherFactory {
         getProtocolSerializer(destinationLauncherConfig));
   }
 
+  /**
+   * Whether messages go from the source to the destination without being upgraded or downgraded.
+   *
+   * @param sourceLauncherConfig the configuration of the source.
+   * @param destinationLauncherConfig the configuration of the destination.
+   * @return true if both connectors use the major version of the protocol used by the platform.
+   */
+  public boolean isMigrationFree(final IntegrationLauncherConfig sourceLauncherConfig, final IntegrationLauncherConfig destinationLauncherConfig) {
+    final String mostRecentMajorVersion = migratorFactory.getMostRecentVersion().getMajorVersion();
+    return mostRecentMajorVersion.equals(sourceLauncherConfig.getProtocolVersion().getMajorVersion())
+        && mostRecentMajorVersion.equals(destinationLauncherConfig.getProtocolVersion().getMajorVersion());
+  }
+
   private VersionedProtocolSerializer getProtocolSerializer(final IntegrationLauncherConfig launcherConfig) {
     return migratorFactory.getProtocolSerializer(launcherConfig.getProtocolVersion());
   }
 
-  private AirbyteStreamFactory getStreamFactory(final IntegrationLauncherConfig launcherConfig,
+  private VersionedAirbyteStreamFactory<?> getStreamFactory(final IntegrationLauncherConfig launcherConfig,
                                                 final ConfiguredAirbyteCatalog configuredAirbyteCatalog,
                                                 final Class<? extends RuntimeException> exceptionClass,
                                                 final MdcScope.Builder mdcScopeBuilder) {
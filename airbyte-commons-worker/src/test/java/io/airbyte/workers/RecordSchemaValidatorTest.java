@@ -5,20 +5,34 @@
 package io.airbyte.workers;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableMap;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
 import io.airbyte.config.StandardSync;
 import io.airbyte.config.StandardSyncInput;
+import io.airbyte.metrics.lib.MetricClient;
+import io.airbyte.metrics.lib.OssMetricsRegistry;
 import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
+import io.airbyte.validation.json.JsonSchemaValidator;
 import io.airbyte.workers.test_utils.AirbyteMessageUtils;
 import io.airbyte.workers.test_utils.TestConfigHelpers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.jupiter.api.BeforeEach;
@@ -96,4 +110,63 @@ class RecordSchemaValidatorTest {
     assertEquals(2, uncountedValidationErrors.get(AIRBYTE_STREAM_NAME_NAMESPACE_PAIR).size());
   }
 
+  @Test
+  void testValidateInvalidRawRecord() throws InterruptedException {
+    final var executorService = Executors.newFixedThreadPool(1);
+    final var recordSchemaValidator = new RecordSchemaValidator(WorkerUtils.mapStreamNamesToSchemas(syncInput), executorService);
+    final AirbyteRecordMessage rawRecord = Jsons.clone(INVALID_RECORD_1.getRecord());
+    rawRecord.setData(RawJson.of(Jsons.toBytes(rawRecord.getData())));
+
+    recordSchemaValidator.validateSchema(rawRecord, AIRBYTE_STREAM_NAME_NAMESPACE_PAIR, validationErrors);
+
+    executorService.awaitTermination(3, TimeUnit.SECONDS);
+    assertEquals(1, validationErrors.size());
+    assertEquals(1, (int) validationErrors.get(AIRBYTE_STREAM_NAME_NAMESPACE_PAIR).getRight());
+  }
+
+  @Test
+  void testValidateSchemaWithStats() throws InterruptedException {
+    final var executorService = Executors.newFixedThreadPool(1);
+    final var recordSchemaValidator = new RecordSchemaValidator(WorkerUtils.mapStreamNamesToSchemas(syncInput), executorService);
+    final ConcurrentHashMap<AirbyteStreamNameNamespacePair, SchemaValidationStats> validationStats = new ConcurrentHashMap<>();
+
+    List.of(INVALID_RECORD_1, INVALID_RECORD_2, VALID_RECORD, VALID_RECORD).forEach(message -> recordSchemaValidator.validateSchemaWithStats(
+        message.getRecord(),
+        AIRBYTE_STREAM_NAME_NAMESPACE_PAIR,
+        validationStats));
+
+    executorService.awaitTermination(3, TimeUnit.SECONDS);
+    final SchemaValidationStats stats = validationStats.get(AIRBYTE_STREAM_NAME_NAMESPACE_PAIR);
+    assertEquals(4, stats.getValidatedRecords());
+    assertEquals(2, stats.getInvalidRecords());
+    assertEquals(2, stats.getErrorMessages().size());
+    assertEquals(0.5, stats.getErrorRate(), 0);
+  }
+
+  @Test
+  void testSkipsRecordsWhenValidationIsBehind() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final JsonSchemaValidator jsonSchemaValidator = mock(JsonSchemaValidator.class);
+    when(jsonSchemaValidator.validateInitializedSchema(anyString(), any())).thenAnswer(invocation -> {
+      release.await();
+      return Set.of();
+    });
+    final MetricClient metricClient = mock(MetricClient.class);
+    // One record being validated and one waiting, the others are skipped.
+    final var executorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+    final var recordSchemaValidator =
+        new RecordSchemaValidator(WorkerUtils.mapStreamNamesToSchemas(syncInput), executorService, jsonSchemaValidator, metricClient);
+
+    for (int i = 0; i < 5; i++) {
+      recordSchemaValidator.validateSchema(VALID_RECORD.getRecord(), AIRBYTE_STREAM_NAME_NAMESPACE_PAIR, validationErrors);
+    }
+    release.countDown();
+    executorService.shutdown();
+    executorService.awaitTermination(3, TimeUnit.SECONDS);
+    recordSchemaValidator.close();
+
+    verify(metricClient).count(OssMetricsRegistry.WORKER_SCHEMA_VALIDATION_RECORDS_VALIDATED, 2);
+    verify(metricClient).count(OssMetricsRegistry.WORKER_SCHEMA_VALIDATION_RECORDS_SKIPPED, 3);
+  }
+
 }
@@ -14,6 +14,7 @@ import io.airbyte.metrics.lib.MetricClient;
 import io.airbyte.metrics.lib.OssMetricsRegistry;
 import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
 import java.util.HashSet;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class WorkerMetricReporterTest {
@@ -51,6 +52,35 @@ class WorkerMetricReporterTest {
     );
   }
 
+  @Test
+  void trackSchemaValidationErrorRate() {
+    final var reporter = new WorkerMetricReporter(metricClient, DOCKER_IMAGE);
+    final var stream = new AirbyteStreamNameNamespacePair("name", "namespace");
+    final var stats = new SchemaValidationStats();
+    stats.recordValidated(Set.of());
+    stats.recordValidated(Set.of());
+    stats.recordValidated(Set.of());
+    stats.recordValidated(Set.of("error"));
+
+    reporter.trackSchemaValidationErrors(stream, stats);
+
+    verify(metricClient).count(
+        eq(OssMetricsRegistry.NUM_DISTINCT_SCHEMA_VALIDATION_ERRORS_IN_STREAMS),
+        eq(1L),
+        any(MetricAttribute.class), // new MetricAttribute("validation_error", "error"),
+        any(MetricAttribute.class), // new MetricAttribute("docker_repo", "scratch"),
+        any(MetricAttribute.class), // new MetricAttribute("docker_version", ""),
+        any(MetricAttribute.class) // new MetricAttribute("stream", stream.toString())
+    );
+    verify(metricClient).gauge(
+        eq(OssMetricsRegistry.SCHEMA_VALIDATION_ERROR_RATE_IN_STREAMS),
+        eq(0.25),
+        any(MetricAttribute.class), // new MetricAttribute("docker_repo", "scratch"),
+        any(MetricAttribute.class), // new MetricAttribute("docker_version", ""),
+        any(MetricAttribute.class) // new MetricAttribute("stream", stream.toString())
+    );
+  }
+
   @Test
   void trackUnexpectedFields() {
     final var reporter = new WorkerMetricReporter(metricClient, DOCKER_IMAGE);
@@ -8,15 +8,20 @@ import static java.lang.Thread.sleep;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import io.airbyte.commons.timer.Stopwatch;
 import io.airbyte.config.ReplicationOutput;
 import io.airbyte.config.StandardSyncSummary.ReplicationStatus;
+import io.airbyte.featureflag.TestClient;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.workers.internal.AirbyteSource;
 import io.airbyte.workers.internal.FieldSelector;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
@@ -41,7 +46,7 @@ class BufferedReplicationWorkerTest extends ReplicationWorkerTest {
         recordSchemaValidator,
         fieldSelector,
         heartbeatTimeoutChaperone,
-        new ReplicationFeatureFlagReader(),
+        new ReplicationFeatureFlagReader(new TestClient()),
         airbyteMessageDataExtractor,
         replicationAirbyteMessageEventPublishingHelper);
   }
@@ -83,7 +88,7 @@ class BufferedReplicationWorkerTest extends ReplicationWorkerTest {
   void testClosurePropagationWhenCrashInWriteTodestination() throws Exception {
     setUpInfiniteSource();
 
-    doThrow(new RuntimeException("Failure in writeToDest")).when(destination).accept(any());
+    doThrow(new RuntimeException("Failure in writeToDest")).when(destination).accept(any(AirbyteMessage.class));
     final ReplicationWorker worker = getDefaultReplicationWorker();
 
     final ReplicationOutput output = worker.run(syncInput, jobRoot);
@@ -101,8 +106,31 @@ class BufferedReplicationWorkerTest extends ReplicationWorkerTest {
     assertEquals(ReplicationStatus.FAILED, output.getReplicationAttemptSummary().getStatus());
   }
 
+  @Test
+  void testPerformanceMetricsSummarizeStagesAndBuffers() throws Exception {
+    final ReplicationWorker worker = getDefaultReplicationWorker();
+
+    final ReplicationOutput output = worker.run(syncInput, jobRoot);
+    final Map<String, Object> perfMetrics = output.getReplicationAttemptSummary().getPerformanceMetrics().getAdditionalProperties();
+
+    for (final String stage : List.of("readFromSource", "processFromSource", "writeToDest", "flushDest", "readFromDest", "processFromDest")) {
+      assertTrue(perfMetrics.get(stage) instanceof Stopwatch);
+      final Map<?, ?> latency = (Map<?, ?>) perfMetrics.get(stage + "LatencyNanos");
+      assertEquals(((Stopwatch) perfMetrics.get(stage)).getExecutionCount(), latency.get("count"));
+    }
+    // Both records are accepted, then flushed at least once
+    assertTrue((Long) ((Map<?, ?>) perfMetrics.get("writeToDestLatencyNanos")).get("count") >= 2);
+    assertTrue((Long) ((Map<?, ?>) perfMetrics.get("flushDestLatencyNanos")).get("count") >= 1);
+    for (final String buffer : List.of("sourceBuffer", "destinationBuffer")) {
+      assertTrue(perfMetrics.get(buffer + "Full") instanceof Stopwatch);
+      assertTrue(perfMetrics.get(buffer + "Empty") instanceof Stopwatch);
+      assertTrue(perfMetrics.get(buffer + "Depth") instanceof Map);
+    }
+  }
+
   protected void setUpInfiniteSource() {
     source = mock(AirbyteSource.class);
+    when(source.attemptRead(any(), anyInt())).thenCallRealMethod();
     when(source.isFinished()).thenReturn(false);
     when(source.attemptRead()).thenAnswer((Answer<Optional<AirbyteMessage>>) invocation -> {
       sleep(100);
@@ -13,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
@@ -176,6 +177,7 @@ abstract class ReplicationWorkerTest {
     destinationConfig = WorkerUtils.syncToWorkerDestinationConfig(syncInput);
 
     source = mock(AirbyteSource.class);
+    when(source.attemptRead(any(), anyInt())).thenCallRealMethod();
     mapper = mock(NamespacingMapper.class);
     destination = spy(new SimpleAirbyteDestination());
     messageTracker = mock(AirbyteMessageTracker.class);
@@ -306,6 +308,8 @@ abstract class ReplicationWorkerTest {
         replicationContext,
         AirbyteMessageOrigin.INTERNAL,
         Optional.of(StreamStatusIncompleteRunCause.FAILED));
+    // Failed syncs flush their statuses too.
+    verify(replicationAirbyteMessageEventPublishingHelper, atLeastOnce()).flush(replicationContext);
   }
 
   @ParameterizedTest
@@ -552,7 +556,7 @@ abstract class ReplicationWorkerTest {
   void testReplicationRunnableDestinationFailure() throws Exception {
     final String destinationErrorMessage = "the destination had a failure";
 
-    doThrow(new RuntimeException(destinationErrorMessage)).when(destination).accept(any());
+    doThrow(new RuntimeException(destinationErrorMessage)).when(destination).accept(any(AirbyteMessage.class));
 
     final ReplicationWorker worker = getDefaultReplicationWorker();
 
@@ -932,6 +936,7 @@ abstract class ReplicationWorkerTest {
         new HeartbeatTimeoutChaperone(heartbeatMonitor, Duration.ofMillis(1), new TestClient(Map.of("heartbeat.failSync", true)), UUID.randomUUID(),
             connectionId, mMetricClient);
     source = mock(AirbyteSource.class);
+    when(source.attemptRead(any(), anyInt())).thenCallRealMethod();
     when(source.isFinished()).thenReturn(false);
     when(source.attemptRead()).thenAnswer((Answer<Optional<AirbyteMessage>>) invocation -> {
       sleep(100);
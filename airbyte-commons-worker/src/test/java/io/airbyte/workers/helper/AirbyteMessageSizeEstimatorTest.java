@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteRecordMessage;
+import io.airbyte.protocol.models.AirbyteStateMessage;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for the {@link AirbyteMessageSizeEstimator} class.
+ */
+class AirbyteMessageSizeEstimatorTest {
+
+  @Test
+  void testEstimateMatchesSerializedSizeForStringsAndStructure() {
+    final JsonNode data = Jsons.deserialize("{\"name\":\"airbyte\",\"tags\":[\"a\",\"bc\"],\"nested\":{\"flag\":true,\"other\":null}}");
+    assertEquals(Jsons.serialize(data).length(), AirbyteMessageSizeEstimator.estimateSize(data), 5);
+  }
+
+  @Test
+  void testEstimateGrowsWithRecordSize() {
+    final AirbyteMessage small = recordMessage(Jsons.jsonNode(Map.of("field", "x")));
+    final AirbyteMessage large = recordMessage(Jsons.jsonNode(Map.of("field", "x".repeat(10_000))));
+
+    assertTrue(AirbyteMessageSizeEstimator.estimateSize(large) - AirbyteMessageSizeEstimator.estimateSize(small) >= 9_999);
+  }
+
+  @Test
+  void testRawDataIsCountedByItsSize() {
+    final AirbyteMessage raw = recordMessage(RawJson.of(new byte[10_000]));
+    final AirbyteMessage small = recordMessage(Jsons.jsonNode(Map.of()));
+
+    assertEquals(10_000 - 2, AirbyteMessageSizeEstimator.estimateSize(raw) - AirbyteMessageSizeEstimator.estimateSize(small));
+  }
+
+  @Test
+  void testNonRecordMessagesHaveAFixedEstimate() {
+    final AirbyteMessage state = new AirbyteMessage().withType(AirbyteMessage.Type.STATE).withState(new AirbyteStateMessage());
+    assertEquals(1024, AirbyteMessageSizeEstimator.estimateSize(state));
+  }
+
+  private static AirbyteMessage recordMessage(final JsonNode data) {
+    return new AirbyteMessage().withType(AirbyteMessage.Type.RECORD).withRecord(new AirbyteRecordMessage().withStream("s1").withData(data));
+  }
+
+}
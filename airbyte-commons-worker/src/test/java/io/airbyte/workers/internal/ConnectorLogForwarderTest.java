@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import io.airbyte.commons.logging.MdcScope;
+import io.airbyte.metrics.lib.MetricClient;
+import io.airbyte.metrics.lib.OssMetricsRegistry;
+import io.airbyte.protocol.models.AirbyteLogMessage;
+import io.airbyte.protocol.models.AirbyteLogMessage.Level;
+import io.airbyte.workers.internal.ConnectorLogForwarder.FullBufferPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(10)
+class ConnectorLogForwarderTest {
+
+  // The high water mark of a buffer of 8 messages is 6.
+  private static final int BUFFER_SIZE = 8;
+
+  private MetricClient metricClient;
+  private List<AirbyteLogMessage> logged;
+  private CountDownLatch firstMessageLogged;
+  private CountDownLatch release;
+  private Consumer<AirbyteLogMessage> blockingSink;
+
+  @BeforeEach
+  void setup() {
+    metricClient = mock(MetricClient.class);
+    logged = Collections.synchronizedList(new ArrayList<>());
+    firstMessageLogged = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    // Holds the forwarder thread on the first message so that the buffer fills up.
+    blockingSink = logMessage -> {
+      logged.add(logMessage);
+      firstMessageLogged.countDown();
+      try {
+        release.await();
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    };
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+  }
+
+  @Test
+  void testMessagesAreLoggedInOrder() {
+    final List<AirbyteLogMessage> messages = IntStream.range(0, 1000).mapToObj(i -> log(Level.DEBUG, "message " + i)).toList();
+
+    final ConnectorLogForwarder forwarder = new ConnectorLogForwarder(logged::add, MdcScope.DEFAULT_BUILDER, BUFFER_SIZE,
+        FullBufferPolicy.BLOCK, metricClient);
+    messages.forEach(forwarder::forward);
+    forwarder.close();
+
+    assertEquals(messages, logged);
+    assertEquals(0, forwarder.getDroppedCount());
+    assertFalse(forwarder.isRunning());
+    verifyNoInteractions(metricClient);
+  }
+
+  @Test
+  void testDropVerboseDropsDebugFirst() throws InterruptedException {
+    final ConnectorLogForwarder forwarder = startBlockedForwarder(FullBufferPolicy.DROP_VERBOSE);
+
+    fill(forwarder, 6);
+    forwarder.forward(log(Level.DEBUG, "dropped"));
+    forwarder.forward(log(Level.TRACE, "dropped"));
+    forwarder.forward(log(Level.INFO, "kept"));
+    forwarder.forward(log(Level.WARN, "kept"));
+    // The buffer is full now.
+    forwarder.forward(log(Level.ERROR, "dropped"));
+
+    release.countDown();
+    forwarder.close();
+
+    assertEquals(3, forwarder.getDroppedCount());
+    assertEquals(9, logged.size());
+    assertTrue(logged.stream().noneMatch(logMessage -> "dropped".equals(logMessage.getMessage())));
+    verify(metricClient).count(OssMetricsRegistry.WORKER_CONNECTOR_LOGS_DROPPED, 3);
+  }
+
+  @Test
+  void testSampleKeepsOneMessageInTen() throws InterruptedException {
+    final ConnectorLogForwarder forwarder = startBlockedForwarder(FullBufferPolicy.SAMPLE);
+
+    fill(forwarder, 6);
+    forwarder.forward(log(Level.ERROR, "kept"));
+    for (int i = 0; i < 10; i++) {
+      forwarder.forward(log(Level.INFO, i == 0 ? "kept" : "dropped"));
+    }
+
+    release.countDown();
+    forwarder.close();
+
+    assertEquals(9, forwarder.getDroppedCount());
+    assertEquals(9, logged.size());
+    assertTrue(logged.stream().noneMatch(logMessage -> "dropped".equals(logMessage.getMessage())));
+  }
+
+  @Test
+  void testFromString() {
+    assertEquals(FullBufferPolicy.SAMPLE, FullBufferPolicy.fromString("sample", FullBufferPolicy.BLOCK));
+    assertEquals(FullBufferPolicy.DROP_VERBOSE, FullBufferPolicy.fromString(" DROP_VERBOSE ", FullBufferPolicy.BLOCK));
+    assertEquals(FullBufferPolicy.BLOCK, FullBufferPolicy.fromString("unknown", FullBufferPolicy.BLOCK));
+    assertEquals(FullBufferPolicy.BLOCK, FullBufferPolicy.fromString(null, FullBufferPolicy.BLOCK));
+  }
+
+  private ConnectorLogForwarder startBlockedForwarder(final FullBufferPolicy policy) throws InterruptedException {
+    final ConnectorLogForwarder forwarder = new ConnectorLogForwarder(blockingSink, MdcScope.DEFAULT_BUILDER, BUFFER_SIZE, policy, metricClient);
+    forwarder.forward(log(Level.INFO, "first"));
+    assertTrue(firstMessageLogged.await(5, TimeUnit.SECONDS));
+    return forwarder;
+  }
+
+  private static void fill(final ConnectorLogForwarder forwarder, final int count) {
+    for (int i = 0; i < count; i++) {
+      forwarder.forward(log(Level.DEBUG, "kept"));
+    }
+  }
+
+  private static AirbyteLogMessage log(final Level level, final String message) {
+    return new AirbyteLogMessage().withLevel(level).withMessage(message);
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.workers.test_utils.AirbyteMessageUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class DefaultAirbyteMessageBufferedWriterTest {
+
+  private static final String STREAM_NAME = "user_preferences";
+  private static final String FIELD_NAME = "favorite_color";
+
+  @Test
+  void testWritesOneMessagePerLine() throws IOException {
+    final AirbyteMessage record = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "bl\u00e9u");
+    final AirbyteMessage state = AirbyteMessageUtils.createStateMessage(STREAM_NAME, "checkpoint", "1");
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    final DefaultAirbyteMessageBufferedWriter writer = new DefaultAirbyteMessageBufferedWriter(outputStream);
+    writer.write(record);
+    writer.write(state);
+    writer.flush();
+
+    assertEquals(Jsons.serialize(record) + "\n" + Jsons.serialize(state) + "\n", outputStream.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testOnlyFlushesWhenAsked() throws IOException {
+    final ByteArrayOutputStream outputStream = spy(new ByteArrayOutputStream());
+
+    final DefaultAirbyteMessageBufferedWriter writer = new DefaultAirbyteMessageBufferedWriter(outputStream);
+    writer.write(AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "blue"));
+    assertEquals(0, outputStream.size());
+
+    writer.flush();
+    verify(outputStream).flush();
+
+    writer.close();
+    verify(outputStream).close();
+  }
+
+  @Test
+  void testWritesRawDataVerbatim() throws IOException {
+    final String data = "{\"favorite_color\" : \"blue\",\"id\":1.50}";
+    final AirbyteMessage record = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "blue");
+    record.getRecord().setData(RawJson.of(data.getBytes(StandardCharsets.UTF_8)));
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    final DefaultAirbyteMessageBufferedWriter writer = new DefaultAirbyteMessageBufferedWriter(outputStream);
+    writer.write(record);
+    writer.flush();
+
+    assertTrue(outputStream.toString(StandardCharsets.UTF_8).contains("\"data\":" + data));
+  }
+
+}
@@ -29,6 +29,7 @@ import io.airbyte.config.State;
 import io.airbyte.config.WorkerSourceConfig;
 import io.airbyte.config.helpers.LogClientSingleton;
 import io.airbyte.config.helpers.LogConfigs;
+import io.airbyte.protocol.models.AirbyteLogMessage;
 import io.airbyte.protocol.models.AirbyteMessage;
 import io.airbyte.protocol.models.CatalogHelpers;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
@@ -173,6 +174,47 @@ class DefaultAirbyteSourceTest {
     verify(process).exitValue();
   }
 
+  @Test
+  void testBatchReadOnlyTakesTheMessagesOfTheCurrentBatch() throws Exception {
+    final AirbyteMessage log = AirbyteMessageUtils.createLogMessage(AirbyteLogMessage.Level.INFO, "ignored");
+    final AirbyteMessage state = AirbyteMessageUtils.createStateMessage(1);
+    final AirbyteStreamFactory batchingStreamFactory = new AirbyteStreamFactory() {
+
+      @Override
+      public Stream<AirbyteMessage> create(final InputStream inputStream) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Stream<List<AirbyteMessage>> createBatches(final InputStream inputStream) {
+        // The empty batch is a chunk of the output that only had log lines.
+        return Stream.of(List.of(MESSAGES.get(0), log, MESSAGES.get(1)), List.of(log), List.of(), List.of(state));
+      }
+
+    };
+
+    final AirbyteSource source = new DefaultAirbyteSource(integrationLauncher, batchingStreamFactory, heartbeatMonitor, protocolSerializer,
+        featureFlags);
+    source.start(SOURCE_CONFIG, jobRoot);
+
+    final List<AirbyteMessage> messages = Lists.newArrayList();
+    assertEquals(2, source.attemptRead(messages, 10));
+    assertEquals(MESSAGES, messages);
+    verify(heartbeatMonitor, times(1)).beat();
+
+    messages.clear();
+    assertEquals(1, source.attemptRead(messages, 10));
+    assertEquals(List.of(state), messages);
+    // The empty batch is not a beat.
+    verify(heartbeatMonitor, times(3)).beat();
+
+    assertEquals(0, source.attemptRead(messages, 10));
+    when(process.isAlive()).thenReturn(false);
+    assertTrue(source.isFinished());
+
+    source.close();
+  }
+
   @Test
   void testTaggedLogs() throws Exception {
 
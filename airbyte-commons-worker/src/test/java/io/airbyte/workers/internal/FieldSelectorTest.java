@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.airbyte.commons.json.Jsons;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
+import io.airbyte.protocol.models.CatalogHelpers;
+import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
+import io.airbyte.protocol.models.Field;
+import io.airbyte.protocol.models.JsonSchemaType;
+import io.airbyte.workers.RecordSchemaValidator;
+import io.airbyte.workers.WorkerMetricReporter;
+import io.airbyte.workers.internal.FieldSelector.ValidationSampling;
+import io.airbyte.workers.test_utils.AirbyteMessageUtils;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FieldSelectorTest {
+
+  private static final String STREAM_NAME = "user_preferences";
+  private static final String OTHER_STREAM_NAME = "user_settings";
+  private static final String FIELD_NAME = "favorite_color";
+  private static final String UNEXPECTED_FIELD_NAME = "id";
+
+  private RecordSchemaValidator recordSchemaValidator;
+  private WorkerMetricReporter metricReporter;
+
+  @BeforeEach
+  void setup() {
+    recordSchemaValidator = mock(RecordSchemaValidator.class);
+    metricReporter = mock(WorkerMetricReporter.class);
+  }
+
+  @Test
+  void testSamplingValidatesTheFirstRecordsOfEachStream() {
+    final FieldSelector fieldSelector = createFieldSelector(new ValidationSampling(3, 0));
+
+    for (int i = 0; i < 5; i++) {
+      fieldSelector.validateSchema(AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "blue"));
+      fieldSelector.validateSchema(AirbyteMessageUtils.createRecordMessage(OTHER_STREAM_NAME, FIELD_NAME, "blue"));
+    }
+
+    verify(recordSchemaValidator, times(3)).validateSchemaWithStats(any(), eq(new AirbyteStreamNameNamespacePair(STREAM_NAME, null)), any());
+    verify(recordSchemaValidator, times(3)).validateSchemaWithStats(any(), eq(new AirbyteStreamNameNamespacePair(OTHER_STREAM_NAME, null)), any());
+    verify(recordSchemaValidator, never()).validateSchema(any(), any(), any());
+  }
+
+  @Test
+  void testSamplingValidatesEveryRecordAtFullRate() {
+    final FieldSelector fieldSelector = createFieldSelector(new ValidationSampling(0, 1));
+
+    for (int i = 0; i < 100; i++) {
+      fieldSelector.validateSchema(AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "blue"));
+    }
+
+    verify(recordSchemaValidator, times(100)).validateSchemaWithStats(any(), any(), any());
+  }
+
+  @Test
+  void testFilterSelectedFields() {
+    final FieldSelector fieldSelector = new FieldSelector(recordSchemaValidator, metricReporter, true, false);
+    fieldSelector.populateFields(catalog());
+    final AirbyteMessage message = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, Map.of(FIELD_NAME, "blue", UNEXPECTED_FIELD_NAME, 1));
+
+    fieldSelector.filterSelectedFields(message);
+
+    assertEquals(Jsons.jsonNode(Map.of(FIELD_NAME, "blue")), message.getRecord().getData());
+  }
+
+  @Test
+  void testReportsUnexpectedFieldsOfEachStream() {
+    final FieldSelector fieldSelector = new FieldSelector(recordSchemaValidator, metricReporter, false, true);
+    fieldSelector.populateFields(catalog());
+
+    fieldSelector.validateSchema(AirbyteMessageUtils.createRecordMessage(STREAM_NAME, Map.of(FIELD_NAME, "blue", UNEXPECTED_FIELD_NAME, 1)));
+    fieldSelector.validateSchema(AirbyteMessageUtils.createRecordMessage(STREAM_NAME, Map.of(UNEXPECTED_FIELD_NAME, 2)));
+    fieldSelector.validateSchema(AirbyteMessageUtils.createRecordMessage(OTHER_STREAM_NAME, Map.of(FIELD_NAME, "blue")));
+    fieldSelector.reportMetrics(UUID.randomUUID());
+
+    verify(metricReporter).trackUnexpectedFields(new AirbyteStreamNameNamespacePair(STREAM_NAME, null), Set.of(UNEXPECTED_FIELD_NAME));
+    verify(metricReporter, never()).trackUnexpectedFields(eq(new AirbyteStreamNameNamespacePair(OTHER_STREAM_NAME, null)), any());
+  }
+
+  private FieldSelector createFieldSelector(final ValidationSampling validationSampling) {
+    final FieldSelector fieldSelector = new FieldSelector(recordSchemaValidator, metricReporter, false, false, Optional.of(validationSampling));
+    fieldSelector.populateFields(catalog());
+    return fieldSelector;
+  }
+
+  private static ConfiguredAirbyteCatalog catalog() {
+    return new ConfiguredAirbyteCatalog().withStreams(List.of(
+        CatalogHelpers.createConfiguredAirbyteStream(STREAM_NAME, null, Field.of(FIELD_NAME, JsonSchemaType.STRING)),
+        CatalogHelpers.createConfiguredAirbyteStream(OTHER_STREAM_NAME, null, Field.of(FIELD_NAME, JsonSchemaType.STRING))));
+  }
+
+}
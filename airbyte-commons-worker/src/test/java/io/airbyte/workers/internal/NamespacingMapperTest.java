@@ -211,4 +211,30 @@ class NamespacingMapperTest {
     assertEquals(expectedMessage, actualMessage);
   }
 
+  @Test
+  void testStreamMissingFromCatalog() {
+    final NamespacingMapper mapper =
+        new NamespacingMapper(NamespaceDefinitionType.CUSTOMFORMAT, "${SOURCE_NAMESPACE}_suffix", OUTPUT_PREFIX, CATALOG);
+
+    final AirbyteMessage expectedMessage = AirbyteMessageUtils.createRecordMessage(OUTPUT_PREFIX + STREAM_NAME, FIELD_NAME, BLUE);
+    expectedMessage.getRecord().withNamespace(INPUT_NAMESPACE + "_suffix");
+    assertEquals(expectedMessage, mapper.mapMessage(recordMessage));
+
+    final AirbyteMessage otherMessage = AirbyteMessageUtils.createRecordMessage("other_stream", FIELD_NAME, BLUE);
+    otherMessage.getRecord().withNamespace("other_namespace");
+    final AirbyteMessage expectedOtherMessage = AirbyteMessageUtils.createRecordMessage(OUTPUT_PREFIX + "other_stream", FIELD_NAME, BLUE);
+    expectedOtherMessage.getRecord().withNamespace("other_namespace_suffix");
+    assertEquals(expectedOtherMessage, mapper.mapMessage(otherMessage));
+  }
+
+  @Test
+  void testCustomFormatWithSpecialCharactersInNamespace() {
+    final NamespacingMapper mapper = new NamespacingMapper(NamespaceDefinitionType.CUSTOMFORMAT, "${SOURCE_NAMESPACE}_suffix", OUTPUT_PREFIX);
+    recordMessage.getRecord().withNamespace("price$\\1");
+
+    final AirbyteMessage expectedMessage = AirbyteMessageUtils.createRecordMessage(OUTPUT_PREFIX + STREAM_NAME, FIELD_NAME, BLUE);
+    expectedMessage.getRecord().withNamespace("price$\\1_suffix");
+    assertEquals(expectedMessage, mapper.mapMessage(recordMessage));
+  }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import io.airbyte.commons.io.ByteLineReader;
+import io.airbyte.commons.io.ByteLineReader.LineMapper;
+import io.airbyte.metrics.lib.MetricClient;
+import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.workers.test_utils.AirbyteMessageUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.slf4j.MDC;
+
+class OrderedParallelDeserializerTest {
+
+  private static final String STREAM_NAME = "stream";
+
+  // Slows down deserialization at random so that batches complete out of order.
+  private static final LineMapper<Stream<AirbyteMessage>> SLOW_MAPPER = (buffer, offset, length) -> {
+    if (ThreadLocalRandom.current().nextInt(100) == 0) {
+      try {
+        Thread.sleep(1);
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return Stream.of(toMessage(new String(buffer, offset, length, StandardCharsets.UTF_8)));
+  };
+
+  private final MetricClient metricClient = mock(MetricClient.class);
+
+  @Test
+  void testMessagesAreInOrder() {
+    final int count = 10_000;
+    final String input = IntStream.range(0, count).mapToObj(String::valueOf).collect(Collectors.joining("\n"));
+
+    final List<AirbyteMessage> messages = deserialize(input, SLOW_MAPPER, 4);
+
+    assertEquals(IntStream.range(0, count).mapToObj(i -> toMessage(String.valueOf(i))).toList(), messages);
+  }
+
+  @Test
+  void testLinesCanMapToAnyNumberOfMessages() {
+    final LineMapper<Stream<AirbyteMessage>> mapper = (buffer, offset, length) -> {
+      final String line = new String(buffer, offset, length, StandardCharsets.UTF_8);
+      return line.startsWith("skip") ? Stream.empty() : Stream.of(toMessage(line), toMessage(line));
+    };
+
+    assertEquals(List.of(toMessage("a"), toMessage("a"), toMessage("b"), toMessage("b")), deserialize("a\nskip\nb", mapper, 2));
+  }
+
+  @Test
+  void testLinesAreMappedWithTheMdcOfTheCaller() {
+    final LineMapper<Stream<AirbyteMessage>> mapper = (buffer, offset, length) -> Stream.of(toMessage(MDC.get("job_log_path")));
+
+    MDC.put("job_log_path", "/tmp/job.log");
+    try {
+      assertEquals(List.of(toMessage("/tmp/job.log"), toMessage("/tmp/job.log")), deserialize("a\nb", mapper, 2));
+    } finally {
+      MDC.remove("job_log_path");
+    }
+  }
+
+  @Test
+  void testFailureIsRaisedAfterThePreviousMessages() {
+    final LineMapper<Stream<AirbyteMessage>> mapper = (buffer, offset, length) -> {
+      final String line = new String(buffer, offset, length, StandardCharsets.UTF_8);
+      if ("500".equals(line)) {
+        throw new IllegalStateException("bad line");
+      }
+      return SLOW_MAPPER.map(buffer, offset, length);
+    };
+    final String input = IntStream.range(0, 1000).mapToObj(String::valueOf).collect(Collectors.joining("\n"));
+
+    final Iterator<AirbyteMessage> messages = new OrderedParallelDeserializer(reader(input), mapper, 4, metricClient).stream().iterator();
+    for (int i = 0; i < 500; i++) {
+      assertEquals(toMessage(String.valueOf(i)), messages.next());
+    }
+    assertThrows(IllegalStateException.class, messages::hasNext);
+  }
+
+  @Test
+  @Timeout(10)
+  void testPartialBatchIsDeliveredWhileTheInputIsQuiet() throws IOException {
+    final PipedOutputStream output = new PipedOutputStream();
+    final ByteLineReader lineReader = new ByteLineReader(new PipedInputStream(output));
+    final Iterator<AirbyteMessage> messages = new OrderedParallelDeserializer(lineReader, SLOW_MAPPER, 2, metricClient).stream().iterator();
+
+    output.write("first\n".getBytes(StandardCharsets.UTF_8));
+    output.flush();
+    // The batch is far from full, the message must not wait for more input.
+    assertEquals(toMessage("first"), messages.next());
+
+    output.write("second\n".getBytes(StandardCharsets.UTF_8));
+    output.close();
+    assertEquals(toMessage("second"), messages.next());
+  }
+
+  private List<AirbyteMessage> deserialize(final String input, final LineMapper<Stream<AirbyteMessage>> mapper, final int parallelism) {
+    try (final Stream<AirbyteMessage> messages = new OrderedParallelDeserializer(reader(input), mapper, parallelism, metricClient).stream()) {
+      return messages.toList();
+    }
+  }
+
+  private static ByteLineReader reader(final String input) {
+    return new ByteLineReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static AirbyteMessage toMessage(final String line) {
+    return AirbyteMessageUtils.createRecordMessage(STREAM_NAME, "line", line);
+  }
+
+}
@@ -6,13 +6,16 @@ package io.airbyte.workers.internal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.json.RawJson;
 import io.airbyte.commons.logging.MdcScope.Builder;
 import io.airbyte.commons.protocol.AirbyteMessageMigrator;
 import io.airbyte.commons.protocol.AirbyteMessageSerDeProvider;
@@ -25,6 +28,7 @@ import io.airbyte.commons.protocol.serde.AirbyteMessageV1Serializer;
 import io.airbyte.commons.version.Version;
 import io.airbyte.protocol.models.AirbyteLogMessage;
 import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.workers.internal.ConnectorLogForwarder.FullBufferPolicy;
 import io.airbyte.workers.test_utils.AirbyteMessageUtils;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
@@ -33,6 +37,7 @@ import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -140,6 +145,98 @@ class VersionedAirbyteStreamFactoryTest {
       assertThrows(RuntimeException.class, () -> messageStream.toList());
     }
 
+    @Test
+    void testFailsSizeFromInputStream() {
+      final AirbyteMessage record1 = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "green");
+
+      final InputStream inputStream = new ByteArrayInputStream(record1.toString().getBytes(StandardCharsets.UTF_8));
+
+      final Stream<AirbyteMessage> messageStream =
+          VersionedAirbyteStreamFactory.noMigrationVersionedAirbyteStreamFactory(logger, new Builder(), Optional.of(RuntimeException.class), 1L)
+              .create(inputStream);
+
+      assertThrows(RuntimeException.class, () -> messageStream.toList());
+    }
+
+    @Test
+    void testInputStreamMatchesBufferedReader() {
+      final AirbyteMessage record1 = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "green");
+      final AirbyteMessage record2 = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "vert \u00e9");
+      final AirbyteMessage logMessage = AirbyteMessageUtils.createLogMessage(AirbyteLogMessage.Level.WARN, "warning");
+      final String input = String.join("\n", Jsons.serialize(record1), "invalid line", Jsons.serialize(logMessage), Jsons.serialize(record2));
+
+      final InputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+      final List<AirbyteMessage> messages = VersionedAirbyteStreamFactory
+          .noMigrationVersionedAirbyteStreamFactory(logger, new Builder(), Optional.of(RuntimeException.class), 100000L)
+          .create(inputStream)
+          .toList();
+
+      assertEquals(stringToMessageStream(input).toList(), messages);
+      assertEquals(List.of(record1, record2), messages);
+      verify(logger, atLeastOnce()).info("invalid line");
+      verify(logger, atLeastOnce()).warn("warning");
+    }
+
+    @Test
+    void testPassthroughRecordData() {
+      final AirbyteMessage record = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "green");
+      final AirbyteMessage logMessage = AirbyteMessageUtils.createLogMessage(AirbyteLogMessage.Level.WARN, "warning");
+      final String input = String.join("\n", Jsons.serialize(record), Jsons.serialize(logMessage));
+
+      final InputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+      final List<AirbyteMessage> messages = VersionedAirbyteStreamFactory
+          .noMigrationVersionedAirbyteStreamFactory(logger, new Builder(), Optional.of(RuntimeException.class), 100000L)
+          .withPassthroughRecordData(true)
+          .create(inputStream)
+          .toList();
+
+      assertEquals(1, messages.size());
+      assertTrue(RawJson.isRaw(messages.get(0).getRecord().getData()));
+      assertEquals(Jsons.serialize(record), Jsons.serialize(messages.get(0)));
+      verify(logger, atLeastOnce()).warn("warning");
+    }
+
+    @Test
+    void testAsyncLogsAreLoggedWhenTheStreamIsClosed() {
+      final AirbyteMessage record = AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, "green");
+      final AirbyteMessage logMessage = AirbyteMessageUtils.createLogMessage(AirbyteLogMessage.Level.WARN, "warning");
+      final String input = String.join("\n", Jsons.serialize(logMessage), Jsons.serialize(record), Jsons.serialize(logMessage));
+
+      final InputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+      final List<AirbyteMessage> messages;
+      try (final Stream<AirbyteMessage> stream = VersionedAirbyteStreamFactory
+          .noMigrationVersionedAirbyteStreamFactory(logger, new Builder(), Optional.of(RuntimeException.class), 100000L)
+          .withAsyncLogs(10, FullBufferPolicy.BLOCK)
+          .create(inputStream)) {
+        messages = stream.toList();
+      }
+
+      assertEquals(List.of(record), messages);
+      verify(logger, times(2)).warn("warning");
+    }
+
+    @Test
+    void testParallelDeserializationMatchesSequential() {
+      final List<String> lines = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        lines.add(Jsons.serialize(AirbyteMessageUtils.createRecordMessage(STREAM_NAME, FIELD_NAME, String.valueOf(i))));
+        if (i % 100 == 0) {
+          lines.add("invalid line");
+          lines.add(Jsons.serialize(AirbyteMessageUtils.createStateMessage(i)));
+        }
+      }
+      final String input = String.join("\n", lines);
+
+      final InputStream inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+      final List<AirbyteMessage> messages = VersionedAirbyteStreamFactory
+          .noMigrationVersionedAirbyteStreamFactory(logger, new Builder(), Optional.of(RuntimeException.class), 100000L)
+          .withDeserializationParallelism(4)
+          .create(inputStream)
+          .toList();
+
+      assertEquals(stringToMessageStream(input).toList(), messages);
+    }
+
     private Stream<AirbyteMessage> stringToMessageStream(final String inputString) {
       final InputStream inputStream = new ByteArrayInputStream(inputString.getBytes(StandardCharsets.UTF_8));
       final BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
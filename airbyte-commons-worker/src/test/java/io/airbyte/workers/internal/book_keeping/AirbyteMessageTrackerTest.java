@@ -5,26 +5,36 @@
 package io.airbyte.workers.internal.book_keeping;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.airbyte.commons.features.EnvVariableFeatureFlags;
 import io.airbyte.commons.json.Jsons;
+import io.airbyte.commons.protocol.serde.AirbyteMessageV1Deserializer;
 import io.airbyte.config.FailureReason;
+import io.airbyte.protocol.models.AirbyteGlobalState;
 import io.airbyte.protocol.models.AirbyteMessage;
+import io.airbyte.protocol.models.AirbyteStateMessage;
+import io.airbyte.protocol.models.AirbyteStateMessage.AirbyteStateType;
 import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
+import io.airbyte.protocol.models.AirbyteStreamState;
+import io.airbyte.protocol.models.StreamDescriptor;
 import io.airbyte.workers.helper.FailureHelper;
 import io.airbyte.workers.internal.book_keeping.StateDeltaTracker.StateDeltaTrackerException;
 import io.airbyte.workers.internal.state_aggregator.StateAggregator;
 import io.airbyte.workers.test_utils.AirbyteMessageUtils;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -71,6 +81,17 @@ class AirbyteMessageTrackerTest {
     assertEquals(2, syncStatsTracker.getTotalSourceStateMessagesEmitted());
   }
 
+  @Test
+  void testEmittedBytesOfRecordsReadFromAConnector() {
+    final byte[] line = Jsons.serialize(AirbyteMessageUtils.createRecordMessage(STREAM_1, 123)).getBytes(StandardCharsets.UTF_8);
+    final AirbyteMessage r1 = new AirbyteMessageV1Deserializer().deserialize(line, 0, line.length).orElseThrow();
+
+    messageTracker.acceptFromSource(r1);
+    messageTracker.acceptFromSource(r1);
+
+    assertEquals(2L * line.length, syncStatsTracker.getTotalBytesEmitted());
+  }
+
   @Test
   void testEmittedRecordsByStream() {
     final AirbyteMessage r1 = AirbyteMessageUtils.createRecordMessage(STREAM_1, 1);
@@ -117,6 +138,83 @@ class AirbyteMessageTrackerTest {
     assertEquals(expected, syncStatsTracker.getStreamToEmittedBytes());
   }
 
+  @Test
+  void testStatsOfManyStreams() throws Exception {
+    final int streamCount = 100;
+    for (int i = 0; i < streamCount; i++) {
+      final AirbyteMessage record = AirbyteMessageUtils.createRecordMessage("stream_" + i, i);
+      // Streams in different namespaces can have the same name.
+      record.getRecord().setNamespace(i % 2 == 0 ? NAMESPACE_1 : null);
+      messageTracker.acceptFromSource(record);
+      messageTracker.acceptFromSource(record);
+    }
+    final AirbyteMessage s1 = AirbyteMessageUtils.createStateMessage(1);
+    messageTracker.acceptFromSource(s1);
+    final AirbyteMessage r1 = AirbyteMessageUtils.createRecordMessage("stream_0", 0);
+    messageTracker.acceptFromSource(r1);
+    final AirbyteMessage s2 = AirbyteMessageUtils.createStateMessage(2);
+    messageTracker.acceptFromSource(s2);
+
+    final Map<AirbyteStreamNameNamespacePair, Long> streamToEmittedRecords = syncStatsTracker.getStreamToEmittedRecords();
+    assertEquals(streamCount + 1, streamToEmittedRecords.size());
+    assertEquals(2L, streamToEmittedRecords.get(new AirbyteStreamNameNamespacePair("stream_0", NAMESPACE_1)));
+    assertEquals(1L, streamToEmittedRecords.get(new AirbyteStreamNameNamespacePair("stream_0", null)));
+    assertEquals(2L * streamCount + 1, syncStatsTracker.getTotalRecordsEmitted());
+    // Only the streams with records since the previous state are part of the delta of a state.
+    Mockito.verify(mStateDeltaTracker).addState(Mockito.anyInt(), Mockito.argThat(counts -> counts.size() == streamCount));
+    Mockito.verify(mStateDeltaTracker).addState(Mockito.anyInt(), Mockito.eq(Map.of((short) streamCount, new StatsCounters(
+        Jsons.getEstimatedByteSize(r1.getRecord().getData()), 1L))));
+  }
+
+  @Test
+  void testStateOfDestinationMatchesStateOfSource() throws Exception {
+    final AirbyteMessage sourceState = new AirbyteMessage()
+        .withType(AirbyteMessage.Type.STATE)
+        .withState(new AirbyteStateMessage()
+            .withType(AirbyteStateType.GLOBAL)
+            .withGlobal(new AirbyteGlobalState()
+                .withSharedState(Jsons.deserialize("{\"lsn\":123456789012,\"tables\":[\"a\",\"b\"]}"))
+                .withStreamStates(List.of(
+                    new AirbyteStreamState().withStreamDescriptor(new StreamDescriptor().withName(STREAM_1).withNamespace(NAMESPACE_1))
+                        .withStreamState(Jsons.deserialize("{\"cursor\":1}")),
+                    new AirbyteStreamState().withStreamDescriptor(new StreamDescriptor().withName(STREAM_2))
+                        .withStreamState(Jsons.deserialize("{\"cursor\":2}"))))));
+    // The destination sends back its own copy of the state.
+    final AirbyteMessage destinationState = Jsons.deserialize(Jsons.serialize(sourceState), AirbyteMessage.class);
+
+    messageTracker.acceptFromSource(sourceState);
+    messageTracker.acceptFromDestination(destinationState);
+
+    final ArgumentCaptor<Integer> addedHash = ArgumentCaptor.forClass(Integer.class);
+    final ArgumentCaptor<Integer> committedHash = ArgumentCaptor.forClass(Integer.class);
+    Mockito.verify(mStateDeltaTracker).addState(addedHash.capture(), Mockito.anyMap());
+    Mockito.verify(mStateDeltaTracker).commitStateHash(committedHash.capture());
+    assertEquals(addedHash.getValue(), committedHash.getValue());
+  }
+
+  @Test
+  void testAdditionalPropertiesOfGlobalStatesAreHashed() throws Exception {
+    final AirbyteGlobalState global = new AirbyteGlobalState()
+        .withSharedState(Jsons.deserialize("{\"lsn\":1}"))
+        .withStreamStates(List.of(new AirbyteStreamState().withStreamDescriptor(new StreamDescriptor().withName(STREAM_1))
+            .withStreamState(Jsons.deserialize("{\"cursor\":1}"))));
+    final AirbyteGlobalState withGlobalProperty = Jsons.clone(global).withAdditionalProperty("checkpoint", 2);
+    final AirbyteGlobalState withStreamProperty = Jsons.clone(global);
+    withStreamProperty.getStreamStates().get(0).setAdditionalProperty("checkpoint", 2);
+
+    for (final AirbyteGlobalState state : List.of(global, withGlobalProperty, withStreamProperty)) {
+      messageTracker.acceptFromSource(new AirbyteMessage()
+          .withType(AirbyteMessage.Type.STATE)
+          .withState(new AirbyteStateMessage().withType(AirbyteStateType.GLOBAL).withGlobal(state)));
+    }
+
+    final ArgumentCaptor<Integer> addedHash = ArgumentCaptor.forClass(Integer.class);
+    Mockito.verify(mStateDeltaTracker, Mockito.times(3)).addState(addedHash.capture(), Mockito.anyMap());
+    assertNotEquals(addedHash.getAllValues().get(0), addedHash.getAllValues().get(1));
+    assertNotEquals(addedHash.getAllValues().get(0), addedHash.getAllValues().get(2));
+    assertNotEquals(addedHash.getAllValues().get(1), addedHash.getAllValues().get(2));
+  }
+
   @Test
   void testGetCommittedRecordsByStream() {
     final AirbyteMessage r1 = AirbyteMessageUtils.createRecordMessage(STREAM_1, 1);
@@ -8,6 +8,7 @@ import io.airbyte.workers.internal.book_keeping.StateDeltaTracker.StateDeltaTrac
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,9 +34,9 @@ class StateDeltaTrackerTest {
   private static final long STATE_3_STREAM_3_COUNT = 33L;
   private static final long STATE_3_STREAM_4_COUNT = 34L;
 
-  // enough capacity for above 3 states, which are each 40 bytes (8 byte hash + two 18 byte stream
-  // counts
-  private static final long INITIAL_DELTA_MEMORY_CAPACITY = 3 * 40L;
+  // enough capacity for above 3 states, which are each 56 bytes (8 byte header + two 24 byte stream
+  // counts), on top of the memory reserved for the chunks of the queue
+  private static final long INITIAL_DELTA_MEMORY_CAPACITY = StateDeltaTracker.QUEUE_OVERHEAD_BYTES + 3 * 56L;
 
   private StateDeltaTracker stateDeltaTracker;
 
@@ -118,8 +119,60 @@ class StateDeltaTrackerTest {
     Assertions.assertEquals(expected, stateDeltaTracker.getStreamToCommittedStats());
 
     // since all states are committed, capacity should be freed and the delta queue should be empty
-    Assertions.assertEquals(INITIAL_DELTA_MEMORY_CAPACITY, stateDeltaTracker.remainingCapacity);
+    Assertions.assertEquals(INITIAL_DELTA_MEMORY_CAPACITY - StateDeltaTracker.QUEUE_OVERHEAD_BYTES, stateDeltaTracker.remainingCapacity.get());
     Assertions.assertEquals(0, stateDeltaTracker.stateDeltas.size());
   }
 
+  @Test
+  void testCommitStatesSpanningSeveralChunks() throws Exception {
+    final int stateCount = 1000;
+    final long capacity = StateDeltaTracker.QUEUE_OVERHEAD_BYTES + stateCount * StateDeltaTracker.deltaBytes(3);
+    final StateDeltaTracker tracker = new StateDeltaTracker(capacity);
+    for (int hash = 0; hash < stateCount; hash++) {
+      tracker.addState(hash, threeStreamCounts());
+    }
+    // commit every other state, which also commits the states in between
+    for (int hash = 1; hash < stateCount; hash += 2) {
+      tracker.commitStateHash(hash);
+    }
+
+    final Map<Short, StatsCounters> expected = new HashMap<>();
+    for (short streamIndex = 0; streamIndex < 3; streamIndex++) {
+      expected.put(streamIndex, new StatsCounters(stateCount * 10L, stateCount));
+    }
+    Assertions.assertEquals(expected, tracker.getStreamToCommittedStats());
+    Assertions.assertEquals(0, tracker.stateDeltas.size());
+    Assertions.assertEquals(capacity - StateDeltaTracker.QUEUE_OVERHEAD_BYTES, tracker.remainingCapacity.get());
+  }
+
+  @Test
+  void testAddAndCommitStatesConcurrently() throws Exception {
+    final int stateCount = 100_000;
+    final StateDeltaTracker tracker = new StateDeltaTracker(Long.MAX_VALUE);
+
+    final CompletableFuture<Void> source = CompletableFuture.runAsync(() -> {
+      for (int hash = 0; hash < stateCount; hash++) {
+        try {
+          tracker.addState(hash, threeStreamCounts());
+        } catch (final StateDeltaTrackerException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    for (int hash = 0; hash < stateCount; hash++) {
+      while (tracker.stateDeltas.size() == 0) {
+        Thread.onSpinWait();
+      }
+      tracker.commitStateHash(hash);
+    }
+    source.get();
+
+    Assertions.assertEquals(new StatsCounters(stateCount * 10L, stateCount), tracker.getStreamToCommittedStats().get((short) 2));
+    Assertions.assertEquals(Long.MAX_VALUE - StateDeltaTracker.QUEUE_OVERHEAD_BYTES, tracker.remainingCapacity.get());
+  }
+
+  private static Map<Short, StatsCounters> threeStreamCounts() {
+    return Map.of((short) 0, new StatsCounters(10L, 1L), (short) 1, new StatsCounters(10L, 1L), (short) 2, new StatsCounters(10L, 1L));
+  }
+
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.workers.internal.book_keeping.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.airbyte.api.client.AirbyteApiClient;
+import io.airbyte.api.client.generated.StreamStatusesApi;
+import io.airbyte.api.client.invoker.generated.ApiException;
+import io.airbyte.api.client.model.generated.StreamStatusCreateRequestBody;
+import io.airbyte.api.client.model.generated.StreamStatusRead;
+import io.airbyte.api.client.model.generated.StreamStatusUpdateRequestBody;
+import io.airbyte.protocol.models.AirbyteStreamStatusTraceMessage.AirbyteStreamStatus;
+import io.airbyte.protocol.models.StreamDescriptor;
+import io.airbyte.workers.context.ReplicationContext;
+import io.airbyte.workers.internal.book_keeping.AirbyteMessageOrigin;
+import io.airbyte.workers.internal.book_keeping.StreamStatusTracker;
+import io.airbyte.workers.internal.book_keeping.StreamStatusTracker.StreamStatusKey;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.slf4j.MDC;
+
+/**
+ * Test suite for the {@link ReplicationAirbyteMessageEventPublishingHelper} class, publishing to a
+ * {@link StreamStatusTracker} backed by a slow stream status API.
+ */
+@Timeout(30)
+class ReplicationAirbyteMessageEventPublishingHelperTest {
+
+  private static final String JOB_LOG_PATH = "job_log_path";
+  private static final Duration API_LATENCY = Duration.ofMillis(50);
+  private static final ReplicationContext REPLICATION_CONTEXT =
+      new ReplicationContext(false, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 1L, 0, UUID.randomUUID());
+  private static final ReplicationContext OTHER_REPLICATION_CONTEXT =
+      new ReplicationContext(false, UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 2L, 0, UUID.randomUUID());
+
+  // Calls received by the stream status API, as "stream:run state".
+  private List<String> apiCalls;
+  // Job log path in the MDC of each published event.
+  private List<String> publishedLogPaths;
+  private StreamStatusTracker streamStatusTracker;
+  private ReplicationAirbyteMessageEventPublishingHelper publishingHelper;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setup() throws ApiException {
+    apiCalls = Collections.synchronizedList(new ArrayList<>());
+    publishedLogPaths = Collections.synchronizedList(new ArrayList<>());
+    final StreamStatusesApi streamStatusesApi = mock(StreamStatusesApi.class);
+    when(streamStatusesApi.createStreamStatus(any())).thenAnswer(invocation -> {
+      final StreamStatusCreateRequestBody body = invocation.getArgument(0);
+      Thread.sleep(API_LATENCY.toMillis());
+      apiCalls.add(body.getStreamName() + ":" + body.getRunState());
+      return new StreamStatusRead().id(UUID.randomUUID());
+    });
+    when(streamStatusesApi.updateStreamStatus(any())).thenAnswer(invocation -> {
+      final StreamStatusUpdateRequestBody body = invocation.getArgument(0);
+      Thread.sleep(API_LATENCY.toMillis());
+      apiCalls.add(body.getStreamName() + ":" + body.getRunState());
+      return new StreamStatusRead().id(body.getId());
+    });
+    final AirbyteApiClient airbyteApiClient = mock(AirbyteApiClient.class);
+    when(airbyteApiClient.getStreamStatusesApi()).thenReturn(streamStatusesApi);
+
+    streamStatusTracker = new StreamStatusTracker(airbyteApiClient);
+    final AirbyteStreamStatusMessageEventListener listener = new AirbyteStreamStatusMessageEventListener(streamStatusTracker);
+    final ApplicationEventPublisher<ReplicationAirbyteMessageEvent> eventPublisher = mock(ApplicationEventPublisher.class);
+    doAnswer(invocation -> {
+      final ReplicationAirbyteMessageEvent event = invocation.getArgument(0);
+      publishedLogPaths.add(MDC.get(JOB_LOG_PATH));
+      if (listener.supports(event)) {
+        listener.onApplicationEvent(event);
+      }
+      return null;
+    }).when(eventPublisher).publishEvent(any());
+    publishingHelper = new ReplicationAirbyteMessageEventPublishingHelper(eventPublisher);
+  }
+
+  @Test
+  void testPublishingDoesNotWaitForTheApi() {
+    final List<StreamDescriptor> streams = streams(10);
+
+    final long start = System.nanoTime();
+    streams.forEach(stream -> publish(stream, AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE));
+    final Duration publishDuration = Duration.ofNanos(System.nanoTime() - start);
+
+    assertTrue(publishDuration.compareTo(API_LATENCY.multipliedBy(streams.size())) < 0, "publishing took " + publishDuration);
+    publishingHelper.flush(REPLICATION_CONTEXT);
+    assertEquals(streams.size(), apiCalls.size());
+    streams.forEach(stream -> assertEquals(AirbyteStreamStatus.STARTED, streamStatusTracker.getAirbyteStreamStatus(key(stream)).orElseThrow()));
+  }
+
+  @Test
+  void testTransitionsOfEachStreamAreSentInOrderWithoutRepeats() {
+    final List<StreamDescriptor> streams = streams(3);
+
+    streams.forEach(stream -> publish(stream, AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE));
+    for (int i = 0; i < 3; i++) {
+      streams.forEach(stream -> publish(stream, AirbyteStreamStatus.RUNNING, AirbyteMessageOrigin.SOURCE));
+    }
+    streams.forEach(stream -> {
+      publish(stream, AirbyteStreamStatus.COMPLETE, AirbyteMessageOrigin.SOURCE);
+      publish(stream, AirbyteStreamStatus.COMPLETE, AirbyteMessageOrigin.DESTINATION);
+      publish(stream, AirbyteStreamStatus.COMPLETE, AirbyteMessageOrigin.DESTINATION);
+    });
+    publishingHelper.flush(REPLICATION_CONTEXT);
+
+    for (final StreamDescriptor stream : streams) {
+      assertEquals(List.of(stream.getName() + ":PENDING", stream.getName() + ":RUNNING", stream.getName() + ":COMPLETE"),
+          apiCalls.stream().filter(call -> call.startsWith(stream.getName() + ":")).toList());
+      assertEquals(AirbyteStreamStatus.COMPLETE, streamStatusTracker.getAirbyteStreamStatus(key(stream)).orElseThrow());
+    }
+  }
+
+  @Test
+  void testStatusesCanBePublishedAgainAfterAnInternalStatus() {
+    final StreamDescriptor stream = streams(1).get(0);
+
+    publish(stream, AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+    publishingHelper.publishCompleteStatusEvent(new StreamDescriptor(), REPLICATION_CONTEXT, AirbyteMessageOrigin.INTERNAL);
+    publish(stream, AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+    publishingHelper.flush(REPLICATION_CONTEXT);
+
+    assertEquals(List.of("stream0:PENDING", "stream0:COMPLETE", "stream0:PENDING"), apiCalls);
+  }
+
+  @Test
+  void testEventsArePublishedWithTheMdcOfTheirPublisher() {
+    final List<StreamDescriptor> streams = streams(2);
+
+    try {
+      MDC.put(JOB_LOG_PATH, "/job1/logs.log");
+      publish(streams.get(0), AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+      MDC.put(JOB_LOG_PATH, "/job2/logs.log");
+      publish(streams.get(1), AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+    } finally {
+      MDC.remove(JOB_LOG_PATH);
+    }
+    publish(streams.get(0), AirbyteStreamStatus.RUNNING, AirbyteMessageOrigin.SOURCE);
+    publishingHelper.flush(REPLICATION_CONTEXT);
+
+    assertEquals(Arrays.asList("/job1/logs.log", "/job2/logs.log", null), publishedLogPaths);
+  }
+
+  @Test
+  void testFlushDoesNotWaitForTheEventsOfOtherSyncs() {
+    final List<StreamDescriptor> streams = streams(10);
+
+    publish(streams.get(0), AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+    streams.forEach(stream -> publishingHelper.publishStatusEvent(stream, AirbyteStreamStatus.STARTED, OTHER_REPLICATION_CONTEXT,
+        AirbyteMessageOrigin.SOURCE));
+    final long start = System.nanoTime();
+    publishingHelper.flush(REPLICATION_CONTEXT);
+    final Duration flushDuration = Duration.ofNanos(System.nanoTime() - start);
+
+    assertTrue(flushDuration.compareTo(API_LATENCY.multipliedBy(streams.size())) < 0, "flush took " + flushDuration);
+    assertEquals(AirbyteStreamStatus.STARTED, streamStatusTracker.getAirbyteStreamStatus(key(streams.get(0))).orElseThrow());
+    publishingHelper.flush(OTHER_REPLICATION_CONTEXT);
+  }
+
+  @Test
+  void testFlushForgetsThePublishedStatusesOfTheSync() {
+    final StreamDescriptor stream = streams(1).get(0);
+
+    publish(stream, AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+    publishingHelper.flush(REPLICATION_CONTEXT);
+    publish(stream, AirbyteStreamStatus.STARTED, AirbyteMessageOrigin.SOURCE);
+    publishingHelper.flush(REPLICATION_CONTEXT);
+
+    // The second status is not dropped as a repeat of the first one.
+    assertEquals(2, publishedLogPaths.size());
+  }
+
+  @Test
+  void testFlushWithoutEvents() {
+    publishingHelper.flush(REPLICATION_CONTEXT);
+    assertTrue(apiCalls.isEmpty());
+  }
+
+  private void publish(final StreamDescriptor stream, final AirbyteStreamStatus status, final AirbyteMessageOrigin origin) {
+    publishingHelper.publishStatusEvent(stream, status, REPLICATION_CONTEXT, origin);
+  }
+
+  private static List<StreamDescriptor> streams(final int count) {
+    return IntStream.range(0, count).mapToObj(i -> new StreamDescriptor().withName("stream" + i).withNamespace("namespace")).toList();
+  }
+
+  private static StreamStatusKey key(final StreamDescriptor stream) {
+    return new StreamStatusKey(stream.getName(), stream.getNamespace(), REPLICATION_CONTEXT.workspaceId(), REPLICATION_CONTEXT.connectionId(),
+        REPLICATION_CONTEXT.jobId(), REPLICATION_CONTEXT.attempt());
+  }
+
+}
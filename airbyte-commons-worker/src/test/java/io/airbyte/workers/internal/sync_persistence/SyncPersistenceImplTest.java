@@ -8,12 +8,15 @@ import static io.airbyte.protocol.models.AirbyteStateMessage.AirbyteStateType.GL
 import static io.airbyte.protocol.models.AirbyteStateMessage.AirbyteStateType.LEGACY;
 import static io.airbyte.protocol.models.AirbyteStateMessage.AirbyteStateType.STREAM;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -21,13 +24,17 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.airbyte.api.client.generated.AttemptApi;
 import io.airbyte.api.client.generated.StateApi;
 import io.airbyte.api.client.invoker.generated.ApiException;
+import io.airbyte.api.client.model.generated.AttemptStreamStats;
 import io.airbyte.api.client.model.generated.ConnectionIdRequestBody;
 import io.airbyte.api.client.model.generated.ConnectionState;
 import io.airbyte.api.client.model.generated.ConnectionStateCreateOrUpdate;
 import io.airbyte.api.client.model.generated.ConnectionStateType;
+import io.airbyte.api.client.model.generated.SaveStatsRequestBody;
 import io.airbyte.api.client.model.generated.StreamState;
 import io.airbyte.commons.features.FeatureFlags;
 import io.airbyte.commons.json.Jsons;
@@ -36,6 +43,7 @@ import io.airbyte.protocol.models.AirbyteGlobalState;
 import io.airbyte.protocol.models.AirbyteRecordMessage;
 import io.airbyte.protocol.models.AirbyteStateMessage;
 import io.airbyte.protocol.models.AirbyteStream;
+import io.airbyte.protocol.models.AirbyteStreamNameNamespacePair;
 import io.airbyte.protocol.models.AirbyteStreamState;
 import io.airbyte.protocol.models.ConfiguredAirbyteCatalog;
 import io.airbyte.protocol.models.ConfiguredAirbyteStream;
@@ -45,16 +53,22 @@ import io.airbyte.workers.internal.book_keeping.SyncStatsTracker;
 import io.airbyte.workers.internal.state_aggregator.StateAggregatorFactory;
 import io.airbyte.workers.internal.sync_persistence.SyncPersistenceImpl.RetryWithJitterConfig;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.assertj.core.api.CollectionAssert;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 class SyncPersistenceImplTest {
 
@@ -65,6 +79,8 @@ class SyncPersistenceImplTest {
   private StateApi stateApi;
   private AttemptApi attemptApi;
   private ScheduledExecutorService executorService;
+  private Ticker ticker;
+  private StateAggregatorFactory stateAggregatorFactory;
   private ArgumentCaptor<Runnable> actualFlushMethod;
 
   private UUID connectionId;
@@ -91,11 +107,18 @@ class SyncPersistenceImplTest {
     // Setting syncPersistence
     stateApi = mock(StateApi.class);
     attemptApi = mock(AttemptApi.class);
+    ticker = mock(Ticker.class);
     final FeatureFlags featureFlags = mock(FeatureFlags.class);
     when(featureFlags.useStreamCapableState()).thenReturn(true);
-    syncPersistence = new SyncPersistenceImpl(stateApi, attemptApi, new StateAggregatorFactory(featureFlags), syncStatsTracker, executorService,
-        flushPeriod, Optional.of(new RetryWithJitterConfig(1, 1, 4)));
+    stateAggregatorFactory = new StateAggregatorFactory(featureFlags);
+    syncPersistence = createSyncPersistence(MoreExecutors.newDirectExecutorService());
+  }
+
+  private SyncPersistenceImpl createSyncPersistence(final ExecutorService statsExecutorService) {
+    final SyncPersistenceImpl syncPersistence = new SyncPersistenceImpl(stateApi, attemptApi, stateAggregatorFactory, syncStatsTracker,
+        executorService, statsExecutorService, flushPeriod, Optional.of(new RetryWithJitterConfig(1, 1, 4)), ticker);
     syncPersistence.setConnectionContext(connectionId, jobId, attemptNumber, null);
+    return syncPersistence;
   }
 
   @AfterEach
@@ -184,6 +207,92 @@ class SyncPersistenceImplTest {
     verify(stateApi, never()).createOrUpdateState(any());
   }
 
+  @Test
+  void testOnlyStreamsThatChangedAreFlushed() throws ApiException {
+    final AirbyteStateMessage stateA1 = getStreamState("A", 1);
+    final AirbyteStateMessage stateB1 = getStreamState("B", 1);
+    syncPersistence.persist(connectionId, stateA1);
+    syncPersistence.persist(connectionId, stateB1);
+    actualFlushMethod.getValue().run();
+    verifyStateUpdateApiCall(List.of(stateA1, stateB1));
+    clearInvocations(stateApi);
+
+    // A is emitted again without any progress, only B should be sent
+    final AirbyteStateMessage stateB2 = getStreamState("B", 2);
+    syncPersistence.persist(connectionId, getStreamState("A", 1));
+    syncPersistence.persist(connectionId, stateB2);
+    actualFlushMethod.getValue().run();
+    verifyStateUpdateApiCall(List.of(stateB2));
+    clearInvocations(stateApi);
+
+    // Nothing changed, the API should not be called
+    syncPersistence.persist(connectionId, getStreamState("A", 1));
+    syncPersistence.persist(connectionId, getStreamState("B", 2));
+    actualFlushMethod.getValue().run();
+    verify(stateApi, never()).createOrUpdateState(any());
+  }
+
+  @Test
+  void testOnlyGlobalStreamsThatChangedAreFlushed() throws ApiException {
+    final ArgumentCaptor<ConnectionStateCreateOrUpdate> captor = ArgumentCaptor.forClass(ConnectionStateCreateOrUpdate.class);
+
+    syncPersistence.persist(connectionId, getGlobalState(1, List.of(getStreamState("A", 1), getStreamState("B", 1))));
+    actualFlushMethod.getValue().run();
+    verify(stateApi).createOrUpdateState(captor.capture());
+    assertEquals(List.of("A", "B"), getGlobalStreamNames(captor.getValue()));
+    clearInvocations(stateApi);
+
+    // The shared state is sent along with the streams that changed
+    syncPersistence.persist(connectionId, getGlobalState(2, List.of(getStreamState("A", 1), getStreamState("B", 2))));
+    actualFlushMethod.getValue().run();
+    verify(stateApi).createOrUpdateState(captor.capture());
+    assertEquals(Jsons.deserialize("{\"globalState\":2}"), captor.getValue().getConnectionState().getGlobalState().getSharedState());
+    assertEquals(List.of("B"), getGlobalStreamNames(captor.getValue()));
+    clearInvocations(stateApi);
+
+    // Only the shared state changed
+    syncPersistence.persist(connectionId, getGlobalState(3, List.of(getStreamState("A", 1), getStreamState("B", 2))));
+    actualFlushMethod.getValue().run();
+    verify(stateApi).createOrUpdateState(captor.capture());
+    assertEquals(Jsons.deserialize("{\"globalState\":3}"), captor.getValue().getConnectionState().getGlobalState().getSharedState());
+    assertEquals(List.of(), getGlobalStreamNames(captor.getValue()));
+    clearInvocations(stateApi);
+
+    syncPersistence.persist(connectionId, getGlobalState(3, List.of(getStreamState("A", 1), getStreamState("B", 2))));
+    actualFlushMethod.getValue().run();
+    verify(stateApi, never()).createOrUpdateState(any());
+  }
+
+  @Test
+  void testFlushBacksOffWhenStateApiIsSlow() throws ApiException {
+    final long flushPeriodNanos = TimeUnit.SECONDS.toNanos(flushPeriod);
+
+    // The first flush takes two flush periods, the next one should wait for eight periods
+    syncPersistence.persist(connectionId, getStreamState("A", 1));
+    when(ticker.read()).thenReturn(0L, 0L, 2 * flushPeriodNanos);
+    actualFlushMethod.getValue().run();
+    verify(stateApi).createOrUpdateState(any());
+    clearInvocations(stateApi);
+
+    final AirbyteStateMessage stateA2 = getStreamState("A", 2);
+    syncPersistence.persist(connectionId, stateA2);
+    when(ticker.read()).thenReturn(3 * flushPeriodNanos);
+    actualFlushMethod.getValue().run();
+    verify(stateApi, never()).createOrUpdateState(any());
+
+    when(ticker.read()).thenReturn(8 * flushPeriodNanos);
+    actualFlushMethod.getValue().run();
+    verifyStateUpdateApiCall(List.of(stateA2));
+    clearInvocations(stateApi);
+
+    // The API is fast again, flushes go back to the flush period
+    final AirbyteStateMessage stateA3 = getStreamState("A", 3);
+    syncPersistence.persist(connectionId, stateA3);
+    when(ticker.read()).thenReturn(9 * flushPeriodNanos);
+    actualFlushMethod.getValue().run();
+    verifyStateUpdateApiCall(List.of(stateA3));
+  }
+
   @Test
   void testStatsFlushBasicEmissions() throws ApiException {
     syncPersistence.updateStats(new AirbyteRecordMessage());
@@ -236,6 +345,65 @@ class SyncPersistenceImplTest {
     verify(attemptApi).saveStats(any());
   }
 
+  @Test
+  void testOnlyStreamStatsThatChangedAreSaved() throws ApiException {
+    final ArgumentCaptor<SaveStatsRequestBody> captor = ArgumentCaptor.forClass(SaveStatsRequestBody.class);
+    final AirbyteStreamNameNamespacePair streamA = new AirbyteStreamNameNamespacePair("A", null);
+    final AirbyteStreamNameNamespacePair streamB = new AirbyteStreamNameNamespacePair("B", null);
+
+    when(syncStatsTracker.getStreamToEmittedRecords()).thenReturn(Map.of(streamA, 1L, streamB, 1L));
+    when(syncStatsTracker.getStreamToEmittedBytes()).thenReturn(Map.of(streamA, 10L, streamB, 10L));
+    syncPersistence.updateStats(new AirbyteRecordMessage());
+    syncPersistence.persist(connectionId, getStreamState("A", 1));
+    actualFlushMethod.getValue().run();
+    verify(attemptApi).saveStats(captor.capture());
+    assertEquals(Set.of("A", "B"), getStreamNames(captor.getValue()));
+    clearInvocations(attemptApi);
+
+    // Only B moved
+    when(syncStatsTracker.getStreamToEmittedRecords()).thenReturn(Map.of(streamA, 1L, streamB, 2L));
+    when(syncStatsTracker.getStreamToEmittedBytes()).thenReturn(Map.of(streamA, 10L, streamB, 20L));
+    syncPersistence.persist(connectionId, getStreamState("A", 2));
+    actualFlushMethod.getValue().run();
+    verify(attemptApi).saveStats(captor.capture());
+    assertEquals(Set.of("B"), getStreamNames(captor.getValue()));
+    clearInvocations(attemptApi);
+
+    // Nothing moved
+    syncPersistence.persist(connectionId, getStreamState("A", 3));
+    actualFlushMethod.getValue().run();
+    verify(attemptApi, never()).saveStats(any());
+  }
+
+  @Test
+  void testStatsAreCoalescedWhileTheStatsApiIsBusy() throws ApiException {
+    final ExecutorService statsExecutorService = mock(ExecutorService.class);
+    final Future<?> statsFlush = mock(Future.class);
+    final ArgumentCaptor<Runnable> actualStatsFlushMethod = ArgumentCaptor.forClass(Runnable.class);
+    doReturn(statsFlush).when(statsExecutorService).submit(actualStatsFlushMethod.capture());
+    syncPersistence = createSyncPersistence(statsExecutorService);
+
+    syncPersistence.updateStats(new AirbyteRecordMessage());
+    syncPersistence.persist(connectionId, getStreamState("A", 1));
+    actualFlushMethod.getValue().run();
+    verify(statsExecutorService).submit(any(Runnable.class));
+    clearInvocations(statsExecutorService);
+
+    // The stats call is still in flight, the next run should not start another one
+    when(statsFlush.isDone()).thenReturn(false);
+    syncPersistence.persist(connectionId, getStreamState("A", 2));
+    actualFlushMethod.getValue().run();
+    verify(stateApi, times(2)).createOrUpdateState(any());
+    verify(statsExecutorService, never()).submit(any(Runnable.class));
+
+    // The pending stats from both runs are saved in one call
+    actualStatsFlushMethod.getValue().run();
+    verify(attemptApi).saveStats(any());
+    when(statsFlush.isDone()).thenReturn(true);
+    actualFlushMethod.getValue().run();
+    verify(statsExecutorService, never()).submit(any(Runnable.class));
+  }
+
   @Test
   void testClose() throws Exception {
     // Adding a state to flush, this state should get flushed when we close syncPersistence
@@ -251,6 +419,27 @@ class SyncPersistenceImplTest {
     verify(attemptApi).saveStats(any());
   }
 
+  @Test
+  void testCloseStopsTheStatsFlushAfterTheRunningStateFlush() throws Exception {
+    final ExecutorService statsExecutorService = mock(ExecutorService.class);
+    when(statsExecutorService.awaitTermination(anyLong(), any())).thenReturn(true);
+    syncPersistence = createSyncPersistence(statsExecutorService);
+    syncPersistence.updateStats(new AirbyteRecordMessage());
+    syncPersistence.persist(connectionId, getStreamState("A", 1));
+
+    // The scheduled flush completes while close waits for it
+    when(executorService.awaitTermination(anyLong(), any())).thenAnswer(invocation -> {
+      actualFlushMethod.getValue().run();
+      return true;
+    });
+    syncPersistence.close();
+
+    final InOrder inOrder = inOrder(executorService, statsExecutorService);
+    inOrder.verify(executorService).awaitTermination(anyLong(), any());
+    inOrder.verify(statsExecutorService).submit(any(Runnable.class));
+    inOrder.verify(statsExecutorService).shutdown();
+  }
+
   @Test
   void testCloseMergeStatesFromPreviousFailure() throws Exception {
     // Adding a state to flush, this state should get flushed when we close syncPersistence
@@ -605,6 +794,23 @@ class SyncPersistenceImplTest {
         .withGlobal(new AirbyteGlobalState().withSharedState(Jsons.deserialize("{\"globalState\":" + stateValue + "}")));
   }
 
+  private AirbyteStateMessage getGlobalState(final int stateValue, final List<AirbyteStateMessage> streamStates) {
+    final AirbyteStateMessage state = getGlobalState(stateValue);
+    state.getGlobal().withStreamStates(streamStates.stream().map(AirbyteStateMessage::getStream).toList());
+    return state;
+  }
+
+  private Set<String> getStreamNames(final SaveStatsRequestBody request) {
+    return request.getStreamStats().stream().map(AttemptStreamStats::getStreamName).collect(Collectors.toSet());
+  }
+
+  private List<String> getGlobalStreamNames(final ConnectionStateCreateOrUpdate request) {
+    assertNull(request.getConnectionState().getStreamState());
+    return request.getConnectionState().getGlobalState().getStreamStates().stream()
+        .map(streamState -> streamState.getStreamDescriptor().getName())
+        .toList();
+  }
+
   private AirbyteStateMessage getLegacyState(final String stateValue) {
     return new AirbyteStateMessage().withType(LEGACY)
         .withData(Jsons.deserialize("{\"state\":\"" + stateValue + "\"}"));
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.concurrency;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+/**
+ * A bounded single-producer/single-consumer ring buffer that can be closed.
+ * <p>
+ * Unlike {@link BoundedConcurrentLinkedQueue}, callers do not need to spin or sleep when the buffer
+ * is empty or full: a blocked producer or consumer parks its thread and is unparked by the other
+ * side as soon as there is something to do, or when the buffer is closed.
+ * <p>
+ * The buffer can optionally be bounded by the total weight of its elements (e.g. their size in
+ * bytes) on top of their count. An element heavier than the weight limit is still accepted when the
+ * buffer is empty so that it cannot block the producer forever.
+ * <p>
+ * Exactly one thread may insert and exactly one thread may remove elements. {@link #close()},
+ * {@link #size()}, {@link #isClosed()} and {@link #isDone()} are safe to call from any thread.
+ */
+public class BoundedSpscRingBuffer<T> implements SpscBuffer<T> {
+
+  // Number of busy-wait iterations before parking. Handoffs between two busy threads usually complete
+  // within a few hundred nanoseconds, which is much cheaper than a park/unpark round trip.
+  private static final int SPINS_BEFORE_PARK = 128;
+
+  private final Object[] buffer;
+  private final long[] weights;
+  private final int mask;
+  private final int maxSize;
+  private final long maxWeight;
+  private final ToLongFunction<? super T> weigher;
+  // Total weight of the elements in the buffer. Written by both the producer and the consumer.
+  private final AtomicLong weight;
+
+  // Index of the next slot to read. Only written by the consumer.
+  private final AtomicLong head;
+  // Index of the next slot to write. Only written by the producer.
+  private final AtomicLong tail;
+
+  private volatile boolean closed;
+  private volatile Thread waitingProducer;
+  private volatile Thread waitingConsumer;
+
+  public BoundedSpscRingBuffer(final int maxSize) {
+    this(maxSize, 0, e -> 0);
+  }
+
+  /**
+   * Create a buffer bounded by both element count and total weight.
+   *
+   * @param maxSize maximum number of elements
+   * @param maxWeight maximum total weight of the elements, 0 or less means unbounded
+   * @param weigher computes the weight of an element, called once per element by the producer
+   */
+  public BoundedSpscRingBuffer(final int maxSize, final long maxWeight, final ToLongFunction<? super T> weigher) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive, was " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+    final int capacity = Integer.highestOneBit(maxSize) == maxSize ? maxSize : Integer.highestOneBit(maxSize) << 1;
+    this.buffer = new Object[capacity];
+    this.weights = new long[capacity];
+    this.weight = new AtomicLong();
+    this.mask = capacity - 1;
+    this.head = new AtomicLong();
+    this.tail = new AtomicLong();
+    this.closed = false;
+  }
+
+  /**
+   * Inserts the element if there is room for it without waiting.
+   *
+   * @param e the element to add
+   * @return true if the element was added, false if the buffer is full or closed
+   */
+  @Override
+  public boolean add(final T e) {
+    Objects.requireNonNull(e);
+    if (closed) {
+      return false;
+    }
+    final long w = weigher.applyAsLong(e);
+    if (!hasRoomFor(w)) {
+      return false;
+    }
+    publish(e, w);
+    return true;
+  }
+
+  /**
+   * Inserts the element, waiting for room if the buffer is full.
+   *
+   * @param e the element to add
+   * @return true if the element was added, false if the buffer was closed before it could be
+   * @throws InterruptedException if the producer thread is interrupted while waiting
+   */
+  @Override
+  public boolean put(final T e) throws InterruptedException {
+    Objects.requireNonNull(e);
+    final long w = weigher.applyAsLong(e);
+    int spins = SPINS_BEFORE_PARK;
+    while (true) {
+      if (closed) {
+        return false;
+      }
+      if (hasRoomFor(w)) {
+        publish(e, w);
+        return true;
+      }
+      if (spins-- > 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+
+      // Advertise that we are about to park, then check again so we cannot miss a wake-up from a
+      // consumer that freed a slot in between.
+      waitingProducer = Thread.currentThread();
+      if (!closed && !hasRoomFor(w)) {
+        LockSupport.park(this);
+      }
+      waitingProducer = null;
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  /**
+   * Retrieves and removes the head of the buffer without waiting.
+   *
+   * @return the head of the buffer, or null if the buffer is empty
+   */
+  public T poll() {
+    final long h = head.get();
+    if (h == tail.get()) {
+      return null;
+    }
+    return consume(h);
+  }
+
+  /**
+   * Retrieves and removes the head of the buffer, waiting up to the given time for an element to be
+   * available.
+   *
+   * @param timeout how long to wait before giving up
+   * @param unit unit of the timeout
+   * @return the head of the buffer, or null if the timeout elapsed or the buffer is done
+   * @throws InterruptedException if the consumer thread is interrupted while waiting
+   */
+  public T poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+    return awaitNotEmpty(unit.toNanos(timeout)) ? consume(head.get()) : null;
+  }
+
+  /**
+   * Moves up to maxElements available elements into the given collection without waiting.
+   *
+   * @param target collection to add the elements to
+   * @param maxElements maximum number of elements to move
+   * @return the number of elements moved
+   */
+  @Override
+  public int drainTo(final Collection<? super T> target, final int maxElements) {
+    final long h = head.get();
+    final int available = (int) Math.min(tail.get() - h, maxElements);
+    long drainedWeight = 0;
+    for (int i = 0; i < available; i++) {
+      final int index = (int) (h + i) & mask;
+      @SuppressWarnings("unchecked")
+      final T e = (T) buffer[index];
+      buffer[index] = null;
+      drainedWeight += weights[index];
+      target.add(e);
+    }
+    if (available > 0) {
+      head.set(h + available);
+      weight.addAndGet(-drainedWeight);
+      signalProducer();
+    }
+    return available;
+  }
+
+  /**
+   * Moves up to maxElements elements into the given collection, waiting up to the given time for at
+   * least one element to be available.
+   *
+   * @param target collection to add the elements to
+   * @param maxElements maximum number of elements to move
+   * @param timeout how long to wait for the first element
+   * @param unit unit of the timeout
+   * @return the number of elements moved, 0 if the timeout elapsed or the buffer is done
+   * @throws InterruptedException if the consumer thread is interrupted while waiting
+   */
+  @Override
+  public int drainTo(final Collection<? super T> target, final int maxElements, final long timeout, final TimeUnit unit)
+      throws InterruptedException {
+    return awaitNotEmpty(unit.toNanos(timeout)) ? drainTo(target, maxElements) : 0;
+  }
+
+  @Override
+  public int size() {
+    // Read head first: reading tail first could observe a head that moved past it in between.
+    final long h = head.get();
+    return (int) (tail.get() - h);
+  }
+
+  /**
+   * Returns the total weight of the elements currently in the buffer.
+   */
+  @Override
+  public long weight() {
+    return weight.get();
+  }
+
+  /**
+   * Returns true if the buffer is done. A buffer is done when closed and empty.
+   */
+  @Override
+  public boolean isDone() {
+    return closed && size() == 0;
+  }
+
+  /**
+   * Close the buffer. Waiting producers give up and waiting consumers return once the buffer is
+   * drained.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    LockSupport.unpark(waitingProducer);
+    LockSupport.unpark(waitingConsumer);
+  }
+
+  /**
+   * Returns true if the buffer is closed.
+   */
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  private boolean hasRoomFor(final long w) {
+    final long h = head.get();
+    final long count = tail.get() - h;
+    if (count >= maxSize) {
+      return false;
+    }
+    return maxWeight <= 0 || count == 0 || weight.get() + w <= maxWeight;
+  }
+
+  private void publish(final T e, final long w) {
+    final long t = tail.get();
+    final int index = (int) t & mask;
+    buffer[index] = e;
+    weights[index] = w;
+    weight.addAndGet(w);
+    tail.set(t + 1);
+    final Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  private T consume(final long h) {
+    final int index = (int) h & mask;
+    @SuppressWarnings("unchecked")
+    final T e = (T) buffer[index];
+    final long w = weights[index];
+    buffer[index] = null;
+    // The slot can be reused by the producer as soon as head moves, so read everything from it first.
+    head.set(h + 1);
+    weight.addAndGet(-w);
+    signalProducer();
+    return e;
+  }
+
+  private void signalProducer() {
+    final Thread producer = waitingProducer;
+    if (producer != null) {
+      LockSupport.unpark(producer);
+    }
+  }
+
+  /**
+   * Parks the consumer until an element is available, the buffer is closed or the timeout elapses.
+   *
+   * @return true if an element is available
+   */
+  private boolean awaitNotEmpty(final long timeoutNanos) throws InterruptedException {
+    final long deadline = System.nanoTime() + timeoutNanos;
+    int spins = SPINS_BEFORE_PARK;
+    while (head.get() == tail.get()) {
+      final long remaining = deadline - System.nanoTime();
+      if (closed || remaining <= 0) {
+        // An element may have been published right before closing.
+        return head.get() != tail.get();
+      }
+      if (spins-- > 0) {
+        Thread.onSpinWait();
+        continue;
+      }
+
+      // Same protocol as the producer: advertise first, then re-check before parking.
+      waitingConsumer = Thread.currentThread();
+      if (!closed && head.get() == tail.get()) {
+        LockSupport.parkNanos(this, remaining);
+      }
+      waitingConsumer = null;
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+    return true;
+  }
+
+}
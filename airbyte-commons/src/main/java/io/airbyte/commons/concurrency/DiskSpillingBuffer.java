@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.concurrency;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SpscBuffer} that spills to disk instead of blocking its producer when its in-memory
+ * buffer is full.
+ * <p>
+ * Once the memory buffer is full, elements are serialized to a spill file until the consumer has
+ * read all of them, then the producer goes back to the memory buffer. Elements are always removed in
+ * the order they were inserted. The producer only waits when the element does not fit in the bytes
+ * spilled and not read yet, elements larger than the disk budget are never spilled.
+ * <p>
+ * The spill file is used as a circular buffer of at most the disk budget: elements are written
+ * after the previous one and wrap around at the end of the file, over elements that were already
+ * read. The file never grows past the budget, it is deleted as soon as it is opened so that nothing
+ * is left on disk if the process dies, and its space is released when {@link #releaseSpillFile()}
+ * is called.
+ */
+public class DiskSpillingBuffer<T> implements SpscBuffer<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskSpillingBuffer.class);
+
+  // How long a blocked producer or consumer waits before checking the spilled elements again.
+  private static final long SPILL_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final BoundedSpscRingBuffer<T> memory;
+  private final Path directory;
+  private final long maxSpillBytes;
+  private final Function<T, byte[]> serializer;
+  private final Function<byte[], T> deserializer;
+
+  // Guards the spill file against being released while the producer spills.
+  private final Object spillFileLock = new Object();
+  // Opened by the producer on the first spill.
+  private volatile FileChannel spillFile;
+  // Guarded by spillFileLock, once released the spill file is never opened again.
+  private boolean released;
+  // Bytes spilled and not read yet.
+  private final AtomicLong pendingSpillBytes = new AtomicLong();
+  // Only written by the producer.
+  private final AtomicLong spilledCount = new AtomicLong();
+  // Only written by the consumer.
+  private final AtomicLong readCount = new AtomicLong();
+  private final LongAdder spilledBytes = new LongAdder();
+  private final LongAdder spillNanos = new LongAdder();
+
+  // Producer state, offsets are in bytes since the first spill and wrap around the file.
+  private boolean spilling;
+  private long writeOffset;
+
+  // Consumer state.
+  private long readOffset;
+  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+
+  /**
+   * Create a buffer that spills to the given directory.
+   *
+   * @param memory buffer holding the elements until it is full
+   * @param directory directory of the spill file
+   * @param maxSpillBytes maximum size of the spill file, 0 or less never spills
+   * @param serializer serializes an element, called by the producer
+   * @param deserializer deserializes an element, called by the consumer
+   */
+  public DiskSpillingBuffer(final BoundedSpscRingBuffer<T> memory,
+                            final Path directory,
+                            final long maxSpillBytes,
+                            final Function<T, byte[]> serializer,
+                            final Function<byte[], T> deserializer) {
+    this.memory = memory;
+    this.directory = directory;
+    this.maxSpillBytes = maxSpillBytes;
+    this.serializer = serializer;
+    this.deserializer = deserializer;
+  }
+
+  @Override
+  public boolean add(final T e) {
+    if (memory.isClosed()) {
+      return false;
+    }
+    if (spilling && !hasSpilledElements()) {
+      // The consumer read everything that was spilled, new elements can go to memory again.
+      spilling = false;
+    }
+    if (!spilling) {
+      if (memory.add(e)) {
+        return true;
+      }
+      if (maxSpillBytes <= 0) {
+        return false;
+      }
+    }
+    if (pendingSpillBytes.get() >= maxSpillBytes) {
+      return false;
+    }
+    final byte[] bytes = serializer.apply(e);
+    final long recordBytes = Integer.BYTES + (long) bytes.length;
+    if (pendingSpillBytes.get() + recordBytes > maxSpillBytes) {
+      // If nothing is spilled, the element is too large for the file and waits for the memory buffer.
+      spilling = hasSpilledElements();
+      return false;
+    }
+    spilling = true;
+    return spill(bytes);
+  }
+
+  @Override
+  public boolean put(final T e) throws InterruptedException {
+    while (!add(e)) {
+      if (memory.isClosed()) {
+        return false;
+      }
+      if (!spilling) {
+        return memory.put(e);
+      }
+      // Wait for the consumer to read some of the spilled elements.
+      LockSupport.parkNanos(this, SPILL_WAIT_NANOS);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int drainTo(final Collection<? super T> target, final int maxElements) {
+    // Elements in memory are older than the spilled ones: the producer only spills when the memory
+    // buffer is full and only goes back to it once the spilled elements are read.
+    int drained = memory.drainTo(target, maxElements);
+    while (drained < maxElements && hasSpilledElements()) {
+      target.add(readSpilled());
+      drained++;
+    }
+    return drained;
+  }
+
+  @Override
+  public int drainTo(final Collection<? super T> target, final int maxElements, final long timeout, final TimeUnit unit)
+      throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (true) {
+      final int drained = drainTo(target, maxElements);
+      if (drained > 0 || isDone()) {
+        return drained;
+      }
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return 0;
+      }
+      // If an element was spilled after the drain, the next drain reads it. Otherwise the producer
+      // inserts in memory until it is full, so waiting on memory cannot miss an element.
+      if (!hasSpilledElements()) {
+        final int drainedFromMemory = memory.drainTo(target, maxElements, remaining, TimeUnit.NANOSECONDS);
+        if (drainedFromMemory > 0) {
+          return drainedFromMemory;
+        }
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return memory.size() + (int) Math.min(Integer.MAX_VALUE, spilledCount.get() - readCount.get());
+  }
+
+  /**
+   * Returns the total weight of the elements in memory, spilled elements are not counted.
+   */
+  @Override
+  public long weight() {
+    return memory.weight();
+  }
+
+  /**
+   * Returns true once the buffer is closed and all its elements were removed, in memory or spilled.
+   */
+  @Override
+  public boolean isDone() {
+    return memory.isDone() && !hasSpilledElements();
+  }
+
+  @Override
+  public void close() {
+    memory.close();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return memory.isClosed();
+  }
+
+  /**
+   * Closes the buffer and releases the disk space of the spill file. The spilled elements that were
+   * not read are lost, this must only be called once the consumer stopped. A producer that is still
+   * running can no longer spill, its elements are rejected like by a closed buffer.
+   */
+  public void releaseSpillFile() {
+    memory.close();
+    synchronized (spillFileLock) {
+      released = true;
+      final FileChannel file = spillFile;
+      if (file != null) {
+        spillFile = null;
+        try {
+          file.close();
+        } catch (final IOException e) {
+          LOGGER.warn("Failed to close the spill file in {}", directory, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the total number of bytes spilled to disk.
+   */
+  public long getSpilledBytes() {
+    return spilledBytes.sum();
+  }
+
+  /**
+   * Returns the total time in nanoseconds the producer spent spilling elements to disk.
+   */
+  public long getSpillNanos() {
+    return spillNanos.sum();
+  }
+
+  /**
+   * Returns the number of bytes spilled to disk and not read yet.
+   */
+  public long getPendingSpillBytes() {
+    return pendingSpillBytes.get();
+  }
+
+  private boolean hasSpilledElements() {
+    return spilledCount.get() != readCount.get();
+  }
+
+  private boolean spill(final byte[] bytes) {
+    // Only contended when the spill file is released, the producer is the only one spilling.
+    synchronized (spillFileLock) {
+      if (released) {
+        return false;
+      }
+      final long start = System.nanoTime();
+      try {
+        if (spillFile == null) {
+          spillFile = openSpillFile();
+        }
+        final ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes).flip();
+        final int recordBytes = record.remaining();
+        writeFully(record, writeOffset);
+        writeOffset += recordBytes;
+        spilledBytes.add(recordBytes);
+        pendingSpillBytes.addAndGet(recordBytes);
+        // Publishes the element to the consumer.
+        spilledCount.incrementAndGet();
+        return true;
+      } catch (final IOException e) {
+        throw new UncheckedIOException("Failed to spill to " + directory, e);
+      } finally {
+        spillNanos.add(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private T readSpilled() {
+    try {
+      lengthBuffer.clear();
+      readFully(lengthBuffer, readOffset);
+      final int length = lengthBuffer.flip().getInt();
+      final byte[] bytes = new byte[length];
+      readFully(ByteBuffer.wrap(bytes), readOffset + Integer.BYTES);
+      readOffset += Integer.BYTES + length;
+      // Frees the space of the element for the producer.
+      pendingSpillBytes.addAndGet(-(Integer.BYTES + length));
+      readCount.incrementAndGet();
+      return deserializer.apply(bytes);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to read the spill file in " + directory, e);
+    }
+  }
+
+  private void writeFully(final ByteBuffer src, final long offset) throws IOException {
+    final int end = src.limit();
+    long position = offset % maxSpillBytes;
+    while (src.position() < end) {
+      // Stop at the end of the file, the rest is written at its start.
+      src.limit((int) Math.min(end, src.position() + maxSpillBytes - position));
+      while (src.hasRemaining()) {
+        position += spillFile.write(src, position);
+      }
+      src.limit(end);
+      position %= maxSpillBytes;
+    }
+  }
+
+  private void readFully(final ByteBuffer dst, final long offset) throws IOException {
+    final int end = dst.limit();
+    long position = offset % maxSpillBytes;
+    while (dst.position() < end) {
+      dst.limit((int) Math.min(end, dst.position() + maxSpillBytes - position));
+      while (dst.hasRemaining()) {
+        final int read = spillFile.read(dst, position);
+        if (read < 0) {
+          throw new EOFException("Unexpected end of the spill file at " + position);
+        }
+        position += read;
+      }
+      dst.limit(end);
+      position %= maxSpillBytes;
+    }
+  }
+
+  private FileChannel openSpillFile() throws IOException {
+    final Path file = Files.createTempFile(directory, "buffer-", ".spill");
+    try {
+      // The channel stays usable once the file is deleted, its space is released when it is closed.
+      return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.concurrency;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded single-producer/single-consumer buffer that can be closed, see
+ * {@link BoundedSpscRingBuffer}.
+ * <p>
+ * Exactly one thread may insert and exactly one thread may remove elements. {@link #close()},
+ * {@link #size()}, {@link #weight()}, {@link #isClosed()} and {@link #isDone()} are safe to call from
+ * any thread.
+ */
+public interface SpscBuffer<T> {
+
+  /**
+   * Inserts the element if there is room for it without waiting.
+   *
+   * @param e the element to add
+   * @return true if the element was added, false if the buffer is full or closed
+   */
+  boolean add(T e);
+
+  /**
+   * Inserts the element, waiting for room if the buffer is full.
+   *
+   * @param e the element to add
+   * @return true if the element was added, false if the buffer was closed before it could be
+   * @throws InterruptedException if the producer thread is interrupted while waiting
+   */
+  boolean put(T e) throws InterruptedException;
+
+  /**
+   * Moves up to maxElements available elements into the given collection without waiting.
+   *
+   * @param target collection to add the elements to
+   * @param maxElements maximum number of elements to move
+   * @return the number of elements moved
+   */
+  int drainTo(Collection<? super T> target, int maxElements);
+
+  /**
+   * Moves up to maxElements elements into the given collection, waiting up to the given time for at
+   * least one element to be available.
+   *
+   * @param target collection to add the elements to
+   * @param maxElements maximum number of elements to move
+   * @param timeout how long to wait for the first element
+   * @param unit unit of the timeout
+   * @return the number of elements moved, 0 if the timeout elapsed or the buffer is done
+   * @throws InterruptedException if the consumer thread is interrupted while waiting
+   */
+  int drainTo(Collection<? super T> target, int maxElements, long timeout, TimeUnit unit) throws InterruptedException;
+
+  /**
+   * Returns the number of elements in the buffer.
+   */
+  int size();
+
+  /**
+   * Returns the total weight of the elements held in memory by the buffer.
+   */
+  long weight();
+
+  /**
+   * Returns true if the buffer is done. A buffer is done when closed and empty.
+   */
+  boolean isDone();
+
+  /**
+   * Close the buffer. Waiting producers give up and waiting consumers return once the buffer is
+   * drained.
+   */
+  void close();
+
+  /**
+   * Returns true if the buffer is closed.
+   */
+  boolean isClosed();
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits an {@link InputStream} into lines without decoding them.
+ * <p>
+ * {@link java.io.BufferedReader#readLine()} decodes every line into a String, which is wasteful
+ * when the line is going to be parsed as UTF-8 JSON anyway. This reader exposes each line as a slice
+ * of an internal byte buffer instead. The slice is only valid until the next call to
+ * {@link #readLine()}.
+ * <p>
+ * Lines are terminated by '\n' or "\r\n". The last line does not need a terminator. This class is
+ * not thread-safe.
+ */
+public class ByteLineReader {
+
+  /**
+   * Maps a line, given as a slice of a byte array, to a value.
+   *
+   * @param <R> type of the value
+   */
+  @FunctionalInterface
+  public interface LineMapper<R> {
+
+    R map(byte[] buffer, int offset, int length);
+
+  }
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  // If a very long line forced the buffer to grow past this size, shrink it back once it is not
+  // needed anymore.
+  private static final int MAX_RETAINED_BUFFER_SIZE = 8 * 1024 * 1024;
+
+  private final InputStream inputStream;
+  private final int initialBufferSize;
+  private byte[] buffer;
+  // Unconsumed data is buffer[start, end).
+  private int start;
+  private int end;
+  // Position up to which the unconsumed data is known not to contain a line terminator.
+  private int scanned;
+  private boolean eof;
+
+  private int lineOffset;
+  private int lineLength;
+
+  public ByteLineReader(final InputStream inputStream) {
+    this(inputStream, DEFAULT_BUFFER_SIZE);
+  }
+
+  public ByteLineReader(final InputStream inputStream, final int initialBufferSize) {
+    this.inputStream = inputStream;
+    this.initialBufferSize = initialBufferSize;
+    this.buffer = new byte[initialBufferSize];
+  }
+
+  /**
+   * Advance to the next line.
+   *
+   * @return true if a line was read, false if the end of the stream was reached
+   * @throws IOException if reading from the underlying stream fails
+   */
+  public boolean readLine() throws IOException {
+    while (true) {
+      for (int i = scanned; i < end; i++) {
+        if (buffer[i] == '\n') {
+          setLine(start, i - start);
+          start = i + 1;
+          scanned = start;
+          return true;
+        }
+      }
+      scanned = end;
+
+      if (eof) {
+        if (start < end) {
+          setLine(start, end - start);
+          start = end;
+          return true;
+        }
+        return false;
+      }
+      fill();
+    }
+  }
+
+  /**
+   * Whether {@link #readLine()} can return without blocking, i.e. a complete line is buffered, the
+   * underlying stream has data available or its end was reached.
+   *
+   * @return true if the next call to {@link #readLine()} will not block on an empty stream
+   * @throws IOException if checking the underlying stream fails
+   */
+  public boolean ready() throws IOException {
+    for (int i = scanned; i < end; i++) {
+      if (buffer[i] == '\n') {
+        return true;
+      }
+    }
+    scanned = end;
+    return eof || inputStream.available() > 0;
+  }
+
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  public int lineOffset() {
+    return lineOffset;
+  }
+
+  public int lineLength() {
+    return lineLength;
+  }
+
+  /**
+   * Returns the current line decoded as UTF-8. Only use this when a String is really needed.
+   */
+  public String lineAsString() {
+    return new String(buffer, lineOffset, lineLength, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Lazily map every line of the input stream. As with {@link java.io.BufferedReader#lines()}, an
+   * IOException is rethrown as an {@link UncheckedIOException} and the input stream is not closed
+   * when the stream is.
+   *
+   * @param mapper function applied to each line, it must not retain the buffer
+   * @param <R> type of the mapped values
+   * @return a stream of the mapped lines
+   */
+  public <R> Stream<R> lines(final LineMapper<R> mapper) {
+    final Spliterator<R> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+      @Override
+      public boolean tryAdvance(final Consumer<? super R> action) {
+        try {
+          if (!readLine()) {
+            return false;
+          }
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        action.accept(mapper.map(buffer, lineOffset, lineLength));
+        return true;
+      }
+
+    };
+    return StreamSupport.stream(spliterator, false);
+  }
+
+  /**
+   * Lazily map the lines of the input stream in batches. A batch waits for its first line, then only
+   * takes the lines that can be read without blocking, see {@link #ready()}, so that lines are not
+   * held back while the input stream is quiet. Exceptions are handled like in {@link #lines}.
+   *
+   * @param mapper function applied to each line, it must not retain the buffer
+   * @param maxLines maximum number of lines in a batch
+   * @param <R> type of the mapped values
+   * @return a stream of batches of mapped lines, none of them empty
+   */
+  public <R> Stream<List<R>> batches(final LineMapper<R> mapper, final int maxLines) {
+    final Spliterator<List<R>> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+      @Override
+      public boolean tryAdvance(final Consumer<? super List<R>> action) {
+        final List<R> batch = new ArrayList<>();
+        try {
+          do {
+            if (!readLine()) {
+              break;
+            }
+            batch.add(mapper.map(buffer, lineOffset, lineLength));
+          } while (batch.size() < maxLines && ready());
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        if (batch.isEmpty()) {
+          return false;
+        }
+        action.accept(batch);
+        return true;
+      }
+
+    };
+    return StreamSupport.stream(spliterator, false);
+  }
+
+  private void setLine(final int offset, final int length) {
+    lineOffset = offset;
+    lineLength = length > 0 && buffer[offset + length - 1] == '\r' ? length - 1 : length;
+  }
+
+  private void fill() throws IOException {
+    final int remaining = end - start;
+    if (start > 0) {
+      // Move the partial line to the front of the buffer. The previous line is consumed at this point.
+      if (buffer.length > MAX_RETAINED_BUFFER_SIZE && remaining < initialBufferSize) {
+        final byte[] smaller = new byte[initialBufferSize];
+        System.arraycopy(buffer, start, smaller, 0, remaining);
+        buffer = smaller;
+      } else {
+        System.arraycopy(buffer, start, buffer, 0, remaining);
+      }
+      scanned -= start;
+      start = 0;
+      end = remaining;
+    }
+    if (end == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    final int read = inputStream.read(buffer, end, buffer.length - end);
+    if (read < 0) {
+      eof = true;
+    } else {
+      end += read;
+    }
+  }
+
+}
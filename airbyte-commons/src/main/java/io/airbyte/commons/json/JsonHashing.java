@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.hash.Hasher;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Hash JSON by walking its tree instead of serializing it.
+ * <p>
+ * The hash covers the structure, the field names in order and the values. Integral numbers are
+ * hashed by value whatever their node type, e.g. an int and a long node with the same value get the
+ * same hash. Other numbers are not: a double and a {@link BigDecimal} node get different hashes even
+ * when they serialize to the same JSON, so documents should be compared after being read the same
+ * way. Each value is tagged with its type and each container with its size, so that different
+ * documents do not feed the same sequence to the hasher.
+ */
+public final class JsonHashing {
+
+  private static final byte NULL_TAG = 0;
+  private static final byte BOOLEAN_TAG = 1;
+  private static final byte INTEGER_TAG = 2;
+  private static final byte BIG_INTEGER_TAG = 3;
+  private static final byte FLOAT_TAG = 4;
+  private static final byte DECIMAL_TAG = 5;
+  private static final byte STRING_TAG = 6;
+  private static final byte BINARY_TAG = 7;
+  private static final byte ARRAY_TAG = 8;
+  private static final byte OBJECT_TAG = 9;
+  private static final byte OTHER_TAG = 10;
+
+  private JsonHashing() {}
+
+  /**
+   * Feed a JSON node to a hasher.
+   *
+   * @param hasher hasher to update
+   * @param node node to hash, null is hashed like a JSON null
+   * @return the given hasher
+   */
+  public static Hasher putJson(final Hasher hasher, final JsonNode node) {
+    if (node == null || node.isNull() || node.isMissingNode()) {
+      return hasher.putByte(NULL_TAG);
+    }
+    if (RawJson.isRaw(node)) {
+      return putJson(hasher, RawJson.materialize(node));
+    }
+
+    switch (node.getNodeType()) {
+      case BOOLEAN -> hasher.putByte(BOOLEAN_TAG).putBoolean(node.booleanValue());
+      case NUMBER -> putNumber(hasher, node);
+      case STRING -> putString(hasher.putByte(STRING_TAG), node.textValue());
+      case BINARY -> {
+        try {
+          final byte[] bytes = node.binaryValue();
+          hasher.putByte(BINARY_TAG).putInt(bytes.length).putBytes(bytes);
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      case ARRAY -> {
+        hasher.putByte(ARRAY_TAG).putInt(node.size());
+        for (final JsonNode element : node) {
+          putJson(hasher, element);
+        }
+      }
+      case OBJECT -> {
+        hasher.putByte(OBJECT_TAG).putInt(node.size());
+        final Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+          final Entry<String, JsonNode> field = fields.next();
+          putString(hasher, field.getKey());
+          putJson(hasher, field.getValue());
+        }
+      }
+      default -> putString(hasher.putByte(OTHER_TAG), node.toString());
+    }
+    return hasher;
+  }
+
+  /**
+   * Feed a string to a hasher, prefixed with its length.
+   *
+   * @param hasher hasher to update
+   * @param value string to hash, can be null
+   * @return the given hasher
+   */
+  public static Hasher putString(final Hasher hasher, final String value) {
+    if (value == null) {
+      return hasher.putInt(-1);
+    }
+    return hasher.putInt(value.length()).putUnencodedChars(value);
+  }
+
+  private static void putNumber(final Hasher hasher, final JsonNode node) {
+    if (node.isIntegralNumber()) {
+      if (node.canConvertToLong()) {
+        hasher.putByte(INTEGER_TAG).putLong(node.longValue());
+      } else {
+        final byte[] bytes = node.bigIntegerValue().toByteArray();
+        hasher.putByte(BIG_INTEGER_TAG).putInt(bytes.length).putBytes(bytes);
+      }
+    } else if (node.isBigDecimal()) {
+      final BigDecimal decimal = node.decimalValue();
+      final byte[] unscaled = decimal.unscaledValue().toByteArray();
+      hasher.putByte(DECIMAL_TAG).putInt(decimal.scale()).putInt(unscaled.length).putBytes(unscaled);
+    } else {
+      hasher.putByte(FLOAT_TAG).putDouble(node.doubleValue());
+    }
+  }
+
+}
@@ -7,6 +7,8 @@ package io.airbyte.commons.json;
 import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.toMap;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
@@ -14,6 +16,7 @@ import com.fasterxml.jackson.core.util.Separators;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Charsets;
@@ -21,6 +24,7 @@ import com.google.common.base.Preconditions;
 import io.airbyte.commons.jackson.MoreMappers;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +49,8 @@ public class Jsons {
   // Object Mapper is thread-safe
   private static final ObjectMapper OBJECT_MAPPER = MoreMappers.initMapper();
   private static final ObjectWriter OBJECT_WRITER = OBJECT_MAPPER.writer(new JsonPrettyPrinter());
+  // Leaves flushing to the owner of the generator.
+  private static final ObjectWriter STREAMING_WRITER = OBJECT_MAPPER.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
   /**
    * Serialize an object to a JSON string.
@@ -61,6 +67,33 @@ public class Jsons {
     }
   }
 
+  /**
+   * Create a generator that writes UTF-8 JSON to a stream. Consecutive root values are not separated,
+   * the caller is expected to delimit them. Closing the generator closes the stream.
+   *
+   * @param outputStream stream to write to
+   * @return generator, it buffers its output until it is flushed
+   * @throws IOException if the generator cannot be created
+   */
+  public static JsonGenerator createGenerator(final OutputStream outputStream) throws IOException {
+    final JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+    generator.setRootValueSeparator(null);
+    return generator;
+  }
+
+  /**
+   * Serialize an object straight to a generator, producing the same JSON as
+   * {@link #serialize(Object)} without building a String. The generator is not flushed.
+   *
+   * @param generator generator to write to
+   * @param object to serialize
+   * @param <T> type of object
+   * @throws IOException if writing to the generator fails
+   */
+  public static <T> void serialize(final JsonGenerator generator, final T object) throws IOException {
+    STREAMING_WRITER.writeValue(generator, object);
+  }
+
   /**
    * Deserialize a JSON string to an object with a type.
    *
@@ -170,6 +203,27 @@ public class Jsons {
     }
   }
 
+  /**
+   * Deserialize a slice of a UTF-8 encoded byte array to a JSON object. If not possible, return empty
+   * optional. Invalid UTF-8 sequences are replaced by U+FFFD, like when reading the bytes as a
+   * string.
+   *
+   * @param bytes buffer containing the JSON
+   * @param offset start of the JSON in the buffer
+   * @param length length of the JSON in bytes
+   * @param klass to deserialize to.
+   * @param <T> type of input object.
+   * @return optional as type T.
+   */
+  public static <T> Optional<T> tryDeserialize(final byte[] bytes, final int offset, final int length, final Class<T> klass) {
+    try {
+      return Optional.of(OBJECT_MAPPER.readValue(bytes, offset, length, klass));
+    } catch (final Throwable e) {
+      // The byte parser rejects invalid UTF-8, decoding the bytes to a string replaces it instead.
+      return tryDeserialize(new String(bytes, offset, length, Charsets.UTF_8), klass);
+    }
+  }
+
   /**
    * Convert an object to {@link JsonNode}.
    *
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.airbyte.commons.jackson.MoreMappers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSON kept as its original UTF-8 bytes instead of being parsed into a tree.
+ * <p>
+ * A raw value is exposed as a {@link JsonNode} so that it can be stored in the existing models
+ * (e.g. the data of a record). Serializing it with Jackson writes the bytes verbatim. Code that
+ * needs to inspect the content must go through {@link #materialize(JsonNode)}, every other method of
+ * {@link JsonNode} behaves as for an opaque POJO.
+ */
+public final class RawJson {
+
+  // Object Mapper is thread-safe
+  private static final ObjectMapper OBJECT_MAPPER = MoreMappers.initMapper();
+
+  private RawJson() {}
+
+  /**
+   * Wrap a JSON document without parsing it. The bytes are not validated and must not be modified
+   * afterward.
+   *
+   * @param json UTF-8 encoded JSON
+   * @return a node that serializes to the given bytes
+   */
+  public static JsonNode of(final byte[] json) {
+    return new POJONode(new RawValue(new RawJsonString(json)));
+  }
+
+  /**
+   * Whether the node was created by {@link #of(byte[])}.
+   */
+  public static boolean isRaw(final JsonNode node) {
+    return node instanceof POJONode pojoNode
+        && pojoNode.getPojo() instanceof RawValue rawValue
+        && rawValue.rawValue() instanceof RawJsonString;
+  }
+
+  /**
+   * Size in bytes of a raw node.
+   *
+   * @param node a raw node
+   * @return size of the JSON in bytes
+   */
+  public static int byteSize(final JsonNode node) {
+    return rawString(node).bytes.length;
+  }
+
+  /**
+   * Parse a raw node into a regular tree. Other nodes are returned as is.
+   *
+   * @param node node to materialize
+   * @return a node that can be inspected
+   */
+  public static JsonNode materialize(final JsonNode node) {
+    if (!isRaw(node)) {
+      return node;
+    }
+    try {
+      return OBJECT_MAPPER.readTree(rawString(node).bytes);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * List the top-level field names of a node. Raw nodes are only tokenized, which is much cheaper
+   * than materializing them.
+   *
+   * @param node node to inspect
+   * @return top-level field names, empty if the node is not an object
+   */
+  public static List<String> fieldNames(final JsonNode node) {
+    final List<String> fieldNames = new ArrayList<>();
+    if (!isRaw(node)) {
+      node.fieldNames().forEachRemaining(fieldNames::add);
+      return fieldNames;
+    }
+
+    try (final JsonParser parser = OBJECT_MAPPER.getFactory().createParser(rawString(node).bytes)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return fieldNames;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        fieldNames.add(parser.getCurrentName());
+        parser.nextToken();
+        parser.skipChildren();
+      }
+      return fieldNames;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static RawJsonString rawString(final JsonNode node) {
+    if (!isRaw(node)) {
+      throw new IllegalArgumentException("Not a raw JSON node: " + node.getNodeType());
+    }
+    return (RawJsonString) ((RawValue) ((POJONode) node).getPojo()).rawValue();
+  }
+
+  /**
+   * Jackson writes a {@link SerializableString} given to {@link RawValue} with
+   * {@link com.fasterxml.jackson.core.JsonGenerator#writeRaw(SerializableString)}. The byte based
+   * generators copy the unquoted UTF-8 representation directly, the char based ones fall back to
+   * {@link #getValue()}.
+   */
+  private static final class RawJsonString implements SerializableString {
+
+    private final byte[] bytes;
+
+    private RawJsonString(final byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public String getValue() {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int charLength() {
+      return getValue().length();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+      return bytes;
+    }
+
+    @Override
+    public int appendUnquotedUTF8(final byte[] buffer, final int offset) {
+      if (offset + bytes.length > buffer.length) {
+        return -1;
+      }
+      System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+      return bytes.length;
+    }
+
+    @Override
+    public int appendUnquoted(final char[] buffer, final int offset) {
+      return -1;
+    }
+
+    @Override
+    public int writeUnquotedUTF8(final OutputStream out) throws IOException {
+      out.write(bytes);
+      return bytes.length;
+    }
+
+    @Override
+    public int putUnquotedUTF8(final ByteBuffer buffer) {
+      if (bytes.length > buffer.remaining()) {
+        return -1;
+      }
+      buffer.put(bytes);
+      return bytes.length;
+    }
+
+    // A raw value is never written as a JSON string, the quoted variants are only here to honor the
+    // interface.
+
+    @Override
+    public char[] asQuotedChars() {
+      return quoted().asQuotedChars();
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+      return quoted().asQuotedUTF8();
+    }
+
+    @Override
+    public int appendQuotedUTF8(final byte[] buffer, final int offset) {
+      return quoted().appendQuotedUTF8(buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(final char[] buffer, final int offset) {
+      return quoted().appendQuoted(buffer, offset);
+    }
+
+    @Override
+    public int writeQuotedUTF8(final OutputStream out) throws IOException {
+      return quoted().writeQuotedUTF8(out);
+    }
+
+    @Override
+    public int putQuotedUTF8(final ByteBuffer buffer) throws IOException {
+      return quoted().putQuotedUTF8(buffer);
+    }
+
+    private SerializedString quoted() {
+      return new SerializedString(getValue());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof RawJsonString other && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+      return getValue();
+    }
+
+  }
+
+}
@@ -4,6 +4,7 @@
 
 package io.airbyte.commons.timer;
 
+import io.airbyte.commons.util.LogLinearHistogram;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -22,6 +23,9 @@ import java.util.concurrent.atomic.AtomicLong;
  * }
  * System.out.println(sw); // print the summary
  * </pre>
+ * <p>
+ * The duration of every execution can also be recorded in a histogram, to look at its distribution
+ * rather than its average.
  */
 public class Stopwatch {
 
@@ -40,6 +44,20 @@ public class Stopwatch {
 
   private final AtomicLong elapsedTimeInNanos = new AtomicLong();
   private final AtomicLong executionCount = new AtomicLong();
+  private final LogLinearHistogram histogram;
+
+  public Stopwatch() {
+    this(null);
+  }
+
+  /**
+   * Create a stopwatch that also records the duration of each execution in nanoseconds.
+   *
+   * @param histogram histogram to record durations in, can be null
+   */
+  public Stopwatch(final LogLinearHistogram histogram) {
+    this.histogram = histogram;
+  }
 
   /**
    * Start a timer instance.
@@ -76,6 +94,9 @@ public class Stopwatch {
     final long delta = currentTime() - t.startTime;
     executionCount.incrementAndGet();
     elapsedTimeInNanos.addAndGet(delta);
+    if (histogram != null) {
+      histogram.record(delta);
+    }
   }
 
 }
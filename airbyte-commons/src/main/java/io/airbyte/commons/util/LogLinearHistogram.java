@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative {@code long} values, e.g. latencies in nanoseconds or queue depths.
+ * <p>
+ * Like an HDR histogram, values are counted in buckets whose width grows with the magnitude of the
+ * values: each power of two is split into 8 linear buckets, so percentiles are
+ * accurate to within 12.5% over the whole {@code long} range with a fixed footprint of about 4 KiB.
+ * Recording is lock-free and can be done from several threads while another one takes snapshots.
+ */
+public class LogLinearHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Values below SUB_BUCKETS have a bucket each, then every power of two up to 2^62 has SUB_BUCKETS.
+  private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a value, negative values are recorded as 0.
+   */
+  public void record(final long value) {
+    final long v = Math.max(value, 0);
+    // The max is updated first so that a snapshot that counts a value also sees it in the max.
+    if (v > max.get()) {
+      max.accumulateAndGet(v, Math::max);
+    }
+    counts.incrementAndGet(bucketIndex(v));
+  }
+
+  /**
+   * Copy the current counts of the histogram.
+   */
+  public Snapshot snapshot() {
+    final long[] snapshotCounts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshotCounts[i] = counts.get(i);
+    }
+    return new Snapshot(snapshotCounts, max.get());
+  }
+
+  static int bucketIndex(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Highest value counted in the given bucket.
+   */
+  static long bucketUpperBound(final int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKETS - 1;
+    final long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+
+  /**
+   * Counts of a histogram at some point in time.
+   */
+  public static final class Snapshot {
+
+    private final long[] counts;
+    private final long max;
+    private final long count;
+
+    private Snapshot(final long[] counts, final long max) {
+      this.counts = counts;
+      long total = 0;
+      for (final long c : counts) {
+        total += c;
+      }
+      this.count = total;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Highest value recorded. Between two snapshots, it is the upper bound of the highest bucket.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Value below which the given percentage of the values fall, rounded up to the upper bound of
+     * its bucket.
+     *
+     * @param percentile between 0 and 100
+     * @return the value at the given percentile, 0 if the histogram is empty
+     */
+    public long getValueAtPercentile(final double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(bucketUpperBound(i), max);
+        }
+      }
+      return max;
+    }
+
+    /**
+     * Values recorded between an earlier snapshot of the same histogram and this one.
+     */
+    public Snapshot since(final Snapshot earlier) {
+      final long[] delta = new long[counts.length];
+      for (int i = 0; i < counts.length; i++) {
+        delta[i] = counts[i] - earlier.counts[i];
+      }
+      return new Snapshot(delta, Math.min(highestBucketUpperBound(delta), max));
+    }
+
+    /**
+     * Count, common percentiles and max of the values, meant to be serialized.
+     */
+    public Map<String, Long> toSummary() {
+      final Map<String, Long> summary = new LinkedHashMap<>();
+      summary.put("count", count);
+      summary.put("p50", getValueAtPercentile(50));
+      summary.put("p90", getValueAtPercentile(90));
+      summary.put("p99", getValueAtPercentile(99));
+      summary.put("p999", getValueAtPercentile(99.9));
+      summary.put("max", max);
+      return summary;
+    }
+
+    private static long highestBucketUpperBound(final long[] counts) {
+      for (int i = counts.length - 1; i >= 0; i--) {
+        if (counts[i] > 0) {
+          return bucketUpperBound(i);
+        }
+      }
+      return 0;
+    }
+
+  }
+
+}
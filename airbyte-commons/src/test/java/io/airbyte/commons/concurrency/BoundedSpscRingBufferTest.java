@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BoundedSpscRingBufferTest {
+
+  private static final int defaultMaxSize = 3;
+
+  private record Record(int value) {}
+
+  private final Record record1 = new Record(1);
+  private final Record record2 = new Record(2);
+  private final Record record3 = new Record(3);
+
+  @Test
+  void testBasicAddPollBehavior() {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize);
+
+    final List<Record> records = List.of(
+        new Record(1),
+        new Record(2),
+        new Record(3),
+        new Record(4));
+
+    final List<Boolean> insertionResults = records.stream().map(buffer::add).toList();
+
+    // The last item is false because defaultMax size is 3 so the last insert should fail
+    assertEquals(List.of(true, true, true, false), insertionResults);
+
+    buffer.close();
+
+    final List<Record> readRecords = new ArrayList<>();
+    while (!buffer.isDone()) {
+      readRecords.add(buffer.poll());
+    }
+    assertEquals(records.subList(0, 3), readRecords);
+  }
+
+  @Test
+  void testSizeIsTrackedAcrossWrapAround() {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(2);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(0, buffer.size());
+      assertTrue(buffer.add(record1));
+      assertTrue(buffer.add(record2));
+      assertEquals(2, buffer.size());
+      assertFalse(buffer.add(record3));
+
+      assertEquals(record1, buffer.poll());
+      assertEquals(1, buffer.size());
+      assertEquals(record2, buffer.poll());
+    }
+
+    assertNull(buffer.poll());
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  void testDrainTo() {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize);
+    buffer.add(record1);
+    buffer.add(record2);
+    buffer.add(record3);
+
+    final List<Record> batch = new ArrayList<>();
+    assertEquals(2, buffer.drainTo(batch, 2));
+    assertEquals(List.of(record1, record2), batch);
+    assertEquals(1, buffer.size());
+
+    batch.clear();
+    assertEquals(1, buffer.drainTo(batch, 10));
+    assertEquals(List.of(record3), batch);
+    assertEquals(0, buffer.drainTo(batch, 10));
+  }
+
+  @Test
+  void testBufferIsBoundedByWeight() {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize, 5, Record::value);
+
+    assertTrue(buffer.add(record2));
+    assertTrue(buffer.add(record3));
+    assertEquals(5, buffer.weight());
+    // There is room for one more element, but not for its weight
+    assertFalse(buffer.add(record1));
+
+    assertEquals(record2, buffer.poll());
+    assertEquals(3, buffer.weight());
+    assertTrue(buffer.add(record1));
+    assertEquals(4, buffer.weight());
+
+    buffer.drainTo(new ArrayList<>(), 10);
+    assertEquals(0, buffer.weight());
+  }
+
+  @Test
+  void testElementHeavierThanTheLimitIsAcceptedWhenEmpty() {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize, 2, Record::value);
+
+    assertTrue(buffer.add(record3));
+    assertFalse(buffer.add(record1));
+    assertEquals(record3, buffer.poll());
+    assertTrue(buffer.add(record1));
+  }
+
+  @Test
+  void testAddToClosedBufferFails() throws InterruptedException {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize);
+
+    assertTrue(buffer.add(record1));
+    buffer.close();
+    assertFalse(buffer.add(record2));
+    assertFalse(buffer.put(record2));
+    assertEquals(1, buffer.size());
+    assertFalse(buffer.isDone());
+    assertEquals(record1, buffer.poll());
+    assertTrue(buffer.isDone());
+  }
+
+  @Test
+  void testAddingNullFails() {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize);
+    assertThrows(NullPointerException.class, () -> buffer.add(null));
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  void testTimedPollReturnsNullWhenEmpty() throws InterruptedException {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(defaultMaxSize);
+    assertNull(buffer.poll(10, TimeUnit.MILLISECONDS));
+    assertEquals(0, buffer.drainTo(new ArrayList<>(), 10, 10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void testCloseWakesUpBlockedProducer() throws Exception {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(1);
+    buffer.add(record1);
+
+    final CompletableFuture<Boolean> blockedPut = CompletableFuture.supplyAsync(() -> {
+      try {
+        return buffer.put(record2);
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    buffer.close();
+
+    assertFalse(blockedPut.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testCloseWakesUpBlockedConsumer() throws Exception {
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(1);
+
+    final CompletableFuture<Record> blockedPoll = CompletableFuture.supplyAsync(() -> {
+      try {
+        return buffer.poll(1, TimeUnit.HOURS);
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    buffer.close();
+
+    assertNull(blockedPoll.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testProducerConsumerHandoffPreservesOrder() throws Exception {
+    final int count = 100_000;
+    final BoundedSpscRingBuffer<Record> buffer = new BoundedSpscRingBuffer<>(7);
+
+    final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+      try {
+        for (int i = 0; i < count; i++) {
+          buffer.put(new Record(i));
+        }
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        buffer.close();
+      }
+    });
+
+    final List<Record> received = new ArrayList<>();
+    final List<Record> batch = new ArrayList<>();
+    while (!buffer.isDone()) {
+      buffer.drainTo(batch, 5, 1, TimeUnit.SECONDS);
+      received.addAll(batch);
+      batch.clear();
+    }
+    producer.get(10, TimeUnit.SECONDS);
+
+    assertEquals(count, received.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, received.get(i).value());
+    }
+  }
+
+}
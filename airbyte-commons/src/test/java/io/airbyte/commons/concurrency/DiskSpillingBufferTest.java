@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskSpillingBufferTest {
+
+  @TempDir
+  private Path spillDirectory;
+
+  @Test
+  void testSpillsWhenMemoryIsFull() throws IOException {
+    final DiskSpillingBuffer<String> buffer = newBuffer(4, 1024 * 1024);
+    final List<String> elements = IntStream.range(0, 100).mapToObj(i -> "element " + i).toList();
+
+    elements.forEach(e -> assertTrue(buffer.add(e)));
+
+    assertEquals(100, buffer.size());
+    assertTrue(buffer.getSpilledBytes() > 0);
+    assertEquals(buffer.getSpilledBytes(), buffer.getPendingSpillBytes());
+    // The spill file is deleted once opened.
+    try (final Stream<Path> files = Files.list(spillDirectory)) {
+      assertEquals(0, files.count());
+    }
+
+    final List<String> drained = new ArrayList<>();
+    while (buffer.drainTo(drained, 7) > 0) {
+      // drain everything
+    }
+    assertEquals(elements, drained);
+    assertEquals(0, buffer.size());
+    assertEquals(0, buffer.getPendingSpillBytes());
+  }
+
+  @Test
+  void testGoesBackToMemoryOnceTheSpilledElementsAreRead() {
+    final DiskSpillingBuffer<String> buffer = newBuffer(2, 1024);
+    assertTrue(buffer.add("1"));
+    assertTrue(buffer.add("2"));
+    assertTrue(buffer.add("3"));
+    final long spilledBytes = buffer.getSpilledBytes();
+
+    final List<String> drained = new ArrayList<>();
+    assertEquals(1, buffer.drainTo(drained, 1));
+    // Still spilling, the next element must come after the spilled one.
+    assertTrue(buffer.add("4"));
+    assertEquals(3, buffer.drainTo(drained, 10));
+
+    assertTrue(buffer.add("5"));
+    assertEquals(List.of("1", "2", "3", "4"), drained);
+    assertEquals(spilledBytes * 2, buffer.getSpilledBytes());
+    assertEquals(1, buffer.weight());
+  }
+
+  @Test
+  void testAddFailsWhenTheDiskBudgetIsReached() {
+    // Each spilled element takes 4 bytes for its length and 6 for its content.
+    final DiskSpillingBuffer<String> buffer = newBuffer(2, 20);
+    assertTrue(buffer.add("000001"));
+    assertTrue(buffer.add("000002"));
+    assertTrue(buffer.add("000003"));
+    assertTrue(buffer.add("000004"));
+    assertFalse(buffer.add("000005"));
+
+    final List<String> drained = new ArrayList<>();
+    assertEquals(3, buffer.drainTo(drained, 3));
+    assertTrue(buffer.add("000005"));
+  }
+
+  @Test
+  void testSpillFileWrapsAroundWithinTheBudget() {
+    // 25 bytes do not hold a whole number of 10 bytes elements, so elements are split at the end of
+    // the file.
+    final DiskSpillingBuffer<String> buffer = newBuffer(1, 25);
+    assertTrue(buffer.add("000000"));
+    final List<String> drained = new ArrayList<>();
+    for (int i = 1; i < 100; i++) {
+      assertTrue(buffer.add(String.format("%06d", i)));
+      assertEquals(1, buffer.drainTo(drained, 1));
+      assertTrue(buffer.getPendingSpillBytes() <= 25);
+    }
+    while (buffer.drainTo(drained, 10) > 0) {
+      // drain everything
+    }
+
+    assertEquals(IntStream.range(0, 100).mapToObj(i -> String.format("%06d", i)).toList(), drained);
+    assertTrue(buffer.getSpilledBytes() > 25);
+  }
+
+  @Test
+  void testElementsLargerThanTheBudgetWaitForMemory() throws InterruptedException {
+    final DiskSpillingBuffer<String> buffer = newBuffer(1, 8);
+    assertTrue(buffer.add("1"));
+    assertFalse(buffer.add("too large"));
+
+    final CompletableFuture<Boolean> put = CompletableFuture.supplyAsync(() -> {
+      try {
+        return buffer.put("too large");
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    final List<String> drained = new ArrayList<>();
+    while (drained.size() < 2) {
+      buffer.drainTo(drained, 10, 10, TimeUnit.MILLISECONDS);
+    }
+
+    assertTrue(put.join());
+    assertEquals(List.of("1", "too large"), drained);
+    assertEquals(0, buffer.getSpilledBytes());
+  }
+
+  @Test
+  void testNeverSpillsWithoutABudget() {
+    final DiskSpillingBuffer<String> buffer = newBuffer(2, 0);
+    assertTrue(buffer.add("1"));
+    assertTrue(buffer.add("2"));
+    assertFalse(buffer.add("3"));
+    assertEquals(0, buffer.getSpilledBytes());
+  }
+
+  @Test
+  void testCloseStopsProducersOnceDrained() throws InterruptedException {
+    final DiskSpillingBuffer<String> buffer = newBuffer(1, 1024);
+    assertTrue(buffer.add("1"));
+    assertTrue(buffer.add("2"));
+    buffer.close();
+
+    assertFalse(buffer.add("3"));
+    assertFalse(buffer.put("3"));
+    assertFalse(buffer.isDone());
+
+    final List<String> drained = new ArrayList<>();
+    assertEquals(2, buffer.drainTo(drained, 10, 1, TimeUnit.SECONDS));
+    assertTrue(buffer.isDone());
+    assertEquals(0, buffer.drainTo(drained, 10, 1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testNothingIsSpilledOnceTheSpillFileIsReleased() throws InterruptedException {
+    final DiskSpillingBuffer<String> buffer = newBuffer(1, 1024);
+    assertTrue(buffer.add("1"));
+    assertTrue(buffer.add("2"));
+    final long spilledBytes = buffer.getSpilledBytes();
+
+    buffer.releaseSpillFile();
+
+    assertTrue(buffer.isClosed());
+    assertFalse(buffer.add("3"));
+    assertFalse(buffer.put("3"));
+    assertEquals(spilledBytes, buffer.getSpilledBytes());
+  }
+
+  @Test
+  @Timeout(30)
+  void testConcurrentProducerAndConsumerKeepTheOrder() {
+    final int count = 100_000;
+    final DiskSpillingBuffer<String> buffer = newBuffer(16, 1024);
+
+    final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+      try {
+        for (int i = 0; i < count; i++) {
+          assertTrue(buffer.put(String.valueOf(i)));
+        }
+        buffer.close();
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    final List<String> drained = new ArrayList<>(count);
+    final CompletableFuture<Void> consumer = CompletableFuture.runAsync(() -> {
+      try {
+        final List<String> batch = new ArrayList<>();
+        while (!buffer.isDone()) {
+          batch.clear();
+          buffer.drainTo(batch, 100, 10, TimeUnit.MILLISECONDS);
+          drained.addAll(batch);
+          if (drained.size() % 1000 == 0) {
+            // Slow down from time to time so that the producer spills.
+            Thread.sleep(1);
+          }
+        }
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    CompletableFuture.allOf(producer, consumer).join();
+    assertEquals(IntStream.range(0, count).mapToObj(String::valueOf).toList(), drained);
+  }
+
+  private DiskSpillingBuffer<String> newBuffer(final int maxSize, final long maxSpillBytes) {
+    return new DiskSpillingBuffer<>(new BoundedSpscRingBuffer<>(maxSize, 0, String::length), spillDirectory, maxSpillBytes,
+        s -> s.getBytes(StandardCharsets.UTF_8), bytes -> new String(bytes, StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ByteLineReaderTest {
+
+  @Test
+  void testSplitsLikeBufferedReader() {
+    final String input = "first\nsecond\r\n\nunicode \u00e9\u20ac line\nlast without terminator";
+    final List<String> expected = new BufferedReader(new StringReader(input)).lines().toList();
+
+    assertEquals(expected, readAll(input, 64));
+    // A tiny buffer forces lines to span several reads and the buffer to grow.
+    assertEquals(expected, readAll(input, 2));
+  }
+
+  @Test
+  void testTrailingTerminatorDoesNotProduceAnEmptyLine() {
+    assertEquals(List.of("a", "b"), readAll("a\nb\n", 4));
+    assertEquals(List.of(), readAll("", 4));
+  }
+
+  @Test
+  void testLineIsExposedAsSlice() throws IOException {
+    final ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream("ab\ncde".getBytes(StandardCharsets.UTF_8)));
+
+    assertTrue(reader.readLine());
+    assertEquals(2, reader.lineLength());
+    assertEquals("ab", reader.lineAsString());
+    assertTrue(reader.readLine());
+    assertEquals(3, reader.lineLength());
+    assertEquals('c', reader.buffer()[reader.lineOffset()]);
+    assertFalse(reader.readLine());
+  }
+
+  @Test
+  void testReady() throws IOException {
+    final PipedOutputStream out = new PipedOutputStream();
+    final ByteLineReader reader = new ByteLineReader(new PipedInputStream(out), 4);
+
+    assertFalse(reader.ready());
+    out.write("ab\nc".getBytes(StandardCharsets.UTF_8));
+    assertTrue(reader.ready());
+    assertTrue(reader.readLine());
+    assertEquals("ab", reader.lineAsString());
+    // "c" is buffered but incomplete and nothing else is available.
+    assertFalse(reader.ready());
+    out.write("d\n".getBytes(StandardCharsets.UTF_8));
+    assertTrue(reader.ready());
+    assertTrue(reader.readLine());
+    assertEquals("cd", reader.lineAsString());
+    out.close();
+    assertFalse(reader.readLine());
+    assertTrue(reader.ready());
+  }
+
+  @Test
+  void testBatchesOnlyTakeTheLinesThatAreReady() throws IOException {
+    final PipedOutputStream out = new PipedOutputStream();
+    final Iterator<List<String>> batches = new ByteLineReader(new PipedInputStream(out), 4)
+        .batches((buffer, offset, length) -> new String(buffer, offset, length, StandardCharsets.UTF_8), 2)
+        .iterator();
+
+    out.write("a\nb\nc\nd".getBytes(StandardCharsets.UTF_8));
+    assertEquals(List.of("a", "b"), batches.next());
+    // "d" is incomplete, the batch does not wait for it.
+    assertEquals(List.of("c"), batches.next());
+    out.write("\ne\n".getBytes(StandardCharsets.UTF_8));
+    out.close();
+    assertEquals(List.of("d", "e"), batches.next());
+    assertFalse(batches.hasNext());
+  }
+
+  @Test
+  void testLengthIsInBytes() {
+    final List<Integer> lengths = new ByteLineReader(new ByteArrayInputStream("\u00e9\u20ac\n".getBytes(StandardCharsets.UTF_8)))
+        .lines((buffer, offset, length) -> length)
+        .toList();
+    assertEquals(List.of(5), lengths);
+  }
+
+  private static List<String> readAll(final String input, final int bufferSize) {
+    return new ByteLineReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), bufferSize)
+        .lines((buffer, offset, length) -> new String(buffer, offset, length, StandardCharsets.UTF_8))
+        .toList();
+  }
+
+}
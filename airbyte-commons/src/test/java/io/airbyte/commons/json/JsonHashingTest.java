@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonHashingTest {
+
+  private static final String STATE = "{\"cursor\":\"2023-01-01T00:00:00Z\",\"lsn\":123456789012,\"ratio\":0.5,\"done\":false,"
+      + "\"streams\":[{\"name\":\"caf\u00e9\",\"ids\":[1,2,3]},{\"name\":null,\"ids\":[]}],\"empty\":{}}";
+
+  // Documents that are all different from each other, some only by their structure.
+  private static final List<String> DOCUMENTS = List.of(
+      "null", "true", "false", "0", "1", "-1", "1.0", "1.5", "\"1\"", "\"\"", "\"a\"", "\"ab\"",
+      "[]", "[null]", "[[]]", "[1]", "[1,2]", "[2,1]", "[[1],2]", "[1,[2]]", "[\"ab\"]", "[\"a\",\"b\"]",
+      "{}", "{\"a\":null}", "{\"a\":1}", "{\"a\":\"1\"}", "{\"b\":1}", "{\"a\":{}}", "{\"a\":[]}",
+      "{\"a\":\"bc\"}", "{\"ab\":\"c\"}", "{\"a\":1,\"b\":2}", "{\"b\":2,\"a\":1}", "{\"a\":{\"b\":1}}", "{\"a\":{\"b\":{}}}",
+      "123456789012345678901234567890", "123456789012345678901234567891", STATE);
+
+  @Test
+  void testEquivalentDocumentsHaveTheSameHash() {
+    final JsonNode parsed = Jsons.deserialize(STATE);
+
+    assertEquals(hash(parsed), hash(Jsons.deserialize(STATE)));
+    assertEquals(hash(parsed), hash(Jsons.clone(parsed)));
+    assertEquals(hash(parsed), hash(RawJson.of(STATE.getBytes(StandardCharsets.UTF_8))));
+    assertEquals(hash(parsed), hash(Jsons.jsonNode(Jsons.object(parsed, Map.class))));
+  }
+
+  @Test
+  void testNumbersAreHashedByValue() {
+    final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    assertEquals(hash(factory.numberNode(42)), hash(factory.numberNode(42L)));
+    assertEquals(hash(factory.numberNode(42)), hash(factory.numberNode(BigInteger.valueOf(42))));
+    assertEquals(hash(factory.numberNode((short) 42)), hash(Jsons.deserialize("42")));
+    assertNotEquals(hash(factory.numberNode(42)), hash(factory.numberNode(42.0)));
+  }
+
+  @Test
+  void testDifferentDocumentsHaveDifferentHashes() {
+    final List<HashCode> hashes = new ArrayList<>();
+    for (final String document : DOCUMENTS) {
+      hashes.add(hash(Jsons.deserialize(document)));
+    }
+
+    for (int i = 0; i < DOCUMENTS.size(); i++) {
+      for (int j = i + 1; j < DOCUMENTS.size(); j++) {
+        assertNotEquals(hashes.get(i), hashes.get(j), DOCUMENTS.get(i) + " and " + DOCUMENTS.get(j) + " have the same hash");
+      }
+    }
+  }
+
+  @Test
+  void testNullAndMissingNodesAreHashedAsNull() {
+    final ObjectNode object = (ObjectNode) Jsons.deserialize("{\"a\":null}");
+
+    assertEquals(hash(Jsons.deserialize("null")), hash(null));
+    assertEquals(hash(object.get("a")), hash(object.path("b")));
+  }
+
+  private static HashCode hash(final JsonNode node) {
+    return JsonHashing.putJson(Hashing.murmur3_128().newHasher(), node).hash();
+  }
+
+}
@@ -111,6 +111,24 @@ class JsonsTest {
         Jsons.tryDeserialize("{\"str\":\"abc\", \"num\": 999, \"test}"));
   }
 
+  @Test
+  void testTryDeserializeBytesWithInvalidUtf8() {
+    final byte[] prefix = "[{\"str\":\"a".getBytes(Charsets.UTF_8);
+    final byte[] suffix = "c\"}]".getBytes(Charsets.UTF_8);
+    final byte[] bytes = new byte[prefix.length + 1 + suffix.length];
+    System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+    // A lone continuation byte is not valid UTF-8.
+    bytes[prefix.length] = (byte) 0x80;
+    System.arraycopy(suffix, 0, bytes, prefix.length + 1, suffix.length);
+
+    assertEquals(
+        Optional.of(new ToClass("a\uFFFDc", null, 0L)),
+        Jsons.tryDeserialize(bytes, 1, bytes.length - 2, ToClass.class));
+    assertEquals(
+        Optional.empty(),
+        Jsons.tryDeserialize(bytes, 0, prefix.length, ToClass.class));
+  }
+
   @Test
   void testToJsonNode() {
     assertEquals(
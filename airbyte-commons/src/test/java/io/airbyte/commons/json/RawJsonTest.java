@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RawJsonTest {
+
+  private static final String JSON = "{ \"name\" : \"caf\u00e9\", \"tags\": [1, {\"a\": \"}\"}], \"other\": null }";
+
+  @Test
+  void testSerializesVerbatim() {
+    final JsonNode raw = RawJson.of(JSON.getBytes(StandardCharsets.UTF_8));
+
+    assertTrue(RawJson.isRaw(raw));
+    assertEquals(JSON, Jsons.serialize(raw));
+    assertEquals("{\"wrapper\":" + JSON + "}", Jsons.serialize(Map.of("wrapper", raw)));
+    assertEquals(JSON.getBytes(StandardCharsets.UTF_8).length, RawJson.byteSize(raw));
+  }
+
+  @Test
+  void testMaterialize() {
+    final JsonNode raw = RawJson.of(JSON.getBytes(StandardCharsets.UTF_8));
+    final JsonNode tree = Jsons.deserialize(JSON);
+
+    assertEquals(tree, RawJson.materialize(raw));
+    assertSame(tree, RawJson.materialize(tree));
+    assertFalse(RawJson.isRaw(tree));
+  }
+
+  @Test
+  void testFieldNames() {
+    final JsonNode raw = RawJson.of(JSON.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(List.of("name", "tags", "other"), RawJson.fieldNames(raw));
+    assertEquals(List.of("name", "tags", "other"), RawJson.fieldNames(Jsons.deserialize(JSON)));
+    assertEquals(List.of(), RawJson.fieldNames(RawJson.of("[1]".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  void testEquality() {
+    assertEquals(RawJson.of(JSON.getBytes(StandardCharsets.UTF_8)), RawJson.of(JSON.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testByteSizeRequiresARawNode() {
+    assertThrows(IllegalArgumentException.class, () -> RawJson.byteSize(Jsons.deserialize(JSON)));
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.commons.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.airbyte.commons.util.LogLinearHistogram.Snapshot;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LogLinearHistogramTest {
+
+  @Test
+  void testBucketsCoverEveryValue() {
+    long previousUpperBound = -1;
+    for (int i = 0; i < LogLinearHistogram.bucketIndex(Long.MAX_VALUE) + 1; i++) {
+      final long upperBound = LogLinearHistogram.bucketUpperBound(i);
+      assertTrue(upperBound > previousUpperBound);
+      assertEquals(i, LogLinearHistogram.bucketIndex(previousUpperBound + 1));
+      assertEquals(i, LogLinearHistogram.bucketIndex(upperBound));
+      previousUpperBound = upperBound;
+    }
+    assertEquals(Long.MAX_VALUE, previousUpperBound);
+  }
+
+  @Test
+  void testPercentilesAreWithinTheBucketPrecision() {
+    final LogLinearHistogram histogram = new LogLinearHistogram();
+    for (int i = 1; i <= 10_000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    final Snapshot snapshot = histogram.snapshot();
+    assertEquals(10_000, snapshot.getCount());
+    assertEquals(10_000_000, snapshot.getMax());
+    assertWithinPrecision(5_000_000, snapshot.getValueAtPercentile(50));
+    assertWithinPrecision(9_900_000, snapshot.getValueAtPercentile(99));
+    assertEquals(10_000_000, snapshot.getValueAtPercentile(100));
+  }
+
+  @Test
+  void testSmallAndNegativeValuesAreExact() {
+    final LogLinearHistogram histogram = new LogLinearHistogram();
+    histogram.record(-5);
+    histogram.record(3);
+    histogram.record(7);
+
+    final Snapshot snapshot = histogram.snapshot();
+    assertEquals(0, snapshot.getValueAtPercentile(0));
+    assertEquals(0, snapshot.getValueAtPercentile(33));
+    assertEquals(3, snapshot.getValueAtPercentile(50));
+    assertEquals(7, snapshot.getValueAtPercentile(100));
+  }
+
+  @Test
+  void testSnapshotSinceAnEarlierOne() {
+    final LogLinearHistogram histogram = new LogLinearHistogram();
+    histogram.record(1_000_000);
+    final Snapshot earlier = histogram.snapshot();
+    histogram.record(10);
+    histogram.record(20);
+
+    final Snapshot interval = histogram.snapshot().since(earlier);
+    assertEquals(2, interval.getCount());
+    assertEquals(10, interval.getValueAtPercentile(50));
+    assertWithinPrecision(20, interval.getMax());
+    assertEquals(0, histogram.snapshot().since(histogram.snapshot()).getCount());
+  }
+
+  @Test
+  void testSummary() {
+    final LogLinearHistogram histogram = new LogLinearHistogram();
+    assertEquals(Map.of("count", 0L, "p50", 0L, "p90", 0L, "p99", 0L, "p999", 0L, "max", 0L), histogram.snapshot().toSummary());
+
+    histogram.record(4);
+    assertEquals(Map.of("count", 1L, "p50", 4L, "p90", 4L, "p99", 4L, "p999", 4L, "max", 4L), histogram.snapshot().toSummary());
+  }
+
+  private static void assertWithinPrecision(final long expected, final long actual) {
+    assertTrue(actual >= expected && actual <= expected * 1.125, "expected " + expected + " but got " + actual);
+  }
+
+}
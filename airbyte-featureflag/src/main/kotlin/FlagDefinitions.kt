@@ -21,6 +21,17 @@ object NeedStateValidation : EnvVar(envVar = "NEED_STATE_VALIDATION")
 
 object RemoveValidationLimit : Temporary<Boolean>(key = "validation.removeValidationLimit", default = false)
 
+/**
+ * Validate a random sample of the records instead of stopping at 10 records with errors. Once the first records of a stream are
+ * validated, one record out of this many is validated. 0 disables sampling.
+ */
+object SchemaValidationSamplingRatio : Temporary<Int>(key = "validation.samplingRatio", default = 0)
+
+/**
+ * Number of records of each stream that are always validated when the schema validation is sampled.
+ */
+object SchemaValidationSamplingFirstRecords : Permanent<Int>(key = "validation.samplingFirstRecords", default = 1000)
+
 object NormalizationInDestination : Temporary<String>(key = "connectors.normalizationInDestination", default = "")
 
 object FieldSelectionEnabled : Temporary<Boolean>(key = "connection.columnSelection", default = false)
@@ -66,6 +77,52 @@ object ReplicationWorkerImpl : Permanent<String>(key = "platform.replication-wor
 
 object CheckReplicationProgress : Temporary<Boolean>(key="check-replication-progress", default = false)
 
+/**
+ * Maximum number of messages held by each of the buffers of the buffered replication worker.
+ * A value of 0 or less falls back to the default.
+ */
+object ReplicationBufferMaxMessages : Permanent<Int>(key = "platform.replication-buffer-max-messages", default = 1000)
+
+/**
+ * Maximum estimated size in megabytes of the messages held by each of the buffers of the buffered replication worker.
+ * A value of 0 or less only bounds the buffers by message count.
+ */
+object ReplicationBufferMaxMegabytes : Permanent<Int>(key = "platform.replication-buffer-max-megabytes", default = 64)
+
+/**
+ * Disk budget in megabytes for the messages waiting for the destination once its buffer of the buffered replication worker is full.
+ * The source keeps being read while the messages spill to disk. A value of 0 or less blocks the source instead.
+ */
+object ReplicationBufferSpillMaxMegabytes : Permanent<Int>(key = "platform.replication-buffer-spill-max-megabytes", default = 0)
+
+/**
+ * Keep the data of records as the raw JSON emitted by the source instead of parsing it. Only applies to syncs without field
+ * selection and without protocol migration.
+ */
+object PassthroughRecordData : Temporary<Boolean>(key = "platform.passthrough-record-data", default = false)
+
+/**
+ * Number of threads deserializing the output of the source. A value of 1 or less deserializes on the thread reading from the source.
+ */
+object ReplicationDeserializationParallelism : Permanent<Int>(key = "platform.replication-deserialization-parallelism", default = 1)
+
+/**
+ * Maximum number of source log messages waiting to be logged by a background thread. A value of 0 or less logs on the thread reading
+ * from the source.
+ */
+object ConnectorLogBufferSize : Permanent<Int>(key = "platform.connector-log-buffer-size", default = 0)
+
+/**
+ * What to do with source log messages when the log buffer fills up: block, drop_verbose or sample.
+ */
+object ConnectorLogFullBufferPolicy : Permanent<String>(key = "platform.connector-log-full-buffer-policy", default = "block")
+
+/**
+ * Number of threads validating records against the schema of their stream. Records are skipped when the validation threads fall
+ * behind.
+ */
+object SchemaValidationThreads : Permanent<Int>(key = "platform.schema-validation-threads", default = 1)
+
 // NOTE: this is deprecated in favor of FieldSelectionEnabled and will be removed once that flag is fully deployed.
 object FieldSelectionWorkspaces : EnvVar(envVar = "FIELD_SELECTION_WORKSPACES") {
   override fun enabled(ctx: Context): Boolean {
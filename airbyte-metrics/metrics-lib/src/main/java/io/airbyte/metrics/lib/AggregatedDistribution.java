@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.metrics.lib;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.airbyte.commons.util.LogLinearHistogram;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of values that are recorded too often to go through the {@link MetricClient} one by
+ * one, e.g. a value per record.
+ * <p>
+ * Values are aggregated locally, in a histogram and a sum, and a summary of the values recorded
+ * since the last publication is published periodically as gauges: the mean, p50, p90, p99 and max,
+ * tagged with {@link MetricTags#PERCENTILE}. Recording is thread-safe and does not allocate.
+ */
+public class AggregatedDistribution {
+
+  private static final Duration DEFAULT_PUBLISH_PERIOD = Duration.ofSeconds(1);
+
+  private final MetricClient metricClient;
+  private final MetricsRegistry metric;
+  private final MetricAttribute[] attributes;
+  private final Ticker ticker;
+  private final long publishPeriodNanos;
+
+  private final LogLinearHistogram histogram = new LogLinearHistogram();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicBoolean publishing = new AtomicBoolean();
+  private LogLinearHistogram.Snapshot lastPublished;
+  private volatile long lastPublishNanos;
+
+  public AggregatedDistribution(final MetricClient metricClient, final MetricsRegistry metric, final MetricAttribute... attributes) {
+    this(metricClient, metric, Ticker.systemTicker(), DEFAULT_PUBLISH_PERIOD, attributes);
+  }
+
+  @VisibleForTesting
+  AggregatedDistribution(final MetricClient metricClient,
+                         final MetricsRegistry metric,
+                         final Ticker ticker,
+                         final Duration publishPeriod,
+                         final MetricAttribute... attributes) {
+    this.metricClient = metricClient;
+    this.metric = metric;
+    this.attributes = attributes;
+    this.ticker = ticker;
+    this.publishPeriodNanos = publishPeriod.toNanos();
+    this.lastPublished = histogram.snapshot();
+    this.lastPublishNanos = ticker.read();
+  }
+
+  /**
+   * Record a value, publishing the summary of the values recorded so far if the publish period has
+   * elapsed.
+   *
+   * @param value value to record, negative values are recorded as 0
+   */
+  public void record(final long value) {
+    histogram.record(value);
+    sum.add(Math.max(value, 0));
+    if (ticker.read() - lastPublishNanos >= publishPeriodNanos) {
+      publish();
+    }
+  }
+
+  /**
+   * Publish the summary of the values recorded since the last publication, if any. Should be called
+   * once no more values are recorded so that the last ones are not lost.
+   */
+  public void publish() {
+    // A concurrent publication covers the values recorded so far.
+    if (!publishing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      lastPublishNanos = ticker.read();
+      final long intervalSum = sum.sumThenReset();
+      final LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+      final LogLinearHistogram.Snapshot interval = snapshot.since(lastPublished);
+      lastPublished = snapshot;
+      if (interval.getCount() == 0) {
+        return;
+      }
+      // The sum and the histogram are not read atomically, the mean may be off by a few values.
+      publish("mean", (double) intervalSum / interval.getCount());
+      publish("p50", interval.getValueAtPercentile(50));
+      publish("p90", interval.getValueAtPercentile(90));
+      publish("p99", interval.getValueAtPercentile(99));
+      publish("max", interval.getMax());
+    } finally {
+      publishing.set(false);
+    }
+  }
+
+  private void publish(final String percentile, final double value) {
+    final MetricAttribute[] summaryAttributes = Arrays.copyOf(attributes, attributes.length + 1);
+    summaryAttributes[attributes.length] = new MetricAttribute(MetricTags.PERCENTILE, percentile);
+    metricClient.gauge(metric, value, summaryAttributes);
+  }
+
+}
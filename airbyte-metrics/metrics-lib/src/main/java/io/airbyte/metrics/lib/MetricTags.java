@@ -35,7 +35,9 @@ public class MetricTags {
   public static final String MAX_CONNECTOR_RELEASE_STATE = "max_connector_release_stage";
   // the release stage of the lowest release stage connector in the sync (GA > Beta > Alpha)
   public static final String MIN_CONNECTOR_RELEASE_STATE = "min_connector_release_stage";
+  public static final String PERCENTILE = "percentile"; // mean|p50|p90|p99|max
   public static final String RELEASE_STAGE = "release_stage";
+  public static final String REPLICATION_STAGE = "replication_stage"; // readFromSource|processFromSource|writeToDest|readFromDest|processFromDest
   public static final String RESET_WORKFLOW_FAILURE_CAUSE = "failure_cause";
   public static final String SOURCE_ID = "source_id";
   public static final String WORKFLOW_TYPE = "workflow_type";
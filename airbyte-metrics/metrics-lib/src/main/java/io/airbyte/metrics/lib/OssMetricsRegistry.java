@@ -135,10 +135,11 @@ public enum OssMetricsRegistry implements MetricsRegistry {
       MetricEmittingApps.WORKER,
       "job_succeeded_by_release_stage",
       "increments when a job succeeds. jobs are double counted as this is tagged by release stage."),
-  JSON_STRING_LENGTH(
+  // Replaces json_string_length, which was a distribution: its gauges are not emitted under the old name.
+  JSON_STRING_LENGTH_PERCENTILES(
       MetricEmittingApps.WORKER,
-      "json_string_length",
-      "string length of a raw json string"),
+      "json_string_length_percentiles",
+      "summary of the byte length of the raw json messages read from a connector over the last second, tagged by percentile"),
   KUBE_POD_PROCESS_CREATE_TIME_MILLISECS(
       MetricEmittingApps.WORKER,
       "kube_pod_process_create_time_millisecs",
@@ -282,6 +283,24 @@ public enum OssMetricsRegistry implements MetricsRegistry {
   SCHEMA_CHANGE_AUTO_PROPAGATED(MetricEmittingApps.SERVER,
       "schema_change_auto_propagated",
       "a schema change have been propagated"),
+  SCHEMA_VALIDATION_ERROR_RATE_IN_STREAMS(MetricEmittingApps.WORKER,
+      "record_schema_validation_error_rate",
+      "fraction of the validated records of a given stream that did not match its schema"),
+  WORKER_CONNECTOR_LOGS_DROPPED(MetricEmittingApps.WORKER,
+      "worker_connector_logs_dropped",
+      "number of connector log messages dropped because the connector log buffer was full"),
+  WORKER_DESTINATION_BUFFER_BYTES(MetricEmittingApps.WORKER,
+      "worker_destination_buffer_bytes",
+      "the estimated size in bytes of the messages in the replication worker destination buffer queue"),
+
+  WORKER_DESTINATION_BUFFER_EMPTY_MS(MetricEmittingApps.WORKER,
+      "worker_destination_buffer_empty_ms",
+      "time in milliseconds writing to the destination waited for messages because the destination buffer queue was empty"),
+
+  WORKER_DESTINATION_BUFFER_FULL_MS(MetricEmittingApps.WORKER,
+      "worker_destination_buffer_full_ms",
+      "time in milliseconds processing source messages was blocked because the destination buffer queue was full"),
+
   WORKER_DESTINATION_BUFFER_SIZE(MetricEmittingApps.WORKER,
       "worker_destination_buffer_size",
       "the size of the replication worker destination buffer queue"),
@@ -294,13 +313,66 @@ public enum OssMetricsRegistry implements MetricsRegistry {
       "worker_destination_message_sent",
       "whenever a message is sent to the destination"),
 
+  WORKER_DESTINATION_SPILL_BYTES(MetricEmittingApps.WORKER,
+      "worker_destination_spill_bytes",
+      "bytes of messages spilled to disk because the replication worker destination buffer queue was full"),
+
+  WORKER_DESTINATION_SPILL_MS(MetricEmittingApps.WORKER,
+      "worker_destination_spill_ms",
+      "time in milliseconds processing source messages spent spilling them to disk"),
+
+  WORKER_DESTINATION_SPILL_PENDING_BYTES(MetricEmittingApps.WORKER,
+      "worker_destination_spill_pending_bytes",
+      "bytes of messages spilled to disk and not sent to the destination yet"),
+
+  WORKER_SCHEMA_VALIDATION_QUEUE_SIZE(MetricEmittingApps.WORKER,
+      "worker_schema_validation_queue_size",
+      "the number of records waiting to be validated against the schema of their stream"),
+
+  WORKER_SCHEMA_VALIDATION_RECORDS_SKIPPED(MetricEmittingApps.WORKER,
+      "worker_schema_validation_records_skipped",
+      "the number of records that were not validated because the schema validation queue was full"),
+
+  WORKER_SCHEMA_VALIDATION_RECORDS_VALIDATED(MetricEmittingApps.WORKER,
+      "worker_schema_validation_records_validated",
+      "the number of records validated against the schema of their stream"),
+
+  WORKER_SOURCE_BUFFER_BYTES(MetricEmittingApps.WORKER,
+      "worker_source_buffer_bytes",
+      "the estimated size in bytes of the messages in the replication worker source buffer queue"),
+
+  WORKER_SOURCE_BUFFER_EMPTY_MS(MetricEmittingApps.WORKER,
+      "worker_source_buffer_empty_ms",
+      "time in milliseconds processing source messages waited for messages because the source buffer queue was empty"),
+
+  WORKER_SOURCE_BUFFER_FULL_MS(MetricEmittingApps.WORKER,
+      "worker_source_buffer_full_ms",
+      "time in milliseconds reading from the source was blocked because the source buffer queue was full"),
+
   WORKER_SOURCE_BUFFER_SIZE(MetricEmittingApps.WORKER,
       "worker_source_buffer_size",
       "the size of the replication worker source buffer queue"),
 
+  WORKER_SOURCE_DESERIALIZATION_BATCHES_IN_FLIGHT(MetricEmittingApps.WORKER,
+      "worker_source_deserialization_batches_in_flight",
+      "the number of batches of source lines queued or being deserialized in parallel"),
+
+  WORKER_SOURCE_DESERIALIZATION_CONSUMER_BLOCKED_MS(MetricEmittingApps.WORKER,
+      "worker_source_deserialization_consumer_blocked_ms",
+      "time in milliseconds the replication worker waited for a batch of source messages to be deserialized"),
+
+  WORKER_SOURCE_DESERIALIZATION_SPLITTER_BLOCKED_MS(MetricEmittingApps.WORKER,
+      "worker_source_deserialization_splitter_blocked_ms",
+      "time in milliseconds reading source lines was blocked because the deserialization pipeline was full"),
+
   WORKER_SOURCE_MESSAGE_READ(MetricEmittingApps.WORKER,
       "worker_source_message_read",
       "whenever a message is read from the source"),
+
+  WORKER_STAGE_LATENCY_NANOS(MetricEmittingApps.WORKER,
+      "worker_stage_latency_nanos",
+      "percentile of the time in nanoseconds a replication worker stage spent per message, or per batch for the flushDest stage, "
+          + "over the last second"),
   WORKFLOWS_HEALED(MetricEmittingApps.CRON,
       "workflows_healed",
       "number of workflow the self healing cron healed"),
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 Airbyte, Inc., all rights reserved.
+ */
+
+package io.airbyte.metrics.lib;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AggregatedDistributionTest {
+
+  private static final Duration PERIOD = Duration.ofSeconds(1);
+  private static final MetricAttribute ATTRIBUTE = new MetricAttribute("connector", "source-faker");
+
+  private MetricClient metricClient;
+  private Ticker ticker;
+  private AggregatedDistribution distribution;
+
+  @BeforeEach
+  void setUp() {
+    metricClient = mock(MetricClient.class);
+    ticker = mock(Ticker.class);
+    when(ticker.read()).thenReturn(0L);
+    distribution = new AggregatedDistribution(metricClient, OssMetricsRegistry.JSON_STRING_LENGTH_PERCENTILES, ticker, PERIOD, ATTRIBUTE);
+  }
+
+  @Test
+  void testValuesArePublishedOncePerPeriod() {
+    distribution.record(2);
+    distribution.record(4);
+    distribution.record(6);
+    verifyNoInteractions(metricClient);
+
+    when(ticker.read()).thenReturn(PERIOD.toNanos());
+    distribution.record(8);
+
+    verifyGauge("mean", 5);
+    verifyGauge("p50", 4);
+    verifyGauge("p90", 8);
+    verifyGauge("p99", 8);
+    verifyGauge("max", 8);
+    verifyNoMoreInteractions(metricClient);
+  }
+
+  @Test
+  void testOnlyValuesSinceTheLastPublicationArePublished() {
+    distribution.record(1000);
+    distribution.publish();
+    verifyGauge("max", 1000);
+
+    distribution.record(4);
+    distribution.record(6);
+    distribution.publish();
+
+    verifyGauge("mean", 5);
+    verifyGauge("max", 6);
+  }
+
+  @Test
+  void testNothingIsPublishedWithoutValues() {
+    distribution.publish();
+    distribution.record(4);
+    distribution.publish();
+    distribution.publish();
+
+    verifyGauge("mean", 4);
+    verifyGauge("p50", 4);
+    verifyGauge("p90", 4);
+    verifyGauge("p99", 4);
+    verifyGauge("max", 4);
+    verifyNoMoreInteractions(metricClient);
+  }
+
+  private void verifyGauge(final String percentile, final double value) {
+    verify(metricClient).gauge(OssMetricsRegistry.JSON_STRING_LENGTH_PERCENTILES, value, ATTRIBUTE,
+        new MetricAttribute(MetricTags.PERCENTILE, percentile));
+  }
+
+}